@@ -32,6 +32,10 @@ public class UltiRemoteBag extends UltiToolsPlugin {
         // 设置锁超时时间
         BagLockService lockService = getContext().getBean(BagLockService.class);
         if (lockService != null) {
+            if (bagService != null) {
+                // 被锁定或打开着界面的背包不会被淘汰
+                bagService.setLockService(lockService);
+            }
             RemoteBagConfig config = getContext().getBean(RemoteBagConfig.class);
             if (config != null) {
                 lockService.setLockTimeout(config.getLockTimeout());
@@ -44,10 +48,12 @@ public class UltiRemoteBag extends UltiToolsPlugin {
 
     @Override
     public void unregisterSelf() {
-        // 保存所有背包数据
+        // 并行保存所有背包数据，超时未写入的页面下次启动时导入
         RemoteBagService bagService = getContext().getBean(RemoteBagService.class);
         if (bagService != null) {
-            bagService.saveAllBags();
+            bagService.flushOnShutdown();
+            // 等待异步写入队列写完
+            bagService.shutdown();
         }
 
         getLogger().info("UltiRemoteBag has been disabled!");
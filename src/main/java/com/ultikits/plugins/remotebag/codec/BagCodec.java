@@ -0,0 +1,47 @@
+package com.ultikits.plugins.remotebag.codec;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+
+/**
+ * 背包页内容编解码器
+ * <p>
+ * 负责 {@code ItemStack[]} 与数据库 {@code contents} 列文本之间的转换。
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public interface BagCodec {
+
+    /**
+     * @return 编码器名称（配置中使用）
+     */
+    String getName();
+
+    /**
+     * 判断数据是否为本编码器写入的格式
+     *
+     * @param data 非空的编码数据
+     * @return 可以解码返回 true
+     */
+    boolean canDecode(String data);
+
+    /**
+     * 编码背包页内容
+     *
+     * @param items 背包页物品，空槽位为 null
+     * @return 编码后的文本
+     */
+    String encode(ItemStack[] items);
+
+    /**
+     * 解码背包页内容
+     *
+     * @param data 编码数据
+     * @param size 背包页槽位数，数据中槽位更多时结果会相应扩大
+     * @return 背包页物品
+     * @throws IOException 数据损坏或格式不支持
+     */
+    ItemStack[] decode(String data, int size) throws IOException;
+}
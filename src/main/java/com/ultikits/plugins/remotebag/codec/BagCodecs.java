@@ -0,0 +1,40 @@
+package com.ultikits.plugins.remotebag.codec;
+
+/**
+ * 背包编码器注册表
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public final class BagCodecs {
+
+    public static final BagCodec BINARY = new BinaryBagCodec();
+    public static final BagCodec YAML = new YamlBagCodec();
+
+    private BagCodecs() {
+        // 工具类禁止实例化
+    }
+
+    /**
+     * 按名称获取编码器，名称无效时使用二进制编码
+     *
+     * @param name 编码器名称
+     * @return 编码器
+     */
+    public static BagCodec forName(String name) {
+        if (YamlBagCodec.NAME.equalsIgnoreCase(name)) {
+            return YAML;
+        }
+        return BINARY;
+    }
+
+    /**
+     * 根据数据格式选择解码器，非二进制数据按旧版 YAML 读取
+     *
+     * @param data 非空的编码数据
+     * @return 编码器
+     */
+    public static BagCodec forData(String data) {
+        return BINARY.canDecode(data) ? BINARY : YAML;
+    }
+}
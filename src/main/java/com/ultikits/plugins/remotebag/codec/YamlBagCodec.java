@@ -0,0 +1,60 @@
+package com.ultikits.plugins.remotebag.codec;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+
+/**
+ * 旧版 YAML 文本编码（{@code items.<slot>: <ItemStack>}）
+ * <p>
+ * 作为兜底格式，可以读取任何非二进制格式的数据。
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class YamlBagCodec implements BagCodec {
+
+    public static final String NAME = "yaml";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean canDecode(String data) {
+        return true;
+    }
+
+    @Override
+    public String encode(ItemStack[] items) {
+        YamlConfiguration yaml = new YamlConfiguration();
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != null) {
+                yaml.set("items." + i, items[i]);
+            }
+        }
+        return yaml.saveToString();
+    }
+
+    @Override
+    public ItemStack[] decode(String data, int size) throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        try {
+            yaml.loadFromString(data);
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("Invalid YAML bag contents", e);
+        }
+
+        ItemStack[] items = new ItemStack[size];
+        if (yaml.isConfigurationSection("items")) {
+            for (String key : yaml.getConfigurationSection("items").getKeys(false)) {
+                int slot = Integer.parseInt(key);
+                items[slot] = yaml.getItemStack("items." + key);
+            }
+        }
+        return items;
+    }
+}
@@ -5,7 +5,12 @@ import com.ultikits.plugins.remotebag.entity.BagOpenResult;
 import com.ultikits.plugins.remotebag.enums.AccessMode;
 import com.ultikits.plugins.remotebag.gui.RemoteBagContentGUI;
 import com.ultikits.plugins.remotebag.gui.RemoteBagMainGUI;
+import com.ultikits.plugins.remotebag.service.AutoSaveScheduler;
+import com.ultikits.plugins.remotebag.service.BagJournal;
 import com.ultikits.plugins.remotebag.service.BagLockService;
+import com.ultikits.plugins.remotebag.service.BagOpener;
+import com.ultikits.plugins.remotebag.service.BagSaveQueue;
+import com.ultikits.plugins.remotebag.service.DepartedBagCache;
 import com.ultikits.plugins.remotebag.service.RemoteBagService;
 import com.ultikits.plugins.remotebag.util.SoundUtil;
 import com.ultikits.ultitools.abstracts.UltiToolsPlugin;
@@ -56,15 +61,16 @@ public class BagCommand extends BaseCommandExecutor {
     // ==================== 玩家命令 ====================
     
     /**
-     * 打开背包主页
+     * 打开背包主页，背包在异步线程读取后打开
      */
     @CmdMapping(format = "")
     public void openMainPage(@CmdSender Player player) {
-        new RemoteBagMainGUI(player, plugin, bagService, lockService, config).open();
+        bagService.openWhenLoaded(player, player.getUniqueId(), 0,
+                () -> new RemoteBagMainGUI(player, plugin, bagService, lockService, config).open());
     }
     
     /**
-     * 打开指定页码的背包
+     * 打开指定页码的背包，背包在异步线程读取后打开
      */
     @CmdMapping(format = "<page>")
     public void openPage(@CmdSender Player player, @CmdParam("page") int page) {
@@ -77,8 +83,14 @@ public class BagCommand extends BaseCommandExecutor {
             return;
         }
         
+        bagService.openWhenLoaded(player, player.getUniqueId(), page, () -> openOwnPage(player, page));
+    }
+
+    /**
+     * 背包读取后打开自己的背包页
+     */
+    private void openOwnPage(Player player, int page) {
         // 检查背包是否存在
-        bagService.loadBagIfNeeded(player.getUniqueId());
         List<Integer> existingPages = bagService.getPlayerBagPages(player.getUniqueId());
         
         if (!existingPages.contains(page)) {
@@ -119,17 +131,19 @@ public class BagCommand extends BaseCommandExecutor {
             return;
         }
         
-        // 加载目标玩家背包
-        bagService.loadBagIfNeeded(target.getUniqueId());
-        List<Integer> pages = bagService.getPlayerBagPages(target.getUniqueId());
-        
-        if (pages.isEmpty()) {
-            admin.sendMessage(ChatColor.YELLOW + i18n("player_no_bags").replace("{0}", playerName));
-            return;
-        }
-        
-        // 打开第一页
-        openAdminBagPage(admin, target.getUniqueId(), pages.get(0), playerName);
+        // 在异步线程加载目标玩家背包
+        UUID ownerUuid = target.getUniqueId();
+        bagService.openWhenLoaded(admin, ownerUuid, 0, () -> {
+            List<Integer> pages = bagService.getPlayerBagPages(ownerUuid);
+            
+            if (pages.isEmpty()) {
+                admin.sendMessage(ChatColor.YELLOW + i18n("player_no_bags").replace("{0}", playerName));
+                return;
+            }
+            
+            // 打开第一页
+            openAdminBagPage(admin, ownerUuid, pages.get(0), playerName);
+        });
     }
     
     /**
@@ -145,14 +159,15 @@ public class BagCommand extends BaseCommandExecutor {
             return;
         }
         
-        openAdminBagPage(admin, target.getUniqueId(), page, playerName);
+        UUID ownerUuid = target.getUniqueId();
+        bagService.openWhenLoaded(admin, ownerUuid, page,
+                () -> openAdminBagPage(admin, ownerUuid, page, playerName));
     }
     
     /**
-     * 管理员打开背包页
+     * 背包读取后管理员打开背包页
      */
     private void openAdminBagPage(Player admin, UUID ownerUuid, int page, String ownerName) {
-        bagService.loadBagIfNeeded(ownerUuid);
         List<Integer> pages = bagService.getPlayerBagPages(ownerUuid);
         
         if (!pages.contains(page)) {
@@ -187,14 +202,18 @@ public class BagCommand extends BaseCommandExecutor {
             return;
         }
         
-        int newPage = bagService.createBagPage(target.getUniqueId());
-        if (newPage > 0) {
-            admin.sendMessage(ChatColor.GREEN + i18n("admin_bag_created")
-                    .replace("{0}", playerName)
-                    .replace("{1}", String.valueOf(newPage)));
-        } else {
-            admin.sendMessage(ChatColor.RED + i18n("admin_bag_create_failed").replace("{0}", playerName));
-        }
+        // 背包在异步线程读取后再创建
+        // 新页写入数据库后在主线程提示结果
+        bagService.openWhenLoaded(admin, target.getUniqueId(), 0, () ->
+                bagService.createBagPage(target.getUniqueId()).whenComplete((newPage, error) -> {
+                    if (error == null && newPage > 0) {
+                        admin.sendMessage(ChatColor.GREEN + i18n("admin_bag_created")
+                                .replace("{0}", playerName)
+                                .replace("{1}", String.valueOf(newPage)));
+                    } else {
+                        admin.sendMessage(ChatColor.RED + i18n("admin_bag_create_failed").replace("{0}", playerName));
+                    }
+                }));
     }
     
     /**
@@ -216,15 +235,18 @@ public class BagCommand extends BaseCommandExecutor {
             return;
         }
         
-        if (bagService.deleteBagPage(target.getUniqueId(), page)) {
-            admin.sendMessage(ChatColor.GREEN + i18n("admin_bag_deleted")
-                    .replace("{0}", playerName)
-                    .replace("{1}", String.valueOf(page)));
-        } else {
-            admin.sendMessage(ChatColor.RED + i18n("admin_bag_delete_failed")
-                    .replace("{0}", playerName)
-                    .replace("{1}", String.valueOf(page)));
-        }
+        bagService.openWhenLoaded(admin, target.getUniqueId(), 0, () ->
+                bagService.deleteBagPage(target.getUniqueId(), page).whenComplete((deleted, error) -> {
+                    if (error == null && deleted) {
+                        admin.sendMessage(ChatColor.GREEN + i18n("admin_bag_deleted")
+                                .replace("{0}", playerName)
+                                .replace("{1}", String.valueOf(page)));
+                    } else {
+                        admin.sendMessage(ChatColor.RED + i18n("admin_bag_delete_failed")
+                                .replace("{0}", playerName)
+                                .replace("{1}", String.valueOf(page)));
+                    }
+                }));
     }
     
     /**
@@ -246,15 +268,18 @@ public class BagCommand extends BaseCommandExecutor {
             return;
         }
         
-        if (bagService.clearBagPage(target.getUniqueId(), page)) {
-            admin.sendMessage(ChatColor.GREEN + i18n("admin_bag_cleared")
-                    .replace("{0}", playerName)
-                    .replace("{1}", String.valueOf(page)));
-        } else {
-            admin.sendMessage(ChatColor.RED + i18n("admin_bag_clear_failed")
-                    .replace("{0}", playerName)
-                    .replace("{1}", String.valueOf(page)));
-        }
+        bagService.openWhenLoaded(admin, target.getUniqueId(), 0, () ->
+                bagService.clearBagPage(target.getUniqueId(), page).whenComplete((cleared, error) -> {
+                    if (error == null && cleared) {
+                        admin.sendMessage(ChatColor.GREEN + i18n("admin_bag_cleared")
+                                .replace("{0}", playerName)
+                                .replace("{1}", String.valueOf(page)));
+                    } else {
+                        admin.sendMessage(ChatColor.RED + i18n("admin_bag_clear_failed")
+                                .replace("{0}", playerName)
+                                .replace("{1}", String.valueOf(page)));
+                    }
+                }));
     }
     
     /**
@@ -268,8 +293,15 @@ public class BagCommand extends BaseCommandExecutor {
             return;
         }
         
-        bagService.loadBagIfNeeded(target.getUniqueId());
-        List<Integer> pages = bagService.getPlayerBagPages(target.getUniqueId());
+        UUID ownerUuid = target.getUniqueId();
+        bagService.openWhenLoaded(admin, ownerUuid, 0, () -> listLoadedBags(admin, ownerUuid, playerName));
+    }
+
+    /**
+     * 背包读取后列出背包页
+     */
+    private void listLoadedBags(Player admin, UUID ownerUuid, String playerName) {
+        List<Integer> pages = bagService.getPlayerBagPages(ownerUuid);
         
         admin.sendMessage(ChatColor.GOLD + "=== " + playerName + " " + i18n("bag_list_title") + " ===");
         
@@ -277,8 +309,8 @@ public class BagCommand extends BaseCommandExecutor {
             admin.sendMessage(ChatColor.GRAY + i18n("no_bags"));
         } else {
             for (int pageNum : pages) {
-                int itemCount = bagService.getItemCount(target.getUniqueId(), pageNum);
-                int stackCount = bagService.getStackCount(target.getUniqueId(), pageNum);
+                int itemCount = bagService.getItemCount(ownerUuid, pageNum);
+                int stackCount = bagService.getStackCount(ownerUuid, pageNum);
                 admin.sendMessage(ChatColor.YELLOW + "  #" + pageNum + ChatColor.WHITE + " - " +
                         i18n("items_stacks")
                                 .replace("{0}", String.valueOf(itemCount))
@@ -288,6 +320,112 @@ public class BagCommand extends BaseCommandExecutor {
         admin.sendMessage(ChatColor.GOLD + i18n("total_bags").replace("{0}", String.valueOf(pages.size())));
     }
     
+    /**
+     * 查看背包存储统计（管理员）
+     */
+    @CmdMapping(format = "stats", permission = "ultibag.admin.stats")
+    public void showStats(@CmdSender Player admin) {
+        admin.sendMessage(ChatColor.GOLD + "=== UltiRemoteBag " + i18n("stats_title") + " ===");
+        admin.sendMessage(ChatColor.YELLOW + i18n("stats_dirty_pages")
+                .replace("{0}", String.valueOf(bagService.getDirtyPageCount())));
+        admin.sendMessage(ChatColor.YELLOW + i18n("stats_saved_pages")
+                .replace("{0}", String.valueOf(bagService.getSavedPageCount()))
+                .replace("{1}", String.valueOf(bagService.getSkippedPageCount())));
+
+        BagSaveQueue queue = bagService.getSaveQueue();
+        if (queue != null) {
+            admin.sendMessage(ChatColor.YELLOW + i18n("stats_save_queue")
+                    .replace("{0}", String.valueOf(queue.getDepth()))
+                    .replace("{1}", String.valueOf(queue.getPeakDepth()))
+                    .replace("{2}", String.valueOf(queue.getCapacity())));
+            admin.sendMessage(ChatColor.YELLOW + i18n("stats_save_queue_writes")
+                    .replace("{0}", String.valueOf(queue.getWrittenCount()))
+                    .replace("{1}", String.valueOf(queue.getCoalescedCount()))
+                    .replace("{2}", String.valueOf(queue.getFailedCount()))
+                    .replace("{3}", String.valueOf(queue.getRejectedCount()))
+                    .replace("{4}", String.valueOf(queue.getBatchCount())));
+        }
+        admin.sendMessage(ChatColor.YELLOW + i18n("stats_cache")
+                .replace("{0}", String.valueOf(bagService.getCachedBagCount()))
+                .replace("{1}", String.valueOf(config.getCacheMaxBags()))
+                .replace("{2}", String.valueOf(bagService.getCachedPageCount()))
+                .replace("{3}", String.valueOf(config.getCacheMaxPages()))
+                .replace("{4}", String.valueOf(bagService.getCacheHitCount()))
+                .replace("{5}", String.valueOf(bagService.getCacheMissCount()))
+                .replace("{6}", String.valueOf(bagService.getCacheEvictionCount())));
+        admin.sendMessage(ChatColor.YELLOW + i18n("stats_lazy_pages")
+                .replace("{0}", String.valueOf(bagService.getEncodedPageCount()))
+                .replace("{1}", String.valueOf(bagService.getLazyDecodeCount()))
+                .replace("{2}", String.valueOf(bagService.getReusedEncodingCount())));
+        DepartedBagCache<?> departed = bagService.getDepartedCache();
+        if (departed != null && departed.isEnabled()) {
+            admin.sendMessage(ChatColor.YELLOW + i18n("stats_departed_cache")
+                    .replace("{0}", String.valueOf(departed.getSize()))
+                    .replace("{1}", String.valueOf(departed.getBytes() / 1024))
+                    .replace("{2}", String.valueOf(departed.getMaxBytes() / 1024))
+                    .replace("{3}", String.valueOf(departed.getHitCount()))
+                    .replace("{4}", String.valueOf(departed.getMissCount()))
+                    .replace("{5}", String.valueOf(departed.getExpiredCount()))
+                    .replace("{6}", String.valueOf(departed.getEvictedCount())));
+            admin.sendMessage(ChatColor.YELLOW + i18n("stats_hit_rates")
+                    .replace("{0}", hitRate(bagService.getCacheHitCount(), bagService.getCacheMissCount()))
+                    .replace("{1}", hitRate(departed.getHitCount(), departed.getMissCount()))
+                    .replace("{2}", String.valueOf(departed.getMissCount())));
+        }
+        admin.sendMessage(ChatColor.YELLOW + i18n("stats_summary_backfill")
+                .replace("{0}", String.valueOf(bagService.getSummaryBackfillCount()))
+                .replace("{1}", String.valueOf(bagService.getPendingSummaryBackfillCount())));
+        if (bagService.isDeltaMode()) {
+            admin.sendMessage(ChatColor.YELLOW + i18n("stats_delta")
+                    .replace("{0}", String.valueOf(bagService.getDeltaSaveCount()))
+                    .replace("{1}", String.valueOf(bagService.getDeltaCompactCount())));
+        }
+        BagJournal journal = bagService.getJournal();
+        if (journal != null) {
+            admin.sendMessage(ChatColor.YELLOW + i18n("stats_journal")
+                    .replace("{0}", String.valueOf(journal.getPendingCount()))
+                    .replace("{1}", String.valueOf(journal.getSize() / 1024))
+                    .replace("{2}", String.valueOf(journal.getAppendedCount()))
+                    .replace("{3}", String.valueOf(journal.getSyncCount()))
+                    .replace("{4}", String.valueOf(journal.getTruncateCount()))
+                    .replace("{5}", String.valueOf(journal.getFailedCount())));
+        }
+        AutoSaveScheduler autoSave = bagService.getAutoSaveScheduler();
+        if (autoSave != null) {
+            admin.sendMessage(ChatColor.YELLOW + i18n("stats_autosave")
+                    .replace("{0}", String.valueOf(autoSave.getIntervalMillis() / 1000))
+                    .replace("{1}", String.valueOf(autoSave.getScheduledCount()))
+                    .replace("{2}", String.valueOf(autoSave.getLastCycleSaves()))
+                    .replace("{3}", String.format("%.1f", autoSave.getLastCycleWorkMillis()))
+                    .replace("{4}", String.format("%.2f", autoSave.getMaxTickMillis()))
+                    .replace("{5}", String.valueOf(autoSave.getOverBudgetTickCount())));
+        } else {
+            admin.sendMessage(ChatColor.YELLOW + i18n("stats_autosave_disabled"));
+        }
+        admin.sendMessage(ChatColor.YELLOW + i18n("stats_preload")
+                .replace("{0}", String.valueOf(bagService.getPreloadCount()))
+                .replace("{1}", String.valueOf(bagService.getWarmOpenCount()))
+                .replace("{2}", String.valueOf(bagService.getColdOpenCount()))
+                .replace("{3}", String.valueOf(bagService.getPreloadTimeoutCount()))
+                .replace("{4}", String.valueOf(bagService.getPreloadRejectedCount() + bagService.getPreloadFailedCount())));
+        BagOpener opener = bagService.getOpener();
+        if (opener != null) {
+            admin.sendMessage(ChatColor.YELLOW + i18n("stats_open")
+                    .replace("{0}", String.valueOf(opener.getInlineOpenCount()))
+                    .replace("{1}", String.format("%.2f", opener.getAverageInlineOpenMillis()))
+                    .replace("{2}", String.format("%.2f", opener.getMaxInlineOpenMillis()))
+                    .replace("{3}", String.valueOf(opener.getAsyncOpenCount()))
+                    .replace("{4}", String.format("%.2f", opener.getAverageAsyncOpenMillis()))
+                    .replace("{5}", String.format("%.2f", opener.getMaxAsyncOpenMillis()))
+                    .replace("{6}", String.valueOf(opener.getNoticeCount()))
+                    .replace("{7}", String.valueOf(opener.getFailedCount())));
+        }
+        admin.sendMessage(ChatColor.YELLOW + i18n("stats_locks")
+                .replace("{0}", String.valueOf(lockService.getActiveLockCount()))
+                .replace("{1}", String.valueOf(lockService.getExpiredLockCount()))
+                .replace("{2}", String.valueOf(lockService.getPendingExpiryCount())));
+    }
+    
     // ==================== 帮助命令 ====================
     
     @Override
@@ -312,10 +450,20 @@ public class BagCommand extends BaseCommandExecutor {
                         ChatColor.WHITE + " - " + i18n("help_clear"));
                 player.sendMessage(ChatColor.YELLOW + "/bag list <" + i18n("player") + ">" + 
                         ChatColor.WHITE + " - " + i18n("help_list"));
+                player.sendMessage(ChatColor.YELLOW + "/bag stats" +
+                        ChatColor.WHITE + " - " + i18n("help_stats"));
             }
         }
     }
     
+    /**
+     * 命中率百分比
+     */
+    private static String hitRate(long hits, long misses) {
+        long total = hits + misses;
+        return String.format("%.1f", total > 0 ? hits * 100.0 / total : 0.0);
+    }
+
     /**
      * i18n 快捷方法
      */
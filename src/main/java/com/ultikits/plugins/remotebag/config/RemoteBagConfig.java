@@ -47,8 +47,98 @@ public class RemoteBagConfig extends AbstractConfigEntity {
     @ConfigEntry(path = "auto_save_interval", comment = "Auto save interval in seconds (0 to disable)")
     private int autoSaveInterval = 300;
     
-    @ConfigEntry(path = "save_on_close", comment = "Save bag when player closes the GUI")
+    @ConfigEntry(path = "save_on_close", comment = "Write the bag to the database when the player closes the GUI; when off, closed pages are written by auto-save, on quit and on shutdown")
     private boolean saveOnClose = true;
+
+    // ==================== 存储设置 ====================
+
+    @ConfigEntry(path = "storage.async_save", comment = "是否在独立 I/O 线程异步写入数据库；关闭时写入在调用线程同步执行，打开界面时的读取仍在 I/O 线程")
+    private boolean asyncSave = true;
+
+    @Range(min = 16, max = 65536)
+    @ConfigEntry(path = "storage.save_queue_capacity", comment = "异步写入队列最多待写入页数，队列满时本次保存被拒绝，页面保留为未保存并在下次保存时重试")
+    private int saveQueueCapacity = 1024;
+
+    @Range(min = 1, max = 32)
+    @ConfigEntry(path = "storage.io_threads", comment = "异步读写数据库的线程数；同一玩家的背包操作在同一通道按顺序执行，不同玩家并行")
+    private int ioThreads = 4;
+
+    @Range(min = 1, max = 600)
+    @ConfigEntry(path = "storage.shutdown_timeout_seconds", comment = "关闭插件时等待写入队列完成的最长时间（秒）")
+    private int saveQueueShutdownTimeout = 30;
+
+    @Range(min = 1, max = 32)
+    @ConfigEntry(path = "storage.shutdown_flush_threads", comment = "关闭插件时并行写入背包的线程数，每个玩家的页面作为一批写入")
+    private int shutdownFlushThreads = 4;
+
+    @Range(min = 1, max = 600)
+    @ConfigEntry(path = "storage.shutdown_flush_deadline_seconds", comment = "关闭插件时写入背包的截止时间（秒），到期未写入的页面保存到 journal/bag.recovery，下次启动时导入")
+    private int shutdownFlushDeadline = 20;
+
+    @NotEmpty
+    @ConfigEntry(path = "storage.codec", comment = "背包内容编码: binary（紧凑二进制）或 yaml（旧版文本），旧格式数据在下次保存时转换")
+    private String storageCodec = "binary";
+
+    @ConfigEntry(path = "storage.preload", comment = "玩家登录时在异步线程预加载背包，首次打开无需在主线程查询数据库")
+    private boolean preloadEnabled = true;
+
+    @Range(min = 1, max = 32)
+    @ConfigEntry(path = "storage.preload_concurrency", comment = "同时进行的背包预加载数量上限")
+    private int preloadConcurrency = 4;
+
+    @Range(min = 100, max = 30000)
+    @ConfigEntry(path = "storage.preload_timeout_millis", comment = "登录时等待预加载的最长时间（毫秒），超时后登录继续，加载在后台完成")
+    private int preloadTimeoutMillis = 2000;
+
+    @Range(min = 0, max = 10000)
+    @ConfigEntry(path = "storage.open_loading_millis", comment = "打开背包时在异步线程读取，超过此时间（毫秒）仍未读取完成时提示正在加载；读取完成后在主线程打开界面")
+    private int openLoadingMillis = 250;
+
+    @Range(min = 10, max = 100000)
+    @ConfigEntry(path = "storage.cache_max_bags", comment = "内存中最多缓存的玩家背包数，超出时淘汰最久未使用的离线玩家背包")
+    private int cacheMaxBags = 1000;
+
+    @Range(min = 10, max = 1000000)
+    @ConfigEntry(path = "storage.cache_max_pages", comment = "内存中最多缓存的背包页数，超出时同样按最久未使用淘汰")
+    private int cacheMaxPages = 10000;
+
+    @Range(min = 0, max = 1024)
+    @ConfigEntry(path = "storage.departed_cache_mb", comment = "玩家退出后背包以压缩数据保留在内存中的总大小上限（MB），短时间内重新进入无需读取数据库；重新进入时不与数据库核对，仅在只有本服务器写入背包数据时开启；0 为关闭")
+    private int departedCacheMegabytes = 0;
+
+    @Range(min = 1, max = 3600)
+    @ConfigEntry(path = "storage.departed_cache_seconds", comment = "玩家退出后背包保留在内存中的时间（秒）")
+    private int departedCacheSeconds = 300;
+
+    @Range(min = 0, max = 1000)
+    @ConfigEntry(path = "storage.summary_backfill_batch", comment = "每秒为旧数据回填背包页摘要（物品数量、预览）的最大页数，0 为关闭")
+    private int summaryBackfillBatch = 20;
+
+    @Range(min = 1, max = 50)
+    @ConfigEntry(path = "storage.auto_save_tick_budget_millis", comment = "自动保存每 tick 最多占用的时间（毫秒），超出的背包顺延到下一 tick")
+    private int autoSaveTickBudget = 5;
+
+    @ConfigEntry(path = "storage.journal", comment = "页面修改先写入本地预写日志（journal/bag.journal），崩溃后启动时重放到数据库；开启后可关闭 save_on_close（关闭界面时只更新缓存）并调大 auto_save_interval 以减少数据库写入")
+    private boolean journalEnabled = false;
+
+    @Range(min = 1, max = 4096)
+    @ConfigEntry(path = "storage.journal_compact_mb", comment = "预写日志超过此大小（MB）时只保留未写入数据库的记录重写")
+    private int journalCompactMegabytes = 64;
+
+    @ConfigEntry(path = "storage.delta_mode", comment = "只把修改过的格子作为增量记录写入 remote_bag_deltas 表，适合很大且每次只改动少量格子的背包页；增量只在开启时读取，关闭前需保持开启直到所有页都合并过一次")
+    private boolean deltaMode = false;
+
+    @Range(min = 1, max = 1000)
+    @ConfigEntry(path = "storage.delta_compact_threshold", comment = "每页的增量记录达到此数量时，下次保存合并为完整快照")
+    private int deltaCompactThreshold = 16;
+
+    @NotEmpty
+    @ConfigEntry(path = "storage.backend", comment = "背包数据存储: database（UltiTools 数据库）或 file（插件目录下 store/ 中的本地日志文件，不支持 delta_mode）；切换后不会自动迁移已有数据")
+    private String storageBackend = "database";
+
+    @Range(min = 1, max = 1024)
+    @ConfigEntry(path = "storage.file_segment_mb", comment = "file 存储每个段文件的大小（MB），无效数据超过一半时后台整理最旧的段")
+    private int fileSegmentMegabytes = 64;
     
     @NotEmpty
     @ConfigEntry(path = "messages.no_permission", comment = "No permission message")
@@ -1,21 +1,34 @@
 package com.ultikits.plugins.remotebag.entity;
 
 import com.ultikits.plugins.remotebag.enums.LockType;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 背包锁信息实体
  * 记录背包锁的持有者和相关信息
+ * <p>
+ * 锁以租约方式持有：过期判断基于单调时钟上的最近续租时间，
+ * 持有者通过 {@link #renew()} 续租，无需重新创建对象。
  * 
  * @author wisdomme
  * @version 1.0.0
  */
 @Data
-@Builder
 public class BagLockInfo {
+
+    /**
+     * 回溯起始时间的上限，超时时间不会超过该值
+     */
+    private static final long MAX_BACKDATE_MILLIS = TimeUnit.DAYS.toMillis(1);
     
     /**
      * 锁持有者 UUID
@@ -33,9 +46,36 @@ public class BagLockInfo {
     private final LockType lockType;
     
     /**
-     * 锁获取时间（毫秒时间戳）
+     * 锁获取时间（毫秒时间戳，用于显示）
      */
     private final long acquiredAt;
+
+    /**
+     * 最近一次续租的单调时钟时间（纳秒，{@link System#nanoTime()}）
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile long leaseRenewedNanos;
+
+    @Builder
+    private BagLockInfo(UUID holderUuid, String holderName, LockType lockType, long acquiredAt) {
+        this.holderUuid = holderUuid;
+        this.holderName = holderName;
+        this.lockType = lockType;
+        this.acquiredAt = acquiredAt;
+        // Project the wall-clock acquisition time onto the monotonic clock once
+        long elapsedMillis = Math.min(Math.max(0L, System.currentTimeMillis() - acquiredAt), MAX_BACKDATE_MILLIS);
+        this.leaseRenewedNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
+    }
+
+    /**
+     * 续租，租约从当前时间重新计算
+     */
+    public void renew() {
+        leaseRenewedNanos = System.nanoTime();
+    }
     
     /**
      * 检查锁是否已过期
@@ -44,6 +84,17 @@ public class BagLockInfo {
      * @return 如果已过期返回 true
      */
     public boolean isExpired(long timeoutMillis) {
-        return System.currentTimeMillis() - acquiredAt > timeoutMillis;
+        return System.nanoTime() - leaseRenewedNanos > TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * 获取租约剩余时间
+     *
+     * @param timeoutMillis 超时时间（毫秒）
+     * @return 剩余毫秒数，已过期返回 0
+     */
+    public long getRemainingMillis(long timeoutMillis) {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis) - (System.nanoTime() - leaseRenewedNanos);
+        return remainingNanos > 0 ? TimeUnit.NANOSECONDS.toMillis(remainingNanos) : 0L;
     }
 }
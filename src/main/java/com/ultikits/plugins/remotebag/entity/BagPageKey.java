@@ -0,0 +1,89 @@
+package com.ultikits.plugins.remotebag.entity;
+
+import java.util.UUID;
+
+/**
+ * 背包页复合键（所有者 UUID + 页码）
+ * <p>
+ * 直接保存 UUID 的两个 long 和页码，哈希值在构造时计算，
+ * 替代 {@code uuid.toString() + ":" + page} 字符串键，查找时只需一次小对象分配。
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public final class BagPageKey {
+
+    private final long ownerMostSigBits;
+    private final long ownerLeastSigBits;
+    private final int pageNumber;
+    private final int hash;
+
+    private BagPageKey(long ownerMostSigBits, long ownerLeastSigBits, int pageNumber) {
+        this.ownerMostSigBits = ownerMostSigBits;
+        this.ownerLeastSigBits = ownerLeastSigBits;
+        this.pageNumber = pageNumber;
+        long bits = ownerMostSigBits ^ ownerLeastSigBits;
+        this.hash = 31 * ((int) (bits >> 32) ^ (int) bits) + pageNumber;
+    }
+
+    /**
+     * 创建背包页键
+     *
+     * @param ownerUuid  背包所有者 UUID
+     * @param pageNumber 页码
+     * @return 背包页键
+     */
+    public static BagPageKey of(UUID ownerUuid, int pageNumber) {
+        return new BagPageKey(ownerUuid.getMostSignificantBits(), ownerUuid.getLeastSignificantBits(), pageNumber);
+    }
+
+    /**
+     * @return 背包所有者 UUID（每次调用新建对象）
+     */
+    public UUID getOwnerUuid() {
+        return new UUID(ownerMostSigBits, ownerLeastSigBits);
+    }
+
+    /**
+     * @return 页码
+     */
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    /**
+     * 判断是否属于指定所有者
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @return 属于该所有者返回 true
+     */
+    public boolean isOwnedBy(UUID ownerUuid) {
+        return ownerMostSigBits == ownerUuid.getMostSignificantBits()
+                && ownerLeastSigBits == ownerUuid.getLeastSignificantBits();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BagPageKey)) {
+            return false;
+        }
+        BagPageKey other = (BagPageKey) o;
+        return hash == other.hash
+                && pageNumber == other.pageNumber
+                && ownerLeastSigBits == other.ownerLeastSigBits
+                && ownerMostSigBits == other.ownerMostSigBits;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return getOwnerUuid() + ":" + pageNumber;
+    }
+}
@@ -0,0 +1,223 @@
+package com.ultikits.plugins.remotebag.entity;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 背包页摘要
+ * <p>
+ * 保存在 {@link RemoteBagData} 的 item_count、stack_count、preview 列中，
+ * 背包列表只需读取摘要即可显示，无需反序列化页面内容：
+ * <ul>
+ *   <li>物品总数量和占用槽位数</li>
+ *   <li>数量最多的几种物品，格式为 {@code STONE:64,DIRT:32}</li>
+ * </ul>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public final class PageSummary {
+
+    /**
+     * 预览中最多保留的物品种类数
+     */
+    public static final int PREVIEW_SIZE = 3;
+
+    /**
+     * 空页面的摘要
+     */
+    public static final PageSummary EMPTY = new PageSummary(0, 0, Collections.<PreviewEntry>emptyList());
+
+    private final int itemCount;
+    private final int stackCount;
+    private final List<PreviewEntry> preview;
+
+    private PageSummary(int itemCount, int stackCount, List<PreviewEntry> preview) {
+        this.itemCount = itemCount;
+        this.stackCount = stackCount;
+        this.preview = preview;
+    }
+
+    /**
+     * 预览中的一种物品
+     */
+    public static final class PreviewEntry {
+        private final String material;
+        private final int amount;
+
+        private PreviewEntry(String material, int amount) {
+            this.material = material;
+            this.amount = amount;
+        }
+
+        /**
+         * @return 物品类型名称（{@link Material#name()}）
+         */
+        public String getMaterial() {
+            return material;
+        }
+
+        /**
+         * @return 该类型物品的总数量
+         */
+        public int getAmount() {
+            return amount;
+        }
+    }
+
+    /**
+     * 根据页面内容计算摘要
+     *
+     * @param items 页面内容，可为 null
+     * @return 页面摘要
+     */
+    public static PageSummary of(ItemStack[] items) {
+        if (items == null) {
+            return EMPTY;
+        }
+        int itemCount = 0;
+        int stackCount = 0;
+        Map<String, Integer> totals = new HashMap<>();
+        for (ItemStack item : items) {
+            if (item == null || item.getType() == Material.AIR) {
+                continue;
+            }
+            itemCount += item.getAmount();
+            stackCount++;
+            if (item.getType() != null) {
+                totals.merge(item.getType().name(), item.getAmount(), Integer::sum);
+            }
+        }
+        return of(itemCount, stackCount, totals);
+    }
+
+    /**
+     * 根据已统计的数量创建摘要
+     *
+     * @param itemCount  物品总数量
+     * @param stackCount 占用槽位数量
+     * @param totals     每种物品的总数量，键为 {@link Material#name()}
+     * @return 页面摘要
+     */
+    public static PageSummary of(int itemCount, int stackCount, Map<String, Integer> totals) {
+        if (stackCount == 0) {
+            return EMPTY;
+        }
+        List<PreviewEntry> preview = new ArrayList<>(totals.size());
+        for (Map.Entry<String, Integer> entry : totals.entrySet()) {
+            preview.add(new PreviewEntry(entry.getKey(), entry.getValue()));
+        }
+        sortAndTrim(preview);
+        return new PageSummary(itemCount, stackCount, preview);
+    }
+
+    /**
+     * 从数据库列恢复摘要
+     *
+     * @param data 数据行
+     * @return 页面摘要，尚未生成摘要的旧数据返回 null
+     */
+    public static PageSummary fromRow(RemoteBagData data) {
+        return parse(data.getItemCount(), data.getStackCount(), data.getPreview());
+    }
+
+    /**
+     * 从增量记录恢复合并后的页面摘要
+     *
+     * @param delta 增量记录
+     * @return 页面摘要，没有摘要时返回 null
+     */
+    public static PageSummary fromRow(RemoteBagDeltaData delta) {
+        return parse(delta.getItemCount(), delta.getStackCount(), delta.getPreview());
+    }
+
+    private static PageSummary parse(int itemCount, int stackCount, String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        List<PreviewEntry> preview = new ArrayList<>();
+        for (String part : encoded.split(",")) {
+            int separator = part.lastIndexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                preview.add(new PreviewEntry(part.substring(0, separator),
+                        Integer.parseInt(part.substring(separator + 1))));
+            } catch (NumberFormatException ignored) {
+                // 跳过格式错误的项
+            }
+        }
+        sortAndTrim(preview);
+        return new PageSummary(itemCount, stackCount, preview);
+    }
+
+    /**
+     * 将摘要写入数据行
+     *
+     * @param data 数据行
+     */
+    public void applyTo(RemoteBagData data) {
+        data.setItemCount(itemCount);
+        data.setStackCount(stackCount);
+        data.setPreview(encodePreview());
+    }
+
+    /**
+     * 将摘要写入增量记录
+     *
+     * @param delta 增量记录
+     */
+    public void applyTo(RemoteBagDeltaData delta) {
+        delta.setItemCount(itemCount);
+        delta.setStackCount(stackCount);
+        delta.setPreview(encodePreview());
+    }
+
+    private String encodePreview() {
+        StringBuilder builder = new StringBuilder();
+        for (PreviewEntry entry : preview) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(entry.material).append(':').append(entry.amount);
+        }
+        return builder.toString();
+    }
+
+    private static void sortAndTrim(List<PreviewEntry> preview) {
+        preview.sort((a, b) -> a.amount != b.amount
+                ? Integer.compare(b.amount, a.amount)
+                : a.material.compareTo(b.material));
+        if (preview.size() > PREVIEW_SIZE) {
+            preview.subList(PREVIEW_SIZE, preview.size()).clear();
+        }
+    }
+
+    /**
+     * @return 物品总数量（所有堆叠物品的数量总和）
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * @return 占用槽位数量
+     */
+    public int getStackCount() {
+        return stackCount;
+    }
+
+    /**
+     * @return 数量最多的物品，按数量从多到少排列
+     */
+    public List<PreviewEntry> getPreview() {
+        return Collections.unmodifiableList(preview);
+    }
+}
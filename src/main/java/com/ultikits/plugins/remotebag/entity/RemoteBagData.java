@@ -14,7 +14,8 @@ import java.util.UUID;
 
 /**
  * Remote bag data entity.
- * Stores serialized inventory contents for each player's bag pages.
+ * Stores serialized inventory contents for each player's bag pages,
+ * together with a summary that can be shown without reading the contents.
  *
  * @author wisdomme
  * @version 1.0.0
@@ -38,6 +39,30 @@ public class RemoteBagData extends BaseDataEntity<Integer> {
     
     @Column("last_updated")
     private long lastUpdated;
+
+    /**
+     * Page summary, see {@link PageSummary}. Rows written before these
+     * columns existed have a null preview until backfilled.
+     */
+    @Column("item_count")
+    private int itemCount;
+
+    @Column("stack_count")
+    private int stackCount;
+
+    @Column("preview")
+    private String preview;
+
+    /**
+     * Highest delta sequence folded into the contents, see {@link RemoteBagDeltaData}.
+     * Deltas at or below it are obsolete.
+     */
+    @Column("delta_seq")
+    private long deltaSeq;
+
+    public RemoteBagData(String playerUuid, int pageNumber, String contents, long lastUpdated) {
+        this(playerUuid, pageNumber, contents, lastUpdated, 0, 0, null, 0L);
+    }
     
     /**
      * Create a new bag data entry.
@@ -0,0 +1,79 @@
+package com.ultikits.plugins.remotebag.entity;
+
+import com.ultikits.ultitools.abstracts.data.BaseDataEntity;
+import com.ultikits.ultitools.annotations.Column;
+import com.ultikits.ultitools.annotations.Table;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.util.UUID;
+
+/**
+ * Bag page delta entity.
+ * Stores the slots of a page that changed since the previous record. The page
+ * is the {@link RemoteBagData} snapshot with every delta whose sequence is
+ * above the snapshot's {@code delta_seq} applied in order.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table("remote_bag_deltas")
+public class RemoteBagDeltaData extends BaseDataEntity<Integer> {
+
+    @Column("player_uuid")
+    private String playerUuid;
+
+    @Column("page_number")
+    private int pageNumber;
+
+    @Column("seq")
+    private long seq;
+
+    /**
+     * Changed slot indexes, comma separated. Slots listed here but empty in
+     * the contents were cleared.
+     */
+    @Column("slots")
+    private String slots;
+
+    @Column(value = "contents", type = "TEXT")
+    private String contents;
+
+    @Column("last_updated")
+    private long lastUpdated;
+
+    /**
+     * Summary of the whole page after this delta, see {@link PageSummary}.
+     */
+    @Column("item_count")
+    private int itemCount;
+
+    @Column("stack_count")
+    private int stackCount;
+
+    @Column("preview")
+    private String preview;
+
+    /**
+     * Create a new delta record.
+     */
+    public static RemoteBagDeltaData create(UUID playerUuid, int pageNumber, long seq, String slots, String contents) {
+        return RemoteBagDeltaData.builder()
+            .playerUuid(playerUuid.toString())
+            .pageNumber(pageNumber)
+            .seq(seq)
+            .slots(slots)
+            .contents(contents)
+            .lastUpdated(System.currentTimeMillis())
+            .build();
+    }
+}
@@ -16,6 +16,7 @@ import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
@@ -23,7 +24,9 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 远程背包内容 GUI
@@ -35,6 +38,7 @@ import java.util.UUID;
  *   <li>编辑模式：允许移动物品、保存</li>
  *   <li>只读模式：禁止移动物品、显示刷新按钮</li>
  *   <li>工具栏：返回、刷新、保存、模式指示、关闭按钮</li>
+ *   <li>点击或拖动物品时续租背包锁（限频），界面打开期间由锁服务自动续租</li>
  *   <li>关闭时自动保存（编辑模式）并释放锁</li>
  * </ul>
  *
@@ -58,6 +62,21 @@ public class RemoteBagContentGUI extends BaseInventoryPage {
      * 内容区域槽位数（前 5 行 = 45 槽）
      */
     private static final int CONTENT_SIZE = 45;
+
+    /**
+     * 续租最小间隔（纳秒），低于最短锁超时时间的一半
+     */
+    private static final long LEASE_RENEW_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * 上次续租的单调时钟时间（纳秒），打开时刚获取锁
+     */
+    private long lastLeaseRenewNanos = System.nanoTime();
+
+    /**
+     * 背包仍在保存、改在异步线程读取，界面未显示内容，不得保存
+     */
+    private boolean loading;
     
     /**
      * 创建远程背包内容 GUI
@@ -112,6 +131,8 @@ public class RemoteBagContentGUI extends BaseInventoryPage {
      */
     @Override
     protected void setupContent(InventoryOpenEvent event) {
+        lockService.viewOpened(ownerUuid, pageNum, player.getUniqueId());
+
         // 加载背包内容到内容区域
         loadBagContents();
         
@@ -133,8 +154,12 @@ public class RemoteBagContentGUI extends BaseInventoryPage {
      * 加载背包内容到 GUI
      */
     private void loadBagContents() {
-        // 确保背包数据已加载
-        bagService.loadBagIfNeeded(ownerUuid);
+        // 确保背包数据已加载；仍在保存时改在异步线程读取，此界面不显示内容
+        loading = !bagService.loadBagIfNeeded(ownerUuid);
+        if (loading) {
+            player.sendMessage(ChatColor.GRAY + plugin.i18n("bag_loading"));
+            return;
+        }
         
         ItemStack[] contents = bagService.getBagPage(ownerUuid, pageNum);
         if (contents != null) {
@@ -269,7 +294,7 @@ public class RemoteBagContentGUI extends BaseInventoryPage {
      */
     private Icon createSaveButton() {
         Icon icon = createActionButton(Colors.GREEN, ChatColor.GREEN + plugin.i18n("btn_save"), e -> {
-            saveCurrentContents();
+            saveCurrentContents(true);
             SoundUtil.playCloseSound(player, config);
             player.sendMessage(ChatColor.GREEN + plugin.i18n("msg_bag_saved"));
         });
@@ -389,13 +414,20 @@ public class RemoteBagContentGUI extends BaseInventoryPage {
     @Override
     public boolean onClick(InventoryClickEvent event) {
         int slot = event.getRawSlot();
+
+        if (accessMode == AccessMode.EDIT) {
+            renewLeaseIfDue();
+        }
         
         // 工具栏区域 - 让 Icon 的点击事件处理
         if (slot >= CONTENT_SIZE) {
             return true; // 取消默认行为，由 Icon onClick 处理
         }
         
-        // 内容区域
+        // 内容区域 - 内容未显示时禁止放入物品
+        if (loading) {
+            return true;
+        }
         if (accessMode == AccessMode.READ_ONLY) {
             // 只读模式 - 禁止所有物品操作
             if (event.getCurrentItem() != null || event.getCursor() != null) {
@@ -409,6 +441,23 @@ public class RemoteBagContentGUI extends BaseInventoryPage {
         return false; // 不取消事件
     }
     
+    /**
+     * 处理物品拖动事件，编辑模式下续租背包锁
+     *
+     * @param event 拖动事件
+     * @return true 取消事件，false 允许事件
+     */
+    @Override
+    public boolean onDrag(InventoryDragEvent event) {
+        if (accessMode == AccessMode.EDIT) {
+            renewLeaseIfDue();
+        }
+        if (loading) {
+            return true;
+        }
+        return super.onDrag(event);
+    }
+
     /**
      * 处理 GUI 关闭事件
      *
@@ -416,9 +465,10 @@ public class RemoteBagContentGUI extends BaseInventoryPage {
      */
     @Override
     public void onClose(InventoryCloseEvent event) {
+        lockService.viewClosed(ownerUuid, pageNum, player.getUniqueId());
         if (accessMode == AccessMode.EDIT) {
-            // 编辑模式 - 保存并释放锁
-            saveCurrentContents();
+            // 编辑模式 - 保存并释放锁；save_on_close 关闭时由自动保存写入数据库
+            saveCurrentContents(config.isSaveOnClose());
             lockService.release(ownerUuid, pageNum, player.getUniqueId());
             SoundUtil.playCloseSound(player, config);
         } else {
@@ -427,15 +477,60 @@ public class RemoteBagContentGUI extends BaseInventoryPage {
         }
     }
     
+    /**
+     * 编辑期间续租背包锁，每个间隔内最多续租一次
+     */
+    private void renewLeaseIfDue() {
+        long now = System.nanoTime();
+        if (now - lastLeaseRenewNanos < LEASE_RENEW_INTERVAL_NANOS) {
+            return;
+        }
+        lastLeaseRenewNanos = now;
+        lockService.renewLease(ownerUuid, pageNum, player.getUniqueId());
+    }
+
     /**
      * 保存当前 GUI 中的内容到背包服务
+     * <p>
+     * 内容未变化时不会标记为脏页，保存时将跳过该页。界面未显示背包内容时不保存，
+     * 避免空界面覆盖背包。
+     *
+     * @param write 是否立即写入数据库，否则只更新缓存，由自动保存写入
      */
-    private void saveCurrentContents() {
+    private void saveCurrentContents(boolean write) {
+        if (loading) {
+            return;
+        }
         ItemStack[] contents = new ItemStack[CONTENT_SIZE];
         for (int i = 0; i < CONTENT_SIZE; i++) {
             contents[i] = getInventory().getItem(i);
         }
-        bagService.setBagPage(ownerUuid, pageNum, contents);
-        bagService.saveBag(ownerUuid);
+        if (!isUnchanged(contents, bagService.getBagPage(ownerUuid, pageNum))) {
+            bagService.setBagPage(ownerUuid, pageNum, contents);
+        }
+        if (write) {
+            bagService.saveBag(ownerUuid);
+        }
+    }
+
+    /**
+     * 判断 GUI 内容与缓存内容是否一致
+     *
+     * @param contents GUI 内容
+     * @param cached   缓存中的内容
+     * @return 一致返回 true
+     */
+    private static boolean isUnchanged(ItemStack[] contents, ItemStack[] cached) {
+        if (cached == null) {
+            return false;
+        }
+        for (int i = 0; i < Math.max(contents.length, cached.length); i++) {
+            ItemStack current = i < contents.length ? contents[i] : null;
+            ItemStack previous = i < cached.length ? cached[i] : null;
+            if (!Objects.equals(current, previous)) {
+                return false;
+            }
+        }
+        return true;
     }
 }
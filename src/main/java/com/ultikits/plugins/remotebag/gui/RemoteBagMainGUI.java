@@ -2,6 +2,7 @@ package com.ultikits.plugins.remotebag.gui;
 
 import com.ultikits.plugins.remotebag.config.RemoteBagConfig;
 import com.ultikits.plugins.remotebag.entity.BagOpenResult;
+import com.ultikits.plugins.remotebag.entity.PageSummary;
 import com.ultikits.plugins.remotebag.enums.AccessMode;
 import com.ultikits.plugins.remotebag.service.BagLockService;
 import com.ultikits.plugins.remotebag.service.RemoteBagService;
@@ -19,14 +20,17 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.jetbrains.annotations.NotNull;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
  * 远程背包主页 GUI
  * <p>
  * 显示玩家拥有的所有背包缩略图，支持购买新背包。
- * 每个背包显示物品数量和占用槽位信息。
+ * 每个背包显示物品数量、占用槽位和物品预览，数据来自保存的页摘要，
+ * 打开主页不会读取背包内容。
  * <p>
  * Features:
  * <ul>
@@ -110,7 +114,7 @@ public class RemoteBagMainGUI extends BasePaginationPage {
     /**
      * 创建背包图标
      * <p>
-     * 显示背包编号、物品数量和槽位占用信息
+     * 显示背包编号、物品数量、槽位占用和物品预览；尚未生成摘要的旧数据只显示最后保存时间
      *
      * @param pageNum 背包页码
      * @return 背包图标
@@ -120,17 +124,29 @@ public class RemoteBagMainGUI extends BasePaginationPage {
         ItemMeta meta = item.getItemMeta();
         
         if (meta != null) {
-            // 获取物品统计
-            int itemCount = bagService.getItemCount(player.getUniqueId(), pageNum);
-            int stackCount = bagService.getStackCount(player.getUniqueId(), pageNum);
-            int maxSlots = config.getRowsPerPage() * 9;
-            
             meta.setDisplayName(ChatColor.YELLOW + plugin.i18n("bag_name").replace("{0}", String.valueOf(pageNum)));
 
             List<String> lore = new ArrayList<>();
             lore.add("");
-            lore.add(ChatColor.GRAY + plugin.i18n("lore_item_count").replace("{0}", String.valueOf(itemCount)));
-            lore.add(ChatColor.GRAY + plugin.i18n("lore_slot_usage").replace("{0}", String.valueOf(stackCount)).replace("{1}", String.valueOf(maxSlots)));
+            // 获取物品统计
+            PageSummary summary = bagService.getPageSummary(player.getUniqueId(), pageNum);
+            if (summary != null) {
+                int maxSlots = config.getRowsPerPage() * 9;
+                lore.add(ChatColor.GRAY + plugin.i18n("lore_item_count").replace("{0}", String.valueOf(summary.getItemCount())));
+                lore.add(ChatColor.GRAY + plugin.i18n("lore_slot_usage").replace("{0}", String.valueOf(summary.getStackCount())).replace("{1}", String.valueOf(maxSlots)));
+                for (PageSummary.PreviewEntry entry : summary.getPreview()) {
+                    lore.add(ChatColor.DARK_GRAY + plugin.i18n("lore_preview_item")
+                            .replace("{0}", entry.getMaterial().toLowerCase().replace('_', ' '))
+                            .replace("{1}", String.valueOf(entry.getAmount())));
+                }
+            } else {
+                // 旧数据在摘要回填前不为统计读取内容
+                long lastUpdated = bagService.getPageLastUpdated(player.getUniqueId(), pageNum);
+                if (lastUpdated > 0) {
+                    String time = new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(lastUpdated));
+                    lore.add(ChatColor.GRAY + plugin.i18n("lore_last_updated").replace("{0}", time));
+                }
+            }
             lore.add("");
             lore.add(ChatColor.GREEN + "▶ " + plugin.i18n("lore_click_open"));
             
@@ -143,18 +159,21 @@ public class RemoteBagMainGUI extends BasePaginationPage {
         icon.onClick(e -> {
             player.closeInventory();
             
-            // 尝试以所有者身份打开背包
-            BagOpenResult result = lockService.ownerOpen(player.getUniqueId(), targetPage, player);
-            
-            if (result.isSuccess()) {
-                // 打开背包内容 GUI
-                new RemoteBagContentGUI(player, plugin, player.getUniqueId(), targetPage,
-                        bagService, lockService, config, result.getAccessMode()).open();
-            } else {
-                // 被阻止
-                SoundUtil.playErrorSound(player, config);
-                player.sendMessage(result.getMessage());
-            }
+            // 页面内容在异步线程读取后再打开
+            bagService.openWhenLoaded(player, player.getUniqueId(), targetPage, () -> {
+                // 尝试以所有者身份打开背包
+                BagOpenResult result = lockService.ownerOpen(player.getUniqueId(), targetPage, player);
+                
+                if (result.isSuccess()) {
+                    // 打开背包内容 GUI
+                    new RemoteBagContentGUI(player, plugin, player.getUniqueId(), targetPage,
+                            bagService, lockService, config, result.getAccessMode()).open();
+                } else {
+                    // 被阻止
+                    SoundUtil.playErrorSound(player, config);
+                    player.sendMessage(result.getMessage());
+                }
+            });
         });
         
         return icon;
@@ -201,8 +220,12 @@ public class RemoteBagMainGUI extends BasePaginationPage {
         
         final int finalPrice = price;
         Icon icon = new Icon(item);
-        icon.onClick(e -> {
-            if (bagService.purchaseBag(player)) {
+        // 新背包写入数据库后在主线程提示结果
+        icon.onClick(e -> bagService.purchaseBag(player).whenComplete((purchased, error) -> {
+            if (!player.isOnline()) {
+                return;
+            }
+            if (error == null && purchased) {
                 SoundUtil.playPurchaseSound(player, config);
                 player.sendMessage(ChatColor.GREEN + plugin.i18n("purchase_success").replace("{0}", String.valueOf(nextBagNum)));
                 // 刷新 GUI
@@ -211,7 +234,7 @@ public class RemoteBagMainGUI extends BasePaginationPage {
                 SoundUtil.playErrorSound(player, config);
                 player.sendMessage(ChatColor.RED + plugin.i18n("purchase_failed").replace("{0}", EconomyUtils.format(finalPrice)));
             }
-        });
+        }));
         
         return icon;
     }
@@ -6,16 +6,22 @@ import com.ultikits.ultitools.annotations.EventListener;
 
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
 /**
  * 远程背包事件监听器
  * <p>
- * 负责处理玩家退出时的清理工作：
+ * 负责处理玩家登录时的预加载和退出时的清理工作：
  * <ul>
+ *   <li>登录前在异步线程预加载背包数据</li>
+ *   <li>在线期间固定背包缓存，不被淘汰</li>
  *   <li>释放玩家持有的所有背包锁</li>
- *   <li>保存并清理缓存数据</li>
+ *   <li>保存背包，并将缓存转入已退出玩家的缓存</li>
  * </ul>
  * <p>
  * 注意：GUI 交互事件由 mc.obliviate.inventory 框架处理，
@@ -35,13 +41,55 @@ public class BagListener implements Listener {
         this.lockService = lockService;
     }
     
+    /**
+     * 处理异步预登录事件
+     * <p>
+     * 在登录线程预加载背包，玩家进入后首次打开背包无需在主线程查询数据库。
+     * 预加载超时或被拒绝时，背包在首次打开时照常加载。
+     *
+     * @param event 异步预登录事件
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        bagService.preloadBag(event.getUniqueId());
+    }
+
+    /**
+     * 处理登录事件
+     * <p>
+     * 登录被拒绝（如封禁、服务器已满）时丢弃预加载的背包。
+     *
+     * @param event 登录事件
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            bagService.discardPreloadedBag(event.getPlayer().getUniqueId());
+        }
+    }
+    
+    /**
+     * 处理玩家进入事件
+     * <p>
+     * 在线玩家的背包在退出前不会被缓存淘汰。
+     *
+     * @param event 玩家进入事件
+     */
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        bagService.pinBag(event.getPlayer().getUniqueId());
+    }
+
     /**
      * 处理玩家退出事件
      * <p>
      * 当玩家退出时：
      * 1. 释放该玩家持有的所有背包锁
      * 2. 保存背包数据到数据库
-     * 3. 清理内存缓存
+     * 3. 清理内存缓存，背包以压缩数据保留一段时间，快速重连时无需读取数据库
      *
      * @param event 玩家退出事件
      */
@@ -54,6 +102,6 @@ public class BagListener implements Listener {
         
         // 保存并清理缓存
         bagService.saveBag(player.getUniqueId());
-        bagService.clearCache(player.getUniqueId());
+        bagService.retireBag(player.getUniqueId());
     }
 }
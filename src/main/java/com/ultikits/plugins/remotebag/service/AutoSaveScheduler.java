@@ -0,0 +1,181 @@
+package com.ultikits.plugins.remotebag.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 自动保存调度（分散到整个保存间隔）
+ * <p>
+ * 每个 tick 调用一次 {@link #tick}，只保存到期的背包：
+ * <ul>
+ *   <li>每个背包在间隔内有一个随机的保存时刻，避免所有背包在同一 tick 保存</li>
+ *   <li>单个 tick 的保存耗时超出预算时，剩余背包顺延到下一 tick（每 tick 至少保存一个）</li>
+ *   <li>记录每轮的保存次数、总耗时和单个 tick 的最大耗时</li>
+ * </ul>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class AutoSaveScheduler {
+
+    // New bags are picked up from the roster at most this often
+    private static final long ROSTER_SYNC_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long intervalNanos;
+    private final long tickBudgetNanos;
+    private final LongSupplier clock;
+
+    // guarded by this; due time of each scheduled bag, earliest first
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>((a, b) -> Long.compare(a.due, b.due));
+    private final Map<UUID, Entry> scheduled = new HashMap<>();
+    private long nextRosterSync;
+
+    // guarded by this; statistics of the running and the last completed cycle
+    private long cycleStart;
+    private long cycleSaves;
+    private long cycleWorkNanos;
+    private long lastCycleSaves;
+    private long lastCycleWorkNanos;
+    private long maxTickNanos;
+    private long overBudgetTicks;
+
+    private static final class Entry {
+        private final UUID playerUuid;
+        private long due;
+
+        private Entry(UUID playerUuid, long due) {
+            this.playerUuid = playerUuid;
+            this.due = due;
+        }
+    }
+
+    /**
+     * @param intervalMillis   每个背包的保存间隔（毫秒）
+     * @param tickBudgetMillis 单个 tick 的保存耗时预算（毫秒）
+     */
+    public AutoSaveScheduler(long intervalMillis, long tickBudgetMillis) {
+        this(intervalMillis, tickBudgetMillis, System::nanoTime);
+    }
+
+    AutoSaveScheduler(long intervalMillis, long tickBudgetMillis, LongSupplier clock) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.tickBudgetNanos = TimeUnit.MILLISECONDS.toNanos(tickBudgetMillis);
+        this.clock = clock;
+        this.cycleStart = clock.getAsLong();
+        this.nextRosterSync = cycleStart;
+    }
+
+    /**
+     * 保存到期的背包，直到没有到期背包或用完本 tick 的预算
+     *
+     * @param players 当前缓存的背包，不在其中的背包不再保存
+     * @param saver   保存单个背包
+     */
+    public synchronized void tick(Collection<UUID> players, Consumer<UUID> saver) {
+        long start = clock.getAsLong();
+        rollCycle(start);
+        if (start - nextRosterSync >= 0) {
+            for (UUID playerUuid : players) {
+                if (!scheduled.containsKey(playerUuid)) {
+                    Entry entry = new Entry(playerUuid, start + ThreadLocalRandom.current().nextLong(intervalNanos));
+                    scheduled.put(playerUuid, entry);
+                    queue.add(entry);
+                }
+            }
+            nextRosterSync = start + ROSTER_SYNC_NANOS;
+        }
+
+        int saved = 0;
+        while (!queue.isEmpty() && queue.peek().due - start <= 0) {
+            if (saved > 0 && clock.getAsLong() - start >= tickBudgetNanos) {
+                overBudgetTicks++;
+                break;
+            }
+            Entry entry = queue.poll();
+            if (!players.contains(entry.playerUuid)) {
+                scheduled.remove(entry.playerUuid);
+                continue;
+            }
+            try {
+                saver.accept(entry.playerUuid);
+            } finally {
+                // 积压超过一个间隔时从现在重新计算，不连续补存
+                entry.due = entry.due + intervalNanos - start > 0 ? entry.due + intervalNanos : start + intervalNanos;
+                queue.add(entry);
+                saved++;
+            }
+        }
+
+        long cost = clock.getAsLong() - start;
+        maxTickNanos = Math.max(maxTickNanos, cost);
+        cycleWorkNanos += cost;
+        cycleSaves += saved;
+    }
+
+    private void rollCycle(long now) {
+        if (now - cycleStart < intervalNanos) {
+            return;
+        }
+        lastCycleSaves = cycleSaves;
+        lastCycleWorkNanos = cycleWorkNanos;
+        cycleSaves = 0;
+        cycleWorkNanos = 0;
+        cycleStart = now;
+    }
+
+    /**
+     * @return 保存间隔（毫秒）
+     */
+    public long getIntervalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(intervalNanos);
+    }
+
+    /**
+     * @return 单个 tick 的保存耗时预算（毫秒）
+     */
+    public long getTickBudgetMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickBudgetNanos);
+    }
+
+    /**
+     * @return 已调度的背包数
+     */
+    public synchronized int getScheduledCount() {
+        return scheduled.size();
+    }
+
+    /**
+     * @return 上一轮（一个保存间隔）保存的背包数
+     */
+    public synchronized long getLastCycleSaves() {
+        return lastCycleSaves;
+    }
+
+    /**
+     * @return 上一轮保存的总耗时（毫秒）
+     */
+    public synchronized double getLastCycleWorkMillis() {
+        return lastCycleWorkNanos / 1_000_000.0;
+    }
+
+    /**
+     * @return 单个 tick 的最大保存耗时（毫秒）
+     */
+    public synchronized double getMaxTickMillis() {
+        return maxTickNanos / 1_000_000.0;
+    }
+
+    /**
+     * @return 因超出预算而顺延保存的 tick 数
+     */
+    public synchronized long getOverBudgetTickCount() {
+        return overBudgetTicks;
+    }
+}
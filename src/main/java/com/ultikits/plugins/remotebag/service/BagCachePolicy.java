@@ -0,0 +1,126 @@
+package com.ultikits.plugins.remotebag.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * 背包缓存淘汰策略（LRU）
+ * <p>
+ * 只记录访问顺序和每个背包的权重（缓存的页数），数据本身仍由 {@link RemoteBagService} 保存：
+ * <ul>
+ *   <li>缓存的背包数和总页数各有上限</li>
+ *   <li>超出上限时从最久未使用的背包开始挑选淘汰对象</li>
+ *   <li>被固定的背包（如在线玩家）不会被挑选</li>
+ * </ul>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class BagCachePolicy {
+
+    private final int maxBags;
+    private final long maxPages;
+
+    // guarded by this, eldest first; value is the bag's page count
+    private final LinkedHashMap<UUID, Integer> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+    // guarded by this
+    private long totalPages;
+
+    /**
+     * @param maxBags  最多缓存的背包数
+     * @param maxPages 最多缓存的背包页数
+     */
+    public BagCachePolicy(int maxBags, long maxPages) {
+        this.maxBags = maxBags;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * 记录背包已缓存或页数发生变化，并标记为最近使用
+     *
+     * @param playerUuid 玩家 UUID
+     * @param pages      缓存的页数
+     */
+    public synchronized void record(UUID playerUuid, int pages) {
+        Integer previous = accessOrder.put(playerUuid, pages);
+        totalPages += pages - (previous != null ? previous : 0);
+    }
+
+    /**
+     * 标记背包为最近使用
+     *
+     * @param playerUuid 玩家 UUID
+     */
+    public synchronized void touch(UUID playerUuid) {
+        accessOrder.get(playerUuid);
+    }
+
+    /**
+     * 背包已从缓存移除
+     *
+     * @param playerUuid 玩家 UUID
+     */
+    public synchronized void remove(UUID playerUuid) {
+        Integer previous = accessOrder.remove(playerUuid);
+        if (previous != null) {
+            totalPages -= previous;
+        }
+    }
+
+    /**
+     * @return 缓存超出上限返回 true
+     */
+    public synchronized boolean isOverLimit() {
+        return accessOrder.size() > maxBags || totalPages > maxPages;
+    }
+
+    /**
+     * 挑选淘汰对象，从最久未使用的开始，直到剩余部分不超过上限
+     *
+     * @param pinned 判断背包是否被固定
+     * @return 淘汰对象，最久未使用的在前
+     */
+    public synchronized List<UUID> selectVictims(Predicate<UUID> pinned) {
+        List<UUID> victims = new ArrayList<>();
+        int bags = accessOrder.size();
+        long pages = totalPages;
+        for (Map.Entry<UUID, Integer> entry : accessOrder.entrySet()) {
+            if (bags <= maxBags && pages <= maxPages) {
+                break;
+            }
+            if (pinned.test(entry.getKey())) {
+                continue;
+            }
+            victims.add(entry.getKey());
+            bags--;
+            pages -= entry.getValue();
+        }
+        return victims;
+    }
+
+    /**
+     * @return 缓存的背包数
+     */
+    public synchronized int getBagCount() {
+        return accessOrder.size();
+    }
+
+    /**
+     * @return 缓存的背包页数
+     */
+    public synchronized long getPageCount() {
+        return totalPages;
+    }
+
+    public int getMaxBags() {
+        return maxBags;
+    }
+
+    public long getMaxPages() {
+        return maxPages;
+    }
+}
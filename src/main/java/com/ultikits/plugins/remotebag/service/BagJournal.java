@@ -0,0 +1,600 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * 背包预写日志（write-ahead journal）
+ * <p>
+ * 页面修改先追加到本地日志文件，数据库可以之后再批量写入：
+ * <ul>
+ *   <li>记录在独立线程上编码和追加，一次写入的所有记录只调用一次 fsync（组提交）</li>
+ *   <li>每页只保留最新一条未写入数据库的记录，写入数据库后调用 {@link #release} 释放</li>
+ *   <li>所有记录都已释放时清空日志；日志过大时只保留未释放的记录重写</li>
+ *   <li>启动时用 {@link #readPending} 读出未写入数据库的修改，末尾不完整的记录被忽略</li>
+ * </ul>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class BagJournal {
+
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final byte TYPE_CANCEL = 3;
+
+    // type + seq + uuid + page + contents length
+    private static final int BODY_HEADER = 1 + 8 + 16 + 4 + 4;
+
+    // Journal thread wakes up this often to check whether the file can be truncated
+    private static final long CHECKPOINT_POLL_MILLIS = 1000;
+
+    /**
+     * 日志中尚未写入数据库的页面修改
+     */
+    public static final class Entry {
+        private final UUID playerUuid;
+        private final int page;
+        private final String contents;
+
+        Entry(UUID playerUuid, int page, String contents) {
+            this.playerUuid = playerUuid;
+            this.page = page;
+            this.contents = contents;
+        }
+
+        public UUID getPlayerUuid() {
+            return playerUuid;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        /**
+         * @return 编码后的页面内容，页面被删除时为 null
+         */
+        public String getContents() {
+            return contents;
+        }
+    }
+
+    private static final class PageKey {
+        private final UUID playerUuid;
+        private final int page;
+
+        private PageKey(UUID playerUuid, int page) {
+            this.playerUuid = playerUuid;
+            this.page = page;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PageKey)) {
+                return false;
+            }
+            PageKey other = (PageKey) o;
+            return page == other.page && playerUuid.equals(other.playerUuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(playerUuid, page);
+        }
+    }
+
+    private static final class Record {
+        private final long seq;
+        private final byte type;
+        private final PageKey key;
+        // released to the encoder on the journal thread
+        private ItemStack[] snapshot;
+        // framed record, set once written; only accessed on the journal thread
+        private ByteBuffer frame;
+        // unflushed record of the same page this one replaced, until this one is written
+        private Record previous;
+
+        private Record(long seq, byte type, PageKey key, ItemStack[] snapshot) {
+            this.seq = seq;
+            this.type = type;
+            this.key = key;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private final Path file;
+    private final Function<ItemStack[], String> encoder;
+    private final BiConsumer<String, Throwable> errorHandler;
+    private final long compactBytes;
+
+    // Queued by shutdown() so the journal thread stops without waiting for the poll timeout
+    private static final Record WAKE_UP = new Record(-1, (byte) 0, null, null);
+
+    private final BlockingQueue<Record> queue = new LinkedBlockingQueue<>();
+    // Latest record of each page not written to database yet
+    private final Map<PageKey, Record> unflushed = new ConcurrentHashMap<>();
+    private final AtomicLong nextSeq = new AtomicLong();
+    // Highest sequence number that is on disk
+    private final AtomicLong syncedSeq = new AtomicLong(-1);
+
+    private volatile boolean running;
+    private Thread thread;
+    // only accessed on the journal thread (or after it stopped)
+    private FileChannel channel;
+
+    private final AtomicLong appendedCount = new AtomicLong();
+    private final AtomicLong syncCount = new AtomicLong();
+    private final AtomicLong truncateCount = new AtomicLong();
+    private final AtomicLong compactCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private volatile long size;
+    // size right after the last compaction, only accessed on the journal thread
+    private long compactedSize;
+
+    /**
+     * @param file         日志文件
+     * @param encoder      页面内容编码器
+     * @param errorHandler 日志线程上的写入错误
+     * @param compactBytes 日志超过此大小时重写
+     */
+    public BagJournal(Path file, Function<ItemStack[], String> encoder,
+                      BiConsumer<String, Throwable> errorHandler, long compactBytes) {
+        this.file = file;
+        this.encoder = encoder;
+        this.errorHandler = errorHandler;
+        this.compactBytes = compactBytes;
+    }
+
+    /**
+     * 打开日志文件并启动日志线程，已有内容会被清空
+     *
+     * @throws IOException 无法打开文件
+     */
+    public synchronized void open() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        size = 0;
+        running = true;
+        thread = new Thread(this::run, "UltiRemoteBag-Journal");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 记录一页的新内容
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       页码
+     * @param snapshot   页面快照，调用后不可再修改
+     * @return 记录序号
+     */
+    public long append(UUID playerUuid, int page, ItemStack[] snapshot) {
+        return append(TYPE_PUT, new PageKey(playerUuid, page), snapshot);
+    }
+
+    /**
+     * 记录一页被删除
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       页码
+     * @return 记录序号
+     */
+    public long appendDelete(UUID playerUuid, int page) {
+        return append(TYPE_DELETE, new PageKey(playerUuid, page), null);
+    }
+
+    /**
+     * 撤销一页尚未写入数据库的修改（修改已回滚）
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       页码
+     */
+    public void appendCancel(UUID playerUuid, int page) {
+        PageKey key = new PageKey(playerUuid, page);
+        synchronized (this) {
+            unflushed.remove(key);
+            queue.add(new Record(nextSeq.getAndIncrement(), TYPE_CANCEL, key, null));
+        }
+        appendedCount.incrementAndGet();
+    }
+
+    private long append(byte type, PageKey key, ItemStack[] snapshot) {
+        Record record;
+        // 序号分配与入队保持同一顺序
+        synchronized (this) {
+            record = new Record(nextSeq.getAndIncrement(), type, key, snapshot);
+            record.previous = unflushed.get(key);
+            unflushed.put(key, record);
+            queue.add(record);
+        }
+        appendedCount.incrementAndGet();
+        return record.seq;
+    }
+
+    /**
+     * 获取一页最新的未写入数据库记录的序号
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       页码
+     * @return 记录序号，没有未写入的记录返回 -1
+     */
+    public long getPendingSeq(UUID playerUuid, int page) {
+        Record record = unflushed.get(new PageKey(playerUuid, page));
+        return record != null ? record.seq : -1;
+    }
+
+    /**
+     * 一页的修改已写入数据库，释放不晚于该序号的记录
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       页码
+     * @param seq        已写入数据库的记录序号
+     */
+    public void release(UUID playerUuid, int page, long seq) {
+        if (seq < 0) {
+            return;
+        }
+        unflushed.computeIfPresent(new PageKey(playerUuid, page), (k, record) -> record.seq <= seq ? null : record);
+    }
+
+    /**
+     * 等待此前追加的记录写入磁盘
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 在超时前写入返回 true
+     */
+    public boolean awaitSynced(long timeout, TimeUnit unit) {
+        long target = nextSeq.get() - 1;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (syncedSeq.get() < target) {
+            if (!running || System.nanoTime() - deadline >= 0) {
+                return syncedSeq.get() >= target;
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 写入剩余记录后停止日志线程。所有记录都已写入数据库时清空日志，
+     * 否则保留在文件中，下次启动时重放
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 在超时前停止返回 true
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        Thread journalThread;
+        synchronized (this) {
+            running = false;
+            journalThread = thread;
+        }
+        queue.add(WAKE_UP);
+        if (journalThread == null) {
+            return true;
+        }
+        try {
+            journalThread.join(unit.toMillis(timeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !journalThread.isAlive();
+    }
+
+    private void run() {
+        List<Record> batch = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                Record first;
+                try {
+                    first = queue.poll(running ? CHECKPOINT_POLL_MILLIS : 0, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    first = null;
+                }
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    batch.removeIf(record -> record == WAKE_UP);
+                    if (!batch.isEmpty()) {
+                        writeBatch(batch);
+                    }
+                    batch.clear();
+                }
+                checkpoint();
+            }
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                errorHandler.accept("Failed to close bag journal", e);
+            }
+        }
+    }
+
+    /**
+     * 组提交：追加一批记录后只 fsync 一次
+     */
+    private void writeBatch(List<Record> batch) {
+        ByteBuffer[] frames = new ByteBuffer[batch.size()];
+        for (int i = 0; i < frames.length; i++) {
+            Record record = batch.get(i);
+            String contents = record.type == TYPE_PUT ? encoder.apply(record.snapshot) : null;
+            record.snapshot = null;
+            record.frame = frame(record.seq, record.type, record.key, contents);
+            record.previous = null;
+            frames[i] = record.frame.duplicate();
+        }
+        try {
+            long written = 0;
+            for (ByteBuffer frame : frames) {
+                written += frame.remaining();
+            }
+            long remaining = written;
+            while (remaining > 0) {
+                remaining -= channel.write(frames);
+            }
+            channel.force(false);
+            size += written;
+            syncCount.incrementAndGet();
+            syncedSeq.accumulateAndGet(batch.get(batch.size() - 1).seq, Math::max);
+        } catch (IOException e) {
+            failedCount.addAndGet(batch.size());
+            errorHandler.accept("Failed to append " + batch.size() + " bag journal records", e);
+        }
+    }
+
+    /**
+     * 所有记录都已写入数据库时清空日志，日志过大时只保留未释放的记录
+     */
+    private void checkpoint() {
+        if (size == 0) {
+            return;
+        }
+        try {
+            if (unflushed.isEmpty()) {
+                channel.truncate(0);
+                channel.force(true);
+                size = 0;
+                compactedSize = 0;
+                truncateCount.incrementAndGet();
+            } else if (size > Math.max(compactBytes, compactedSize * 2)) {
+                compact();
+            }
+        } catch (IOException e) {
+            errorHandler.accept("Failed to checkpoint bag journal", e);
+        }
+    }
+
+    /**
+     * 把未释放的记录写入新文件后替换旧日志
+     */
+    private void compact() throws IOException {
+        List<Record> live = new ArrayList<>();
+        for (Record record : unflushed.values()) {
+            // 尚未写入的记录仍在队列中，之后追加到新文件；保留它替换的已写入记录
+            while (record != null && record.frame == null) {
+                record = record.previous;
+            }
+            if (record != null) {
+                live.add(record);
+            }
+        }
+        live.sort((a, b) -> Long.compare(a.seq, b.seq));
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long written = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Record record : live) {
+                ByteBuffer frame = record.frame.duplicate();
+                while (frame.hasRemaining()) {
+                    written += out.write(frame);
+                }
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = written;
+        compactedSize = written;
+        compactCount.incrementAndGet();
+    }
+
+    private static ByteBuffer frame(long seq, byte type, PageKey key, String contents) {
+        byte[] data = contents != null ? contents.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteBuffer body = ByteBuffer.allocate(BODY_HEADER + data.length);
+        body.put(type)
+                .putLong(seq)
+                .putLong(key.playerUuid.getMostSignificantBits())
+                .putLong(key.playerUuid.getLeastSignificantBits())
+                .putInt(key.page)
+                .putInt(contents != null ? data.length : -1)
+                .put(data);
+        body.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, body.limit());
+        ByteBuffer frame = ByteBuffer.allocate(8 + body.limit());
+        frame.putInt(body.limit()).putInt((int) crc.getValue()).put(body);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * 读取日志中尚未写入数据库的修改，每页只返回最新一条
+     * <p>
+     * 读到不完整或校验失败的记录（写入时崩溃）即停止。
+     *
+     * @param file 日志文件
+     * @return 按记录顺序排列的修改，文件不存在时为空
+     * @throws IOException 读取失败
+     */
+    public static List<Entry> readPending(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        Map<PageKey, Entry> latest = new LinkedHashMap<>();
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            while (true) {
+                byte[] body;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < BODY_HEADER) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(body, 0, body.length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                byte type = buffer.get();
+                buffer.getLong(); // seq
+                PageKey key = new PageKey(new UUID(buffer.getLong(), buffer.getLong()), buffer.getInt());
+                int contentsLength = buffer.getInt();
+                if (contentsLength > buffer.remaining()) {
+                    break;
+                }
+                String contents = contentsLength >= 0
+                        ? new String(body, buffer.position(), contentsLength, StandardCharsets.UTF_8)
+                        : null;
+
+                // 重新插入以保持最后修改的顺序
+                latest.remove(key);
+                if (type != TYPE_CANCEL) {
+                    latest.put(key, new Entry(key.playerUuid, key.page, contents));
+                }
+            }
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    /**
+     * 将页面修改写入新文件，格式与日志相同，可用 {@link #readPending} 读取
+     * <p>
+     * 先写入临时文件并 fsync，再替换目标文件。
+     *
+     * @param file    目标文件
+     * @param entries 页面修改，内容为 null 表示删除
+     * @throws IOException 写入失败
+     */
+    public static void writeEntries(Path file, List<Entry> entries) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long seq = 0;
+            for (Entry entry : entries) {
+                byte type = entry.contents != null ? TYPE_PUT : TYPE_DELETE;
+                ByteBuffer frame = frame(seq++, type, new PageKey(entry.playerUuid, entry.page), entry.contents);
+                while (frame.hasRemaining()) {
+                    out.write(frame);
+                }
+            }
+            out.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ==================== 日志统计 ====================
+
+    /**
+     * @return 累计追加的记录数
+     */
+    public long getAppendedCount() {
+        return appendedCount.get();
+    }
+
+    /**
+     * @return 累计 fsync 次数（每次组提交一次）
+     */
+    public long getSyncCount() {
+        return syncCount.get();
+    }
+
+    /**
+     * @return 尚未写入数据库的页数
+     */
+    public int getPendingCount() {
+        return unflushed.size();
+    }
+
+    /**
+     * @return 日志文件当前大小（字节）
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return 全部写入数据库后清空日志的次数
+     */
+    public long getTruncateCount() {
+        return truncateCount.get();
+    }
+
+    /**
+     * @return 重写日志的次数
+     */
+    public long getCompactCount() {
+        return compactCount.get();
+    }
+
+    /**
+     * @return 写入失败的记录数
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
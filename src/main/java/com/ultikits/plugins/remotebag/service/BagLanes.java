@@ -0,0 +1,250 @@
+package com.ultikits.plugins.remotebag.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 按玩家串行执行的任务通道
+ * <p>
+ * 每个玩家一个通道（邮箱），所有通道共享一个固定大小的线程池：
+ * <ul>
+ *   <li>同一玩家的任务按提交顺序逐个执行，不会并发</li>
+ *   <li>不同玩家的任务在线程池中并行执行</li>
+ *   <li>通道清空后即被移除，只有有任务的玩家占用内存</li>
+ *   <li>关闭后不再接受新任务，已提交的任务执行完毕</li>
+ * </ul>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class BagLanes {
+
+    /**
+     * 单个玩家的任务通道，mailbox 与 size 由通道表的 compute 保护
+     */
+    private static final class Lane {
+        private final Queue<Runnable> mailbox = new ArrayDeque<>();
+        private int size;
+    }
+
+    private static final ThreadLocal<UUID> CURRENT = new ThreadLocal<>();
+
+    private final ExecutorService executor;
+    private final Map<UUID, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * 创建任务通道，使用守护线程
+     *
+     * @param threads    线程数
+     * @param threadName 线程名前缀
+     */
+    public BagLanes(int threads, String threadName) {
+        this(createExecutor(Math.max(1, threads), threadName));
+    }
+
+    /**
+     * 创建任务通道
+     *
+     * @param executor 共享线程池，关闭通道时一并关闭
+     */
+    public BagLanes(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    private static ExecutorService createExecutor(int threads, String threadName) {
+        AtomicInteger threadId = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, threadName + "-" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 在玩家的通道上执行任务
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @param task      任务
+     * @param <T>       结果类型
+     * @return 任务结果，通道已关闭时以 {@link RejectedExecutionException} 完成
+     */
+    public <T> CompletableFuture<T> submit(UUID ownerUuid, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        post(ownerUuid, result, () -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 在玩家的通道上执行任务
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @param task      任务
+     * @return 任务完成结果，通道已关闭时以 {@link RejectedExecutionException} 完成
+     */
+    public CompletableFuture<Void> execute(UUID ownerUuid, Runnable task) {
+        return submit(ownerUuid, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private void post(UUID ownerUuid, CompletableFuture<?> result, Runnable task) {
+        if (executor.isShutdown()) {
+            result.completeExceptionally(new RejectedExecutionException("Bag lanes are shut down"));
+            return;
+        }
+        boolean[] start = new boolean[1];
+        lanes.compute(ownerUuid, (k, lane) -> {
+            if (lane == null) {
+                lane = new Lane();
+            }
+            lane.mailbox.add(task);
+            start[0] = lane.size++ == 0;
+            return lane;
+        });
+        if (!start[0]) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(ownerUuid));
+        } catch (RejectedExecutionException e) {
+            // 关闭期间提交的任务在调用线程上执行，保持顺序
+            drain(ownerUuid);
+        }
+    }
+
+    /**
+     * 依次执行通道中的任务，直到通道为空
+     */
+    private void drain(UUID ownerUuid) {
+        UUID previous = CURRENT.get();
+        CURRENT.set(ownerUuid);
+        try {
+            while (true) {
+                Runnable[] next = new Runnable[1];
+                lanes.computeIfPresent(ownerUuid, (k, lane) -> {
+                    next[0] = lane.mailbox.peek();
+                    return lane;
+                });
+                next[0].run();
+                boolean[] empty = new boolean[1];
+                lanes.computeIfPresent(ownerUuid, (k, lane) -> {
+                    lane.mailbox.poll();
+                    empty[0] = --lane.size == 0;
+                    return empty[0] ? null : lane;
+                });
+                if (empty[0]) {
+                    return;
+                }
+            }
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * 检查当前线程是否正在执行该玩家的通道任务，此时不可等待同一通道的任务
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @return 正在执行该玩家的任务返回 true
+     */
+    public boolean isCurrent(UUID ownerUuid) {
+        return ownerUuid.equals(CURRENT.get());
+    }
+
+    /**
+     * 检查玩家的通道中是否有未完成的任务
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @return 有未完成任务返回 true
+     */
+    public boolean isBusy(UUID ownerUuid) {
+        return lanes.containsKey(ownerUuid);
+    }
+
+    /**
+     * 等待玩家通道中此前提交的任务执行完毕
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @param timeout   超时时间
+     * @param unit      时间单位
+     * @return 在超时前完成返回 true，当前线程正在执行该通道时直接返回 false
+     */
+    public boolean await(UUID ownerUuid, long timeout, TimeUnit unit) {
+        if (isCurrent(ownerUuid)) {
+            return false;
+        }
+        return await(execute(ownerUuid, () -> { }), timeout, unit);
+    }
+
+    /**
+     * 等待所有通道中此前提交的任务执行完毕
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 在超时前完成返回 true
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) {
+        List<CompletableFuture<Void>> barriers = new ArrayList<>();
+        for (UUID ownerUuid : lanes.keySet()) {
+            barriers.add(execute(ownerUuid, () -> { }));
+        }
+        if (executor.isShutdown()) {
+            return false;
+        }
+        return await(CompletableFuture.allOf(barriers.toArray(new CompletableFuture<?>[0])), timeout, unit);
+    }
+
+    private static boolean await(CompletableFuture<?> future, long timeout, TimeUnit unit) {
+        try {
+            future.get(timeout, unit);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 执行完所有已提交的任务后关闭线程池
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 所有任务在超时前完成返回 true
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
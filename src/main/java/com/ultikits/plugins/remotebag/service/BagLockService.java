@@ -2,16 +2,20 @@ package com.ultikits.plugins.remotebag.service;
 
 import com.ultikits.plugins.remotebag.entity.BagLockInfo;
 import com.ultikits.plugins.remotebag.entity.BagOpenResult;
+import com.ultikits.plugins.remotebag.entity.BagPageKey;
 import com.ultikits.plugins.remotebag.enums.AccessMode;
 import com.ultikits.plugins.remotebag.enums.LockType;
 import com.ultikits.ultitools.abstracts.UltiToolsPlugin;
 import com.ultikits.ultitools.annotations.Autowired;
+import com.ultikits.ultitools.annotations.Scheduled;
 import com.ultikits.ultitools.annotations.Service;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 背包锁定服务
@@ -22,6 +26,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * - 管理员编辑时，所有者需要等待
  * - 同一时间只有一个人可以编辑
  * 
+ * 过期处理：
+ * - 每把锁加锁时登记到时间轮，由 {@link #sweepExpiredLocks()} 每秒推进一次
+ * - 锁被释放或过期后，通知等待中的玩家和只读查看者，并清理查看者已离线或已关闭界面的只读会话
+ * 
  * @author wisdomme
  * @version 1.0.0
  */
@@ -32,15 +40,74 @@ public class BagLockService {
     private UltiToolsPlugin plugin;
 
     /**
-     * 锁存储: "ownerUUID:pageNum" -> LockInfo
+     * 锁存储: (ownerUUID, pageNum) -> LockInfo
      */
-    private final Map<String, BagLockInfo> locks = new ConcurrentHashMap<>();
+    private final Map<BagPageKey, BagLockInfo> locks = new ConcurrentHashMap<>();
     
     /**
-     * 只读会话追踪: "ownerUUID:pageNum" -> Set<管理员UUID>
+     * 只读会话追踪: (ownerUUID, pageNum) -> Set<管理员UUID>
      * 记录正在以只读模式查看的管理员
      */
-    private final Map<String, Set<UUID>> readOnlySessions = new ConcurrentHashMap<>();
+    private final Map<BagPageKey, Set<UUID>> readOnlySessions = new ConcurrentHashMap<>();
+
+    /**
+     * 持有者索引: 持有者UUID -> 持有的锁
+     * 只在 {@link #locks} 对应键的 compute 内修改，保证与锁存储一致
+     */
+    private final Map<UUID, Set<BagPageKey>> locksByHolder = new ConcurrentHashMap<>();
+
+    /**
+     * 查看者索引: 管理员UUID -> 只读查看的背包页
+     * 只在 {@link #readOnlySessions} 对应键的 compute 内修改
+     */
+    private final Map<UUID, Set<BagPageKey>> sessionsByViewer = new ConcurrentHashMap<>();
+
+    /**
+     * 等待者: (ownerUUID, pageNum) -> Set<被阻止打开的玩家UUID>
+     * 锁释放后通知并清空
+     */
+    private final Map<BagPageKey, Set<UUID>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * 打开中的背包界面: 查看者UUID -> 背包页
+     * 由内容界面打开和关闭时登记，用于判断只读会话是否仍有界面
+     */
+    private final Map<UUID, BagPageKey> openViews = new ConcurrentHashMap<>();
+
+    /**
+     * 时间轮刻度（毫秒），与清理任务周期一致
+     */
+    private static final long SWEEP_TICK_MILLIS = 1000L;
+
+    /**
+     * 时间轮槽位数，覆盖约 8.5 分钟，更长的超时按圈数延后
+     */
+    private static final int WHEEL_SLOTS = 512;
+
+    /**
+     * 到期检查时间轮
+     */
+    private final TimingWheel<ExpiryCheck> expiryWheel =
+            new TimingWheel<>(SWEEP_TICK_MILLIS, WHEEL_SLOTS, clockMillis());
+
+    /**
+     * 已过期（被回收）的锁数量
+     */
+    private final AtomicLong expiredLockCount = new AtomicLong();
+
+    /**
+     * 时间轮中的到期检查
+     * lock 为 null 表示锁已被释放，只需确认背包页仍空闲
+     */
+    private static final class ExpiryCheck {
+        private final BagPageKey key;
+        private final BagLockInfo lock;
+
+        private ExpiryCheck(BagPageKey key, BagLockInfo lock) {
+            this.key = key;
+            this.lock = lock;
+        }
+    }
     
     /**
      * 默认锁超时时间（毫秒）- 5分钟
@@ -65,7 +132,7 @@ public class BagLockService {
      * @return 打开结果
      */
     public BagOpenResult ownerOpen(UUID ownerUuid, int pageNum, Player owner) {
-        String key = makeKey(ownerUuid, pageNum);
+        BagPageKey key = BagPageKey.of(ownerUuid, pageNum);
         
         BagLockInfo existing = locks.get(key);
         
@@ -76,10 +143,11 @@ public class BagLockService {
             }
             
             // 检查锁是否过期
-            if (existing.isExpired(lockTimeoutMillis)) {
-                locks.remove(key);
+            if (leaseExpired(key, existing)) {
+                expireLock(key, existing);
             } else if (existing.getLockType() == LockType.ADMIN) {
                 // 管理员正在编辑，所有者需要等待
+                addWaiter(key, owner.getUniqueId());
                 return BagOpenResult.blocked(existing);
             }
         }
@@ -92,7 +160,7 @@ public class BagLockService {
                 .acquiredAt(System.currentTimeMillis())
                 .build();
         
-        locks.put(key, ownerLock);
+        putLock(key, ownerLock);
         
         // 通知正在只读查看的管理员
         notifyReadOnlyAdmins(key, owner.getName());
@@ -109,14 +177,14 @@ public class BagLockService {
      * @return 打开结果
      */
     public BagOpenResult adminOpen(UUID ownerUuid, int pageNum, Player admin) {
-        String key = makeKey(ownerUuid, pageNum);
+        BagPageKey key = BagPageKey.of(ownerUuid, pageNum);
         
         BagLockInfo existing = locks.get(key);
         
         if (existing != null) {
             // 检查锁是否过期
-            if (existing.isExpired(lockTimeoutMillis)) {
-                locks.remove(key);
+            if (leaseExpired(key, existing)) {
+                expireLock(key, existing);
                 existing = null;
             }
         }
@@ -134,6 +202,7 @@ public class BagLockService {
                     return BagOpenResult.editMode();
                 }
                 // 其他管理员正在编辑
+                addWaiter(key, admin.getUniqueId());
                 return BagOpenResult.blocked(existing);
             }
         }
@@ -146,7 +215,7 @@ public class BagLockService {
                 .acquiredAt(System.currentTimeMillis())
                 .build();
         
-        locks.put(key, adminLock);
+        putLock(key, adminLock);
         return BagOpenResult.editMode();
     }
     
@@ -158,12 +227,8 @@ public class BagLockService {
      * @param holder    锁持有者 UUID
      */
     public void release(UUID ownerUuid, int pageNum, UUID holder) {
-        String key = makeKey(ownerUuid, pageNum);
-        BagLockInfo existing = locks.get(key);
-        
-        if (existing != null && existing.getHolderUuid().equals(holder)) {
-            locks.remove(key);
-        }
+        BagPageKey key = BagPageKey.of(ownerUuid, pageNum);
+        releaseHeld(key, holder);
         
         // 同时清理只读会话
         removeReadOnlySession(key, holder);
@@ -171,21 +236,90 @@ public class BagLockService {
     
     /**
      * 玩家退出时释放所有持有的锁
+     * <p>
+     * 通过持有者索引只处理该玩家自己的锁和只读会话。
      * 
      * @param holder 玩家 UUID
      */
     public void releaseAll(UUID holder) {
         // 释放持有的锁
-        locks.entrySet().removeIf(entry -> 
-                entry.getValue().getHolderUuid().equals(holder)
-        );
+        Set<BagPageKey> heldLocks = locksByHolder.get(holder);
+        if (heldLocks != null) {
+            for (BagPageKey key : heldLocks) {
+                releaseHeld(key, holder);
+            }
+        }
         
+        openViews.remove(holder);
+
         // 清理只读会话
-        for (Set<UUID> sessions : readOnlySessions.values()) {
-            sessions.remove(holder);
+        Set<BagPageKey> viewedPages = sessionsByViewer.get(holder);
+        if (viewedPages != null) {
+            for (BagPageKey key : viewedPages) {
+                removeReadOnlySession(key, holder);
+            }
         }
     }
     
+    /**
+     * 登记玩家打开了背包内容界面
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @param pageNum   页码
+     * @param viewer    查看者 UUID
+     */
+    public void viewOpened(UUID ownerUuid, int pageNum, UUID viewer) {
+        openViews.put(viewer, BagPageKey.of(ownerUuid, pageNum));
+    }
+
+    /**
+     * 登记玩家关闭了背包内容界面
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @param pageNum   页码
+     * @param viewer    查看者 UUID
+     */
+    public void viewClosed(UUID ownerUuid, int pageNum, UUID viewer) {
+        openViews.remove(viewer, BagPageKey.of(ownerUuid, pageNum));
+    }
+
+    /**
+     * 检查玩家是否在线并打开着该背包页的界面
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @param pageNum   页码
+     * @param viewer    查看者 UUID
+     * @return 正在查看返回 true
+     */
+    public boolean isViewing(UUID ownerUuid, int pageNum, UUID viewer) {
+        return isViewing(BagPageKey.of(ownerUuid, pageNum), viewer);
+    }
+
+    /**
+     * 检查背包是否有任一页被锁定、只读查看或打开着界面
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @return 背包正在使用返回 true
+     */
+    public boolean isBagInUse(UUID ownerUuid) {
+        for (BagPageKey key : locks.keySet()) {
+            if (key.isOwnedBy(ownerUuid)) {
+                return true;
+            }
+        }
+        for (BagPageKey key : readOnlySessions.keySet()) {
+            if (key.isOwnedBy(ownerUuid)) {
+                return true;
+            }
+        }
+        for (BagPageKey key : openViews.values()) {
+            if (key.isOwnedBy(ownerUuid)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 获取当前访问模式
      * 
@@ -195,7 +329,7 @@ public class BagLockService {
      * @return 访问模式
      */
     public AccessMode getCurrentAccessMode(UUID ownerUuid, int pageNum, UUID viewer) {
-        String key = makeKey(ownerUuid, pageNum);
+        BagPageKey key = BagPageKey.of(ownerUuid, pageNum);
         BagLockInfo existing = locks.get(key);
         
         if (existing == null) {
@@ -203,8 +337,8 @@ public class BagLockService {
         }
         
         // 检查锁是否过期
-        if (existing.isExpired(lockTimeoutMillis)) {
-            locks.remove(key);
+        if (leaseExpired(key, existing)) {
+            expireLock(key, existing);
             return AccessMode.EDIT;
         }
         
@@ -230,11 +364,11 @@ public class BagLockService {
      * @return 如果可以升级为编辑模式返回 true
      */
     public boolean canUpgradeToEdit(UUID ownerUuid, int pageNum) {
-        String key = makeKey(ownerUuid, pageNum);
+        BagPageKey key = BagPageKey.of(ownerUuid, pageNum);
         BagLockInfo existing = locks.get(key);
         
         // 无锁或锁已过期 → 可以编辑
-        return existing == null || existing.isExpired(lockTimeoutMillis);
+        return existing == null || leaseExpired(key, existing);
     }
     
     /**
@@ -245,16 +379,93 @@ public class BagLockService {
      * @return 锁信息，如果无锁返回 empty
      */
     public Optional<BagLockInfo> getLockInfo(UUID ownerUuid, int pageNum) {
-        String key = makeKey(ownerUuid, pageNum);
+        BagPageKey key = BagPageKey.of(ownerUuid, pageNum);
         BagLockInfo info = locks.get(key);
         
-        if (info != null && info.isExpired(lockTimeoutMillis)) {
-            locks.remove(key);
+        if (info != null && leaseExpired(key, info)) {
+            expireLock(key, info);
             return Optional.empty();
         }
         
         return Optional.ofNullable(info);
     }
+
+    /**
+     * 续租背包锁
+     * <p>
+     * 只修改锁内的租约时间，不替换锁对象；时间轮中的到期检查发现锁被续租后会按剩余时间重新登记。
+     * 
+     * @param ownerUuid 背包所有者 UUID
+     * @param pageNum   页码
+     * @param holder    锁持有者 UUID
+     * @return 仍持有锁并续租成功返回 true，锁已过期或被他人持有返回 false
+     */
+    public boolean renewLease(UUID ownerUuid, int pageNum, UUID holder) {
+        BagPageKey key = BagPageKey.of(ownerUuid, pageNum);
+        BagLockInfo existing = locks.get(key);
+        if (existing == null || !existing.getHolderUuid().equals(holder)
+                || leaseExpired(key, existing)) {
+            return false;
+        }
+        existing.renew();
+        return true;
+    }
+
+    /**
+     * 推进时间轮，回收已过期的锁
+     * <p>
+     * 每秒执行一次，只处理本刻度到期的检查项；持有者仍打开着界面的锁自动续租。锁被释放或过期后
+     * 通知等待者和只读查看者，并移除该页已无意义的只读会话。
+     */
+    @Scheduled(period = 20)
+    public void sweepExpiredLocks() {
+        sweepExpiredLocks(clockMillis());
+    }
+
+    void sweepExpiredLocks(long nowMillis) {
+        for (ExpiryCheck check : expiryWheel.advance(nowMillis)) {
+            if (check.lock == null) {
+                if (!locks.containsKey(check.key)) {
+                    onLockFreed(check.key);
+                }
+                continue;
+            }
+            if (locks.get(check.key) != check.lock) {
+                // Released or replaced, the release path scheduled its own check
+                continue;
+            }
+            if (!leaseExpired(check.key, check.lock)) {
+                // Renewed, still open in a GUI, or the timeout was raised after the lock was taken
+                expiryWheel.schedule(check, nowMillis + check.lock.getRemainingMillis(lockTimeoutMillis));
+                continue;
+            }
+            if (removeLock(check.key, check.lock)) {
+                expiredLockCount.incrementAndGet();
+                onLockFreed(check.key);
+            }
+        }
+    }
+
+    /**
+     * @return 当前持有的锁数量
+     */
+    public int getActiveLockCount() {
+        return locks.size();
+    }
+
+    /**
+     * @return 累计过期回收的锁数量
+     */
+    public long getExpiredLockCount() {
+        return expiredLockCount.get();
+    }
+
+    /**
+     * @return 时间轮中待处理的检查数量
+     */
+    public int getPendingExpiryCount() {
+        return expiryWheel.size();
+    }
     
     /**
      * 检查背包是否被锁定
@@ -268,38 +479,146 @@ public class BagLockService {
     }
     
     // ==================== 私有辅助方法 ====================
-    
+
     /**
-     * 生成锁的 key
+     * 时间轮使用的单调时钟（毫秒），不受系统时间调整影响
      */
-    private String makeKey(UUID ownerUuid, int pageNum) {
-        return ownerUuid.toString() + ":" + pageNum;
+    static long clockMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
     }
     
+    /**
+     * 设置锁并更新持有者索引
+     */
+    private void putLock(BagPageKey key, BagLockInfo lock) {
+        locks.compute(key, (k, previous) -> {
+            if (previous != null) {
+                unindexLock(previous.getHolderUuid(), k);
+            }
+            index(locksByHolder, lock.getHolderUuid(), k);
+            return lock;
+        });
+        removeWaiter(key, lock.getHolderUuid());
+        expiryWheel.schedule(new ExpiryCheck(key, lock), clockMillis() + lock.getRemainingMillis(lockTimeoutMillis));
+    }
+
+    /**
+     * 移除指定的锁（已被替换时不处理）并更新持有者索引
+     *
+     * @return 实际移除返回 true
+     */
+    private boolean removeLock(BagPageKey key, BagLockInfo expected) {
+        boolean[] removed = new boolean[1];
+        locks.computeIfPresent(key, (k, current) -> {
+            if (current != expected) {
+                return current;
+            }
+            unindexLock(current.getHolderUuid(), k);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * 访问时发现锁已过期，立即移除并在下一刻度检查是否需要通知等待者
+     */
+    private void expireLock(BagPageKey key, BagLockInfo expired) {
+        if (removeLock(key, expired)) {
+            expiredLockCount.incrementAndGet();
+            scheduleFreedCheck(key);
+        }
+    }
+
+    /**
+     * 释放指定持有者的锁
+     */
+    private void releaseHeld(BagPageKey key, UUID holder) {
+        boolean[] released = new boolean[1];
+        locks.computeIfPresent(key, (k, current) -> {
+            if (!current.getHolderUuid().equals(holder)) {
+                return current;
+            }
+            unindexLock(holder, k);
+            released[0] = true;
+            return null;
+        });
+        if (released[0]) {
+            scheduleFreedCheck(key);
+        }
+    }
+
+    /**
+     * 通知推迟到清理任务中执行，同一刻度内重新加锁（如关闭后立即重开）时不会打扰等待者
+     */
+    private void scheduleFreedCheck(BagPageKey key) {
+        if (waiters.containsKey(key) || readOnlySessions.containsKey(key)) {
+            expiryWheel.schedule(new ExpiryCheck(key, null), clockMillis());
+        }
+    }
+
+    private void unindexLock(UUID holder, BagPageKey key) {
+        unindex(locksByHolder, holder, key);
+    }
+
     /**
      * 添加只读会话
      */
-    private void addReadOnlySession(String key, UUID adminUuid) {
-        readOnlySessions.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(adminUuid);
+    private void addReadOnlySession(BagPageKey key, UUID adminUuid) {
+        readOnlySessions.compute(key, (k, sessions) -> {
+            if (sessions == null) {
+                sessions = ConcurrentHashMap.newKeySet();
+            }
+            sessions.add(adminUuid);
+            index(sessionsByViewer, adminUuid, k);
+            return sessions;
+        });
     }
     
     /**
-     * 移除只读会话
+     * 移除只读会话，会话集合为空时一并移除
      */
-    private void removeReadOnlySession(String key, UUID uuid) {
-        Set<UUID> sessions = readOnlySessions.get(key);
-        if (sessions != null) {
-            sessions.remove(uuid);
-            if (sessions.isEmpty()) {
-                readOnlySessions.remove(key);
+    private void removeReadOnlySession(BagPageKey key, UUID uuid) {
+        readOnlySessions.computeIfPresent(key, (k, sessions) -> {
+            if (sessions.remove(uuid)) {
+                unindex(sessionsByViewer, uuid, k);
             }
-        }
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    private void addWaiter(BagPageKey key, UUID uuid) {
+        waiters.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(uuid);
+    }
+
+    private void removeWaiter(BagPageKey key, UUID uuid) {
+        waiters.computeIfPresent(key, (k, waiting) -> {
+            waiting.remove(uuid);
+            return waiting.isEmpty() ? null : waiting;
+        });
+    }
+
+    private static void index(Map<UUID, Set<BagPageKey>> index, UUID uuid, BagPageKey key) {
+        index.compute(uuid, (u, keys) -> {
+            if (keys == null) {
+                keys = ConcurrentHashMap.newKeySet();
+            }
+            keys.add(key);
+            return keys;
+        });
+    }
+
+    private static void unindex(Map<UUID, Set<BagPageKey>> index, UUID uuid, BagPageKey key) {
+        index.computeIfPresent(uuid, (u, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
     }
     
     /**
      * 通知只读模式的管理员
      */
-    private void notifyReadOnlyAdmins(String key, String ownerName) {
+    private void notifyReadOnlyAdmins(BagPageKey key, String ownerName) {
         Set<UUID> sessions = readOnlySessions.get(key);
         if (sessions != null && !sessions.isEmpty()) {
             for (UUID adminUuid : sessions) {
@@ -310,4 +629,57 @@ public class BagLockService {
             }
         }
     }
+
+    /**
+     * 检查锁的租约是否已过期；持有者仍打开着该页界面时视为仍在使用并续租，
+     * 只看界面、不点击的编辑者不会在使用中失去锁
+     */
+    private boolean leaseExpired(BagPageKey key, BagLockInfo lock) {
+        if (!lock.isExpired(lockTimeoutMillis)) {
+            return false;
+        }
+        if (isViewing(key, lock.getHolderUuid())) {
+            lock.renew();
+            return false;
+        }
+        return true;
+    }
+
+        private boolean isViewing(BagPageKey key, UUID viewer) {
+        if (!key.equals(openViews.get(viewer))) {
+            return false;
+        }
+        Player player = Bukkit.getPlayer(viewer);
+        return player != null && player.isOnline();
+    }
+
+    /**
+     * 背包页已空闲：通知等待者和只读查看者
+     * <p>
+     * 仍打开着界面的查看者保留只读会话，所有者再次使用时仍会收到通知；
+     * 已离线或已关闭界面的会话视为遗留会话并移除。
+     */
+    private void onLockFreed(BagPageKey key) {
+        Set<UUID> notify = new LinkedHashSet<>();
+        Set<UUID> waiting = waiters.remove(key);
+        if (waiting != null) {
+            notify.addAll(waiting);
+        }
+        Set<UUID> viewers = readOnlySessions.get(key);
+        if (viewers != null) {
+            for (UUID viewer : viewers) {
+                if (!isViewing(key, viewer)) {
+                    removeReadOnlySession(key, viewer);
+                }
+                notify.add(viewer);
+            }
+        }
+        for (UUID uuid : notify) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null && player.isOnline()) {
+                player.sendMessage("§a" + plugin.i18n("msg_bag_lock_freed")
+                        .replace("{0}", String.valueOf(key.getPageNumber())));
+            }
+        }
+    }
 }
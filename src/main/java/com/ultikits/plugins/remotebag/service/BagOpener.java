@@ -0,0 +1,286 @@
+package com.ultikits.plugins.remotebag.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 背包界面的异步打开流程
+ * <p>
+ * 打开背包时先在异步线程读取背包，读取完成后再回到主线程打开界面：
+ * <ul>
+ *   <li>背包已在缓存中时直接在当前 tick 打开，不等待下一 tick</li>
+ *   <li>读取超过阈值仍未完成时调用一次加载提示</li>
+ *   <li>读取完成的回调由主线程每 tick 调用 {@link #tick} 执行</li>
+ *   <li>分别记录直接打开和异步打开占用主线程的时间</li>
+ *   <li>其他异步任务也可通过 {@link #onMainThread} 在主线程处理结果</li>
+ * </ul>
+ * 除统计方法外，所有方法都应在主线程调用。
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class BagOpener {
+
+    /**
+     * 读取背包及一页内容
+     */
+    @FunctionalInterface
+    public interface PageLoader {
+        /**
+         * @param ownerUuid 背包所有者 UUID
+         * @param page      页码，不存在的页只读取背包
+         * @return 读取完成时完成，读取失败时异常完成
+         */
+        CompletableFuture<Void> load(UUID ownerUuid, int page);
+    }
+
+    private static final class Pending {
+        private final Runnable onSlow;
+        private final Runnable onLoaded;
+        private final Consumer<Throwable> onFailed;
+        private final long noticeAt;
+        private final long dispatchNanos;
+        private boolean noticed;
+
+        private Pending(Runnable onSlow, Runnable onLoaded, Consumer<Throwable> onFailed,
+                        long noticeAt, long dispatchNanos) {
+            this.onSlow = onSlow;
+            this.onLoaded = onLoaded;
+            this.onFailed = onFailed;
+            this.noticeAt = noticeAt;
+            this.dispatchNanos = dispatchNanos;
+        }
+    }
+
+    private final PageLoader loader;
+    private final IntSupplier noticeMillis;
+    private final LongSupplier clock;
+
+    // 读取完成的回调，由 I/O 线程加入、主线程执行
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+
+    // 只在主线程访问；等待读取完成的打开请求
+    private final List<Pending> waiting = new ArrayList<>();
+
+    // guarded by this; main thread time of each kind of open
+    private long inlineOpenCount;
+    private long inlineOpenNanos;
+    private long maxInlineOpenNanos;
+    private long asyncOpenCount;
+    private long asyncOpenNanos;
+    private long maxAsyncOpenNanos;
+    private long noticeCount;
+    private long failedCount;
+
+    /**
+     * @param loader       读取背包
+     * @param noticeMillis 显示加载提示前等待的时间（毫秒）
+     */
+    public BagOpener(PageLoader loader, IntSupplier noticeMillis) {
+        this(loader, noticeMillis, System::nanoTime);
+    }
+
+    BagOpener(PageLoader loader, IntSupplier noticeMillis, LongSupplier clock) {
+        this.loader = loader;
+        this.noticeMillis = noticeMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 读取背包后在主线程执行打开操作
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @param page      要打开的页码，该页内容随背包一起读取
+     * @param onSlow    读取超过阈值时调用一次
+     * @param onLoaded  读取完成后调用
+     * @param onFailed  读取失败时调用
+     */
+    public void open(UUID ownerUuid, int page, Runnable onSlow, Runnable onLoaded, Consumer<Throwable> onFailed) {
+        long start = clock.getAsLong();
+        CompletableFuture<Void> load;
+        try {
+            load = loader.load(ownerUuid, page);
+        } catch (RuntimeException e) {
+            load = new CompletableFuture<>();
+            load.completeExceptionally(e);
+        }
+
+        if (load.isDone()) {
+            // 无需等待 I/O，直接在当前 tick 打开
+            complete(load, onLoaded, onFailed);
+            recordInline(clock.getAsLong() - start);
+            return;
+        }
+
+        long now = clock.getAsLong();
+        Pending pending = new Pending(onSlow, onLoaded, onFailed,
+                now + TimeUnit.MILLISECONDS.toNanos(noticeMillis.getAsInt()), now - start);
+        waiting.add(pending);
+        load.whenComplete((ignored, error) -> completions.add(() -> finish(pending, error)));
+    }
+
+    /**
+     * 在主线程接收异步任务的结果：返回的 future 在任务完成后的下一次 {@link #tick}
+     * 中完成，其上的回调因此在主线程执行。任务已完成时直接返回该任务。
+     *
+     * @param task 在其他线程执行的任务
+     * @param <T>  结果类型
+     * @return 在主线程完成的 future，结果或异常与任务相同
+     */
+    public <T> CompletableFuture<T> onMainThread(CompletableFuture<T> task) {
+        if (task.isDone()) {
+            return task;
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        task.whenComplete((value, error) -> completions.add(() -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * 执行读取完成的打开操作，并为读取超时的请求显示加载提示。由主线程每 tick 调用。
+     * 回调抛出异常时，其余回调留到下一 tick 执行。
+     */
+    public void tick() {
+        Runnable completion;
+        while ((completion = completions.poll()) != null) {
+            completion.run();
+        }
+        if (waiting.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        for (Pending pending : new ArrayList<>(waiting)) {
+            if (!pending.noticed && now - pending.noticeAt >= 0) {
+                pending.noticed = true;
+                synchronized (this) {
+                    noticeCount++;
+                }
+                pending.onSlow.run();
+            }
+        }
+    }
+
+    private void finish(Pending pending, Throwable error) {
+        long start = clock.getAsLong();
+        waiting.remove(pending);
+        try {
+            if (error != null) {
+                fail(pending.onFailed, error);
+            } else {
+                pending.onLoaded.run();
+            }
+        } finally {
+            long cost = pending.dispatchNanos + clock.getAsLong() - start;
+            synchronized (this) {
+                asyncOpenCount++;
+                asyncOpenNanos += cost;
+                maxAsyncOpenNanos = Math.max(maxAsyncOpenNanos, cost);
+            }
+        }
+    }
+
+    private void complete(CompletableFuture<Void> load, Runnable onLoaded, Consumer<Throwable> onFailed) {
+        try {
+            load.join();
+        } catch (RuntimeException e) {
+            fail(onFailed, e);
+            return;
+        }
+        onLoaded.run();
+    }
+
+    private void fail(Consumer<Throwable> onFailed, Throwable error) {
+        synchronized (this) {
+            failedCount++;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        onFailed.accept(cause);
+    }
+
+    private synchronized void recordInline(long cost) {
+        inlineOpenCount++;
+        inlineOpenNanos += cost;
+        maxInlineOpenNanos = Math.max(maxInlineOpenNanos, cost);
+    }
+
+    // ==================== 打开统计 ====================
+
+    /**
+     * @return 等待读取完成的打开请求数
+     */
+    public int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * @return 无需等待读取、在当前 tick 打开的次数
+     */
+    public synchronized long getInlineOpenCount() {
+        return inlineOpenCount;
+    }
+
+    /**
+     * @return 直接打开平均占用主线程的时间（毫秒），包括同步读取背包
+     */
+    public synchronized double getAverageInlineOpenMillis() {
+        return inlineOpenCount > 0 ? inlineOpenNanos / 1_000_000.0 / inlineOpenCount : 0.0;
+    }
+
+    /**
+     * @return 直接打开最长占用主线程的时间（毫秒）
+     */
+    public synchronized double getMaxInlineOpenMillis() {
+        return maxInlineOpenNanos / 1_000_000.0;
+    }
+
+    /**
+     * @return 异步读取后打开的次数
+     */
+    public synchronized long getAsyncOpenCount() {
+        return asyncOpenCount;
+    }
+
+    /**
+     * @return 异步打开平均占用主线程的时间（毫秒），包括发起读取和读取后打开界面
+     */
+    public synchronized double getAverageAsyncOpenMillis() {
+        return asyncOpenCount > 0 ? asyncOpenNanos / 1_000_000.0 / asyncOpenCount : 0.0;
+    }
+
+    /**
+     * @return 异步打开最长占用主线程的时间（毫秒）
+     */
+    public synchronized double getMaxAsyncOpenMillis() {
+        return maxAsyncOpenNanos / 1_000_000.0;
+    }
+
+    /**
+     * @return 显示加载提示的次数
+     */
+    public synchronized long getNoticeCount() {
+        return noticeCount;
+    }
+
+    /**
+     * @return 读取失败的次数
+     */
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+}
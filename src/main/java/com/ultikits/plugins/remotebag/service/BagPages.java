@@ -0,0 +1,214 @@
+package com.ultikits.plugins.remotebag.service;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 单个玩家已读取的背包页
+ * <p>
+ * 以页码为下标的数组保存页面快照，写入时复制（copy-on-write）：
+ * <ul>
+ *   <li>读取不加锁，直接访问当前数组</li>
+ *   <li>写入加锁，复制数组并替换对应页后以一次引用替换发布</li>
+ *   <li>{@link #snapshot()} 返回某一时刻的全部页面，之后的修改不会影响遍历</li>
+ * </ul>
+ * 背包页数很少、修改远少于读取，复制数组的开销可以忽略。
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public final class BagPages {
+
+    /**
+     * 页码上限，超出的页码无法保存
+     */
+    public static final int MAX_PAGE = 4096;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * 遍历页面的回调
+     */
+    @FunctionalInterface
+    public interface PageVisitor {
+
+        /**
+         * @param page     页码
+         * @param snapshot 页面快照
+         */
+        void visit(int page, PageSnapshot snapshot);
+    }
+
+    /**
+     * 某一时刻的全部页面，不会再被修改
+     */
+    public static final class View {
+        private final PageSnapshot[] pages;
+        private final int size;
+
+        private View(PageSnapshot[] pages, int size) {
+            this.pages = pages;
+            this.size = size;
+        }
+
+        /**
+         * @return 页数
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param page 页码
+         * @return 页面快照，不存在时返回 null
+         */
+        public PageSnapshot get(int page) {
+            return page >= 0 && page < pages.length ? pages[page] : null;
+        }
+
+        /**
+         * 按页码从小到大遍历
+         *
+         * @param visitor 回调
+         */
+        public void forEach(PageVisitor visitor) {
+            for (int page = 0; page < pages.length; page++) {
+                PageSnapshot snapshot = pages[page];
+                if (snapshot != null) {
+                    visitor.visit(page, snapshot);
+                }
+            }
+        }
+    }
+
+    private volatile View view = new View(new PageSnapshot[INITIAL_CAPACITY], 0);
+
+    /**
+     * @param page 页码
+     * @return 页面快照，不存在时返回 null
+     */
+    public PageSnapshot get(int page) {
+        return view.get(page);
+    }
+
+    /**
+     * @param page 页码
+     * @return 页面存在返回 true
+     */
+    public boolean contains(int page) {
+        return view.get(page) != null;
+    }
+
+    /**
+     * @return 页数
+     */
+    public int size() {
+        return view.size;
+    }
+
+    /**
+     * @return 当前全部页面，供保存等需要一致遍历的调用方使用
+     */
+    public View snapshot() {
+        return view;
+    }
+
+    /**
+     * 按页码从小到大遍历当前全部页面
+     *
+     * @param visitor 回调
+     */
+    public void forEach(PageVisitor visitor) {
+        view.forEach(visitor);
+    }
+
+    /**
+     * 替换页面快照
+     *
+     * @param page     页码
+     * @param snapshot 新快照
+     * @return 旧快照，不存在时返回 null
+     * @throws IllegalArgumentException 页码超出范围
+     */
+    public synchronized PageSnapshot put(int page, PageSnapshot snapshot) {
+        Objects.requireNonNull(snapshot, "snapshot");
+        PageSnapshot previous = view.get(page);
+        publish(page, snapshot, previous);
+        return previous;
+    }
+
+    /**
+     * 页面不存在时写入快照
+     *
+     * @param page     页码
+     * @param snapshot 新快照
+     * @return 已存在的快照，写入成功时返回 null
+     * @throws IllegalArgumentException 页码超出范围
+     */
+    public synchronized PageSnapshot putIfAbsent(int page, PageSnapshot snapshot) {
+        Objects.requireNonNull(snapshot, "snapshot");
+        PageSnapshot previous = view.get(page);
+        if (previous == null) {
+            publish(page, snapshot, null);
+        }
+        return previous;
+    }
+
+    /**
+     * 仅当页面仍是指定快照时替换
+     *
+     * @param page     页码
+     * @param expected 期望的当前快照
+     * @param snapshot 新快照
+     * @return 替换成功返回 true
+     */
+    public synchronized boolean replace(int page, PageSnapshot expected, PageSnapshot snapshot) {
+        Objects.requireNonNull(snapshot, "snapshot");
+        PageSnapshot previous = view.get(page);
+        if (previous == null || previous != expected) {
+            return false;
+        }
+        publish(page, snapshot, previous);
+        return true;
+    }
+
+    /**
+     * 移除页面
+     *
+     * @param page 页码
+     * @return 被移除的快照，不存在时返回 null
+     */
+    public synchronized PageSnapshot remove(int page) {
+        PageSnapshot previous = view.get(page);
+        if (previous != null) {
+            publish(page, null, previous);
+        }
+        return previous;
+    }
+
+    /**
+     * @param page 页码
+     * @return 页码在 0 到 {@link #MAX_PAGE} 之间返回 true
+     */
+    public static boolean isValidPage(int page) {
+        return page >= 0 && page <= MAX_PAGE;
+    }
+
+    /**
+     * 复制数组、替换一页后发布，调用方需持有锁
+     */
+    private void publish(int page, PageSnapshot snapshot, PageSnapshot previous) {
+        if (!isValidPage(page)) {
+            throw new IllegalArgumentException("Page out of range: " + page);
+        }
+        PageSnapshot[] current = view.pages;
+        int capacity = current.length;
+        while (capacity <= page) {
+            capacity <<= 1;
+        }
+        PageSnapshot[] pages = Arrays.copyOf(current, capacity);
+        pages[page] = snapshot;
+        int size = view.size + (snapshot != null ? 1 : 0) - (previous != null ? 1 : 0);
+        view = new View(pages, size);
+    }
+}
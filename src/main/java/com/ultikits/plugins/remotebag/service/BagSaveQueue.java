@@ -0,0 +1,350 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 背包异步写入队列（write-behind）
+ * <p>
+ * 主线程只负责提交页面快照，序列化与数据库写入在 I/O 线程执行：
+ * <ul>
+ *   <li>同一玩家的待写入页合并为一批，在一次 I/O 任务中写入</li>
+ *   <li>同一背包页的多次提交会合并，只写入最新快照</li>
+ *   <li>待写入页数有上限，队列满时拒绝新页而不阻塞提交方（主线程），由调用方保留脏页稍后重试</li>
+ *   <li>任务在所属玩家的 {@link BagLanes} 通道上按提交顺序执行，不同玩家并行写入</li>
+ * </ul>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class BagSaveQueue {
+
+    /**
+     * 背包批量写入器
+     */
+    @FunctionalInterface
+    public interface BatchWriter {
+
+        /**
+         * 写入同一玩家的一批背包页
+         *
+         * @param ownerUuid 背包所有者 UUID
+         * @param pages     页码 -> 页面快照
+         * @return 全部写入成功返回 true
+         */
+        boolean write(UUID ownerUuid, Map<Integer, ItemStack[]> pages);
+    }
+
+    /**
+     * 同一玩家待写入的页面快照
+     */
+    private static final class PendingBatch {
+        // guarded by this
+        private final Map<Integer, ItemStack[]> pages = new HashMap<>();
+        // guarded by this
+        private boolean closed;
+        private final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        private PendingBatch(int page, ItemStack[] snapshot) {
+            pages.put(page, snapshot);
+        }
+    }
+
+    private final BatchWriter writer;
+    private final BagLanes lanes;
+    private final int capacity;
+    private final Semaphore permits;
+
+    private final Map<UUID, PendingBatch> pending = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> outstandingByPlayer = new ConcurrentHashMap<>();
+
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * 创建写入队列，使用单个守护 I/O 线程
+     *
+     * @param writer   批量写入器
+     * @param capacity 最多待写入页数
+     */
+    public BagSaveQueue(BatchWriter writer, int capacity) {
+        this(writer, capacity, new BagLanes(1, "UltiRemoteBag-Save"));
+    }
+
+    /**
+     * 创建写入队列
+     *
+     * @param writer   批量写入器，需支持不同玩家并发写入
+     * @param capacity 最多待写入页数
+     * @param lanes    按玩家串行的任务通道，关闭队列时一并关闭
+     */
+    public BagSaveQueue(BatchWriter writer, int capacity, BagLanes lanes) {
+        this.writer = writer;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+        this.lanes = lanes;
+    }
+
+    /**
+     * 提交一页快照等待写入
+     * <p>
+     * 同一玩家尚未写入的页会合并为一批写入；同一页的多次提交只保留最新快照。
+     * 从不阻塞：队列已满且该页不能合并到待写入批次时立即拒绝。
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @param page      页码
+     * @param snapshot  页面快照，调用后不可再修改
+     * @return 所在批次的写入结果，全部成功为 true；队列已满时以
+     *         {@link RejectedExecutionException} 异常完成，该页未提交
+     */
+    public CompletableFuture<Boolean> enqueue(UUID ownerUuid, int page, ItemStack[] snapshot) {
+        boolean acquired = false;
+        while (true) {
+            PendingBatch batch = pending.get(ownerUuid);
+            if (batch == null) {
+                if (!acquired) {
+                    if (!tryAcquirePermit()) {
+                        return rejected();
+                    }
+                    acquired = true;
+                    continue;
+                }
+                PendingBatch created = new PendingBatch(page, snapshot);
+                if (pending.putIfAbsent(ownerUuid, created) == null) {
+                    outstandingByPlayer.merge(ownerUuid, 1, Integer::sum);
+                    pageAdded();
+                    if (lanes.execute(ownerUuid, () -> drain(ownerUuid)).isCompletedExceptionally()) {
+                        // 通道已关闭，在调用线程上写入
+                        drain(ownerUuid);
+                    }
+                    return created.done;
+                }
+                continue;
+            }
+
+            synchronized (batch) {
+                if (!batch.closed) {
+                    if (batch.pages.containsKey(page)) {
+                        batch.pages.put(page, snapshot);
+                        if (acquired) {
+                            permits.release();
+                        }
+                        coalescedCount.incrementAndGet();
+                        return batch.done;
+                    }
+                    if (acquired) {
+                        batch.pages.put(page, snapshot);
+                        pageAdded();
+                        return batch.done;
+                    }
+                }
+            }
+            // 批次已被 I/O 线程取走，或需要先获取新页的配额
+            if (!acquired) {
+                if (!tryAcquirePermit()) {
+                    return rejected();
+                }
+                acquired = true;
+            }
+        }
+    }
+
+    private boolean tryAcquirePermit() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    private static CompletableFuture<Boolean> rejected() {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        result.completeExceptionally(new RejectedExecutionException("Bag save queue is full"));
+        return result;
+    }
+
+    private void pageAdded() {
+        peakDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * 在玩家的通道上执行一个任务，排在此前提交的写入之后
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @param task      任务
+     * @return 任务完成结果
+     */
+    public CompletableFuture<Void> submit(UUID ownerUuid, Runnable task) {
+        return lanes.execute(ownerUuid, task);
+    }
+
+    /**
+     * @return 执行写入的任务通道
+     */
+    public BagLanes getLanes() {
+        return lanes;
+    }
+
+    /**
+     * 检查玩家是否还有未完成的写入
+     *
+     * @param ownerUuid 背包所有者 UUID
+     * @return 有未完成写入返回 true
+     */
+    public boolean hasPending(UUID ownerUuid) {
+        return outstandingByPlayer.containsKey(ownerUuid);
+    }
+
+    /**
+     * 等待此前提交的所有任务执行完毕
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 在超时前完成返回 true
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) {
+        return lanes.awaitIdle(timeout, unit);
+    }
+
+    /**
+     * 写入所有待处理快照后关闭任务通道
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 所有写入在超时前完成返回 true
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        return lanes.shutdown(timeout, unit);
+    }
+
+    /**
+     * 取出所有尚未开始写入的批次，I/O 线程不再写入它们
+     * <p>
+     * 这些批次的写入结果以 false 完成，正在写入的批次不受影响。
+     *
+     * @return 背包所有者 UUID -> 页码 -> 页面快照
+     */
+    public Map<UUID, Map<Integer, ItemStack[]>> abandon() {
+        Map<UUID, Map<Integer, ItemStack[]>> abandoned = new HashMap<>();
+        for (UUID ownerUuid : pending.keySet()) {
+            PendingBatch batch = pending.remove(ownerUuid);
+            if (batch == null) {
+                continue;
+            }
+            abandoned.put(ownerUuid, close(batch));
+            outstandingByPlayer.computeIfPresent(ownerUuid, (k, count) -> count > 1 ? count - 1 : null);
+            batch.done.complete(false);
+        }
+        return abandoned;
+    }
+
+    /**
+     * 关闭批次，之后的提交进入新批次
+     */
+    private Map<Integer, ItemStack[]> close(PendingBatch batch) {
+        Map<Integer, ItemStack[]> pages;
+        synchronized (batch) {
+            batch.closed = true;
+            pages = new HashMap<>(batch.pages);
+        }
+        permits.release(pages.size());
+        depth.addAndGet(-pages.size());
+        return pages;
+    }
+
+    private void drain(UUID ownerUuid) {
+        PendingBatch batch = pending.remove(ownerUuid);
+        if (batch == null) {
+            return;
+        }
+        Map<Integer, ItemStack[]> pages = close(batch);
+        try {
+            boolean ok = writer.write(ownerUuid, pages);
+            batchCount.incrementAndGet();
+            if (ok) {
+                writtenCount.addAndGet(pages.size());
+            } else {
+                failedCount.incrementAndGet();
+            }
+            batch.done.complete(ok);
+        } catch (Throwable t) {
+            failedCount.incrementAndGet();
+            batch.done.completeExceptionally(t);
+        } finally {
+            outstandingByPlayer.computeIfPresent(ownerUuid, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    // ==================== 队列统计 ====================
+
+    /**
+     * @return 当前待写入页数
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * @return 历史最大待写入页数
+     */
+    public int getPeakDepth() {
+        return peakDepth.get();
+    }
+
+    /**
+     * @return 队列容量
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return 被合并（未单独写入）的提交次数
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return 成功写入页数
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * @return 已执行的写入批次数
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * @return 写入失败批次数
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return 因队列已满而被拒绝、留待下次保存的提交次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
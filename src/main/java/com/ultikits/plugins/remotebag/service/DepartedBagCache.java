@@ -0,0 +1,291 @@
+package com.ultikits.plugins.remotebag.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 已退出玩家的背包缓存（第二级缓存）
+ * <p>
+ * 玩家退出后背包以压缩后的编码保存一段时间，短时间内重新进入时无需读取数据库：
+ * <ul>
+ *   <li>按总字节数限制，超出时淘汰最早退出的背包</li>
+ *   <li>背包在退出后保留固定时间，过期后不再命中</li>
+ *   <li>背包被重新加载后即从缓存中移除，同一背包只有一份有效数据</li>
+ *   <li>记录命中、未命中、过期和淘汰次数</li>
+ * </ul>
+ *
+ * @param <V> 缓存的背包数据
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class DepartedBagCache<V> {
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long bytes;
+        private final long expiresAt;
+
+        private Entry(V value, long bytes, long expiresAt) {
+            this.value = value;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // guarded by this; in order of departure, which is also the order of expiry
+    private final LinkedHashMap<UUID, Entry<V>> entries = new LinkedHashMap<>();
+    private long bytes;
+
+    // guarded by this
+    private long hitCount;
+    private long missCount;
+    private long expiredCount;
+    private long evictedCount;
+
+    /**
+     * @param maxBytes  缓存的最大字节数，0 为关闭
+     * @param ttlMillis 背包保留时间（毫秒）
+     */
+    public DepartedBagCache(long maxBytes, long ttlMillis) {
+        this(maxBytes, ttlMillis, System::nanoTime);
+    }
+
+    DepartedBagCache(long maxBytes, long ttlMillis, LongSupplier clock) {
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * @return 缓存已开启返回 true
+     */
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * 缓存已退出玩家的背包，替换该玩家之前的数据
+     *
+     * @param playerUuid 玩家 UUID
+     * @param value      背包数据
+     * @param size       背包数据占用的字节数
+     * @return 超过缓存大小不能缓存时返回 false
+     */
+    public synchronized boolean put(UUID playerUuid, V value, long size) {
+        Entry<V> previous = entries.remove(playerUuid);
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        if (size > maxBytes) {
+            return false;
+        }
+        entries.put(playerUuid, new Entry<>(value, size, clock.getAsLong() + ttlNanos));
+        bytes += size;
+
+        Iterator<Entry<V>> oldest = entries.values().iterator();
+        while (bytes > maxBytes && oldest.hasNext()) {
+            bytes -= oldest.next().bytes;
+            oldest.remove();
+            evictedCount++;
+        }
+        return true;
+    }
+
+    /**
+     * 获取未过期的背包数据，数据仍留在缓存中直到 {@link #remove}
+     *
+     * @param playerUuid 玩家 UUID
+     * @return 背包数据，不在缓存中或已过期返回 null
+     */
+    public synchronized V get(UUID playerUuid) {
+        Entry<V> entry = entries.get(playerUuid);
+        if (entry != null && clock.getAsLong() - entry.expiresAt >= 0) {
+            entries.remove(playerUuid);
+            bytes -= entry.bytes;
+            expiredCount++;
+            entry = null;
+        }
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    /**
+     * 修改缓存中的背包数据，与 {@link #remove} 互斥
+     *
+     * @param playerUuid 玩家 UUID
+     * @param update     修改操作
+     * @return 背包在缓存中返回 true
+     */
+    public synchronized boolean update(UUID playerUuid, Consumer<V> update) {
+        Entry<V> entry = entries.get(playerUuid);
+        if (entry == null) {
+            return false;
+        }
+        update.accept(entry.value);
+        return true;
+    }
+
+    /**
+     * 移除背包数据
+     *
+     * @param playerUuid 玩家 UUID
+     * @param value      要移除的数据，已被替换时不移除
+     * @return 移除返回 true
+     */
+    public synchronized boolean remove(UUID playerUuid, V value) {
+        Entry<V> entry = entries.get(playerUuid);
+        if (entry == null || entry.value != value) {
+            return false;
+        }
+        entries.remove(playerUuid);
+        bytes -= entry.bytes;
+        return true;
+    }
+
+    /**
+     * 移除已过期的背包
+     *
+     * @return 移除的背包数
+     */
+    public synchronized int expire() {
+        long now = clock.getAsLong();
+        int expired = 0;
+        Iterator<Entry<V>> oldest = entries.values().iterator();
+        while (oldest.hasNext()) {
+            Entry<V> entry = oldest.next();
+            if (now - entry.expiresAt < 0) {
+                break;
+            }
+            bytes -= entry.bytes;
+            oldest.remove();
+            expired++;
+        }
+        expiredCount += expired;
+        return expired;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    // ==================== 压缩 ====================
+
+    /**
+     * 压缩编码后的背包页
+     */
+    static byte[] compress(String contents) {
+        byte[] input = contents.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 解压 {@link #compress} 的结果
+     *
+     * @throws IllegalStateException 数据损坏
+     */
+    static String decompress(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated bag contents");
+                }
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt bag contents", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // ==================== 缓存统计 ====================
+
+    /**
+     * @return 缓存的背包数
+     */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return 缓存占用的字节数
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return 缓存的最大字节数
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return 加载背包时在缓存中找到的次数
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return 加载背包时不在缓存中、需要读取数据库的次数
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return 过期移除的背包数
+     */
+    public synchronized long getExpiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * @return 超出大小被淘汰的背包数
+     */
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+}
@@ -0,0 +1,135 @@
+package com.ultikits.plugins.remotebag.service;
+
+import com.ultikits.plugins.remotebag.entity.RemoteBagDeltaData;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 背包页增量（只保存修改过的槽位）
+ * <p>
+ * 增量记录保存修改过的槽位列表和只含这些槽位的页面内容：
+ * <ul>
+ *   <li>与上次写入的内容逐槽位比较，得到修改过的槽位</li>
+ *   <li>列表中有、内容中为空的槽位表示被清空</li>
+ *   <li>合并时从最新的记录向前应用，每个槽位只取最新值，已被覆盖的记录不解码</li>
+ * </ul>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+final class PageDeltas {
+
+    private static final int[] NO_SLOTS = new int[0];
+
+    private PageDeltas() {
+    }
+
+    /**
+     * 比较两份页面内容
+     *
+     * @param base    上次写入的内容
+     * @param current 当前内容
+     * @return 修改过的槽位（升序），页面大小不同时返回 null
+     */
+    static int[] changedSlots(ItemStack[] base, ItemStack[] current) {
+        if (base.length != current.length) {
+            return null;
+        }
+        int[] changed = new int[current.length];
+        int count = 0;
+        for (int slot = 0; slot < current.length; slot++) {
+            if (!Objects.equals(base[slot], current[slot])) {
+                changed[count++] = slot;
+            }
+        }
+        return count == changed.length ? changed : Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * 取出指定槽位，其余槽位为空
+     *
+     * @param items 页面内容
+     * @param slots 槽位
+     * @return 与页面大小相同的数组
+     */
+    static ItemStack[] pick(ItemStack[] items, int[] slots) {
+        ItemStack[] picked = new ItemStack[items.length];
+        for (int slot : slots) {
+            picked[slot] = items[slot];
+        }
+        return picked;
+    }
+
+    /**
+     * @param slots 槽位
+     * @return 逗号分隔的槽位列表
+     */
+    static String formatSlots(int[] slots) {
+        StringBuilder builder = new StringBuilder(slots.length * 3);
+        for (int slot : slots) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(slot);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param slots 逗号分隔的槽位列表
+     * @return 槽位，格式错误的项被跳过
+     */
+    static int[] parseSlots(String slots) {
+        if (slots == null || slots.isEmpty()) {
+            return NO_SLOTS;
+        }
+        String[] parts = slots.split(",");
+        int[] parsed = new int[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            try {
+                parsed[count] = Integer.parseInt(part.trim());
+                count++;
+            } catch (NumberFormatException ignored) {
+                // 跳过格式错误的项
+            }
+        }
+        return count == parsed.length ? parsed : Arrays.copyOf(parsed, count);
+    }
+
+    /**
+     * 将增量记录合并到快照内容上
+     *
+     * @param items   快照内容，直接修改
+     * @param deltas  增量记录，按序号升序
+     * @param decoder 解码增量内容
+     * @return 解码的记录数
+     */
+    static int merge(ItemStack[] items, List<RemoteBagDeltaData> deltas, Function<String, ItemStack[]> decoder) {
+        BitSet resolved = new BitSet(items.length);
+        int decoded = 0;
+        for (int i = deltas.size() - 1; i >= 0 && resolved.cardinality() < items.length; i--) {
+            RemoteBagDeltaData delta = deltas.get(i);
+            int[] slots = parseSlots(delta.getSlots());
+            ItemStack[] values = null;
+            for (int slot : slots) {
+                if (slot < 0 || slot >= items.length || resolved.get(slot)) {
+                    continue;
+                }
+                if (values == null) {
+                    values = decoder.apply(delta.getContents());
+                    decoded++;
+                }
+                items[slot] = slot < values.length ? values[slot] : null;
+                resolved.set(slot);
+            }
+        }
+        return decoded;
+    }
+}
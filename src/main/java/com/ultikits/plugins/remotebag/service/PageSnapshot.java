@@ -0,0 +1,147 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.function.Function;
+
+/**
+ * 背包页不可变快照
+ * <p>
+ * 缓存中的页面内容以快照保存，发布后不再修改：
+ * <ul>
+ *   <li>提交时复制一次物品，调用方之后修改原数组或物品不会影响快照</li>
+ *   <li>每次提交生成新快照和更大的版本号，发布新版本只需替换缓存中的引用</li>
+ *   <li>写入线程、统计等读取方无需加锁，也无需再复制</li>
+ *   <li>从数据库读取的页可以先保存编码后的内容，第一次读取物品时才解码，且只解码一次</li>
+ * </ul>
+ * {@link #getItem} 返回的物品由所有读取方共享，不得修改。
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public final class PageSnapshot {
+
+    private static final ItemStack[] EMPTY = new ItemStack[0];
+
+    // 未解码时为 null；解码后不再修改
+    private volatile ItemStack[] items;
+    private final long version;
+
+    // guarded by this; 解码后清空
+    private String encoded;
+    private Function<String, ItemStack[]> decoder;
+
+    private PageSnapshot(ItemStack[] items, long version) {
+        this.items = items;
+        this.version = version;
+    }
+
+    private PageSnapshot(String encoded, Function<String, ItemStack[]> decoder, long version) {
+        this.encoded = encoded;
+        this.decoder = decoder;
+        this.version = version;
+    }
+
+    /**
+     * 复制页面内容生成快照
+     *
+     * @param contents 页面内容，null 视为空页
+     * @param version  版本号
+     * @return 快照
+     */
+    static PageSnapshot copyOf(ItemStack[] contents, long version) {
+        if (contents == null) {
+            return new PageSnapshot(EMPTY, version);
+        }
+        ItemStack[] items = new ItemStack[contents.length];
+        for (int i = 0; i < contents.length; i++) {
+            if (contents[i] != null) {
+                items[i] = contents[i].clone();
+            }
+        }
+        return new PageSnapshot(items, version);
+    }
+
+    /**
+     * 直接以数组生成快照，用于刚解码、没有其他引用的内容
+     *
+     * @param items   页面内容，之后不得再修改
+     * @param version 版本号
+     * @return 快照
+     */
+    static PageSnapshot wrap(ItemStack[] items, long version) {
+        return new PageSnapshot(items, version);
+    }
+
+    /**
+     * 以编码后的内容生成快照，第一次读取物品时才解码
+     *
+     * @param encoded 编码后的页面内容
+     * @param decoder 解码方法，可能在任意线程调用
+     * @param version 版本号
+     * @return 快照
+     */
+    static PageSnapshot encoded(String encoded, Function<String, ItemStack[]> decoder, long version) {
+        return new PageSnapshot(encoded, decoder, version);
+    }
+
+    /**
+     * @return 版本号，同一页较新的快照版本号更大
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return 槽位数
+     */
+    public int size() {
+        return items().length;
+    }
+
+    /**
+     * @param slot 槽位
+     * @return 槽位中的物品（共享，不得修改），空槽位返回 null
+     */
+    public ItemStack getItem(int slot) {
+        return items()[slot];
+    }
+
+    /**
+     * @return 新数组，物品与快照共享，不得修改
+     */
+    public ItemStack[] toArray() {
+        return items().clone();
+    }
+
+    /**
+     * @return 内容已解码返回 true
+     */
+    public boolean isDecoded() {
+        return items != null;
+    }
+
+    /**
+     * 快照内部数组，只读；未解码时先解码
+     */
+    ItemStack[] items() {
+        ItemStack[] decoded = items;
+        return decoded != null ? decoded : decode();
+    }
+
+    private synchronized ItemStack[] decode() {
+        if (items == null) {
+            items = decoder.apply(encoded);
+            encoded = null;
+            decoder = null;
+        }
+        return items;
+    }
+
+    /**
+     * @return 尚未解码时返回读取时的编码内容，可直接重新使用；已解码返回 null
+     */
+    synchronized String encodedContents() {
+        return encoded;
+    }
+}
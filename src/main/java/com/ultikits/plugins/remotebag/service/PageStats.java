@@ -0,0 +1,181 @@
+package com.ultikits.plugins.remotebag.service;
+
+import com.ultikits.plugins.remotebag.entity.PageSummary;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 背包页统计（增量维护）
+ * <p>
+ * 首次读取时扫描一次页面内容，之后按槽位增量更新：
+ * <ul>
+ *   <li>物品总数量、占用槽位数和每种物品的数量，读取为 O(1)</li>
+ *   <li>空槽位位图，可直接查找第一个空槽位</li>
+ *   <li>记录每个槽位统计时的数量和类型，物品对象之后被修改也不会影响增减</li>
+ * </ul>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public final class PageStats {
+
+    private final int size;
+    // guarded by this; recorded amount and material of each slot, 0/null when empty
+    private final int[] amounts;
+    private final String[] materials;
+    // guarded by this; bit set = slot is free
+    private final long[] freeSlots;
+    private final Map<String, Integer> materialTotals = new HashMap<>();
+
+    private int itemCount;
+    private int occupiedSlots;
+
+    private PageStats(int size) {
+        this.size = size;
+        this.amounts = new int[size];
+        this.materials = new String[size];
+        this.freeSlots = new long[(size + 63) >>> 6];
+        for (int slot = 0; slot < size; slot++) {
+            freeSlots[slot >>> 6] |= 1L << slot;
+        }
+    }
+
+    /**
+     * 扫描页面内容创建统计
+     *
+     * @param items 页面内容
+     * @return 页面统计
+     */
+    public static PageStats of(ItemStack[] items) {
+        PageStats stats = new PageStats(items.length);
+        for (int slot = 0; slot < items.length; slot++) {
+            stats.setSlot(slot, items[slot]);
+        }
+        return stats;
+    }
+
+    /**
+     * 更新单个槽位，O(1)
+     *
+     * @param slot 槽位
+     * @param item 新物品，可为 null
+     */
+    public synchronized void setSlot(int slot, ItemStack item) {
+        boolean occupied = item != null && item.getType() != Material.AIR;
+        int amount = occupied ? item.getAmount() : 0;
+        String material = occupied && item.getType() != null ? item.getType().name() : null;
+
+        if (amounts[slot] == amount && isOccupied(slot) == occupied
+                && (material == null ? materials[slot] == null : material.equals(materials[slot]))) {
+            return;
+        }
+        clearSlot(slot);
+        if (!occupied) {
+            return;
+        }
+        amounts[slot] = amount;
+        materials[slot] = material;
+        itemCount += amount;
+        occupiedSlots++;
+        freeSlots[slot >>> 6] &= ~(1L << slot);
+        if (material != null) {
+            materialTotals.merge(material, amount, Integer::sum);
+        }
+    }
+
+    private void clearSlot(int slot) {
+        if (!isOccupied(slot)) {
+            return;
+        }
+        itemCount -= amounts[slot];
+        occupiedSlots--;
+        if (materials[slot] != null) {
+            materialTotals.computeIfPresent(materials[slot], (k, total) -> total == amounts[slot] ? null : total - amounts[slot]);
+        }
+        amounts[slot] = 0;
+        materials[slot] = null;
+        freeSlots[slot >>> 6] |= 1L << slot;
+    }
+
+    private boolean isOccupied(int slot) {
+        return (freeSlots[slot >>> 6] & (1L << slot)) == 0;
+    }
+
+    /**
+     * 按新旧内容更新统计，只处理引用发生变化的槽位
+     *
+     * @param previous 统计对应的旧内容
+     * @param current  新内容
+     * @return 大小不一致无法增量更新时返回 false
+     */
+    public synchronized boolean update(ItemStack[] previous, ItemStack[] current) {
+        if (previous.length != size || current.length != size) {
+            return false;
+        }
+        for (int slot = 0; slot < size; slot++) {
+            if (previous[slot] != current[slot]) {
+                setSlot(slot, current[slot]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 物品总数量（所有堆叠物品的数量总和）
+     */
+    public synchronized int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * @return 占用槽位数量
+     */
+    public synchronized int getOccupiedSlots() {
+        return occupiedSlots;
+    }
+
+    /**
+     * @return 空槽位数量
+     */
+    public synchronized int getFreeSlotCount() {
+        return size - occupiedSlots;
+    }
+
+    /**
+     * @param slot 槽位
+     * @return 槽位为空返回 true
+     */
+    public synchronized boolean isFree(int slot) {
+        return !isOccupied(slot);
+    }
+
+    /**
+     * @return 第一个空槽位，没有空槽位时返回 -1
+     */
+    public synchronized int firstFreeSlot() {
+        for (int i = 0; i < freeSlots.length; i++) {
+            if (freeSlots[i] != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(freeSlots[i]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 槽位总数
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return 当前统计对应的页面摘要
+     */
+    public synchronized PageSummary toSummary() {
+        return PageSummary.of(itemCount, occupiedSlots, materialTotals);
+    }
+}
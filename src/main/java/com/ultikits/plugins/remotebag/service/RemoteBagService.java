@@ -1,7 +1,14 @@
 package com.ultikits.plugins.remotebag.service;
 
+import com.ultikits.plugins.remotebag.codec.BagCodec;
+import com.ultikits.plugins.remotebag.codec.BagCodecs;
 import com.ultikits.plugins.remotebag.config.RemoteBagConfig;
+import com.ultikits.plugins.remotebag.entity.PageSummary;
 import com.ultikits.plugins.remotebag.entity.RemoteBagData;
+import com.ultikits.plugins.remotebag.entity.RemoteBagDeltaData;
+import com.ultikits.plugins.remotebag.store.BagStore;
+import com.ultikits.plugins.remotebag.store.DatabaseBagStore;
+import com.ultikits.plugins.remotebag.store.LogBagStore;
 import com.ultikits.ultitools.abstracts.UltiToolsPlugin;
 import com.ultikits.ultitools.annotations.Scheduled;
 import com.ultikits.ultitools.annotations.Service;
@@ -9,13 +16,31 @@ import com.ultikits.ultitools.interfaces.DataOperator;
 import com.ultikits.ultitools.utils.EconomyUtils;
 
 import org.bukkit.Bukkit;
-import org.bukkit.Material;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -30,187 +55,2268 @@ public class RemoteBagService {
     private final UltiToolsPlugin plugin;
     private final RemoteBagConfig config;
 
-    private DataOperator<RemoteBagData> dataOperator;
+    // Backend for bag rows, chosen by storage.backend
+    private BagStore store;
 
-    // Cache for player bags - Map<PlayerUUID, Map<PageNumber, ItemStack[]>>
-    private final Map<UUID, Map<Integer, ItemStack[]>> bagCache = new ConcurrentHashMap<>();
+    // Slot-level delta records, null when storage.delta_mode is off
+    private DataOperator<RemoteBagDeltaData> deltaOperator;
+
+    // Codec for writing page contents; rows in other formats are still readable
+    private final BagCodec codec;
+
+    // Write-behind queue, null before init() and after shutdown() (writes are synchronous then)
+    private volatile BagSaveQueue saveQueue;
+
+    // Per-player I/O lanes for reads off the main thread, shared with the save
+    // queue when async_save is on; null before init() and after shutdown()
+    private volatile BagLanes lanes;
+
+    // Write-ahead journal of page changes, null when storage.journal is off
+    private volatile BagJournal journal;
+
+    // Journal file, relative to the plugin folder
+    private static final String JOURNAL_FILE = "journal/bag.journal";
+    private static final String STORE_FOLDER = "store";
+    private static final String RECOVERY_FILE = "journal/bag.recovery";
+
+    // Cache for player bags - Map<PlayerUUID, BagPages>
+    // Only holds the pages read so far, the rest are fetched on first access
+    private final Map<UUID, BagPages> bagCache = new ConcurrentHashMap<>();
+
+    // Pages of loaded bags - Map<PlayerUUID, Map<PageNumber, PageMeta>>
+    private final Map<UUID, Map<Integer, PageMeta>> pageIndex = new ConcurrentHashMap<>();
+
+    // Statistics of pages in memory, built on first read and updated per changed slot
+    private final Map<UUID, Map<Integer, PageStats>> pageStats = new ConcurrentHashMap<>();
+
+    // Rows read without a page summary, written back by summaryBackfillTask()
+    private final Queue<SummaryBackfill> summaryBackfill = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger summaryBackfillDepth = new AtomicInteger();
+
+    // Rows held for backfill at most, further rows are picked up on a later load
+    private static final int SUMMARY_BACKFILL_LIMIT = 10_000;
+
+    // Size limits and access order of bagCache
+    private final BagCachePolicy cachePolicy;
+
+    // Bags never evicted (online players)
+    private final Set<UUID> pinnedBags = ConcurrentHashMap.newKeySet();
+
+    // Locks and open GUIs; bags in use through them are never evicted. Null until registered
+    private volatile BagLockService lockService;
+
+    // Dirty pages since last successful save - Map<PlayerUUID, Set<PageNumber>>
+    private final Map<UUID, Set<Integer>> dirtyPages = new ConcurrentHashMap<>();
+
+    // Pages whose write failed or was rejected after their bag left the cache,
+    // written again by cacheEvictionTask - Map<PlayerUUID, Map<PageNumber, Items>>
+    private final Map<UUID, Map<Integer, ItemStack[]>> unwrittenPages = new ConcurrentHashMap<>();
+
+    // Database row ids of loaded bags - Map<PlayerUUID, Map<PageNumber, RowId>>
+    // A page missing from a loaded player's map has no row yet
+    private final Map<UUID, Map<Integer, Integer>> rowIds = new ConcurrentHashMap<>();
+
+    // Row exists but the data layer did not report its id
+    private static final int UNKNOWN_ROW_ID = -1;
+
+    // Players that joined but have not opened their bag yet - value is true when
+    // the bag was installed by the login preload
+    private final Map<UUID, Boolean> awaitingFirstOpen = new ConcurrentHashMap<>();
+
+    // Delta mode: deltas and last written contents of each page of loaded bags
+    private final Map<UUID, Map<Integer, DeltaLog>> deltaLogs = new ConcurrentHashMap<>();
+
+    // Version of the newest page snapshot, increased on every publish
+    private final AtomicLong pageVersion = new AtomicLong();
+
+    // Staggered autosave, null while auto_save_interval is 0
+    private volatile AutoSaveScheduler autoSaveScheduler;
+
+    // Login preload workers, null when preloading is disabled or after shutdown()
+    private volatile ExecutorService preloadExecutor;
+
+    // GUI opens waiting for their bag to be read off the main thread
+    private final BagOpener opener;
+
+    // Second cache tier: compressed bags of players who quit recently
+    private final DepartedBagCache<DepartedBag> departedBags;
+
+    // Whether the calling thread is the main thread, which never waits for a lane
+    private BooleanSupplier primaryThread = () -> Bukkit.getServer() != null && Bukkit.isPrimaryThread();
+
+    // Save statistics
+    private final AtomicLong savedPageCount = new AtomicLong();
+    private final AtomicLong skippedPageCount = new AtomicLong();
+    private final AtomicLong summaryBackfillCount = new AtomicLong();
+    private final AtomicLong deltaSaveCount = new AtomicLong();
+    private final AtomicLong deltaCompactCount = new AtomicLong();
+
+    // Cache statistics
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong cacheMissCount = new AtomicLong();
+    private final AtomicLong cacheEvictionCount = new AtomicLong();
+    private final AtomicLong lazyDecodeCount = new AtomicLong();
+    private final AtomicLong reusedEncodingCount = new AtomicLong();
+
+    // Preload statistics
+    private final AtomicLong preloadCount = new AtomicLong();
+    private final AtomicLong preloadTimeoutCount = new AtomicLong();
+    private final AtomicLong preloadRejectedCount = new AtomicLong();
+    private final AtomicLong preloadFailedCount = new AtomicLong();
+    private final AtomicLong warmOpenCount = new AtomicLong();
+    private final AtomicLong coldOpenCount = new AtomicLong();
+
+    /**
+     * Page index entry: when the page was last saved and its persisted summary.
+     * Replaced as a whole, never modified.
+     */
+    private static final class PageMeta {
+        // Page created in memory and not saved yet
+        private static final PageMeta UNSAVED = new PageMeta(0L, PageSummary.EMPTY);
+
+        private final long lastUpdated;
+        // null for rows written before summaries were stored
+        private final PageSummary summary;
+
+        private PageMeta(long lastUpdated, PageSummary summary) {
+            this.lastUpdated = lastUpdated;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * A row whose summary columns still have to be filled in.
+     */
+    private static final class SummaryBackfill {
+        private final UUID playerUuid;
+        private final RemoteBagData row;
+
+        private SummaryBackfill(UUID playerUuid, RemoteBagData row) {
+            this.playerUuid = playerUuid;
+            this.row = row;
+        }
+    }
+
+    /**
+     * Page index and row ids read from database, not yet visible in the cache.
+     * Pages holds the contents read along with the index, if any.
+     */
+    private static final class LoadedBag {
+        private final BagPages pages = new BagPages();
+        private final Map<Integer, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, PageMeta> index = new ConcurrentHashMap<>();
+        private final List<Integer> outdated = new ArrayList<>();
+        private final List<RemoteBagData> unsummarized = new ArrayList<>();
+        private final Map<Integer, DeltaLog> deltas = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Bag of a player who quit, kept in the departed tier. Contents of the
+     * pages that were in memory are stored encoded and compressed.
+     */
+    private static final class DepartedBag {
+        private final Map<Integer, byte[]> contents = new HashMap<>();
+        private final Map<Integer, Integer> ids = new HashMap<>();
+        private final Map<Integer, PageMeta> index = new HashMap<>();
+    }
+
+    // Rough heap cost of one page entry besides its contents
+    private static final int DEPARTED_PAGE_OVERHEAD = 96;
+
+    /**
+     * Delta mode: the deltas a page has in database above its snapshot, and
+     * the contents last written, which the next save is compared against.
+     * Guarded by itself; written on the writing thread, read when the page is
+     * fetched.
+     */
+    private static final class DeltaLog {
+        // Deltas above the snapshot, ascending sequence
+        private final List<RemoteBagDeltaData> deltas = new ArrayList<>();
+        // Ids of deltas folded into the snapshot but not deleted yet
+        private final List<Integer> obsolete = new ArrayList<>();
+        private long lastSeq;
+        // null until the page is decoded, its next save writes a snapshot
+        private ItemStack[] baseline;
+        // Next save writes a snapshot, e.g. to rewrite an old codec
+        private boolean compact;
+
+        private DeltaLog(long lastSeq) {
+            this.lastSeq = lastSeq;
+        }
+
+        /**
+         * Sequences follow the clock, so a snapshot written without knowing
+         * the deltas of its page can fold them by the time it was written.
+         */
+        private long nextSeq() {
+            lastSeq = Math.max(lastSeq + 1, System.currentTimeMillis());
+            return lastSeq;
+        }
+    }
 
     public RemoteBagService(UltiToolsPlugin plugin, RemoteBagConfig config) {
         this.plugin = plugin;
         this.config = config;
+        this.codec = BagCodecs.forName(config.getStorageCodec());
+        this.cachePolicy = new BagCachePolicy(config.getCacheMaxBags(), config.getCacheMaxPages());
+        this.opener = new BagOpener(this::loadPageAsync, config::getOpenLoadingMillis);
+        this.departedBags = new DepartedBagCache<>(config.getDepartedCacheMegabytes() * 1024L * 1024L,
+                TimeUnit.SECONDS.toMillis(config.getDepartedCacheSeconds()));
+    }
+
+    /**
+     * Initialize the service.
+     */
+    public void init() {
+        this.store = createStore();
+        if (config.isDeltaMode()) {
+            if (store instanceof DatabaseBagStore) {
+                this.deltaOperator = plugin.getDataOperator(RemoteBagDeltaData.class);
+            } else {
+                plugin.getLogger().warn("storage.delta_mode only works with the database backend, deltas are disabled");
+            }
+        }
+        // 导入上次关闭时未能在截止时间前写入的页面
+        importRecovery(new File(plugin.getResourceFolderPath(), RECOVERY_FILE).toPath());
+        if (config.isJournalEnabled()) {
+            // 在读取任何背包之前重放上次未写入数据库的修改
+            openJournal(new File(plugin.getResourceFolderPath(), JOURNAL_FILE).toPath());
+        }
+        this.lanes = new BagLanes(config.getIoThreads(), "UltiRemoteBag-IO");
+        if (config.isAsyncSave()) {
+            this.saveQueue = new BagSaveQueue(this::writePages, config.getSaveQueueCapacity(), lanes);
+        }
+        if (config.isPreloadEnabled()) {
+            this.preloadExecutor = createPreloadExecutor(config.getPreloadConcurrency());
+        }
+    }
+
+    /**
+     * Create the bag store for storage.backend. A file store that cannot be
+     * opened fails the start instead of falling back to an empty database.
+     */
+    private BagStore createStore() {
+        if (LogBagStore.NAME.equalsIgnoreCase(config.getStorageBackend())) {
+            LogBagStore created = new LogBagStore(
+                    new File(plugin.getResourceFolderPath(), STORE_FOLDER).toPath(),
+                    config.getFileSegmentMegabytes() * 1024L * 1024L,
+                    (message, error) -> plugin.getLogger().error(message, error));
+            try {
+                created.open();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to open bag store " + STORE_FOLDER, e);
+            }
+            return created;
+        }
+        if (!DatabaseBagStore.NAME.equalsIgnoreCase(config.getStorageBackend())) {
+            plugin.getLogger().warn("Unknown storage.backend " + config.getStorageBackend() + ", using database");
+        }
+        return new DatabaseBagStore(plugin.getDataOperator(RemoteBagData.class),
+                (message, error) -> plugin.getLogger().error(message, error));
+    }
+
+    /**
+     * Replay the journal left by the last run into the database, then start a
+     * new journal at the same path.
+     */
+    void openJournal(Path file) {
+        replayPending(file, "journaled bag page changes");
+        BagJournal created = new BagJournal(file, this::serializeItems,
+                (message, error) -> plugin.getLogger().error(message, error),
+                config.getJournalCompactMegabytes() * 1024L * 1024L);
+        try {
+            created.open();
+            journal = created;
+        } catch (IOException e) {
+            plugin.getLogger().error("Failed to open bag journal, page changes are not journaled", e);
+        }
+    }
+
+    /**
+     * Import the pages spilled by {@link #flushOnShutdown()} of the last run.
+     * The file is deleted once every page was written.
+     */
+    void importRecovery(Path file) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        if (replayPending(file, "bag pages left unwritten at the last shutdown")) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                plugin.getLogger().error("Failed to delete bag recovery file " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Write the page changes recorded in a journal file to database. Runs before
+     * the async save queue is started, so writes are synchronous.
+     *
+     * @return 所有修改都已写入返回 true，否则文件被改名保留
+     */
+    private boolean replayPending(Path file, String description) {
+        List<BagJournal.Entry> entries;
+        try {
+            entries = BagJournal.readPending(file);
+        } catch (IOException e) {
+            plugin.getLogger().error("Failed to read bag journal " + file, e);
+            keepJournal(file);
+            return false;
+        }
+        int failed = 0;
+        for (BagJournal.Entry entry : entries) {
+            try {
+                if (entry.getContents() == null) {
+                    deletePageRows(entry.getPlayerUuid(), entry.getPage(), null);
+                } else if (!writeContents(entry.getPlayerUuid(), entry.getPage(), entry.getContents(),
+                        summarizeContents(entry.getContents()))) {
+                    failed++;
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().error("Failed to replay bag page " + entry.getPage()
+                        + " of " + entry.getPlayerUuid(), e);
+                failed++;
+            }
+        }
+        if (!entries.isEmpty()) {
+            plugin.getLogger().info("Replayed " + (entries.size() - failed) + " " + description);
+        }
+        if (failed > 0) {
+            keepJournal(file);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 从编码后的内容计算摘要，内容无法解码时返回 null，原样写回数据库
+     */
+    private PageSummary summarizeContents(String contents) {
+        if (contents.isEmpty()) {
+            return PageSummary.EMPTY;
+        }
+        try {
+            return PageSummary.of(BagCodecs.forData(contents).decode(contents, config.getRowsPerPage() * 9));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 保留无法重放的日志，避免被新日志覆盖
+     */
+    private void keepJournal(Path file) {
+        Path kept = file.resolveSibling(file.getFileName() + "." + System.currentTimeMillis() + ".failed");
+        try {
+            Files.move(file, kept);
+            plugin.getLogger().warn(file.getFileName() + " could not be replayed completely and was kept as " + kept);
+        } catch (IOException e) {
+            plugin.getLogger().error("Failed to keep bag journal " + file, e);
+        }
+    }
+
+    /**
+     * Bounded pool for login preloads. Loads beyond the queue are rejected and
+     * fall back to loading on first access.
+     */
+    private static ExecutorService createPreloadExecutor(int threads) {
+        AtomicInteger threadId = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 16), r -> {
+                    Thread thread = new Thread(r, "UltiRemoteBag-Preload-" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Flush pending writes and stop the async save queue.
+     * Writes issued after this call run synchronously.
+     */
+    public void shutdown() {
+        departedBags.clear();
+        ExecutorService preloader = preloadExecutor;
+        preloadExecutor = null;
+        if (preloader != null) {
+            preloader.shutdownNow();
+        }
+
+        BagSaveQueue queue = saveQueue;
+        saveQueue = null;
+        if (queue != null && !queue.shutdown(config.getSaveQueueShutdownTimeout(), TimeUnit.SECONDS)) {
+            plugin.getLogger().warn("Timed out flushing bag save queue, "
+                    + queue.getDepth() + " pages were not written");
+        }
+        BagLanes io = lanes;
+        lanes = null;
+        if (io != null && queue == null && !io.shutdown(config.getSaveQueueShutdownTimeout(), TimeUnit.SECONDS)) {
+            plugin.getLogger().warn("Timed out waiting for bag reads on shutdown");
+        }
+
+        // 未写入数据库的修改留在日志中，下次启动时重放
+        BagJournal log = journal;
+        journal = null;
+        if (log != null && !log.shutdown(config.getSaveQueueShutdownTimeout(), TimeUnit.SECONDS)) {
+            plugin.getLogger().warn("Timed out closing bag journal");
+        }
+
+        BagStore closing = store;
+        if (closing != null) {
+            closing.close();
+        }
+    }
+
+    /**
+     * Auto-save task.
+     * Runs every tick and saves the bags that are due, so each cached bag is
+     * saved once per auto_save_interval at its own offset instead of all bags
+     * in one tick. Work per tick is limited to storage.auto_save_tick_budget_millis.
+     */
+    @Scheduled(period = 1)
+    public void autoSaveTask() {
+        AutoSaveScheduler scheduler = getAutoSaveScheduler();
+        if (scheduler != null) {
+            scheduler.tick(bagCache.keySet(), this::autoSaveBag);
+        }
+    }
+
+    /**
+     * Open task.
+     * Runs every tick and opens the GUIs whose bags finished loading off the
+     * main thread.
+     */
+    @Scheduled(period = 1)
+    public void openTask() {
+        opener.tick();
+    }
+
+    /**
+     * Get the autosave scheduler for the current config, recreated when the
+     * interval or budget was changed.
+     *
+     * @return 自动保存调度，自动保存关闭时返回 null
+     */
+    public AutoSaveScheduler getAutoSaveScheduler() {
+        long intervalMillis = TimeUnit.SECONDS.toMillis(config.getAutoSaveInterval());
+        if (intervalMillis <= 0) {
+            autoSaveScheduler = null;
+            return null;
+        }
+        AutoSaveScheduler scheduler = autoSaveScheduler;
+        if (scheduler == null || scheduler.getIntervalMillis() != intervalMillis
+                || scheduler.getTickBudgetMillis() != config.getAutoSaveTickBudget()) {
+            scheduler = new AutoSaveScheduler(intervalMillis, config.getAutoSaveTickBudget());
+            autoSaveScheduler = scheduler;
+        }
+        return scheduler;
+    }
+
+    private void autoSaveBag(UUID playerUuid) {
+        try {
+            saveBag(playerUuid);
+        } catch (Exception e) {
+            plugin.getLogger().error("Failed to auto-save bag of " + playerUuid, e);
+        }
+    }
+
+    /**
+     * Cache eviction task.
+     * Runs every 30 seconds (600 ticks) so bags whose writes were pending on the
+     * last pass are evicted once they are flushed, and pages whose write failed
+     * after their bag left the cache are written again.
+     */
+    @Scheduled(period = 600)
+    public void cacheEvictionTask() {
+        retryUnwrittenPages();
+        evictIfNeeded(null);
+        departedBags.expire();
+    }
+
+    /**
+     * Summary backfill task.
+     * Runs every second (20 ticks) and fills in the summary columns of up to
+     * storage.summary_backfill_batch rows read without one.
+     */
+    @Scheduled(period = 20)
+    public void summaryBackfillTask() {
+        backfillSummaries(config.getSummaryBackfillBatch());
+    }
+    
+    /**
+     * Get number of pages a player has access to.
+     */
+    public int getPlayerMaxPages(Player player) {
+        if (!config.isPermissionBasedPages()) {
+            return config.getMaxPages();
+        }
+        
+        for (int i = config.getMaxPages(); i >= 1; i--) {
+            if (player.hasPermission(config.getPermissionPrefix() + i)) {
+                return i;
+            }
+        }
+        
+        return config.getDefaultPages();
+    }
+    
+    /**
+     * Load bag from database if not in cache.
+     * <p>
+     * The main thread never waits for writes still queued on the owner's
+     * lane: the bag is read on the lane instead and this returns false, the
+     * caller tries again later, e.g. through {@link #openWhenLoaded}.
+     *
+     * @param playerUuid 玩家 UUID
+     * @return 返回时背包已在缓存中返回 true，仍在保存、改在通道上读取时返回 false
+     */
+    public boolean loadBagIfNeeded(UUID playerUuid) {
+        boolean firstOpen = awaitingFirstOpen.remove(playerUuid) != null;
+        if (bagCache.containsKey(playerUuid)) {
+            cacheHitCount.incrementAndGet();
+            if (firstOpen) {
+                warmOpenCount.incrementAndGet();
+            }
+            return true;
+        }
+        cacheMissCount.incrementAndGet();
+        if (firstOpen) {
+            coldOpenCount.incrementAndGet();
+        }
+        if (primaryThread.getAsBoolean() && mustWaitForLane(playerUuid)) {
+            // 快速重连时上次退出的写入仍在通道中，排在其后读取，避免读到旧数据
+            loadBagAsync(playerUuid).whenComplete((v, error) -> {
+                if (error != null) {
+                    plugin.getLogger().error("Failed to load bag of " + playerUuid, error);
+                }
+            });
+            return false;
+        }
+        loadBag(playerUuid);
+        // The caller is about to use this bag, never pick it
+        evictIfNeeded(playerUuid);
+        return true;
+    }
+
+    /**
+     * Load a bag without blocking the calling thread.
+     * <p>
+     * The bag is read on its owner's I/O lane, after every write queued for
+     * it, also with async_save off; before {@link #init()} it is loaded on the
+     * calling thread.
+     *
+     * @param playerUuid 玩家 UUID
+     * @return 背包已在缓存中时完成，读取失败时异常完成
+     */
+    public CompletableFuture<Void> loadBagAsync(UUID playerUuid) {
+        if (bagCache.containsKey(playerUuid)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        BagLanes io = lanes;
+        if (io != null && !io.isCurrent(playerUuid)) {
+            return io.execute(playerUuid, () -> {
+                if (!bagCache.containsKey(playerUuid)) {
+                    loadBag(playerUuid);
+                }
+            });
+        }
+        return onLane(playerUuid, () -> {
+            if (!bagCache.containsKey(playerUuid)) {
+                loadBag(playerUuid);
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Load a bag and one of its pages for opening it in a GUI, without blocking
+     * the calling thread. Counted as a cache hit or miss like {@link #loadBagIfNeeded}.
+     * <p>
+     * Bags and pages already in memory, and every load before {@link #init()},
+     * complete on the calling thread; otherwise they are read on the owner's
+     * I/O lane after every write queued for it, also with async_save off.
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       要打开的页码，不存在的页只读取背包
+     * @return 读取完成时完成，读取失败时异常完成
+     */
+    public CompletableFuture<Void> loadPageAsync(UUID playerUuid, int page) {
+        boolean firstOpen = awaitingFirstOpen.remove(playerUuid) != null;
+        boolean cached = bagCache.containsKey(playerUuid);
+        (cached ? cacheHitCount : cacheMissCount).incrementAndGet();
+        if (firstOpen) {
+            (cached ? warmOpenCount : coldOpenCount).incrementAndGet();
+        }
+
+        BagLanes io = lanes;
+        if (io == null || cached && (isPageDecoded(playerUuid, page) || !hasPage(playerUuid, page))) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            try {
+                if (!cached) {
+                    loadBag(playerUuid);
+                    evictIfNeeded(playerUuid);
+                }
+                getPageSnapshot(playerUuid, page);
+                result.complete(null);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+        // 淘汰留给定时任务，不在通道上等待其他玩家的写入
+        return io.execute(playerUuid, () -> {
+            if (!bagCache.containsKey(playerUuid)) {
+                loadBag(playerUuid);
+            }
+            // 页面马上要打开，在通道上解码，不占用主线程
+            PageSnapshot snapshot = getPageSnapshot(playerUuid, page);
+            if (snapshot != null) {
+                snapshot.items();
+            }
+        });
+    }
+
+    /**
+     * Open a bag GUI once the bag and the page are in memory. The bag is read
+     * off the main thread when needed; the viewer is told it is loading if
+     * that takes longer than storage.open_loading_millis, and the action runs
+     * on the main thread when the read completes.
+     *
+     * @param viewer    打开界面的玩家
+     * @param ownerUuid 背包所有者 UUID
+     * @param page      要打开的页码，主页传 0
+     * @param action    在主线程打开界面，玩家已离线时不执行
+     */
+    public void openWhenLoaded(Player viewer, UUID ownerUuid, int page, Runnable action) {
+        opener.open(ownerUuid, page,
+                () -> viewer.sendMessage(ChatColor.GRAY + plugin.i18n("bag_loading")),
+                () -> {
+                    if (!viewer.isOnline()) {
+                        return;
+                    }
+                    if (!bagCache.containsKey(ownerUuid)) {
+                        // 读取后、打开前背包又被淘汰，重新读取
+                        openWhenLoaded(viewer, ownerUuid, page, action);
+                        return;
+                    }
+                    action.run();
+                },
+                error -> {
+                    plugin.getLogger().error("Failed to load bag of " + ownerUuid, error);
+                    viewer.sendMessage(ChatColor.RED + plugin.i18n("bag_load_failed"));
+                });
+    }
+
+    /**
+     * Get the GUI open flow and its main thread timings.
+     *
+     * @return 背包打开流程
+     */
+    public BagOpener getOpener() {
+        return opener;
+    }
+
+    /**
+     * Get the departed tier, for statistics.
+     *
+     * @return 已退出玩家的背包缓存
+     */
+    public DepartedBagCache<?> getDepartedCache() {
+        return departedBags;
+    }
+
+    /**
+     * Keep a bag in cache until {@link #clearCache(UUID)}, e.g. while its owner is online.
+     *
+     * @param playerUuid 玩家 UUID
+     */
+    public void pinBag(UUID playerUuid) {
+        pinnedBags.add(playerUuid);
+    }
+
+    /**
+     * Register the lock service, whose locked or viewed bags are never evicted.
+     *
+     * @param lockService 锁定服务
+     */
+    public void setLockService(BagLockService lockService) {
+        this.lockService = lockService;
+    }
+
+    /**
+     * Evict least recently used bags while the cache is over its limits.
+     * <p>
+     * Pinned bags, bags of players about to join and bags locked or open in a
+     * GUI are skipped. Dirty bags are
+     * saved first and only evicted once nothing of theirs is left to write; with
+     * the async save queue that happens on a later pass.
+     *
+     * @param inUse 正在使用、不可淘汰的背包，可为 null
+     */
+    void evictIfNeeded(UUID inUse) {
+        if (!cachePolicy.isOverLimit()) {
+            return;
+        }
+        for (UUID playerUuid : cachePolicy.selectVictims(uuid -> uuid.equals(inUse) || isPinned(uuid))) {
+            if (hasDirtyPages(playerUuid)) {
+                try {
+                    saveBag(playerUuid);
+                } catch (RuntimeException e) {
+                    plugin.getLogger().error("Failed to save bag of " + playerUuid + " before eviction", e);
+                    continue;
+                }
+            }
+            BagSaveQueue queue = saveQueue;
+            if (hasDirtyPages(playerUuid) || (queue != null && queue.hasPending(playerUuid))) {
+                continue;
+            }
+            clearCache(playerUuid);
+            cacheEvictionCount.incrementAndGet();
+        }
+    }
+
+    private boolean isPinned(UUID playerUuid) {
+        if (pinnedBags.contains(playerUuid) || awaitingFirstOpen.containsKey(playerUuid)) {
+            return true;
+        }
+        // 管理员编辑或查看离线玩家的背包时，关闭界面前不能淘汰
+        BagLockService locks = lockService;
+        return locks != null && locks.isBagInUse(playerUuid);
+    }
+
+    private boolean hasDirtyPages(UUID playerUuid) {
+        Set<Integer> dirty = dirtyPages.get(playerUuid);
+        return dirty != null && !dirty.isEmpty();
+    }
+
+    /**
+     * Preload a bag before the player joins. Called from the async pre-login thread.
+     * <p>
+     * The contents of every page are read along with the index, so opening
+     * the bag after joining does not hit the database.
+     * <p>
+     * Waits up to the configured timeout for the load. A load that takes longer
+     * keeps running on the preload pool and is still installed when it finishes,
+     * unless the bag was loaded on first access in the meantime.
+     *
+     * @param playerUuid 玩家 UUID
+     * @return 返回时背包已在缓存中返回 true
+     */
+    public boolean preloadBag(UUID playerUuid) {
+        ExecutorService executor = preloadExecutor;
+        if (executor == null) {
+            return false;
+        }
+        awaitingFirstOpen.put(playerUuid, Boolean.FALSE);
+        if (bagCache.containsKey(playerUuid)) {
+            return true;
+        }
+
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (!bagCache.containsKey(playerUuid) && loadBag(playerUuid)) {
+                    awaitingFirstOpen.replace(playerUuid, Boolean.FALSE, Boolean.TRUE);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            preloadRejectedCount.incrementAndGet();
+            return false;
+        }
+        preloadCount.incrementAndGet();
+
+        try {
+            task.get(config.getPreloadTimeoutMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            preloadTimeoutCount.incrementAndGet();
+            return false;
+        } catch (ExecutionException e) {
+            preloadFailedCount.incrementAndGet();
+            plugin.getLogger().error("Failed to preload bag of " + playerUuid, e.getCause());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Drop a preloaded bag whose owner was not allowed to join.
+     * Bags that were already opened or modified are kept.
+     *
+     * @param playerUuid 玩家 UUID
+     */
+    public void discardPreloadedBag(UUID playerUuid) {
+        if (Boolean.TRUE.equals(awaitingFirstOpen.remove(playerUuid)) && !dirtyPages.containsKey(playerUuid)) {
+            clearCache(playerUuid);
+        }
+    }
+
+    /**
+     * Load a bag into the cache, from the departed tier when its owner quit
+     * recently and from the store otherwise.
+     *
+     * @return 本次加载被采用返回 true
+     */
+    private boolean loadBag(UUID playerUuid) {
+        DepartedBag departed = departedBags.isEnabled() ? departedBags.get(playerUuid) : null;
+        if (departed == null) {
+            return installBag(playerUuid, readBag(playerUuid));
+        }
+        boolean installed = installBag(playerUuid, inflateBag(playerUuid, departed));
+        departedBags.remove(playerUuid, departed);
+        return installed;
+    }
+
+    /**
+     * Decode a bag of the departed tier. Rows created by writes that were
+     * still queued when the owner quit get their ids looked up on next save.
+     */
+    private LoadedBag inflateBag(UUID playerUuid, DepartedBag departed) {
+        LoadedBag loaded = new LoadedBag();
+        for (Map.Entry<Integer, PageMeta> entry : departed.index.entrySet()) {
+            int page = entry.getKey();
+            if (isLoadablePage(playerUuid, page)) {
+                loaded.index.put(page, entry.getValue());
+                loaded.ids.put(page, departed.ids.getOrDefault(page, UNKNOWN_ROW_ID));
+            }
+        }
+        for (Map.Entry<Integer, byte[]> entry : departed.contents.entrySet()) {
+            if (isLoadablePage(playerUuid, entry.getKey())) {
+                loaded.pages.put(entry.getKey(), encodedPage(DepartedBagCache.decompress(entry.getValue())));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Read a bag from database without touching the cache. Every page read
+     * is cached in its encoded form and only decoded on first access; with
+     * delta saves the pages are decoded right away to merge their deltas.
+     * <p>
+     * Writes still queued on the owner's lane are waited for, except on the
+     * main thread, whose reads are moved to the lane by {@link #loadBagIfNeeded}.
+     */
+    private LoadedBag readBag(UUID playerUuid) {
+        // 快速重连时等待该玩家通道中上次退出的写入完成，避免读到旧数据；
+        // 在通道上读取时已排在这些写入之后
+        BagLanes io = lanes;
+        if (io != null && mustWaitForLane(playerUuid) && !primaryThread.getAsBoolean()) {
+            io.await(playerUuid, config.getSaveQueueShutdownTimeout(), TimeUnit.SECONDS);
+        }
+
+        LoadedBag loaded = new LoadedBag();
+        List<RemoteBagData> data = store.findBag(playerUuid);
+
+        Map<Integer, List<RemoteBagDeltaData>> deltas = deltaOperator != null
+                ? readDeltas(playerUuid) : Collections.emptyMap();
+
+        for (RemoteBagData bagData : data) {
+            if (!isLoadablePage(playerUuid, bagData.getPageNumber())) {
+                continue;
+            }
+            PageMeta meta = new PageMeta(bagData.getLastUpdated(), PageSummary.fromRow(bagData));
+            DeltaLog log = null;
+            if (deltaOperator != null) {
+                log = newDeltaLog(bagData, deltas.get(bagData.getPageNumber()));
+                loaded.deltas.put(bagData.getPageNumber(), log);
+                if (!log.deltas.isEmpty()) {
+                    // 最新的增量记录保存合并后的摘要
+                    RemoteBagDeltaData latest = log.deltas.get(log.deltas.size() - 1);
+                    meta = new PageMeta(latest.getLastUpdated(), PageSummary.fromRow(latest));
+                }
+            }
+            if (meta.summary == null) {
+                loaded.unsummarized.add(bagData);
+            }
+            loaded.index.put(bagData.getPageNumber(), meta);
+            loaded.ids.put(bagData.getPageNumber(), bagData.getId() != null ? bagData.getId() : UNKNOWN_ROW_ID);
+
+            // 内容已随索引读出，保持编码形式缓存；增量模式需立即合并增量记录
+            boolean outdated = needsUpgrade(bagData.getContents());
+            PageSnapshot snapshot;
+            if (log != null) {
+                ItemStack[] items = deserializeItems(bagData.getContents());
+                mergeDeltas(log, items, outdated);
+                snapshot = PageSnapshot.wrap(items, pageVersion.incrementAndGet());
+            } else {
+                snapshot = encodedPage(bagData.getContents());
+            }
+            loaded.pages.put(bagData.getPageNumber(), snapshot);
+            if (outdated) {
+                loaded.outdated.add(bagData.getPageNumber());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Check the page number of a stored page before caching it. Rows with a
+     * page number the cache cannot hold are skipped and left in storage.
+     */
+    private boolean isLoadablePage(UUID playerUuid, int page) {
+        if (BagPages.isValidPage(page)) {
+            return true;
+        }
+        plugin.getLogger().warn("Skipped bag page " + page + " of " + playerUuid + ", page number out of range");
+        return false;
+    }
+
+    /**
+     * Whether a read of the bag has to wait for writes queued on its owner's lane.
+     */
+    private boolean mustWaitForLane(UUID playerUuid) {
+        BagLanes io = lanes;
+        return io != null && io.isBusy(playerUuid) && !io.isCurrent(playerUuid);
+    }
+
+    /**
+     * Run an operation on a bag on its owner's lane, ordered against the
+     * writes queued for the bag before and after it, e.g. by autosave or on
+     * quit. Without the async save queue it runs on the calling thread.
+     *
+     * @return 操作返回的 future 完成时完成
+     */
+    private <T> CompletableFuture<T> onLane(UUID playerUuid, Supplier<CompletableFuture<T>> operation) {
+        BagSaveQueue queue = saveQueue;
+        if (queue != null && !queue.getLanes().isCurrent(playerUuid)) {
+            return queue.getLanes().submit(playerUuid, operation).thenCompose(result -> result);
+        }
+        try {
+            return operation.get();
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * Read the delta records of a bag, grouped by page.
+     */
+    private Map<Integer, List<RemoteBagDeltaData>> readDeltas(UUID playerUuid) {
+        List<RemoteBagDeltaData> rows = deltaOperator.query()
+                .where("player_uuid").eq(playerUuid.toString())
+                .list();
+        Map<Integer, List<RemoteBagDeltaData>> deltas = new HashMap<>();
+        for (RemoteBagDeltaData delta : rows) {
+            deltas.computeIfAbsent(delta.getPageNumber(), k -> new ArrayList<>()).add(delta);
+        }
+        return deltas;
+    }
+
+    /**
+     * Split the deltas of a page into those above its snapshot and obsolete ones.
+     */
+    private static DeltaLog newDeltaLog(RemoteBagData row, List<RemoteBagDeltaData> deltas) {
+        DeltaLog log = new DeltaLog(row.getDeltaSeq());
+        if (deltas == null) {
+            return log;
+        }
+        deltas.sort(Comparator.comparingLong(RemoteBagDeltaData::getSeq));
+        for (RemoteBagDeltaData delta : deltas) {
+            if (delta.getSeq() > row.getDeltaSeq()) {
+                log.deltas.add(delta);
+                log.lastSeq = delta.getSeq();
+            } else if (delta.getId() != null) {
+                log.obsolete.add(delta.getId());
+            }
+        }
+        return log;
+    }
+
+    /**
+     * Apply the deltas of a page to its decoded snapshot and remember the
+     * result as the contents in database. The items are published as a page
+     * snapshot afterwards and not modified again.
+     *
+     * @param outdated 快照使用旧编码，下次保存写入完整快照
+     */
+    private void mergeDeltas(DeltaLog log, ItemStack[] items, boolean outdated) {
+        List<RemoteBagDeltaData> deltas;
+        synchronized (log) {
+            deltas = new ArrayList<>(log.deltas);
+        }
+        if (!deltas.isEmpty()) {
+            PageDeltas.merge(items, deltas, this::deserializeItems);
+        }
+        synchronized (log) {
+            if (log.deltas.size() == deltas.size()) {
+                log.baseline = items;
+            }
+            log.compact |= outdated;
+        }
+    }
+
+    private DeltaLog getDeltaLog(UUID playerUuid, int page) {
+        Map<Integer, DeltaLog> logs = deltaLogs.get(playerUuid);
+        return logs != null ? logs.get(page) : null;
+    }
+
+    /**
+     * Publish a loaded bag to the cache unless another load got there first.
+     * Row ids become visible together with the pages.
+     *
+     * @return 本次加载被采用返回 true
+     */
+    private boolean installBag(UUID playerUuid, LoadedBag loaded) {
+        boolean[] installed = new boolean[1];
+        bagCache.computeIfAbsent(playerUuid, k -> {
+            rowIds.put(k, loaded.ids);
+            pageIndex.put(k, loaded.index);
+            if (deltaOperator != null) {
+                deltaLogs.put(k, loaded.deltas);
+            }
+            installed[0] = true;
+            return loaded.pages;
+        });
+        if (!installed[0]) {
+            return false;
+        }
+        cachePolicy.record(playerUuid, loaded.pages.size());
+        restoreUnwritten(playerUuid);
+
+        // 旧格式的页在下次保存时以当前编码重写
+        for (Integer page : loaded.outdated) {
+            markDirty(playerUuid, page);
+        }
+        for (RemoteBagData row : loaded.unsummarized) {
+            if (summaryBackfillDepth.get() >= SUMMARY_BACKFILL_LIMIT) {
+                break;
+            }
+            summaryBackfillDepth.incrementAndGet();
+            summaryBackfill.add(new SummaryBackfill(playerUuid, row));
+        }
+        return true;
+    }
+
+    /**
+     * Fill in the summary columns of rows read without one.
+     * <p>
+     * With the async save queue the rows are decoded and written on the I/O
+     * thread, ordered after pending saves of the same bag. Rows that were saved,
+     * modified or deleted since they were read are skipped: their next save
+     * writes the summary anyway.
+     *
+     * @param limit 本次最多处理的行数，0 为不处理
+     */
+    void backfillSummaries(int limit) {
+        for (int i = 0; i < limit; i++) {
+            SummaryBackfill item = summaryBackfill.poll();
+            if (item == null) {
+                return;
+            }
+            summaryBackfillDepth.decrementAndGet();
+            BagSaveQueue queue = saveQueue;
+            if (queue != null) {
+                queue.submit(item.playerUuid, () -> backfillSummary(item)).whenComplete((v, error) -> {
+                    if (error != null) {
+                        plugin.getLogger().error("Failed to backfill summary of bag page "
+                                + item.row.getPageNumber() + " of " + item.playerUuid, error);
+                    }
+                });
+            } else {
+                try {
+                    backfillSummary(item);
+                } catch (RuntimeException e) {
+                    plugin.getLogger().error("Failed to backfill summary of bag page "
+                            + item.row.getPageNumber() + " of " + item.playerUuid, e);
+                }
+            }
+        }
+    }
+
+    private void backfillSummary(SummaryBackfill item) {
+        RemoteBagData row = item.row;
+        int page = row.getPageNumber();
+        Map<Integer, PageMeta> index = pageIndex.get(item.playerUuid);
+        PageMeta meta = index != null ? index.get(page) : null;
+        if (row.getId() == null || meta == null || meta.summary != null
+                || meta.lastUpdated != row.getLastUpdated() || isDirty(item.playerUuid, page)) {
+            return;
+        }
+
+        PageSummary summary = PageSummary.of(deserializeItems(row.getContents()));
+        summary.applyTo(row);
+        if (!store.update(row)) {
+            plugin.getLogger().warn("Failed to backfill summary of bag page " + page + " of " + item.playerUuid);
+            return;
+        }
+        index.replace(page, meta, new PageMeta(meta.lastUpdated, summary));
+        summaryBackfillCount.incrementAndGet();
+    }
+    
+    /**
+     * Get a specific bag page. Pages of a loaded bag that were not read yet are
+     * fetched from database; pages are decoded on their first access.
+     *
+     * @return 页面内容的新数组，修改后需通过 {@link #setBagPage} 提交；物品与缓存共享，不得修改
+     */
+    public ItemStack[] getBagPage(UUID playerUuid, int page) {
+        PageSnapshot snapshot = getPageSnapshot(playerUuid, page);
+        return snapshot != null ? snapshot.toArray() : null;
+    }
+
+    /**
+     * Get the current snapshot of a bag page. Snapshots are never modified,
+     * so they can be read from any thread without locking or copying.
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       背包页码
+     * @return 页面快照，背包未加载或页面不存在时返回 null
+     */
+    public PageSnapshot getPageSnapshot(UUID playerUuid, int page) {
+        BagPages pages = bagCache.get(playerUuid);
+        if (pages == null) {
+            return null;
+        }
+        cachePolicy.touch(playerUuid);
+        PageSnapshot snapshot = pages.get(page);
+        if (snapshot == null && hasPage(playerUuid, page)) {
+            snapshot = fetchPage(playerUuid, pages, page);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Read the contents of one page on first access.
+     */
+    private PageSnapshot fetchPage(UUID playerUuid, BagPages pages, int page) {
+        if (!isLoadablePage(playerUuid, page)) {
+            return null;
+        }
+        List<RemoteBagData> data = store.findPage(playerUuid, page);
+
+        RemoteBagData row = null;
+        for (RemoteBagData bagData : data) {
+            if (bagData.getPageNumber() == page) {
+                row = bagData;
+                break;
+            }
+        }
+        String contents = row != null ? row.getContents() : null;
+        PageSnapshot snapshot;
+        if (deltaOperator != null && row != null) {
+            ItemStack[] items = deserializeItems(contents);
+            Map<Integer, DeltaLog> logs = deltaLogs.get(playerUuid);
+            DeltaLog log = logs != null ? logs.get(page) : null;
+            if (log == null) {
+                List<RemoteBagDeltaData> deltas = deltaOperator.query()
+                        .where("player_uuid").eq(playerUuid.toString())
+                        .where("page_number").eq(page)
+                        .list();
+                log = newDeltaLog(row, new ArrayList<>(deltas));
+                if (logs != null) {
+                    DeltaLog raced = logs.putIfAbsent(page, log);
+                    log = raced != null ? raced : log;
+                }
+            }
+            mergeDeltas(log, items, needsUpgrade(contents));
+            snapshot = PageSnapshot.wrap(items, pageVersion.incrementAndGet());
+        } else {
+            snapshot = encodedPage(contents);
+        }
+        PageSnapshot existing = pages.putIfAbsent(page, snapshot);
+        if (existing != null) {
+            return existing;
+        }
+        cachePolicy.record(playerUuid, pages.size());
+
+        // 旧格式的页在下次保存时以当前编码重写
+        if (needsUpgrade(contents)) {
+            markDirty(playerUuid, page);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Check whether a loaded bag has a page, without reading its contents.
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       背包页码
+     * @return 背包页存在返回 true
+     */
+    public boolean hasPage(UUID playerUuid, int page) {
+        Map<Integer, PageMeta> index = pageIndex.get(playerUuid);
+        return index != null && index.containsKey(page);
+    }
+
+    /**
+     * Check whether the contents of a page are in memory.
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       背包页码
+     * @return 页面内容已读取返回 true
+     */
+    public boolean isPageLoaded(UUID playerUuid, int page) {
+        BagPages pages = bagCache.get(playerUuid);
+        return pages != null && pages.contains(page);
+    }
+
+    private boolean isPageDecoded(UUID playerUuid, int page) {
+        BagPages pages = bagCache.get(playerUuid);
+        PageSnapshot snapshot = pages != null ? pages.get(page) : null;
+        return snapshot != null && snapshot.isDecoded();
+    }
+
+    /**
+     * Get the time a page was last saved, from the page index.
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       背包页码
+     * @return 最后保存时间（毫秒），未保存过或未加载返回 0
+     */
+    public long getPageLastUpdated(UUID playerUuid, int page) {
+        PageMeta meta = getPageMeta(playerUuid, page);
+        return meta != null ? meta.lastUpdated : 0L;
+    }
+
+    /**
+     * Get the summary of a page without reading its contents when possible.
+     * Pages in memory are summarized from their current contents, others
+     * from the summary stored with the row.
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       背包页码
+     * @return 页面摘要，页面不存在或旧数据尚未生成摘要时返回 null
+     */
+    public PageSummary getPageSummary(UUID playerUuid, int page) {
+        BagPages pages = bagCache.get(playerUuid);
+        if (pages != null && pages.contains(page)) {
+            return getPageStats(playerUuid, page).toSummary();
+        }
+        PageMeta meta = getPageMeta(playerUuid, page);
+        return meta != null ? meta.summary : null;
+    }
+
+    /**
+     * Get the statistics of a page in memory. Built from the contents on first
+     * call, then kept up to date by {@link #setBagPage}.
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       背包页码
+     * @return 页面统计，页面内容未读取时返回 null
+     */
+    public PageStats getPageStats(UUID playerUuid, int page) {
+        BagPages pages = bagCache.get(playerUuid);
+        PageSnapshot snapshot = pages != null ? pages.get(page) : null;
+        if (snapshot == null) {
+            return null;
+        }
+        return pageStats.computeIfAbsent(playerUuid, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(page, k -> PageStats.of(snapshot.items()));
+    }
+
+    private PageMeta getPageMeta(UUID playerUuid, int page) {
+        Map<Integer, PageMeta> index = pageIndex.get(playerUuid);
+        return index != null ? index.get(page) : null;
+    }
+    
+    /**
+     * Set contents of a bag page and mark it dirty.
+     * <p>
+     * The contents are copied into a new page snapshot, later changes to the
+     * array or its items do not affect the cache.
+     */
+    public void setBagPage(UUID playerUuid, int page, ItemStack[] contents) {
+        publish(playerUuid, page, PageSnapshot.copyOf(contents, pageVersion.incrementAndGet()));
+    }
+
+    /**
+     * Replace the snapshot of a page with a single reference swap and mark it dirty.
+     */
+    private void publish(UUID playerUuid, int page, PageSnapshot snapshot) {
+        if (!bagCache.containsKey(playerUuid)) {
+            BagLanes io = lanes;
+            if (io != null && primaryThread.getAsBoolean() && mustWaitForLane(playerUuid)
+                    && !io.execute(playerUuid, () -> publish(playerUuid, page, snapshot))
+                            .isCompletedExceptionally()) {
+                // 主线程不等待写入，排在这些写入之后在通道上提交
+                return;
+            }
+            // 背包已被淘汰时先重新加载，不能只缓存这一页而丢失其他页的索引
+            loadBag(playerUuid);
+        }
+        BagJournal log = journal;
+        if (log != null) {
+            log.append(playerUuid, page, snapshot.items());
+        }
+        BagPages pages = bagCache.computeIfAbsent(playerUuid, k -> new BagPages());
+        PageSnapshot previous = pages.put(page, snapshot);
+        updatePageStats(playerUuid, page, previous, snapshot);
+        pageIndex.computeIfAbsent(playerUuid, k -> new ConcurrentHashMap<>()).putIfAbsent(page, PageMeta.UNSAVED);
+        cachePolicy.record(playerUuid, pages.size());
+        markDirty(playerUuid, page);
+    }
+
+    /**
+     * Update the statistics of a replaced page from the slots that changed.
+     */
+    private void updatePageStats(UUID playerUuid, int page, PageSnapshot previous, PageSnapshot snapshot) {
+        Map<Integer, PageStats> stats = pageStats.get(playerUuid);
+        PageStats current = stats != null ? stats.get(page) : null;
+        if (current == null) {
+            return;
+        }
+        if (previous == null || !current.update(previous.items(), snapshot.items())) {
+            stats.remove(page);
+        }
+    }
+
+    /**
+     * Mark a bag page as modified so the next save writes it.
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       背包页码
+     */
+    public void markDirty(UUID playerUuid, int page) {
+        dirtyPages.computeIfAbsent(playerUuid, k -> ConcurrentHashMap.newKeySet()).add(page);
+    }
+
+    /**
+     * Check whether a bag page has unsaved changes.
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       背包页码
+     * @return 有未保存的修改返回 true
+     */
+    public boolean isDirty(UUID playerUuid, int page) {
+        Set<Integer> dirty = dirtyPages.get(playerUuid);
+        return dirty != null && dirty.contains(page);
+    }
+    
+    /**
+     * Save dirty pages of a bag to database. Clean pages are skipped.
+     * <p>
+     * All dirty pages of the player are written as one batch. When the async
+     * save queue is running, only a snapshot is taken on the calling thread and
+     * the batch is written on the I/O thread.
+     */
+    public void saveBag(UUID playerUuid) {
+        saveDirtyPages(playerUuid);
+    }
+
+    /**
+     * Save dirty pages of a bag without waiting for the write.
+     * <p>
+     * With the async save queue the pages are written on the owner's lane,
+     * after every earlier operation on the same bag; otherwise they are
+     * written on the calling thread before this returns.
+     *
+     * @param playerUuid 玩家 UUID
+     * @return 所有页写入成功时完成为 true，写入失败或队列已满时为 false，写入异常时异常完成
+     */
+    public CompletableFuture<Boolean> saveBagAsync(UUID playerUuid) {
+        List<CompletableFuture<Boolean>> results;
+        try {
+            results = saveDirtyPages(playerUuid);
+        } catch (RuntimeException e) {
+            CompletableFuture<Boolean> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        CompletableFuture<Boolean> combined = CompletableFuture.completedFuture(true);
+        for (CompletableFuture<Boolean> result : results) {
+            CompletableFuture<Boolean> saved = result.handle((ok, error) -> {
+                if (error == null) {
+                    return ok;
+                }
+                if (unwrap(error) instanceof RejectedExecutionException) {
+                    // 队列已满，页面仍为脏页
+                    return false;
+                }
+                throw completion(error);
+            });
+            combined = combined.thenCombine(saved, Boolean::logicalAnd);
+        }
+        return combined;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static CompletionException completion(Throwable error) {
+        return error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+    }
+
+    /**
+     * Save all bags in cache without waiting for the writes.
+     *
+     * @return 所有背包写入完成时完成，全部写入成功为 true
+     */
+    public CompletableFuture<Boolean> saveAllBags() {
+        CompletableFuture<Boolean> combined = CompletableFuture.completedFuture(true);
+        for (UUID playerUuid : bagCache.keySet()) {
+            combined = combined.thenCombine(saveBagAsync(playerUuid), Boolean::logicalAnd);
+        }
+        return combined;
+    }
+
+    private List<CompletableFuture<Boolean>> saveDirtyPages(UUID playerUuid) {
+        BagPages pages = bagCache.get(playerUuid);
+        if (pages == null) {
+            return Collections.emptyList();
+        }
+
+        BagSaveQueue queue = saveQueue;
+        BagJournal log = journal;
+        Map<Integer, ItemStack[]> batch = new HashMap<>();
+        // Journal record covered by each snapshot, released once it is written
+        Map<Integer, Long> journaled = new HashMap<>();
+        Set<Integer> dirty = dirtyPages.get(playerUuid);
+        pages.forEach((page, snapshot) -> {
+            // 先清除脏标记，写入期间的新修改会重新标记
+            if (dirty == null || !dirty.remove(page)) {
+                skippedPageCount.incrementAndGet();
+                return;
+            }
+            // 快照不会再被修改，I/O 线程可以直接序列化
+            batch.put(page, snapshot.items());
+            if (log != null) {
+                journaled.put(page, log.getPendingSeq(playerUuid, page));
+            }
+        });
+        if (batch.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        if (queue != null) {
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (Map.Entry<Integer, ItemStack[]> entry : batch.entrySet()) {
+                int page = entry.getKey();
+                CompletableFuture<Boolean> result = queue.enqueue(playerUuid, page, entry.getValue());
+                Long seq = journaled.get(page);
+                ItemStack[] items = entry.getValue();
+                result.whenComplete((ok, error) -> {
+                    if (error instanceof RejectedExecutionException) {
+                        // 队列已满，保留脏页，下次保存或自动保存时重试
+                        keepUnwritten(playerUuid, page, items);
+                    } else if (error != null) {
+                        // 未写入的页已由 writePages 保留
+                        plugin.getLogger().error("Failed to save bag page " + page + " of " + playerUuid, error);
+                    } else if (ok && seq != null) {
+                        log.release(playerUuid, page, seq);
+                    }
+                });
+                results.add(result);
+            }
+            return results;
+        }
+
+        boolean ok = writePages(playerUuid, batch);
+        if (ok && log != null) {
+            for (Map.Entry<Integer, Long> entry : journaled.entrySet()) {
+                log.release(playerUuid, entry.getKey(), entry.getValue());
+            }
+        }
+        return Collections.singletonList(CompletableFuture.completedFuture(ok));
+    }
+
+    /**
+     * Keep a page whose write failed or was rejected. Pages of a cached bag
+     * are marked dirty again, pages deleted since are dropped; otherwise the
+     * contents are kept in {@link #unwrittenPages} until the bag is loaded
+     * again or {@link #retryUnwrittenPages()} writes them.
+     */
+    private void keepUnwritten(UUID playerUuid, int page, ItemStack[] items) {
+        BagPages pages = bagCache.get(playerUuid);
+        if (pages != null) {
+            if (pages.contains(page)) {
+                markDirty(playerUuid, page);
+            }
+            if (bagCache.get(playerUuid) == pages) {
+                return;
+            }
+            // 标记时背包已被移出缓存，改为保留内容
+        }
+        // 同一玩家的写入按顺序完成，后失败的内容较新
+        unwrittenPages.compute(playerUuid, (k, kept) -> {
+            Map<Integer, ItemStack[]> updated = kept != null ? kept : new ConcurrentHashMap<>();
+            updated.put(page, items);
+            return updated;
+        });
+        if (bagCache.containsKey(playerUuid)) {
+            // 保留时背包恰好被重新加载
+            restoreUnwritten(playerUuid);
+        }
+    }
+
+    /**
+     * Put the kept pages of a bag that was loaded again back into the cache
+     * as dirty pages; they are newer than what was read.
+     */
+    private void restoreUnwritten(UUID playerUuid) {
+        Map<Integer, ItemStack[]> kept = unwrittenPages.remove(playerUuid);
+        if (kept == null) {
+            return;
+        }
+        kept.forEach((page, items) -> publish(playerUuid, page, PageSnapshot.wrap(items, pageVersion.incrementAndGet())));
+    }
+
+    /**
+     * Write the kept pages of bags that are not in cache again, on the
+     * owner's lane when the async save queue is running. Pages that fail
+     * again stay kept.
+     */
+    void retryUnwrittenPages() {
+        for (UUID playerUuid : unwrittenPages.keySet()) {
+            if (bagCache.containsKey(playerUuid)) {
+                continue;
+            }
+            Map<Integer, ItemStack[]> kept = unwrittenPages.remove(playerUuid);
+            if (kept == null) {
+                continue;
+            }
+            BagSaveQueue queue = saveQueue;
+            if (queue == null) {
+                Runnable retry = () -> {
+                    try {
+                        writePages(playerUuid, kept);
+                    } catch (RuntimeException e) {
+                        plugin.getLogger().error("Failed to write unsaved bag pages of " + playerUuid, e);
+                    }
+                };
+                // 在通道上写入，之后的读取排在其后
+                BagLanes io = lanes;
+                if (io == null || io.execute(playerUuid, retry).isCompletedExceptionally()) {
+                    retry.run();
+                }
+                continue;
+            }
+            kept.forEach((page, items) -> queue.enqueue(playerUuid, page, items).whenComplete((ok, error) -> {
+                if (error instanceof RejectedExecutionException) {
+                    keepUnwritten(playerUuid, page, items);
+                } else if (error != null) {
+                    plugin.getLogger().error("Failed to write unsaved bag page " + page + " of " + playerUuid, error);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Write a batch of bag pages of one player to database.
+     * <p>
+     * Pages the store fails to update, and on a runtime exception every page
+     * not written yet, are kept by {@link #keepUnwritten}; the exception
+     * propagates to the caller.
+     *
+     * @return 所有页写入成功返回 true
+     */
+    private boolean writePages(UUID playerUuid, Map<Integer, ItemStack[]> pages) {
+        boolean success = true;
+        Map<Integer, ItemStack[]> remaining = new HashMap<>(pages);
+        try {
+            for (Map.Entry<Integer, ItemStack[]> entry : pages.entrySet()) {
+                int page = entry.getKey();
+                if (writePage(playerUuid, page, entry.getValue())) {
+                    // 同一玩家的写入按顺序进行，之前失败的内容已被覆盖
+                    forgetUnwritten(playerUuid, page);
+                } else {
+                    keepUnwritten(playerUuid, page, entry.getValue());
+                    success = false;
+                }
+                remaining.remove(page);
+            }
+        } catch (RuntimeException e) {
+            remaining.forEach((page, items) -> keepUnwritten(playerUuid, page, items));
+            throw e;
+        }
+        return success;
+    }
+
+    private void forgetUnwritten(UUID playerUuid, int page) {
+        unwrittenPages.computeIfPresent(playerUuid, (k, kept) -> {
+            kept.remove(page);
+            return kept.isEmpty() ? null : kept;
+        });
+    }
+
+    /**
+     * Write a single bag page to database.
+     * <p>
+     * Pages of a loaded bag are written with one statement: an update by the
+     * remembered row id, or an insert when the page has no row yet. Only pages
+     * with an unknown row fall back to query-then-write.
+     *
+     * @return 写入成功返回 true
+     */
+    private boolean writePage(UUID playerUuid, int page, ItemStack[] items) {
+        PageSummary summary = PageSummary.of(items);
+        DeltaLog log = getDeltaLog(playerUuid, page);
+        if (log != null && writeDelta(playerUuid, page, items, summary, log)) {
+            return true;
+        }
+        if (!writeContents(playerUuid, page, serializeItems(items), summary)) {
+            return false;
+        }
+        log = getDeltaLog(playerUuid, page);
+        if (log != null) {
+            // 页面快照不会再被修改，可直接作为比较基准
+            synchronized (log) {
+                log.baseline = items;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Delta mode: write only the slots changed since the last write of the page.
+     * The page needs a row and decoded contents to compare against; it is
+     * written as a snapshot instead once it has {@code delta_compact_threshold}
+     * deltas, or when half of its slots changed.
+     *
+     * @return false when the page has to be written as a snapshot
+     */
+    private boolean writeDelta(UUID playerUuid, int page, ItemStack[] items, PageSummary summary, DeltaLog log) {
+        Map<Integer, Integer> ids = rowIds.get(playerUuid);
+        Integer rowId = ids != null ? ids.get(page) : null;
+        if (rowId == null || rowId == UNKNOWN_ROW_ID) {
+            return false;
+        }
+
+        int[] changed;
+        long seq;
+        synchronized (log) {
+            if (log.baseline == null || log.compact || log.deltas.size() >= config.getDeltaCompactThreshold()) {
+                return false;
+            }
+            changed = PageDeltas.changedSlots(log.baseline, items);
+            if (changed == null || changed.length * 2 > items.length) {
+                return false;
+            }
+            if (changed.length == 0) {
+                // 内容与数据库一致
+                return true;
+            }
+            seq = log.nextSeq();
+        }
+
+        RemoteBagDeltaData delta = RemoteBagDeltaData.create(playerUuid, page, seq,
+                PageDeltas.formatSlots(changed), serializeItems(PageDeltas.pick(items, changed)));
+        summary.applyTo(delta);
+        deltaOperator.insert(delta);
+        synchronized (log) {
+            log.deltas.add(delta);
+            log.baseline = items;
+        }
+        rememberSaved(playerUuid, page, delta.getLastUpdated(), summary);
+        savedPageCount.incrementAndGet();
+        deltaSaveCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Write encoded page contents to database.
+     *
+     * @param summary 页面摘要，null 时清空摘要列，之后由回填任务生成
+     * @return 写入成功返回 true
+     */
+    private boolean writeContents(UUID playerUuid, int page, String contents, PageSummary summary) {
+        Map<Integer, Integer> ids = rowIds.get(playerUuid);
+        Integer rowId = ids != null ? ids.get(page) : null;
+        // 快照包含此序号及之前的所有增量
+        long deltaSeq = foldedDeltaSeq(playerUuid, page);
+
+        RemoteBagData data;
+        if (ids != null && rowId == null) {
+            data = null;
+        } else if (rowId != null && rowId != UNKNOWN_ROW_ID) {
+            data = RemoteBagData.create(playerUuid, page, contents);
+            data.setId(rowId);
+        } else {
+            List<RemoteBagData> existing = store.findPage(playerUuid, page);
+            data = existing.isEmpty() ? null : existing.get(0);
+        }
+
+        if (data == null) {
+            RemoteBagData created = RemoteBagData.create(playerUuid, page, contents);
+            created.setDeltaSeq(deltaSeq);
+            applySummary(created, summary);
+            store.insert(created);
+            rememberRowId(ids, page, created.getId());
+            rememberSaved(playerUuid, page, created.getLastUpdated(), summary);
+            foldDeltas(playerUuid, page, deltaSeq);
+            savedPageCount.incrementAndGet();
+            return true;
+        }
+        data.setContents(contents);
+        data.setLastUpdated(System.currentTimeMillis());
+        data.setDeltaSeq(deltaSeq);
+        applySummary(data, summary);
+        if (!store.update(data)) {
+            return false;
+        }
+        rememberRowId(ids, page, data.getId());
+        rememberSaved(playerUuid, page, data.getLastUpdated(), summary);
+        foldDeltas(playerUuid, page, deltaSeq);
+        savedPageCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Sequence of the newest delta a snapshot written now supersedes. Pages
+     * whose deltas are unknown (bag not loaded, or delta mode off) supersede
+     * every delta written before now.
+     */
+    private long foldedDeltaSeq(UUID playerUuid, int page) {
+        DeltaLog log = getDeltaLog(playerUuid, page);
+        if (log == null) {
+            return System.currentTimeMillis();
+        }
+        synchronized (log) {
+            return log.lastSeq;
+        }
+    }
+
+    /**
+     * Delete the deltas a written snapshot supersedes. Deltas that fail to
+     * delete are ignored on load by their sequence and retried on the next
+     * snapshot.
+     */
+    private void foldDeltas(UUID playerUuid, int page, long deltaSeq) {
+        Map<Integer, DeltaLog> logs = deltaOperator != null ? deltaLogs.get(playerUuid) : null;
+        if (logs == null) {
+            return;
+        }
+        DeltaLog log = logs.computeIfAbsent(page, k -> new DeltaLog(deltaSeq));
+        List<Integer> folded;
+        synchronized (log) {
+            if (!log.deltas.isEmpty()) {
+                deltaCompactCount.incrementAndGet();
+            }
+            for (RemoteBagDeltaData delta : log.deltas) {
+                if (delta.getId() != null) {
+                    log.obsolete.add(delta.getId());
+                }
+            }
+            log.deltas.clear();
+            log.compact = false;
+            folded = new ArrayList<>(log.obsolete);
+        }
+        for (Integer id : folded) {
+            try {
+                deltaOperator.delById(id);
+            } catch (RuntimeException e) {
+                plugin.getLogger().warn("Failed to delete folded deltas of bag page " + page + " of " + playerUuid
+                        + ": " + e.getMessage());
+                return;
+            }
+            synchronized (log) {
+                log.obsolete.remove(id);
+            }
+        }
+    }
+
+    private static void applySummary(RemoteBagData data, PageSummary summary) {
+        if (summary != null) {
+            summary.applyTo(data);
+        } else {
+            data.setPreview(null);
+        }
+    }
+
+    private static void rememberRowId(Map<Integer, Integer> ids, int page, Integer rowId) {
+        if (ids != null) {
+            ids.put(page, rowId != null ? rowId : UNKNOWN_ROW_ID);
+        }
+    }
+
+    private void rememberSaved(UUID playerUuid, int page, long lastUpdated, PageSummary summary) {
+        Map<Integer, PageMeta> index = pageIndex.get(playerUuid);
+        if (index != null) {
+            // replace: a page deleted while its write was queued stays deleted
+            index.replace(page, new PageMeta(lastUpdated, summary));
+        }
+    }
+    
+    /**
+     * Write every unsaved page before the plugin is disabled.
+     * <p>
+     * Batches still waiting in the async save queue, pages kept after a failed
+     * write and the dirty pages of all cached bags are written per player on storage.shutdown_flush_threads
+     * threads. Pages not written within storage.shutdown_flush_deadline_seconds
+     * are saved to a recovery file that is imported on the next start.
+     * Writes issued after this call run synchronously.
+     *
+     * @return 写入结果
+     */
+    public ShutdownFlusher.Result flushOnShutdown() {
+        return flushOnShutdown(new File(plugin.getResourceFolderPath(), RECOVERY_FILE).toPath());
+    }
+
+    ShutdownFlusher.Result flushOnShutdown(Path recoveryFile) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getShutdownFlushDeadline());
+        Map<UUID, Map<Integer, ItemStack[]>> batches = new HashMap<>();
+
+        BagSaveQueue queue = saveQueue;
+        saveQueue = null;
+        BagLanes io = lanes;
+        lanes = null;
+        if (queue == null && io != null && !io.shutdown(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            plugin.getLogger().warn("Timed out waiting for bag reads on shutdown");
+        }
+        if (queue != null) {
+            // 未开始的批次改为并行写入；正在写入的批次写完后才开始，旧快照不会覆盖新内容
+            Map<UUID, Map<Integer, ItemStack[]>> abandoned = queue.abandon();
+            if (!queue.shutdown(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                plugin.getLogger().warn("Timed out waiting for the bag save queue on shutdown");
+            }
+            // 之前写入失败的页较旧，以队列中的快照为准
+            takeUnwritten(batches);
+            abandoned.forEach((playerUuid, pages) ->
+                    batches.computeIfAbsent(playerUuid, k -> new HashMap<>()).putAll(pages));
+        } else {
+            takeUnwritten(batches);
+        }
+
+        BagJournal log = journal;
+        Map<UUID, Map<Integer, Long>> journaled = new HashMap<>();
+        for (Map.Entry<UUID, BagPages> bag : bagCache.entrySet()) {
+            UUID playerUuid = bag.getKey();
+            Set<Integer> dirty = dirtyPages.get(playerUuid);
+            if (dirty == null) {
+                continue;
+            }
+            bag.getValue().forEach((page, snapshot) -> {
+                if (!dirty.remove(page)) {
+                    return;
+                }
+                batches.computeIfAbsent(playerUuid, k -> new HashMap<>()).put(page, snapshot.items());
+                if (log != null) {
+                    journaled.computeIfAbsent(playerUuid, k -> new HashMap<>())
+                            .put(page, log.getPendingSeq(playerUuid, page));
+                }
+            });
+        }
+
+        ShutdownFlusher flusher = new ShutdownFlusher(this::writePages, config.getShutdownFlushThreads(),
+                (message, error) -> plugin.getLogger().error(message, error));
+        ShutdownFlusher.Result result = flusher.flush(batches, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+        if (log != null) {
+            for (Map.Entry<UUID, Map<Integer, Long>> bag : journaled.entrySet()) {
+                if (result.getUnwritten().containsKey(bag.getKey())) {
+                    continue;
+                }
+                for (Map.Entry<Integer, Long> entry : bag.getValue().entrySet()) {
+                    log.release(bag.getKey(), entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        if (!result.getUnwritten().isEmpty()) {
+            spillRecovery(recoveryFile, result);
+        }
+        if (result.getWrittenPages() > 0) {
+            plugin.getLogger().info("Saved " + result.getWrittenPages() + " bag pages on shutdown in "
+                    + result.getElapsedMillis() + " ms");
+        }
+        return result;
+    }
+
+    /**
+     * 取出保留的未写入页面，加入关闭时写入的批次
+     */
+    private void takeUnwritten(Map<UUID, Map<Integer, ItemStack[]>> batches) {
+        for (UUID playerUuid : unwrittenPages.keySet()) {
+            Map<Integer, ItemStack[]> kept = unwrittenPages.remove(playerUuid);
+            if (kept != null) {
+                batches.computeIfAbsent(playerUuid, k -> new HashMap<>()).putAll(kept);
+            }
+        }
+    }
+
+    /**
+     * 将未写入的页面追加到恢复文件，下次启动时导入
+     */
+    private void spillRecovery(Path file, ShutdownFlusher.Result result) {
+        try {
+            // 保留尚未导入的旧记录，同一页以新记录为准
+            List<BagJournal.Entry> entries = BagJournal.readPending(file);
+            for (Map.Entry<UUID, Map<Integer, ItemStack[]>> bag : result.getUnwritten().entrySet()) {
+                for (Map.Entry<Integer, ItemStack[]> page : bag.getValue().entrySet()) {
+                    entries.add(new BagJournal.Entry(bag.getKey(), page.getKey(), serializeItems(page.getValue())));
+                }
+            }
+            BagJournal.writeEntries(file, entries);
+            plugin.getLogger().warn(result.getUnwrittenPages() + " bag pages were not written before the shutdown "
+                    + "deadline and were saved to " + file + ", they are imported on the next start");
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().error("Failed to save " + result.getUnwrittenPages()
+                    + " unwritten bag pages to " + file, e);
+        }
+    }
+    
+    /**
+     * Serialize items with the configured codec.
+     */
+    private String serializeItems(ItemStack[] items) {
+        if (items == null) return "";
+        return codec.encode(items);
+    }
+    
+    /**
+     * Wrap page contents read from storage in a snapshot that is decoded on
+     * first access, so pages that are never opened are never decoded.
+     */
+    private PageSnapshot encodedPage(String contents) {
+        return PageSnapshot.encoded(contents != null ? contents : "", data -> {
+            lazyDecodeCount.incrementAndGet();
+            return deserializeItems(data);
+        }, pageVersion.incrementAndGet());
+    }
+
+    /**
+     * Deserialize items, detecting the codec from the data format.
+     */
+    private ItemStack[] deserializeItems(String data) {
+        int size = config.getRowsPerPage() * 9;
+        if (data == null || data.isEmpty()) {
+            return new ItemStack[size];
+        }
+        
+        try {
+            return BagCodecs.forData(data).decode(data, size);
+        } catch (Exception e) {
+            java.util.logging.Logger.getLogger(RemoteBagService.class.getName())
+                    .log(java.util.logging.Level.WARNING, "Failed to deserialize bag items", e);
+            return new ItemStack[size];
+        }
+    }
+
+    /**
+     * 判断数据是否需要以当前编码重写
+     */
+    private boolean needsUpgrade(String data) {
+        return data != null && !data.isEmpty() && !codec.canDecode(data);
+    }
+    
+    /**
+     * Drop the bag of a player who quit, keeping it in the departed tier for
+     * storage.departed_cache_seconds so that a quick rejoin is served from
+     * memory. Call after {@link #saveBag(UUID)}; pages still being written are
+     * kept for a retry if their write fails.
+     * <p>
+     * A rejoin is served from the tier without checking the rows in database,
+     * so storage.departed_cache_mb is off by default and only meant for
+     * servers that are the only writer of their bags.
+     * <p>
+     * A bag with pages the save could not take, e.g. with the save queue
+     * full, stays in cache unpinned until autosave wrote them and it is evicted.
+     * <p>
+     * Not used in delta mode, whose delta logs are only rebuilt from database.
+     *
+     * @param playerUuid 玩家 UUID
+     */
+    public void retireBag(UUID playerUuid) {
+        if (hasDirtyPages(playerUuid)) {
+            pinnedBags.remove(playerUuid);
+            awaitingFirstOpen.remove(playerUuid);
+            return;
+        }
+        BagPages pages = bagCache.get(playerUuid);
+        Map<Integer, PageMeta> index = pageIndex.get(playerUuid);
+        if (pages != null && index != null && deltaOperator == null && departedBags.isEnabled()) {
+            DepartedBag departed = new DepartedBag();
+            departed.index.putAll(index);
+            Map<Integer, Integer> ids = rowIds.get(playerUuid);
+            if (ids != null) {
+                departed.ids.putAll(ids);
+            }
+            long[] size = {(long) index.size() * DEPARTED_PAGE_OVERHEAD};
+            pages.forEach((page, snapshot) -> {
+                // 从未打开的页直接使用读取时的编码，无需解码再编码
+                String encoded = snapshot.encodedContents();
+                if (encoded != null) {
+                    reusedEncodingCount.incrementAndGet();
+                }
+                byte[] bytes = DepartedBagCache.compress(encoded != null ? encoded : serializeItems(snapshot.items()));
+                departed.contents.put(page, bytes);
+                size[0] += bytes.length;
+            });
+            departedBags.put(playerUuid, departed, size[0]);
+        }
+        clearCache(playerUuid);
+    }
+
+    /**
+     * Clear cache for a player. Unsaved changes of the bag are dropped.
+     * 
+     * @param playerUuid 玩家 UUID
+     */
+    public void clearCache(UUID playerUuid) {
+        bagCache.remove(playerUuid);
+        pageIndex.remove(playerUuid);
+        pageStats.remove(playerUuid);
+        dirtyPages.remove(playerUuid);
+        rowIds.remove(playerUuid);
+        deltaLogs.remove(playerUuid);
+        awaitingFirstOpen.remove(playerUuid);
+        pinnedBags.remove(playerUuid);
+        cachePolicy.remove(playerUuid);
+    }
+    
+    public RemoteBagConfig getConfig() {
+        return config;
+    }
+
+    // ==================== 保存统计 ====================
+
+    /**
+     * 获取当前未保存的脏页数量
+     *
+     * @return 脏页数量
+     */
+    public int getDirtyPageCount() {
+        int count = 0;
+        for (Set<Integer> dirty : dirtyPages.values()) {
+            count += dirty.size();
+        }
+        return count;
+    }
+
+    /**
+     * 获取写入失败、背包已不在缓存中而保留待重试的页数
+     *
+     * @return 待重试的页数
+     */
+    public int getUnwrittenPageCount() {
+        int count = 0;
+        for (Map<Integer, ItemStack[]> kept : unwrittenPages.values()) {
+            count += kept.size();
+        }
+        return count;
+    }
+
+    /**
+     * 获取预写日志
+     *
+     * @return 预写日志，未启用或已关闭时为 null
+     */
+    public BagJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 获取异步写入队列
+     *
+     * @return 写入队列，未启用或已关闭时为 null
+     */
+    public BagSaveQueue getSaveQueue() {
+        return saveQueue;
+    }
+
+    /**
+     * 获取累计写入数据库的页数
+     *
+     * @return 已写入页数
+     */
+    public long getSavedPageCount() {
+        return savedPageCount.get();
+    }
+
+    /**
+     * 获取累计因未修改而跳过写入的页数
+     *
+     * @return 跳过页数
+     */
+    public long getSkippedPageCount() {
+        return skippedPageCount.get();
     }
 
     /**
-     * Initialize the service.
+     * 获取累计回填摘要的页数
+     *
+     * @return 回填页数
      */
-    public void init() {
-        this.dataOperator = plugin.getDataOperator(RemoteBagData.class);
+    public long getSummaryBackfillCount() {
+        return summaryBackfillCount.get();
     }
 
     /**
-     * Auto-save all bags task.
-     * Runs every 300 seconds (6000 ticks) if auto-save is enabled in config.
-     * Note: Period is fixed at 300 seconds. Adjust config.auto_save_interval to 300 or disable (0).
+     * 是否以增量记录保存背包页
+     *
+     * @return 增量模式开启返回 true
      */
-    @Scheduled(period = 6000) // 300 seconds * 20 ticks = 6000 ticks
-    public void autoSaveTask() {
-        saveAllBags();
+    public boolean isDeltaMode() {
+        return deltaOperator != null;
     }
-    
+
     /**
-     * Get number of pages a player has access to.
+     * 背包页存储
+     *
+     * @return 当前存储，init() 之前返回 null
      */
-    public int getPlayerMaxPages(Player player) {
-        if (!config.isPermissionBasedPages()) {
-            return config.getMaxPages();
-        }
-        
-        for (int i = config.getMaxPages(); i >= 1; i--) {
-            if (player.hasPermission(config.getPermissionPrefix() + i)) {
-                return i;
-            }
-        }
-        
-        return config.getDefaultPages();
+    public BagStore getStore() {
+        return store;
     }
-    
+
     /**
-     * Load bag from database if not in cache.
+     * 获取累计以增量记录写入的页数（包含在已写入页数中）
      *
-     * @param playerUuid 玩家 UUID
+     * @return 增量写入页数
      */
-    public void loadBagIfNeeded(UUID playerUuid) {
-        if (bagCache.containsKey(playerUuid)) {
-            return;
-        }
+    public long getDeltaSaveCount() {
+        return deltaSaveCount.get();
+    }
 
-        Map<Integer, ItemStack[]> pages = new HashMap<>();
+    /**
+     * 获取累计将增量记录合并为完整快照的次数
+     *
+     * @return 合并次数
+     */
+    public long getDeltaCompactCount() {
+        return deltaCompactCount.get();
+    }
 
-        List<RemoteBagData> data = dataOperator.query()
-                .where("player_uuid").eq(playerUuid.toString())
-                .list();
+    /**
+     * 获取等待回填摘要的页数
+     *
+     * @return 等待回填页数
+     */
+    public int getPendingSummaryBackfillCount() {
+        return summaryBackfillDepth.get();
+    }
 
-        for (RemoteBagData bagData : data) {
-            ItemStack[] items = deserializeItems(bagData.getContents());
-            pages.put(bagData.getPageNumber(), items);
-        }
+    // ==================== 缓存统计 ====================
 
-        bagCache.put(playerUuid, pages);
-    }
-    
     /**
-     * Get a specific bag page.
+     * 获取加载背包时已在缓存中的次数
+     *
+     * @return 命中次数
      */
-    public ItemStack[] getBagPage(UUID playerUuid, int page) {
-        Map<Integer, ItemStack[]> pages = bagCache.get(playerUuid);
-        if (pages == null) {
-            return null;
-        }
-        return pages.get(page);
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
     }
-    
+
     /**
-     * Set contents of a bag page.
+     * 获取加载背包时需要查询数据库的次数
+     *
+     * @return 未命中次数
      */
-    public void setBagPage(UUID playerUuid, int page, ItemStack[] contents) {
-        bagCache.computeIfAbsent(playerUuid, k -> new HashMap<>()).put(page, contents);
+    public long getCacheMissCount() {
+        return cacheMissCount.get();
     }
-    
+
     /**
-     * Save bag to database.
+     * 获取因超出缓存上限被淘汰的背包数
+     *
+     * @return 淘汰次数
      */
-    public void saveBag(UUID playerUuid) {
-        Map<Integer, ItemStack[]> pages = bagCache.get(playerUuid);
-        if (pages == null) {
-            return;
-        }
+    public long getCacheEvictionCount() {
+        return cacheEvictionCount.get();
+    }
 
-        for (Map.Entry<Integer, ItemStack[]> entry : pages.entrySet()) {
-            String contents = serializeItems(entry.getValue());
+    /**
+     * 获取当前缓存的背包数
+     *
+     * @return 背包数
+     */
+    public int getCachedBagCount() {
+        return cachePolicy.getBagCount();
+    }
 
-            // Check if exists
-            List<RemoteBagData> existing = dataOperator.query()
-                    .where("player_uuid").eq(playerUuid.toString())
-                    .where("page_number").eq(entry.getKey())
-                    .list();
+    /**
+     * 获取当前缓存的背包页数
+     *
+     * @return 页数
+     */
+    public long getCachedPageCount() {
+        return cachePolicy.getPageCount();
+    }
 
-            if (existing.isEmpty()) {
-                dataOperator.insert(RemoteBagData.create(playerUuid, entry.getKey(), contents));
-            } else {
-                RemoteBagData data = existing.get(0);
-                data.setContents(contents);
-                data.setLastUpdated(System.currentTimeMillis());
-                try {
-                    dataOperator.update(data);
-                } catch (IllegalAccessException e) {
-                    plugin.getLogger().error("Failed to update bag data", e);
+    /**
+     * 获取缓存中尚未解码的页数
+     *
+     * @return 页数
+     */
+    public int getEncodedPageCount() {
+        int[] count = {0};
+        for (BagPages pages : bagCache.values()) {
+            pages.forEach((page, snapshot) -> {
+                if (!snapshot.isDecoded()) {
+                    count[0]++;
                 }
-            }
+            });
         }
+        return count[0];
     }
-    
+
     /**
-     * Save all bags in cache.
+     * 获取累计在第一次读取时解码的页数
+     *
+     * @return 页数
      */
-    public void saveAllBags() {
-        for (UUID playerUuid : bagCache.keySet()) {
-            saveBag(playerUuid);
-        }
+    public long getLazyDecodeCount() {
+        return lazyDecodeCount.get();
     }
-    
+
     /**
-     * Serialize items to YAML string.
+     * 获取累计在玩家退出时直接使用读取时编码的页数
+     *
+     * @return 页数
      */
-    private String serializeItems(ItemStack[] items) {
-        if (items == null) return "";
-        
-        YamlConfiguration yaml = new YamlConfiguration();
-        for (int i = 0; i < items.length; i++) {
-            if (items[i] != null) {
-                yaml.set("items." + i, items[i]);
-            }
-        }
-        return yaml.saveToString();
+    public long getReusedEncodingCount() {
+        return reusedEncodingCount.get();
     }
-    
+
+    // ==================== 预加载统计 ====================
+
     /**
-     * Deserialize items from YAML string.
+     * 获取已提交的登录预加载次数
+     *
+     * @return 预加载次数
      */
-    private ItemStack[] deserializeItems(String data) {
-        if (data == null || data.isEmpty()) {
-            return new ItemStack[config.getRowsPerPage() * 9];
-        }
-        
-        try {
-            YamlConfiguration yaml = new YamlConfiguration();
-            yaml.loadFromString(data);
-            
-            ItemStack[] items = new ItemStack[config.getRowsPerPage() * 9];
-            if (yaml.isConfigurationSection("items")) {
-                for (String key : yaml.getConfigurationSection("items").getKeys(false)) {
-                    int slot = Integer.parseInt(key);
-                    items[slot] = yaml.getItemStack("items." + key);
-                }
-            }
-            return items;
-        } catch (Exception e) {
-            java.util.logging.Logger.getLogger(RemoteBagService.class.getName())
-                    .log(java.util.logging.Level.WARNING, "Failed to deserialize bag items", e);
-            return new ItemStack[config.getRowsPerPage() * 9];
-        }
+    public long getPreloadCount() {
+        return preloadCount.get();
     }
-    
+
     /**
-     * Clear cache for a player.
-     * 
-     * @param playerUuid 玩家 UUID
+     * 获取登录时未在超时前完成的预加载次数
+     *
+     * @return 超时次数
      */
-    public void clearCache(UUID playerUuid) {
-        bagCache.remove(playerUuid);
+    public long getPreloadTimeoutCount() {
+        return preloadTimeoutCount.get();
     }
-    
-    public RemoteBagConfig getConfig() {
-        return config;
+
+    /**
+     * 获取因预加载排队已满而放弃的次数
+     *
+     * @return 拒绝次数
+     */
+    public long getPreloadRejectedCount() {
+        return preloadRejectedCount.get();
+    }
+
+    /**
+     * 获取预加载失败次数
+     *
+     * @return 失败次数
+     */
+    public long getPreloadFailedCount() {
+        return preloadFailedCount.get();
+    }
+
+    /**
+     * 获取玩家登录后首次打开背包时已在缓存中的次数
+     *
+     * @return 命中次数
+     */
+    public long getWarmOpenCount() {
+        return warmOpenCount.get();
+    }
+
+    /**
+     * 获取玩家登录后首次打开背包时需要同步加载的次数
+     *
+     * @return 未命中次数
+     */
+    public long getColdOpenCount() {
+        return coldOpenCount.get();
     }
     
     // ==================== GUI 支持方法 ====================
@@ -219,16 +2325,19 @@ public class RemoteBagService {
      * 获取玩家拥有的所有背包页码列表
      *
      * @param playerUuid 玩家 UUID
-     * @return 背包页码列表（已排序）
+     * @return 背包页码列表（已排序），背包仍在保存、改在通道上读取时返回空列表
      */
     public List<Integer> getPlayerBagPages(UUID playerUuid) {
-        loadBagIfNeeded(playerUuid);
-        Map<Integer, ItemStack[]> pages = bagCache.get(playerUuid);
-        if (pages == null || pages.isEmpty()) {
+        if (!loadBagIfNeeded(playerUuid)) {
+            return Collections.emptyList();
+        }
+        // 只读取页索引，不读取页面内容
+        Map<Integer, PageMeta> index = pageIndex.get(playerUuid);
+        if (index == null || index.isEmpty()) {
             // 如果没有任何背包，返回默认的第一页
             return Collections.singletonList(1);
         }
-        return pages.keySet().stream()
+        return index.keySet().stream()
                 .sorted()
                 .collect(Collectors.toList());
     }
@@ -241,17 +2350,8 @@ public class RemoteBagService {
      * @return 物品总数量（所有堆叠物品的数量总和）
      */
     public int getItemCount(UUID playerUuid, int page) {
-        ItemStack[] contents = getBagPage(playerUuid, page);
-        if (contents == null) {
-            return 0;
-        }
-        int count = 0;
-        for (ItemStack item : contents) {
-            if (item != null && item.getType() != Material.AIR) {
-                count += item.getAmount();
-            }
-        }
-        return count;
+        PageStats stats = getPageStats(playerUuid, page);
+        return stats != null ? stats.getItemCount() : summarize(playerUuid, page).getItemCount();
     }
     
     /**
@@ -262,17 +2362,16 @@ public class RemoteBagService {
      * @return 占用槽位数量
      */
     public int getStackCount(UUID playerUuid, int page) {
-        ItemStack[] contents = getBagPage(playerUuid, page);
-        if (contents == null) {
-            return 0;
-        }
-        int count = 0;
-        for (ItemStack item : contents) {
-            if (item != null && item.getType() != Material.AIR) {
-                count++;
-            }
-        }
-        return count;
+        PageStats stats = getPageStats(playerUuid, page);
+        return stats != null ? stats.getOccupiedSlots() : summarize(playerUuid, page).getStackCount();
+    }
+
+    /**
+     * 获取页面摘要，没有已保存摘要时读取页面内容计算
+     */
+    private PageSummary summarize(UUID playerUuid, int page) {
+        PageSummary summary = getPageSummary(playerUuid, page);
+        return summary != null ? summary : PageSummary.of(getBagPage(playerUuid, page));
     }
     
     /**
@@ -294,31 +2393,37 @@ public class RemoteBagService {
     }
     
     /**
-     * 玩家购买新背包
+     * 玩家购买新背包，在主线程调用
+     * <p>
+     * 新背包页写入数据库后在主线程完成，写入失败时先在主线程回滚缓存。
      *
      * @param player 玩家
-     * @return 购买是否成功
+     * @return 购买成功时完成为 true，写入异常时异常完成
      */
-    public boolean purchaseBag(Player player) {
+    public CompletableFuture<Boolean> purchaseBag(Player player) {
         if (!config.isEconomyEnabled() || !EconomyUtils.isAvailable()) {
             // 经济系统未启用，直接创建背包
             return createNewBagPage(player);
         }
         
+        // 背包仍在保存时无法确定价格，不扣款
+        if (!loadBagIfNeeded(player.getUniqueId())) {
+            return CompletableFuture.completedFuture(false);
+        }
         List<Integer> existingPages = getPlayerBagPages(player.getUniqueId());
         int nextBagNum = existingPages.size() + 1;
         
         // 检查是否超过上限
         int maxPages = getPlayerMaxPages(player);
         if (nextBagNum > maxPages) {
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
         
         int price = calculatePrice(nextBagNum);
         
         // 扣款
         if (!EconomyUtils.withdraw(player, price)) {
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
         
         // 创建新背包页
@@ -329,35 +2434,107 @@ public class RemoteBagService {
      * 为玩家创建新的背包页
      *
      * @param player 玩家
-     * @return 是否成功
+     * @return 创建成功时完成为 true
      */
-    private boolean createNewBagPage(Player player) {
+    private CompletableFuture<Boolean> createNewBagPage(Player player) {
         UUID playerUuid = player.getUniqueId();
-        loadBagIfNeeded(playerUuid);
-        
-        List<Integer> existingPages = getPlayerBagPages(playerUuid);
-        int nextPage = existingPages.isEmpty() ? 1 : Collections.max(existingPages) + 1;
-        
-        // 检查是否超过上限
+        // 权限只能在主线程检查
         int maxPages = getPlayerMaxPages(player);
-        if (nextPage > maxPages) {
-            return false;
+        return changeAndSave(playerUuid, () -> {
+            if (!bagCache.containsKey(playerUuid)) {
+                loadBag(playerUuid);
+            }
+            List<Integer> existingPages = getPlayerBagPages(playerUuid);
+            int nextPage = existingPages.isEmpty() ? 1 : Collections.max(existingPages) + 1;
+            
+            // 检查是否超过上限
+            if (nextPage > maxPages) {
+                return null;
+            }
+            
+            // 创建空的背包页
+            ItemStack[] emptyContents = new ItemStack[config.getRowsPerPage() * 9];
+            setBagPage(playerUuid, nextPage, emptyContents);
+            return () -> removeCachedPage(playerUuid, nextPage);
+        });
+    }
+
+    /**
+     * 在所有者的通道上修改背包并保存，不等待写入。修改返回其回滚操作，未修改时返回 null；
+     * 写入完成后在主线程完成，写入失败或异常时先在主线程执行回滚
+     *
+     * @return 写入成功时完成为 true，未修改或写入失败时为 false
+     */
+    private CompletableFuture<Boolean> changeAndSave(UUID playerUuid, Supplier<Runnable> change) {
+        Runnable[] rollback = new Runnable[1];
+        CompletableFuture<Boolean> saved = onLane(playerUuid, () -> {
+            rollback[0] = change.get();
+            return rollback[0] != null ? saveBagAsync(playerUuid) : CompletableFuture.completedFuture(false);
+        });
+        return opener.onMainThread(saved).handle((ok, error) -> {
+            if ((error != null || !ok) && rollback[0] != null) {
+                rollback[0].run();
+            }
+            if (error != null) {
+                throw completion(error);
+            }
+            return ok;
+        });
+    }
+
+    /**
+     * 从缓存中移除背包页（用于回滚）
+     */
+    private void removeCachedPage(UUID playerUuid, int page) {
+        Map<Integer, PageMeta> index = pageIndex.get(playerUuid);
+        if (index != null) {
+            index.remove(page);
         }
-        
-        // 创建空的背包页
-        ItemStack[] emptyContents = new ItemStack[config.getRowsPerPage() * 9];
-        setBagPage(playerUuid, nextPage, emptyContents);
+        forgetPageContents(playerUuid, page);
+        cancelJournaled(playerUuid, page);
+    }
 
-        // 保存到数据库，失败时回滚缓存
-        try {
-            saveBag(playerUuid);
-        } catch (Exception e) {
-            Map<Integer, ItemStack[]> pages = bagCache.get(playerUuid);
-            if (pages != null) pages.remove(nextPage);
-            throw e;
+    /**
+     * 回滚后撤销日志中该页未写入数据库的修改
+     */
+    private void cancelJournaled(UUID playerUuid, int page) {
+        BagJournal log = journal;
+        if (log != null) {
+            log.appendCancel(playerUuid, page);
         }
+    }
 
-        return true;
+    /**
+     * 丢弃内存中的页面内容，下次访问时重新从数据库读取
+     */
+    private void forgetPageContents(UUID playerUuid, int page) {
+        BagPages pages = bagCache.get(playerUuid);
+        if (pages != null) {
+            pages.remove(page);
+            cachePolicy.record(playerUuid, pages.size());
+        }
+        forgetPageStats(playerUuid, page);
+        clearDirty(playerUuid, page);
+    }
+
+    /**
+     * 丢弃页面统计
+     */
+    private void forgetPageStats(UUID playerUuid, int page) {
+        Map<Integer, PageStats> stats = pageStats.get(playerUuid);
+        if (stats != null) {
+            stats.remove(page);
+        }
+    }
+
+    /**
+     * 清除背包页的脏标记
+     */
+    private void clearDirty(UUID playerUuid, int page) {
+        Set<Integer> dirty = dirtyPages.get(playerUuid);
+        if (dirty != null) {
+            dirty.remove(page);
+        }
     }
 
     // ==================== 管理员命令支持方法 ====================
@@ -366,61 +2543,122 @@ public class RemoteBagService {
      * 为指定玩家创建新的背包页（管理员操作）
      *
      * @param playerUuid 玩家 UUID
-     * @return 新创建的背包页码，失败返回 -1
+     * @return 写入数据库后在主线程完成为新创建的背包页码，失败时为 -1
      */
-    public int createBagPage(UUID playerUuid) {
-        loadBagIfNeeded(playerUuid);
-        
-        List<Integer> existingPages = getPlayerBagPages(playerUuid);
-        int nextPage = existingPages.isEmpty() || (existingPages.size() == 1 && existingPages.get(0) == 1) 
-                ? (existingPages.isEmpty() ? 1 : Collections.max(existingPages) + 1)
-                : Collections.max(existingPages) + 1;
-        
-        // 创建空的背包页
-        ItemStack[] emptyContents = new ItemStack[config.getRowsPerPage() * 9];
-        setBagPage(playerUuid, nextPage, emptyContents);
-
-        // 保存到数据库，失败时回滚缓存
-        try {
-            saveBag(playerUuid);
-        } catch (Exception e) {
-            Map<Integer, ItemStack[]> pages = bagCache.get(playerUuid);
-            if (pages != null) pages.remove(nextPage);
-            throw e;
-        }
-
-        return nextPage;
+    public CompletableFuture<Integer> createBagPage(UUID playerUuid) {
+        int[] created = {-1};
+        return changeAndSave(playerUuid, () -> {
+            if (!bagCache.containsKey(playerUuid)) {
+                loadBag(playerUuid);
+            }
+            List<Integer> existingPages = getPlayerBagPages(playerUuid);
+            int nextPage = existingPages.isEmpty() || (existingPages.size() == 1 && existingPages.get(0) == 1) 
+                    ? (existingPages.isEmpty() ? 1 : Collections.max(existingPages) + 1)
+                    : Collections.max(existingPages) + 1;
+            
+            // 创建空的背包页
+            ItemStack[] emptyContents = new ItemStack[config.getRowsPerPage() * 9];
+            setBagPage(playerUuid, nextPage, emptyContents);
+            created[0] = nextPage;
+            return () -> removeCachedPage(playerUuid, nextPage);
+        }).thenApply(saved -> saved ? created[0] : -1);
     }
     
     /**
      * 删除指定玩家的背包页（管理员操作）
+     * <p>
+     * 在所有者的通道上执行，排在该页未完成的写入之后。
      *
      * @param playerUuid 玩家 UUID
      * @param page       背包页码
-     * @return 是否成功
+     * @return 从数据库删除后在主线程完成，页面不存在时为 false，删除失败时异常完成
      */
-    public boolean deleteBagPage(UUID playerUuid, int page) {
-        loadBagIfNeeded(playerUuid);
-        
-        Map<Integer, ItemStack[]> pages = bagCache.get(playerUuid);
-        if (pages == null || !pages.containsKey(page)) {
-            return false;
-        }
-        
-        // 从缓存中移除
-        pages.remove(page);
+    public CompletableFuture<Boolean> deleteBagPage(UUID playerUuid, int page) {
+        return opener.onMainThread(onLane(playerUuid, () -> {
+            // 淘汰留给定时任务，不在通道上处理其他玩家的背包
+            if (!bagCache.containsKey(playerUuid)) {
+                loadBag(playerUuid);
+            }
+            
+            BagPages pages = bagCache.get(playerUuid);
+            Map<Integer, PageMeta> index = pageIndex.get(playerUuid);
+            if (pages == null || index == null || index.remove(page) == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+            
+            // 从缓存中移除
+            pages.remove(page);
+            cachePolicy.record(playerUuid, pages.size());
+            forgetPageStats(playerUuid, page);
+            clearDirty(playerUuid, page);
+            Map<Integer, Integer> ids = rowIds.get(playerUuid);
+            Integer rowId = ids != null ? ids.get(page) : null;
+            BagJournal log = journal;
+            long seq = log != null ? log.appendDelete(playerUuid, page) : -1;
 
-        // 从数据库中删除
-        List<RemoteBagData> existing = dataOperator.query()
-                .where("player_uuid").eq(playerUuid.toString())
-                .where("page_number").eq(page)
-                .list();
+            // 从数据库中删除，删除失败时日志中的记录在下次启动时重放
+            try {
+                deletePageRows(playerUuid, page, rowId);
+            } catch (RuntimeException e) {
+                plugin.getLogger().error("Failed to delete bag page " + page + " of " + playerUuid, e);
+                throw e;
+            }
+            if (log != null) {
+                log.release(playerUuid, page, seq);
+            }
+            return CompletableFuture.completedFuture(true);
+        }));
+    }
 
-        for (RemoteBagData data : existing) {
-            dataOperator.delById(data.getId());
+    private void deletePageRows(UUID playerUuid, int page, Integer rowId) {
+        if (rowId != null && rowId != UNKNOWN_ROW_ID) {
+            store.delete(rowId);
+        } else {
+            List<RemoteBagData> existing = store.findPage(playerUuid, page);
+
+            for (RemoteBagData data : existing) {
+                store.delete(data.getId());
+            }
         }
+        // 在写入线程上移除，覆盖删除前排队的写入记录的行 id
+        Map<Integer, Integer> ids = rowIds.get(playerUuid);
+        if (ids != null) {
+            ids.remove(page);
+        }
+        if (deltaOperator != null) {
+            deleteDeltas(playerUuid, page);
+        }
+    }
 
-        return true;
+    /**
+     * Delete every delta of a deleted page. Leftovers are obsolete for a page
+     * created later under the same number, as its snapshot is newer.
+     */
+    private void deleteDeltas(UUID playerUuid, int page) {
+        Map<Integer, DeltaLog> logs = deltaLogs.get(playerUuid);
+        DeltaLog log = logs != null ? logs.remove(page) : null;
+        List<Integer> deltaIds = new ArrayList<>();
+        if (log != null) {
+            synchronized (log) {
+                for (RemoteBagDeltaData delta : log.deltas) {
+                    deltaIds.add(delta.getId());
+                }
+                deltaIds.addAll(log.obsolete);
+            }
+        } else {
+            List<RemoteBagDeltaData> existing = deltaOperator.query()
+                    .where("player_uuid").eq(playerUuid.toString())
+                    .where("page_number").eq(page)
+                    .list();
+            for (RemoteBagDeltaData delta : existing) {
+                deltaIds.add(delta.getId());
+            }
+        }
+        for (Integer id : deltaIds) {
+            if (id != null) {
+                deltaOperator.delById(id);
+            }
+        }
     }
     
     /**
@@ -428,31 +2666,49 @@ public class RemoteBagService {
      *
      * @param playerUuid 玩家 UUID
      * @param page       背包页码
-     * @return 是否成功
+     * @return 写入数据库后在主线程完成，成功为 true
      */
-    public boolean clearBagPage(UUID playerUuid, int page) {
-        loadBagIfNeeded(playerUuid);
-        
-        Map<Integer, ItemStack[]> pages = bagCache.get(playerUuid);
-        if (pages == null || !pages.containsKey(page)) {
-            return false;
-        }
-        
-        // 创建空的内容
-        ItemStack[] emptyContents = new ItemStack[config.getRowsPerPage() * 9];
-        ItemStack[] oldContents = pages.get(page);
-        setBagPage(playerUuid, page, emptyContents);
+    public CompletableFuture<Boolean> clearBagPage(UUID playerUuid, int page) {
+        return changeAndSave(playerUuid, () -> {
+            // 淘汰留给定时任务，不在通道上处理其他玩家的背包
+            if (!bagCache.containsKey(playerUuid)) {
+                loadBag(playerUuid);
+            }
+            
+            BagPages pages = bagCache.get(playerUuid);
+            if (pages == null || !hasPage(playerUuid, page)) {
+                return null;
+            }
+            
+            // 创建空的内容，未读取的页无需读取旧内容
+            ItemStack[] emptyContents = new ItemStack[config.getRowsPerPage() * 9];
+            PageSnapshot oldContents = pages.get(page);
+            setBagPage(playerUuid, page, emptyContents);
+            return () -> restorePage(playerUuid, page, oldContents);
+        });
+    }
 
-        // 保存到数据库，失败时回滚缓存
-        try {
-            saveBag(playerUuid);
-        } catch (Exception e) {
-            if (oldContents != null) {
-                setBagPage(playerUuid, page, oldContents);
+    /**
+     * 回滚页面内容，原本未读取的页在下次访问时从数据库读取
+     */
+    private void restorePage(UUID playerUuid, int page, PageSnapshot oldContents) {
+        if (oldContents != null && !oldContents.isDecoded()) {
+            // 从未打开的页与数据库一致，放回原快照即可，无需解码和重写
+            BagPages pages = bagCache.get(playerUuid);
+            if (pages != null) {
+                pages.put(page, oldContents);
             }
-            throw e;
+            forgetPageStats(playerUuid, page);
+            if (!needsUpgrade(oldContents.encodedContents())) {
+                clearDirty(playerUuid, page);
+            }
+            cancelJournaled(playerUuid, page);
+        } else if (oldContents != null) {
+            // 旧快照未被修改，以新版本号重新发布，无需复制
+            publish(playerUuid, page, PageSnapshot.wrap(oldContents.items(), pageVersion.incrementAndGet()));
+        } else {
+            forgetPageContents(playerUuid, page);
+            cancelJournaled(playerUuid, page);
         }
-
-        return true;
     }
 }
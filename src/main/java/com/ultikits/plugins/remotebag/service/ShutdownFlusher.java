@@ -0,0 +1,166 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * 关闭插件时并行写入背包
+ * <p>
+ * 一次写入所有未保存的页面快照，写入时间有上限：
+ * <ul>
+ *   <li>每个玩家的页面作为一批，在固定大小的线程池中并行写入</li>
+ *   <li>到达截止时间后不再等待，未完成的写入线程被中断</li>
+ *   <li>没有写入成功（超时、失败或抛出异常）的批次返回给调用方另行保存</li>
+ * </ul>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class ShutdownFlusher {
+
+    /**
+     * 写入结果
+     */
+    public static final class Result {
+        private final int writtenPages;
+        private final Map<UUID, Map<Integer, ItemStack[]>> unwritten;
+        private final boolean timedOut;
+        private final long elapsedMillis;
+
+        private Result(int writtenPages, Map<UUID, Map<Integer, ItemStack[]>> unwritten,
+                       boolean timedOut, long elapsedMillis) {
+            this.writtenPages = writtenPages;
+            this.unwritten = unwritten;
+            this.timedOut = timedOut;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * @return 写入成功的页数
+         */
+        public int getWrittenPages() {
+            return writtenPages;
+        }
+
+        /**
+         * @return 没有写入成功的批次：玩家 UUID -> 页码 -> 页面快照
+         */
+        public Map<UUID, Map<Integer, ItemStack[]>> getUnwritten() {
+            return unwritten;
+        }
+
+        /**
+         * @return 未写入的页数
+         */
+        public int getUnwrittenPages() {
+            int count = 0;
+            for (Map<Integer, ItemStack[]> pages : unwritten.values()) {
+                count += pages.size();
+            }
+            return count;
+        }
+
+        /**
+         * @return 到达截止时间时仍有批次未写完返回 true
+         */
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * @return 写入耗时（毫秒）
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    private final BagSaveQueue.BatchWriter writer;
+    private final int threads;
+    private final BiConsumer<String, Throwable> errorHandler;
+
+    /**
+     * @param writer       批量写入器，需支持不同玩家并发写入
+     * @param threads      写入线程数
+     * @param errorHandler 记录写入异常
+     */
+    public ShutdownFlusher(BagSaveQueue.BatchWriter writer, int threads, BiConsumer<String, Throwable> errorHandler) {
+        this.writer = writer;
+        this.threads = Math.max(1, threads);
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * 并行写入所有批次，最多等待到截止时间
+     *
+     * @param batches 玩家 UUID -> 页码 -> 页面快照
+     * @param timeout 截止时间
+     * @param unit    时间单位
+     * @return 写入结果
+     */
+    public Result flush(Map<UUID, Map<Integer, ItemStack[]>> batches, long timeout, TimeUnit unit) {
+        long start = System.nanoTime();
+        if (batches.isEmpty()) {
+            return new Result(0, Collections.emptyMap(), false, 0L);
+        }
+
+        Set<UUID> written = ConcurrentHashMap.newKeySet();
+        AtomicInteger threadId = new AtomicInteger();
+        int poolSize = Math.min(threads, batches.size());
+        ExecutorService executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "UltiRemoteBag-Flush-" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        for (Map.Entry<UUID, Map<Integer, ItemStack[]>> batch : batches.entrySet()) {
+            UUID playerUuid = batch.getKey();
+            executor.execute(() -> {
+                try {
+                    if (writer.write(playerUuid, batch.getValue())) {
+                        written.add(playerUuid);
+                    }
+                } catch (Throwable t) {
+                    errorHandler.accept("Failed to write bag of " + playerUuid + " on shutdown", t);
+                }
+            });
+        }
+        executor.shutdown();
+
+        boolean finished;
+        try {
+            finished = executor.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished = false;
+        }
+        if (!finished) {
+            executor.shutdownNow();
+        }
+
+        // 截止后才写完的批次也算未写入，重复导入相同内容没有影响
+        Map<UUID, Map<Integer, ItemStack[]>> unwritten = new LinkedHashMap<>();
+        int writtenPages = 0;
+        for (Map.Entry<UUID, Map<Integer, ItemStack[]>> batch : batches.entrySet()) {
+            if (written.contains(batch.getKey())) {
+                writtenPages += batch.getValue().size();
+            } else {
+                unwritten.put(batch.getKey(), batch.getValue());
+            }
+        }
+        return new Result(writtenPages, unwritten, !finished,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
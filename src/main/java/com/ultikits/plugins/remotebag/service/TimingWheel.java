@@ -0,0 +1,121 @@
+package com.ultikits.plugins.remotebag.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 哈希时间轮
+ * <p>
+ * 按到期刻度把任务放入固定数量的槽位，由一个周期任务调用 {@link #advance(long)} 推进：
+ * <ul>
+ *   <li>调度为 O(1)，推进时只访问经过的槽位</li>
+ *   <li>超过一圈的任务在每圈经过时跳过一次，直到真正到期</li>
+ *   <li>不支持取消，调用方在任务到期时自行检查是否仍然有效</li>
+ * </ul>
+ *
+ * @param <T> 任务内容类型
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TimingWheel<T> {
+
+    private static final class Entry<T> {
+        private final T payload;
+        private final long deadlineTick;
+
+        private Entry(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final ArrayDeque<Entry<T>>[] slots;
+
+    // guarded by this
+    private long currentTick;
+    // guarded by this
+    private int size;
+
+    /**
+     * @param tickMillis  每个刻度的毫秒数
+     * @param wheelSize   槽位数量，必须是 2 的幂
+     * @param startMillis 起始时间（毫秒）
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        if (wheelSize <= 0 || (wheelSize & (wheelSize - 1)) != 0) {
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.slots = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 调度任务，在不早于 deadlineMillis 的刻度到期
+     *
+     * @param payload        任务内容
+     * @param deadlineMillis 到期时间（毫秒）
+     */
+    public synchronized void schedule(T payload, long deadlineMillis) {
+        // Round up so an entry never fires before its deadline
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        slots[(int) (tick & mask)].add(new Entry<>(payload, tick));
+        size++;
+    }
+
+    /**
+     * 推进到指定时间并取出所有已到期的任务
+     *
+     * @param nowMillis 当前时间（毫秒）
+     * @return 已到期的任务，按槽位顺序
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        if (nowTick <= currentTick) {
+            return Collections.emptyList();
+        }
+        // A full revolution already visits every slot
+        long ticks = Math.min(nowTick - currentTick, slots.length);
+        List<T> due = new ArrayList<>();
+        for (long i = 1; i <= ticks; i++) {
+            Iterator<Entry<T>> it = slots[(int) ((currentTick + i) & mask)].iterator();
+            while (it.hasNext()) {
+                Entry<T> entry = it.next();
+                if (entry.deadlineTick <= nowTick) {
+                    it.remove();
+                    size--;
+                    due.add(entry.payload);
+                }
+            }
+        }
+        currentTick = nowTick;
+        return due;
+    }
+
+    /**
+     * @return 尚未到期的任务数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return 每个刻度的毫秒数
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+}
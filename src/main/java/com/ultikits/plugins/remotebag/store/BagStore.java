@@ -0,0 +1,68 @@
+package com.ultikits.plugins.remotebag.store;
+
+import com.ultikits.plugins.remotebag.entity.RemoteBagData;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 背包页存储
+ * <p>
+ * {@link com.ultikits.plugins.remotebag.service.RemoteBagService} 通过此接口读写
+ * {@link RemoteBagData} 行，实现可以是数据库或本地文件。调用可能来自主线程、
+ * 写入线程和预加载线程，实现需要线程安全。
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public interface BagStore {
+
+    /**
+     * @return 存储名称（配置中使用）
+     */
+    String getName();
+
+    /**
+     * 读取玩家的所有背包页
+     *
+     * @param playerUuid 玩家 UUID
+     * @return 背包页行，没有时返回空列表
+     */
+    List<RemoteBagData> findBag(UUID playerUuid);
+
+    /**
+     * 读取玩家的一个背包页
+     *
+     * @param playerUuid 玩家 UUID
+     * @param page       页码
+     * @return 背包页行，没有时返回空列表
+     */
+    List<RemoteBagData> findPage(UUID playerUuid, int page);
+
+    /**
+     * 插入新行，写入后行 id 被设置
+     *
+     * @param data 背包页行
+     */
+    void insert(RemoteBagData data);
+
+    /**
+     * 按行 id 更新
+     *
+     * @param data 背包页行
+     * @return 写入成功返回 true，失败原因由实现记录
+     */
+    boolean update(RemoteBagData data);
+
+    /**
+     * 按行 id 删除
+     *
+     * @param id 行 id
+     */
+    void delete(Integer id);
+
+    /**
+     * 关闭存储，之后不再调用其他方法
+     */
+    void close();
+}
@@ -0,0 +1,79 @@
+package com.ultikits.plugins.remotebag.store;
+
+import com.ultikits.plugins.remotebag.entity.RemoteBagData;
+import com.ultikits.ultitools.interfaces.DataOperator;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * 数据库存储（UltiTools DataOperator）
+ * <p>
+ * 使用 UltiTools 配置的数据库（MySQL 或本地 JSON），行保存在 remote_bags 表中。
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class DatabaseBagStore implements BagStore {
+
+    public static final String NAME = "database";
+
+    private final DataOperator<RemoteBagData> operator;
+    private final BiConsumer<String, Throwable> errorHandler;
+
+    /**
+     * @param operator     remote_bags 表的数据操作器
+     * @param errorHandler 记录更新失败
+     */
+    public DatabaseBagStore(DataOperator<RemoteBagData> operator, BiConsumer<String, Throwable> errorHandler) {
+        this.operator = operator;
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<RemoteBagData> findBag(UUID playerUuid) {
+        return operator.query()
+                .where("player_uuid").eq(playerUuid.toString())
+                .list();
+    }
+
+    @Override
+    public List<RemoteBagData> findPage(UUID playerUuid, int page) {
+        return operator.query()
+                .where("player_uuid").eq(playerUuid.toString())
+                .where("page_number").eq(page)
+                .list();
+    }
+
+    @Override
+    public void insert(RemoteBagData data) {
+        operator.insert(data);
+    }
+
+    @Override
+    public boolean update(RemoteBagData data) {
+        try {
+            operator.update(data);
+            return true;
+        } catch (IllegalAccessException e) {
+            errorHandler.accept("Failed to update bag data", e);
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(Integer id) {
+        operator.delById(id);
+    }
+
+    @Override
+    public void close() {
+        // 连接由 UltiTools 管理
+    }
+}
@@ -0,0 +1,696 @@
+package com.ultikits.plugins.remotebag.store;
+
+import com.ultikits.plugins.remotebag.entity.BagPageKey;
+import com.ultikits.plugins.remotebag.entity.RemoteBagData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * 本地日志结构存储
+ * <p>
+ * 背包页行追加写入内存映射的段文件（segment-N.log），内存中按（UUID, 页码）索引每页最新记录的位置：
+ * <ul>
+ *   <li>写入只在最新的段末尾追加记录，删除追加删除标记，已写入的数据不再修改</li>
+ *   <li>启动时按顺序扫描所有段重建索引，校验失败或写了一半的记录及之后的内容被忽略</li>
+ *   <li>后台线程每秒将映射内容刷到磁盘；进程崩溃不丢数据，断电最多丢失最近一秒的写入</li>
+ *   <li>无效数据超过一半时，后台线程把最旧的段中仍有效的记录复制到末尾后删除该段</li>
+ * </ul>
+ * 记录格式：body 长度（int）、body 的 CRC32（int）、body。
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class LogBagStore implements BagStore {
+
+    public static final String NAME = "file";
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private static final int HEADER_BYTES = 8;
+    // Offsets of the fixed fields in a PUT body
+    private static final int ID_OFFSET = 1;
+    private static final int UUID_OFFSET = 5;
+    private static final int PAGE_OFFSET = 21;
+    private static final int FIXED_BYTES = 49;
+
+    // Compaction starts once this share of the written bytes is dead
+    private static final double COMPACT_GARBAGE_RATIO = 0.5;
+    // Live records moved per write-lock hold while compacting
+    private static final int COMPACT_BATCH = 256;
+    private static final long MAINTENANCE_PERIOD_MILLIS = 1000;
+
+    private final Path folder;
+    private final int segmentBytes;
+    private final BiConsumer<String, Throwable> errorHandler;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // guarded by lock
+    private final Map<BagPageKey, Location> index = new HashMap<>();
+    private final Map<Integer, BagPageKey> keysById = new HashMap<>();
+    private final Map<UUID, Set<Integer>> pagesByPlayer = new HashMap<>();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private int nextId = 1;
+    private long liveBytes;
+    private long writtenBytes;
+
+    private ScheduledExecutorService maintenance;
+
+    private final AtomicLong compactCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private static final class Segment {
+        private final int number;
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // End of the written records
+        private int position;
+
+        private Segment(int number, Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Where the latest record of a page is. Replaced as a whole, never modified.
+     */
+    private static final class Location {
+        private final Segment segment;
+        private final int offset;
+        // Including the header
+        private final int length;
+        private final int id;
+
+        private Location(Segment segment, int offset, int length, int id) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.id = id;
+        }
+    }
+
+    /**
+     * @param folder       段文件目录
+     * @param segmentBytes 每个段文件的大小，单条记录更大时该段相应扩大
+     * @param errorHandler 记录后台刷盘、整理和更新的失败
+     */
+    public LogBagStore(Path folder, long segmentBytes, BiConsumer<String, Throwable> errorHandler) {
+        this.folder = folder;
+        this.segmentBytes = (int) Math.min(Math.max(segmentBytes, 4096), Integer.MAX_VALUE);
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * 扫描已有的段文件重建索引，并启动后台刷盘和整理
+     *
+     * @throws IOException 目录无法创建或段文件无法映射
+     */
+    public void open() throws IOException {
+        Files.createDirectories(folder);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                if (segmentNumber(file) > 0) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingInt(LogBagStore::segmentNumber));
+
+        lock.writeLock().lock();
+        try {
+            for (Path file : files) {
+                Segment segment = mapSegment(segmentNumber(file), file, (int) Math.min(Files.size(file), Integer.MAX_VALUE));
+                segments.put(segment.number, segment);
+                scan(segment);
+            }
+            active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "UltiRemoteBag-Store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::maintain, MAINTENANCE_PERIOD_MILLIS, MAINTENANCE_PERIOD_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    private static Segment mapSegment(int number, Path file, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new Segment(number, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Apply the valid records of a segment to the index.
+     */
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        CRC32 crc = new CRC32();
+        int position = 0;
+        while (buffer.capacity() - position >= HEADER_BYTES) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.capacity() - position - HEADER_BYTES) {
+                break;
+            }
+            ByteBuffer body = slice(buffer, position + HEADER_BYTES, length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            replay(segment, position, body);
+            position += HEADER_BYTES + length;
+        }
+        segment.position = position;
+        writtenBytes += position;
+
+        // 清除写了一半的记录，之后追加的记录后面不会残留旧数据
+        if (buffer.capacity() - position >= HEADER_BYTES && buffer.getInt(position) != 0) {
+            for (int i = position; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private void replay(Segment segment, int offset, ByteBuffer body) {
+        int id = body.getInt(ID_OFFSET);
+        nextId = Math.max(nextId, id + 1);
+        if (body.get(0) == PUT) {
+            UUID playerUuid = new UUID(body.getLong(UUID_OFFSET), body.getLong(UUID_OFFSET + 8));
+            int page = body.getInt(PAGE_OFFSET);
+            link(playerUuid, page, new Location(segment, offset, HEADER_BYTES + body.remaining(), id));
+        } else if (body.get(0) == DELETE) {
+            unlink(id);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice();
+    }
+
+    /**
+     * Point the index at the latest record of a page. Caller holds the write lock.
+     */
+    private void link(UUID playerUuid, int page, Location location) {
+        BagPageKey key = BagPageKey.of(playerUuid, page);
+        Location previous = index.put(key, location);
+        if (previous != null) {
+            liveBytes -= previous.length;
+            if (previous.id != location.id) {
+                keysById.remove(previous.id);
+            }
+        }
+        liveBytes += location.length;
+        BagPageKey moved = keysById.put(location.id, key);
+        if (moved != null && !moved.equals(key)) {
+            // 同一行改了页码
+            Location stale = index.get(moved);
+            if (stale != null && stale.id == location.id) {
+                index.remove(moved);
+                liveBytes -= stale.length;
+                removePage(moved);
+            }
+        }
+        pagesByPlayer.computeIfAbsent(playerUuid, k -> new HashSet<>()).add(page);
+    }
+
+    /**
+     * Remove a row from the index. Caller holds the write lock.
+     */
+    private void unlink(int id) {
+        BagPageKey key = keysById.remove(id);
+        if (key == null) {
+            return;
+        }
+        Location location = index.get(key);
+        if (location != null && location.id == id) {
+            index.remove(key);
+            liveBytes -= location.length;
+            removePage(key);
+        }
+    }
+
+    private void removePage(BagPageKey key) {
+        UUID playerUuid = key.getOwnerUuid();
+        Set<Integer> pages = pagesByPlayer.get(playerUuid);
+        if (pages != null && pages.remove(key.getPageNumber()) && pages.isEmpty()) {
+            pagesByPlayer.remove(playerUuid);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<RemoteBagData> findBag(UUID playerUuid) {
+        lock.readLock().lock();
+        try {
+            Set<Integer> pages = pagesByPlayer.get(playerUuid);
+            List<RemoteBagData> rows = new ArrayList<>(pages != null ? pages.size() : 0);
+            if (pages != null) {
+                for (Integer page : pages) {
+                    Location location = index.get(BagPageKey.of(playerUuid, page));
+                    if (location != null) {
+                        rows.add(read(location));
+                    }
+                }
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<RemoteBagData> findPage(UUID playerUuid, int page) {
+        lock.readLock().lock();
+        try {
+            Location location = index.get(BagPageKey.of(playerUuid, page));
+            List<RemoteBagData> rows = new ArrayList<>(1);
+            if (location != null) {
+                rows.add(read(location));
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void insert(RemoteBagData data) {
+        lock.writeLock().lock();
+        try {
+            data.setId(nextId);
+            write(data);
+            nextId++;
+        } catch (IOException e) {
+            data.setId(null);
+            throw new UncheckedIOException("Failed to write bag page " + data.getPageNumber()
+                    + " of " + data.getPlayerUuid(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean update(RemoteBagData data) {
+        if (data.getId() == null) {
+            errorHandler.accept("Failed to update bag data without id", null);
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            write(data);
+            nextId = Math.max(nextId, data.getId() + 1);
+            return true;
+        } catch (IOException e) {
+            failedCount.incrementAndGet();
+            errorHandler.accept("Failed to update bag data", e);
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Integer id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!keysById.containsKey(id)) {
+                return;
+            }
+            ByteBuffer body = ByteBuffer.allocate(5);
+            body.put(DELETE).putInt(id);
+            append(body.array(), id);
+            unlink(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete bag row " + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(RemoteBagData data) throws IOException {
+        UUID playerUuid = UUID.fromString(data.getPlayerUuid());
+        Location location = append(encode(data, playerUuid), data.getId());
+        link(playerUuid, data.getPageNumber(), location);
+    }
+
+    private static byte[] encode(RemoteBagData data, UUID playerUuid) throws IOException {
+        String contents = data.getContents();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(FIXED_BYTES + 8 + (contents != null ? contents.length() : 0));
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(PUT);
+        out.writeInt(data.getId());
+        out.writeLong(playerUuid.getMostSignificantBits());
+        out.writeLong(playerUuid.getLeastSignificantBits());
+        out.writeInt(data.getPageNumber());
+        out.writeLong(data.getLastUpdated());
+        out.writeInt(data.getItemCount());
+        out.writeInt(data.getStackCount());
+        out.writeLong(data.getDeltaSeq());
+        writeString(out, data.getPreview());
+        writeString(out, contents);
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Decode the record at a location. Caller holds the lock.
+     */
+    private static RemoteBagData read(Location location) {
+        ByteBuffer body = slice(location.segment.buffer, location.offset + HEADER_BYTES, location.length - HEADER_BYTES);
+        UUID playerUuid = new UUID(body.getLong(UUID_OFFSET), body.getLong(UUID_OFFSET + 8));
+        RemoteBagData data = RemoteBagData.builder()
+                .playerUuid(playerUuid.toString())
+                .pageNumber(body.getInt(PAGE_OFFSET))
+                .lastUpdated(body.getLong(25))
+                .itemCount(body.getInt(33))
+                .stackCount(body.getInt(37))
+                .deltaSeq(body.getLong(41))
+                .build();
+        body.position(FIXED_BYTES);
+        data.setPreview(readString(body));
+        data.setContents(readString(body));
+        data.setId(location.id);
+        return data;
+    }
+
+    private static String readString(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Append a record to the active segment. Caller holds the write lock.
+     */
+    private Location append(byte[] body, int id) throws IOException {
+        int length = HEADER_BYTES + body.length;
+        if (active == null || active.buffer.capacity() - active.position < length) {
+            roll(length);
+        }
+        Segment segment = active;
+        int offset = segment.position;
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        ByteBuffer view = segment.buffer.duplicate();
+        view.position(offset + HEADER_BYTES);
+        view.put(body);
+        segment.buffer.putInt(offset + 4, (int) crc.getValue());
+        segment.buffer.putInt(offset, body.length);
+        segment.position += length;
+        writtenBytes += length;
+        return new Location(segment, offset, length, id);
+    }
+
+    /**
+     * Seal the active segment and start a new one. Caller holds the write lock.
+     */
+    private void roll(int minCapacity) throws IOException {
+        if (active != null) {
+            active.buffer.force();
+        }
+        int number = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path file = folder.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+        Segment segment = mapSegment(number, file, Math.max(segmentBytes, minCapacity));
+        segments.put(number, segment);
+        active = segment;
+    }
+
+    private void maintain() {
+        try {
+            flush();
+            compact();
+        } catch (IOException | RuntimeException e) {
+            failedCount.incrementAndGet();
+            errorHandler.accept("Bag store maintenance failed", e);
+        }
+    }
+
+    /**
+     * Write the mapped contents of the active segment to disk.
+     */
+    void flush() {
+        Segment segment;
+        lock.readLock().lock();
+        try {
+            segment = active;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    private boolean needsCompaction() {
+        return segments.size() > 1 && writtenBytes - liveBytes > writtenBytes * COMPACT_GARBAGE_RATIO;
+    }
+
+    /**
+     * Move the live records of the oldest segment to the end of the log and
+     * delete it, while more than half of the written bytes are dead. Only the
+     * oldest segment is removed, so the delete markers of the remaining ones
+     * never refer to records that could come back.
+     */
+    void compact() throws IOException {
+        int passes;
+        lock.readLock().lock();
+        try {
+            passes = segments.size() - 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (int pass = 0; pass < passes; pass++) {
+            Segment oldest;
+            List<Map.Entry<BagPageKey, Location>> live = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                if (!needsCompaction()) {
+                    return;
+                }
+                oldest = segments.firstEntry().getValue();
+                for (Map.Entry<BagPageKey, Location> entry : index.entrySet()) {
+                    if (entry.getValue().segment == oldest) {
+                        live.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            for (int start = 0; start < live.size(); start += COMPACT_BATCH) {
+                lock.writeLock().lock();
+                try {
+                    for (Map.Entry<BagPageKey, Location> entry : live.subList(start, Math.min(start + COMPACT_BATCH, live.size()))) {
+                        Location location = entry.getValue();
+                        // 已被更新或删除的页不再复制
+                        if (index.get(entry.getKey()) != location) {
+                            continue;
+                        }
+                        byte[] body = new byte[location.length - HEADER_BYTES];
+                        slice(oldest.buffer, location.offset + HEADER_BYTES, body.length).get(body);
+                        index.put(entry.getKey(), append(body, location.id));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            // 复制的记录落盘后才删除旧段
+            flush();
+            lock.writeLock().lock();
+            try {
+                segments.remove(oldest.number);
+                writtenBytes -= oldest.position;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            discard(oldest);
+            compactCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Delete a compacted segment. A file that cannot be deleted while mapped
+     * is emptied first, so it is never replayed.
+     */
+    private void discard(Segment segment) throws IOException {
+        segment.buffer.putInt(0, 0);
+        segment.buffer.force();
+        segment.channel.close();
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            errorHandler.accept("Failed to delete compacted bag store segment " + segment.file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService executor = maintenance;
+        maintenance = null;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                try {
+                    segment.buffer.force();
+                    segment.channel.close();
+                } catch (IOException | RuntimeException e) {
+                    errorHandler.accept("Failed to close bag store segment " + segment.file, e);
+                }
+            }
+            segments.clear();
+            active = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return 存储的背包页数
+     */
+    public int getPageCount() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 段文件数
+     */
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 段文件中已写入的字节数
+     */
+    public long getWrittenBytes() {
+        lock.readLock().lock();
+        try {
+            return writtenBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 每页最新记录的字节数之和
+     */
+    public long getLiveBytes() {
+        lock.readLock().lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 删除的旧段数
+     */
+    public long getCompactCount() {
+        return compactCount.get();
+    }
+
+    /**
+     * @return 后台刷盘、整理或更新失败的次数
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
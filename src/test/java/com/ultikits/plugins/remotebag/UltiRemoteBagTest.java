@@ -7,6 +7,7 @@ import com.ultikits.ultitools.context.SimpleContainer;
 import com.ultikits.ultitools.interfaces.impl.logger.PluginLogger;
 
 import org.junit.jupiter.api.*;
+import org.mockito.InOrder;
 
 import java.util.List;
 
@@ -160,9 +161,30 @@ class UltiRemoteBagTest {
 
             plugin.unregisterSelf();
 
-            verify(bagService).saveAllBags();
+            verify(bagService).flushOnShutdown();
             verify(logger).info("UltiRemoteBag has been disabled!");
         }
+
+        @Test
+        @DisplayName("Should shut down the service after flushing all bags")
+        void shutsDownAfterFlush() throws Exception {
+            UltiRemoteBag plugin = mock(UltiRemoteBag.class);
+            when(plugin.getLogger()).thenReturn(mock(PluginLogger.class));
+
+            SimpleContainer mockContext = mock(SimpleContainer.class);
+            when(plugin.getContext()).thenReturn(mockContext);
+
+            RemoteBagService bagService = mock(RemoteBagService.class);
+            when(mockContext.getBean(RemoteBagService.class)).thenReturn(bagService);
+
+            doCallRealMethod().when(plugin).unregisterSelf();
+
+            plugin.unregisterSelf();
+
+            InOrder order = inOrder(bagService);
+            order.verify(bagService).flushOnShutdown();
+            order.verify(bagService).shutdown();
+        }
     }
 
     // ==================== reloadSelf ====================
@@ -83,6 +83,29 @@ public final class UltiRemoteBagTestHelper {
         lenient().when(config.getPermissionPrefix()).thenReturn("ultibag.pages.");
         lenient().when(config.getAutoSaveInterval()).thenReturn(300);
         lenient().when(config.isSaveOnClose()).thenReturn(true);
+        // Synchronous writes by default so tests can verify DataOperator calls directly
+        lenient().when(config.isAsyncSave()).thenReturn(false);
+        lenient().when(config.getSaveQueueCapacity()).thenReturn(1024);
+        lenient().when(config.getIoThreads()).thenReturn(4);
+        lenient().when(config.getSaveQueueShutdownTimeout()).thenReturn(30);
+        lenient().when(config.getShutdownFlushThreads()).thenReturn(4);
+        lenient().when(config.getShutdownFlushDeadline()).thenReturn(20);
+        lenient().when(config.getStorageCodec()).thenReturn("binary");
+        // No preload executor by default, bags load lazily on first access
+        lenient().when(config.isPreloadEnabled()).thenReturn(false);
+        lenient().when(config.getPreloadConcurrency()).thenReturn(4);
+        lenient().when(config.getPreloadTimeoutMillis()).thenReturn(2000);
+        lenient().when(config.getOpenLoadingMillis()).thenReturn(250);
+        lenient().when(config.getCacheMaxBags()).thenReturn(1000);
+        lenient().when(config.getCacheMaxPages()).thenReturn(10000);
+        lenient().when(config.getDepartedCacheMegabytes()).thenReturn(32);
+        lenient().when(config.getDepartedCacheSeconds()).thenReturn(300);
+        lenient().when(config.getSummaryBackfillBatch()).thenReturn(20);
+        lenient().when(config.getAutoSaveTickBudget()).thenReturn(5);
+        lenient().when(config.getJournalCompactMegabytes()).thenReturn(64);
+        lenient().when(config.getDeltaCompactThreshold()).thenReturn(16);
+        lenient().when(config.getStorageBackend()).thenReturn("database");
+        lenient().when(config.getFileSegmentMegabytes()).thenReturn(64);
         lenient().when(config.isEconomyEnabled()).thenReturn(true);
         lenient().when(config.getBasePrice()).thenReturn(10000);
         lenient().when(config.isPriceIncreaseEnabled()).thenReturn(true);
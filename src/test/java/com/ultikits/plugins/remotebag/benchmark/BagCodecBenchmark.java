@@ -0,0 +1,52 @@
+package com.ultikits.plugins.remotebag.benchmark;
+
+import com.ultikits.plugins.remotebag.codec.BagCodec;
+import com.ultikits.plugins.remotebag.codec.BagCodecs;
+
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of bag page serialization and deserialization.
+ * <p>
+ * Run with {@code mvn -B verify -Pbenchmark}; allocation per operation is reported
+ * as {@code gc.alloc.rate.norm} by the gc profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BagCodecBenchmark {
+
+    @Param({"empty", "full", "enchanted", "shulker"})
+    public String page;
+
+    @Param({"binary", "yaml"})
+    public String codec;
+
+    private BagCodec bagCodec;
+    private ItemStack[] items;
+    private String encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bagCodec = BagCodecs.forName(codec);
+        items = BenchmarkItems.page(page);
+        encoded = bagCodec.encode(items);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return bagCodec.encode(items);
+    }
+
+    @Benchmark
+    public ItemStack[] deserialize() throws IOException {
+        return bagCodec.decode(encoded, BenchmarkItems.PAGE_SIZE);
+    }
+}
@@ -0,0 +1,110 @@
+package com.ultikits.plugins.remotebag.benchmark;
+
+import com.ultikits.plugins.remotebag.codec.BagCodecs;
+import com.ultikits.plugins.remotebag.entity.RemoteBagData;
+import com.ultikits.plugins.remotebag.store.BagStore;
+import com.ultikits.plugins.remotebag.store.DatabaseBagStore;
+import com.ultikits.plugins.remotebag.store.LogBagStore;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Page writes and bag reads of the database store (embedded H2) against the
+ * local log-structured file store.
+ * <p>
+ * Run with {@code mvn -B verify -Pbenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BagStoreBenchmark {
+
+    private static final int PLAYERS = 100;
+    private static final int PAGES = 5;
+
+    @Param({"database", "file"})
+    public String backend;
+
+    @Param({"full", "shulker"})
+    public String page;
+
+    private Connection connection;
+    private Path folder;
+    private BagStore store;
+    private List<UUID> players;
+    private List<RemoteBagData> rows;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        if (LogBagStore.NAME.equals(backend)) {
+            folder = Files.createTempDirectory("bag-store");
+            LogBagStore fileStore = new LogBagStore(folder, 64L * 1024 * 1024, (message, error) -> {
+                throw new IllegalStateException(message, error);
+            });
+            fileStore.open();
+            store = fileStore;
+        } else {
+            connection = DriverManager.getConnection("jdbc:h2:mem:bags-" + UUID.randomUUID());
+            store = new DatabaseBagStore(H2BagDataOperator.create(connection).operator(), (message, error) -> {
+                throw new IllegalStateException(message, error);
+            });
+        }
+
+        String contents = BagCodecs.BINARY.encode(BenchmarkItems.page(page));
+        players = new ArrayList<>();
+        rows = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            UUID playerUuid = UUID.randomUUID();
+            players.add(playerUuid);
+            for (int number = 1; number <= PAGES; number++) {
+                RemoteBagData row = RemoteBagData.create(playerUuid, number, contents);
+                store.insert(row);
+                rows.add(row);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        store.close();
+        if (connection != null) {
+            connection.close();
+        }
+        if (folder != null) {
+            try (Stream<Path> files = Files.walk(folder)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean writePage() {
+        RemoteBagData row = rows.get(next++ % rows.size());
+        row.setLastUpdated(System.currentTimeMillis());
+        return store.update(row);
+    }
+
+    @Benchmark
+    public List<RemoteBagData> readBag() {
+        return store.findBag(players.get(next++ % players.size()));
+    }
+}
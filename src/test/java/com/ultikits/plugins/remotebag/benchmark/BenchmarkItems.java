@@ -0,0 +1,230 @@
+package com.ultikits.plugins.remotebag.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.UnsafeValues;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.configuration.serialization.SerializableAs;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Bag page fixtures for benchmarks.
+ * <p>
+ * The CraftBukkit item meta implementation is not on the classpath, so fixture items
+ * return a fixed {@link ItemStack#serialize()} map shaped like the server's output
+ * (enchantments, lore, persistent data, NBT in {@code internal}). A minimal stub
+ * {@link Server} lets {@link ItemStack#deserialize(Map)} resolve materials.
+ */
+final class BenchmarkItems {
+
+    static final int PAGE_SIZE = 54;
+    private static final int DATA_VERSION = 3465;
+
+    private BenchmarkItems() {
+    }
+
+    /**
+     * Page variants: "empty", "full", "enchanted", "shulker".
+     */
+    static ItemStack[] page(String variant) {
+        installServer();
+        ItemStack[] items = new ItemStack[PAGE_SIZE];
+        if ("empty".equals(variant)) {
+            return items;
+        }
+        for (int slot = 0; slot < PAGE_SIZE; slot++) {
+            switch (variant) {
+                case "full":
+                    items[slot] = plain(slot % 2 == 0 ? Material.STONE : Material.OAK_LOG, 64);
+                    break;
+                case "enchanted":
+                    items[slot] = enchanted(slot);
+                    break;
+                case "shulker":
+                    items[slot] = shulker(slot);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown page variant: " + variant);
+            }
+        }
+        return items;
+    }
+
+    private static ItemStack plain(Material type, int amount) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("v", DATA_VERSION);
+        map.put("type", type.name());
+        map.put("amount", amount);
+        return new FixtureItem(type, amount, map);
+    }
+
+    private static ItemStack enchanted(int seed) {
+        Map<String, Object> enchants = new LinkedHashMap<>();
+        enchants.put("SHARPNESS", 5);
+        enchants.put("UNBREAKING", 3);
+        enchants.put("MENDING", 1);
+        enchants.put("FIRE_ASPECT", 2);
+        enchants.put("LOOTING", 3);
+
+        Map<String, Object> persistent = new LinkedHashMap<>();
+        persistent.put("myplugin:owner", UUID.nameUUIDFromBytes(new byte[]{(byte) seed}).toString());
+        persistent.put("myplugin:level", String.valueOf(seed));
+
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("meta-type", "UNSPECIFIC");
+        meta.put("display-name", "{\"extra\":[{\"bold\":true,\"color\":\"gold\",\"text\":\"Excalibur #" + seed + "\"}],\"text\":\"\"}");
+        meta.put("lore", Arrays.asList(
+                "{\"extra\":[{\"color\":\"gray\",\"text\":\"Forged in the depths\"}],\"text\":\"\"}",
+                "{\"extra\":[{\"color\":\"gray\",\"text\":\"of the remote bag\"}],\"text\":\"\"}",
+                "{\"extra\":[{\"color\":\"dark_purple\",\"text\":\"Soulbound\"}],\"text\":\"\"}"));
+        meta.put("enchants", enchants);
+        meta.put("repair-cost", 7);
+        meta.put("Damage", 120);
+        meta.put("ItemFlags", Collections.singletonList("HIDE_ATTRIBUTES"));
+        meta.put("PublicBukkitValues", persistent);
+        meta.put("internal", nbt(seed, 256));
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("v", DATA_VERSION);
+        map.put("type", Material.DIAMOND_SWORD.name());
+        map.put("meta", new FixtureMeta(meta));
+        return new FixtureItem(Material.DIAMOND_SWORD, 1, map);
+    }
+
+    private static ItemStack shulker(int seed) {
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("meta-type", "TILE_ENTITY");
+        meta.put("display-name", "{\"text\":\"Storage " + seed + "\"}");
+        meta.put("blockMaterial", Material.SHULKER_BOX.name());
+        // 27 nested item stacks in the block entity tag
+        meta.put("internal", nbt(seed, 27 * 96));
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("v", DATA_VERSION);
+        map.put("type", Material.SHULKER_BOX.name());
+        map.put("meta", new FixtureMeta(meta));
+        return new FixtureItem(Material.SHULKER_BOX, 1, map);
+    }
+
+    /**
+     * Base64 NBT blob as stored by CraftMetaItem in the "internal" key.
+     */
+    private static String nbt(int seed, int length) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    // ==================== Stub server ====================
+
+    private static synchronized void installServer() {
+        ConfigurationSerialization.registerClass(FixtureMeta.class);
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+        UnsafeValues unsafe = stub(UnsafeValues.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMaterial":
+                    return Material.getMaterial((String) args[0]);
+                case "getDataVersion":
+                    return DATA_VERSION;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        ItemFactory itemFactory = stub(ItemFactory.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return args[0] == args[1];
+                case "getItemMeta":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        Logger logger = Logger.getLogger("BenchmarkServer");
+        Bukkit.setServer(stub(Server.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getLogger":
+                    return logger;
+                case "getUnsafe":
+                    return unsafe;
+                case "getItemFactory":
+                    return itemFactory;
+                case "getName":
+                case "getVersion":
+                case "getBukkitVersion":
+                    return "benchmark";
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }));
+    }
+
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName() + " stub";
+                }
+            }
+            return handler.invoke(proxy, method, args);
+        }));
+    }
+
+    /**
+     * Item with a fixed serialized form, saved under the regular ItemStack alias.
+     */
+    @SerializableAs("ItemStack")
+    public static final class FixtureItem extends ItemStack {
+
+        private final Map<String, Object> serialized;
+
+        FixtureItem(Material type, int amount, Map<String, Object> serialized) {
+            super(type, amount);
+            this.serialized = serialized;
+        }
+
+        @Override
+        public Map<String, Object> serialize() {
+            return serialized;
+        }
+    }
+
+    /**
+     * Stand-in for the server's item meta, saved under the "ItemMeta" alias.
+     */
+    @SerializableAs("ItemMeta")
+    public static final class FixtureMeta implements ConfigurationSerializable {
+
+        private final Map<String, Object> values;
+
+        FixtureMeta(Map<String, Object> values) {
+            this.values = values;
+        }
+
+        public static FixtureMeta deserialize(Map<String, Object> values) {
+            Map<String, Object> copy = new LinkedHashMap<>(values);
+            copy.remove(ConfigurationSerialization.SERIALIZED_TYPE_KEY);
+            return new FixtureMeta(copy);
+        }
+
+        @Override
+        public Map<String, Object> serialize() {
+            return values;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.ultikits.plugins.remotebag.benchmark;
+
+import com.ultikits.plugins.remotebag.entity.RemoteBagData;
+import com.ultikits.ultitools.interfaces.DataOperator;
+import com.ultikits.ultitools.interfaces.Query;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link DataOperator} for {@link RemoteBagData} backed by an embedded H2 database.
+ * <p>
+ * Implements only the operations used by the service (query/where/eq/list, insert,
+ * update, delById) and counts every statement sent to the database.
+ */
+final class H2BagDataOperator implements InvocationHandler {
+
+    private final Connection connection;
+    private final AtomicInteger roundTrips = new AtomicInteger();
+
+    private H2BagDataOperator(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Create the remote_bags table and a data operator on top of it.
+     */
+    static H2BagDataOperator create(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE remote_bags ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "player_uuid VARCHAR(36), "
+                    + "page_number INT, "
+                    + "contents CLOB, "
+                    + "last_updated BIGINT)");
+            statement.execute("CREATE INDEX idx_remote_bags_owner ON remote_bags (player_uuid, page_number)");
+        }
+        return new H2BagDataOperator(connection);
+    }
+
+    @SuppressWarnings("unchecked")
+    DataOperator<RemoteBagData> operator() {
+        return (DataOperator<RemoteBagData>) Proxy.newProxyInstance(
+                DataOperator.class.getClassLoader(), new Class<?>[]{DataOperator.class}, this);
+    }
+
+    int getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    void resetRoundTrips() {
+        roundTrips.set(0);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return objectMethod(proxy, method, args);
+        }
+        switch (method.getName()) {
+            case "query":
+                return new QueryHandler().proxy();
+            case "insert":
+                insert((RemoteBagData) args[0]);
+                return defaultValue(method.getReturnType());
+            case "update":
+                update((RemoteBagData) args[0]);
+                return defaultValue(method.getReturnType());
+            case "delById":
+                delete(args[0]);
+                return defaultValue(method.getReturnType());
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private void insert(RemoteBagData data) throws SQLException {
+        roundTrips.incrementAndGet();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO remote_bags (player_uuid, page_number, contents, last_updated) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, data.getPlayerUuid());
+            statement.setInt(2, data.getPageNumber());
+            statement.setString(3, data.getContents());
+            statement.setLong(4, data.getLastUpdated());
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (keys.next()) {
+                    data.setId(keys.getInt(1));
+                }
+            }
+        }
+    }
+
+    private void update(RemoteBagData data) throws SQLException {
+        roundTrips.incrementAndGet();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE remote_bags SET player_uuid = ?, page_number = ?, contents = ?, last_updated = ? WHERE id = ?")) {
+            statement.setString(1, data.getPlayerUuid());
+            statement.setInt(2, data.getPageNumber());
+            statement.setString(3, data.getContents());
+            statement.setLong(4, data.getLastUpdated());
+            statement.setInt(5, data.getId());
+            statement.executeUpdate();
+        }
+    }
+
+    private void delete(Object id) throws SQLException {
+        roundTrips.incrementAndGet();
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM remote_bags WHERE id = ?")) {
+            statement.setObject(1, id);
+            statement.executeUpdate();
+        }
+    }
+
+    private List<RemoteBagData> select(List<String> columns, List<Object> values) throws SQLException {
+        roundTrips.incrementAndGet();
+        StringBuilder sql = new StringBuilder("SELECT id, player_uuid, page_number, contents, last_updated FROM remote_bags");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? " WHERE " : " AND ").append(columns.get(i)).append(" = ?");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < values.size(); i++) {
+                statement.setObject(i + 1, values.get(i));
+            }
+            List<RemoteBagData> result = new ArrayList<>();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    RemoteBagData data = RemoteBagData.builder()
+                            .playerUuid(rows.getString(2))
+                            .pageNumber(rows.getInt(3))
+                            .contents(rows.getString(4))
+                            .lastUpdated(rows.getLong(5))
+                            .build();
+                    data.setId(rows.getInt(1));
+                    result.add(data);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "H2BagDataOperator";
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    /**
+     * Fluent query that collects "column = value" conditions until {@code list()}.
+     */
+    private final class QueryHandler implements InvocationHandler {
+
+        private final List<String> columns = new ArrayList<>();
+        private final List<Object> values = new ArrayList<>();
+
+        private Query<?> proxy() {
+            return (Query<?>) Proxy.newProxyInstance(
+                    Query.class.getClassLoader(), new Class<?>[]{Query.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args);
+            }
+            switch (method.getName()) {
+                case "where":
+                case "and":
+                    columns.add((String) args[0]);
+                    return proxy;
+                case "eq":
+                    values.add(args[0]);
+                    return proxy;
+                case "list":
+                    return select(columns, values);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.ultikits.plugins.remotebag.benchmark;
+
+import com.ultikits.plugins.remotebag.entity.BagPageKey;
+import com.ultikits.plugins.remotebag.enums.AccessMode;
+import com.ultikits.plugins.remotebag.service.BagLockService;
+
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latency and allocation of the lock lookup fast path.
+ * <p>
+ * {@code stringKey*} reproduce the former {@code uuid.toString() + ":" + page} keys
+ * as a baseline for {@code pageKey*}. Run with {@code mvn -B verify -Pbenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LockKeyBenchmark {
+
+    private static final int OWNERS = 1000;
+    private static final int PAGES = 5;
+
+    private final Map<String, Object> stringLocks = new ConcurrentHashMap<>();
+    private final Map<BagPageKey, Object> pageKeyLocks = new ConcurrentHashMap<>();
+
+    private BagLockService lockService;
+    private UUID ownerUuid;
+    private UUID viewerUuid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lockService = new BagLockService();
+        Object lock = new Object();
+        for (int i = 0; i < OWNERS; i++) {
+            UUID owner = UUID.randomUUID();
+            Player player = mock(Player.class);
+            when(player.getUniqueId()).thenReturn(owner);
+            when(player.getName()).thenReturn("player" + i);
+            for (int page = 1; page <= PAGES; page++) {
+                stringLocks.put(owner.toString() + ":" + page, lock);
+                pageKeyLocks.put(BagPageKey.of(owner, page), lock);
+                lockService.ownerOpen(owner, page, player);
+            }
+            ownerUuid = owner;
+        }
+        viewerUuid = UUID.randomUUID();
+    }
+
+    @Benchmark
+    public Object stringKeyLookup() {
+        return stringLocks.get(ownerUuid.toString() + ":" + 3);
+    }
+
+    @Benchmark
+    public Object pageKeyLookup() {
+        return pageKeyLocks.get(BagPageKey.of(ownerUuid, 3));
+    }
+
+    @Benchmark
+    public AccessMode getCurrentAccessMode() {
+        return lockService.getCurrentAccessMode(ownerUuid, 3, viewerUuid);
+    }
+
+    @Benchmark
+    public boolean canUpgradeToEdit() {
+        return lockService.canUpgradeToEdit(ownerUuid, 3);
+    }
+}
@@ -0,0 +1,64 @@
+package com.ultikits.plugins.remotebag.benchmark;
+
+import com.ultikits.plugins.remotebag.config.RemoteBagConfig;
+import com.ultikits.plugins.remotebag.service.RemoteBagService;
+
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Throughput and allocation of the per-page statistics shown in the bag GUI.
+ * <p>
+ * Run with {@code mvn -B verify -Pbenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageStatsBenchmark {
+
+    @Param({"empty", "full", "enchanted", "shulker"})
+    public String page;
+
+    private RemoteBagService service;
+    private UUID playerUuid;
+    // Two versions of the page differing in one slot, as after a GUI edit
+    private ItemStack[] original;
+    private ItemStack[] edited;
+    private boolean showEdited;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Statistics only read the cache, the plugin and config are never touched
+        service = new RemoteBagService(null, mock(RemoteBagConfig.class));
+        playerUuid = UUID.randomUUID();
+        original = BenchmarkItems.page(page);
+        edited = original.clone();
+        edited[0] = edited[0] == null ? edited[edited.length - 1] : null;
+        service.setBagPage(playerUuid, 1, original);
+    }
+
+    @Benchmark
+    public int itemCount() {
+        return service.getItemCount(playerUuid, 1);
+    }
+
+    @Benchmark
+    public int stackCount() {
+        return service.getStackCount(playerUuid, 1);
+    }
+
+    @Benchmark
+    public int editAndCount() {
+        showEdited = !showEdited;
+        service.setBagPage(playerUuid, 1, showEdited ? edited : original);
+        return service.getItemCount(playerUuid, 1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.ultikits.plugins.remotebag.benchmark;
+
+import com.ultikits.plugins.remotebag.UltiRemoteBagTestHelper;
+import com.ultikits.plugins.remotebag.config.RemoteBagConfig;
+import com.ultikits.plugins.remotebag.entity.RemoteBagData;
+import com.ultikits.plugins.remotebag.service.RemoteBagService;
+import com.ultikits.ultitools.abstracts.UltiToolsPlugin;
+import com.ultikits.ultitools.interfaces.DataOperator;
+import com.ultikits.ultitools.interfaces.impl.logger.PluginLogger;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Database round-trips per bag save against an embedded H2 database.
+ * <p>
+ * Run with {@code mvn -B test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Save round-trip benchmark")
+class SaveRoundTripBenchmark {
+
+    private static final int PLAYERS = 50;
+    private static final int PAGES = 10;
+
+    private Connection connection;
+    private H2BagDataOperator database;
+    private RemoteBagService service;
+    private List<UUID> players;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:bags-" + UUID.randomUUID());
+        database = H2BagDataOperator.create(connection);
+        DataOperator<RemoteBagData> operator = database.operator();
+
+        UltiToolsPlugin plugin = mock(UltiToolsPlugin.class);
+        when(plugin.getDataOperator(RemoteBagData.class)).thenReturn(operator);
+        lenient().when(plugin.getLogger()).thenReturn(mock(PluginLogger.class));
+        RemoteBagConfig config = UltiRemoteBagTestHelper.createDefaultConfig();
+        service = new RemoteBagService(plugin, config);
+        service.init();
+
+        players = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            UUID playerUuid = UUID.randomUUID();
+            players.add(playerUuid);
+            for (int page = 1; page <= PAGES; page++) {
+                operator.insert(RemoteBagData.create(playerUuid, page, ""));
+            }
+        }
+        database.resetRoundTrips();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private void dirtyAllPages(UUID playerUuid) {
+        for (int page = 1; page <= PAGES; page++) {
+            service.setBagPage(playerUuid, page, new ItemStack[54]);
+        }
+    }
+
+    @Test
+    @DisplayName("Loaded bags should need one round-trip per dirty page")
+    void roundTripsPerSave() {
+        // Row ids unknown: every page is looked up before it is written
+        for (UUID playerUuid : players) {
+            dirtyAllPages(playerUuid);
+        }
+        long start = System.nanoTime();
+        service.saveAllBags().join();
+        long unknownNanos = System.nanoTime() - start;
+        int unknownRoundTrips = database.getRoundTrips();
+
+        // Row ids remembered at load time: pages are updated by id
+        for (UUID playerUuid : players) {
+            service.clearCache(playerUuid);
+            service.loadBagIfNeeded(playerUuid);
+            dirtyAllPages(playerUuid);
+        }
+        database.resetRoundTrips();
+        start = System.nanoTime();
+        service.saveAllBags().join();
+        long knownNanos = System.nanoTime() - start;
+        int knownRoundTrips = database.getRoundTrips();
+
+        int savedPages = PLAYERS * PAGES;
+        System.out.printf("Saved %d pages of %d players%n", savedPages, PLAYERS);
+        System.out.printf("  unknown row ids: %d round-trips (%.1f per page), %.2f ms%n",
+                unknownRoundTrips, (double) unknownRoundTrips / savedPages, unknownNanos / 1e6);
+        System.out.printf("  known row ids:   %d round-trips (%.1f per page), %.2f ms%n",
+                knownRoundTrips, (double) knownRoundTrips / savedPages, knownNanos / 1e6);
+
+        assertThat(unknownRoundTrips).isEqualTo(2 * savedPages);
+        assertThat(knownRoundTrips).isEqualTo(savedPages);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ultikits.plugins.remotebag.codec;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("BagCodecs Tests")
+class BagCodecsTest {
+
+    @Test
+    @DisplayName("forName should resolve configured codec")
+    void forName() {
+        assertThat(BagCodecs.forName("yaml")).isSameAs(BagCodecs.YAML);
+        assertThat(BagCodecs.forName("YAML")).isSameAs(BagCodecs.YAML);
+        assertThat(BagCodecs.forName("binary")).isSameAs(BagCodecs.BINARY);
+    }
+
+    @Test
+    @DisplayName("forName should fall back to binary")
+    void forNameFallback() {
+        assertThat(BagCodecs.forName(null)).isSameAs(BagCodecs.BINARY);
+        assertThat(BagCodecs.forName("unknown")).isSameAs(BagCodecs.BINARY);
+    }
+
+    @Test
+    @DisplayName("forData should detect binary and legacy YAML")
+    void forData() {
+        String binary = BagCodecs.BINARY.encode(new ItemStack[54]);
+
+        assertThat(BagCodecs.forData(binary)).isSameAs(BagCodecs.BINARY);
+        assertThat(BagCodecs.forData("items:\n  '0': {}\n")).isSameAs(BagCodecs.YAML);
+    }
+}
@@ -0,0 +1,211 @@
+package com.ultikits.plugins.remotebag.codec;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+import org.mockito.MockedStatic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@DisplayName("BinaryBagCodec Tests")
+class BinaryBagCodecTest {
+
+    private final BinaryBagCodec codec = new BinaryBagCodec();
+
+    private ItemStack mockItem(Map<String, Object> serialized) {
+        ItemStack item = mock(ItemStack.class);
+        when(item.serialize()).thenReturn(serialized);
+        return item;
+    }
+
+    private Object roundTrip(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            BinaryBagCodec.writeValue(out, value);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return BinaryBagCodec.readValue(in);
+        }
+    }
+
+    // ==================== 文件头 ====================
+
+    @Nested
+    @DisplayName("header")
+    class Header {
+
+        @Test
+        @DisplayName("Should start with magic and version")
+        void writesHeader() {
+            byte[] bytes = Base64.getDecoder().decode(codec.encode(new ItemStack[54]));
+
+            assertThat(bytes[0]).isEqualTo((byte) 'R');
+            assertThat(bytes[1]).isEqualTo((byte) 'B');
+            assertThat(bytes[2]).isEqualTo(BinaryBagCodec.VERSION);
+        }
+
+        @Test
+        @DisplayName("Should recognize own output")
+        void canDecodeOwnOutput() {
+            assertThat(codec.canDecode(codec.encode(new ItemStack[54]))).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should not recognize legacy YAML")
+        void rejectsYaml() {
+            assertThat(codec.canDecode("items:\n  '0':\n    type: STONE\n")).isFalse();
+            assertThat(codec.canDecode("{}\n")).isFalse();
+            assertThat(codec.canDecode("old-content")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should not recognize unknown versions")
+        void rejectsFutureVersion() {
+            String data = Base64.getEncoder().encodeToString(new byte[]{'R', 'B', 99, 0, 0});
+
+            assertThat(codec.canDecode(data)).isFalse();
+            assertThatThrownBy(() -> codec.decode(data, 54)).isInstanceOf(IOException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject invalid Base64")
+        void rejectsInvalidBase64() {
+            assertThatThrownBy(() -> codec.decode("!!!!", 54)).isInstanceOf(IOException.class);
+        }
+    }
+
+    // ==================== 编解码 ====================
+
+    @Nested
+    @DisplayName("encode and decode")
+    class EncodeDecode {
+
+        @Test
+        @DisplayName("Empty page should decode to empty slots")
+        void emptyPage() throws IOException {
+            ItemStack[] result = codec.decode(codec.encode(new ItemStack[54]), 54);
+
+            assertThat(result).hasSize(54).containsOnlyNulls();
+        }
+
+        @Test
+        @DisplayName("Empty page should be compact")
+        void emptyPageIsCompact() {
+            // 3 header + 2 slot count + 7 bitmap bytes
+            assertThat(Base64.getDecoder().decode(codec.encode(new ItemStack[54]))).hasSize(12);
+        }
+
+        @Test
+        @DisplayName("Should restore items into their slots")
+        void restoresSlots() throws IOException {
+            Map<String, Object> stone = new LinkedHashMap<>();
+            stone.put("v", 3465);
+            stone.put("type", "STONE");
+            stone.put("amount", 64);
+            ItemStack[] items = new ItemStack[54];
+            items[0] = mockItem(stone);
+            items[8] = mockItem(stone);
+            items[53] = mockItem(stone);
+            String data = codec.encode(items);
+
+            ItemStack restored = mock(ItemStack.class);
+            try (MockedStatic<ItemStack> itemStatic = mockStatic(ItemStack.class)) {
+                itemStatic.when(() -> ItemStack.deserialize(anyMap())).thenReturn(restored);
+
+                ItemStack[] result = codec.decode(data, 54);
+
+                assertThat(result[0]).isSameAs(restored);
+                assertThat(result[8]).isSameAs(restored);
+                assertThat(result[53]).isSameAs(restored);
+                assertThat(Arrays.stream(result).filter(Objects::nonNull)).hasSize(3);
+                itemStatic.verify(() -> ItemStack.deserialize(stone), times(3));
+            }
+        }
+
+        @Test
+        @DisplayName("Should grow result when data has more slots than requested")
+        void growsToStoredSlots() throws IOException {
+            ItemStack[] result = codec.decode(codec.encode(new ItemStack[54]), 27);
+
+            assertThat(result).hasSize(54);
+        }
+
+        @Test
+        @DisplayName("Should treat null serialized map as empty")
+        void nullSerializedMap() throws IOException {
+            ItemStack[] items = new ItemStack[9];
+            items[0] = mockItem(null);
+            String data = codec.encode(items);
+
+            try (MockedStatic<ItemStack> itemStatic = mockStatic(ItemStack.class)) {
+                codec.decode(data, 9);
+
+                itemStatic.verify(() -> ItemStack.deserialize(Collections.emptyMap()));
+            }
+        }
+    }
+
+    // ==================== 值编码 ====================
+
+    @Nested
+    @DisplayName("values")
+    class Values {
+
+        @Test
+        @DisplayName("Should round-trip scalar values")
+        void scalars() throws IOException {
+            assertThat(roundTrip(null)).isNull();
+            assertThat(roundTrip("物品名称")).isEqualTo("物品名称");
+            assertThat(roundTrip(0)).isEqualTo(0);
+            assertThat(roundTrip(-1)).isEqualTo(-1);
+            assertThat(roundTrip(Integer.MAX_VALUE)).isEqualTo(Integer.MAX_VALUE);
+            assertThat(roundTrip(Integer.MIN_VALUE)).isEqualTo(Integer.MIN_VALUE);
+            assertThat(roundTrip(123456789012L)).isEqualTo(123456789012L);
+            assertThat(roundTrip(1.5d)).isEqualTo(1.5d);
+            assertThat(roundTrip(0.25f)).isEqualTo(0.25f);
+            assertThat(roundTrip((short) 7)).isEqualTo((short) 7);
+            assertThat(roundTrip((byte) 3)).isEqualTo((byte) 3);
+            assertThat(roundTrip(true)).isEqualTo(true);
+            assertThat(roundTrip(false)).isEqualTo(false);
+        }
+
+        @Test
+        @DisplayName("Should round-trip nested lists and maps")
+        void nested() throws IOException {
+            Map<String, Object> enchants = new LinkedHashMap<>();
+            enchants.put("SHARPNESS", 5);
+            enchants.put("UNBREAKING", 3);
+            Map<String, Object> meta = new LinkedHashMap<>();
+            meta.put("display-name", "{\"text\":\"Sword\"}");
+            meta.put("lore", Arrays.asList("line 1", "line 2"));
+            meta.put("enchants", enchants);
+
+            assertThat(roundTrip(meta)).isEqualTo(meta);
+        }
+
+        @Test
+        @DisplayName("Should round-trip long strings")
+        void longString() throws IOException {
+            char[] chars = new char[100_000];
+            Arrays.fill(chars, 'x');
+            String value = new String(chars);
+
+            assertThat(roundTrip(value)).isEqualTo(value);
+        }
+
+        @Test
+        @DisplayName("Should reject unsupported value types")
+        void unsupportedType() {
+            assertThatThrownBy(() -> roundTrip(new Object()))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ultikits.plugins.remotebag.codec;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("YamlBagCodec Tests")
+class YamlBagCodecTest {
+
+    private final YamlBagCodec codec = new YamlBagCodec();
+
+    @Test
+    @DisplayName("Should accept any data as fallback")
+    void canDecodeAnything() {
+        assertThat(codec.canDecode("items: {}")).isTrue();
+        assertThat(codec.canDecode("anything")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Empty page should round-trip")
+    void emptyPage() throws IOException {
+        ItemStack[] result = codec.decode(codec.encode(new ItemStack[54]), 54);
+
+        assertThat(result).hasSize(54).containsOnlyNulls();
+    }
+
+    @Test
+    @DisplayName("Should return empty slots without items section")
+    void noItemsSection() throws IOException {
+        ItemStack[] result = codec.decode("other_key: value\n", 54);
+
+        assertThat(result).hasSize(54).containsOnlyNulls();
+    }
+
+    @Test
+    @DisplayName("Should throw IOException for invalid YAML")
+    void invalidYaml() {
+        assertThatThrownBy(() -> codec.decode("not: valid: yaml: {{{}}}", 54))
+                .isInstanceOf(IOException.class);
+    }
+}
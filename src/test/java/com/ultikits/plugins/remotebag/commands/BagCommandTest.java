@@ -6,7 +6,11 @@ import com.ultikits.plugins.remotebag.config.RemoteBagConfig;
 import com.ultikits.plugins.remotebag.entity.BagLockInfo;
 import com.ultikits.plugins.remotebag.entity.BagOpenResult;
 import com.ultikits.plugins.remotebag.enums.LockType;
+import com.ultikits.plugins.remotebag.service.AutoSaveScheduler;
+import com.ultikits.plugins.remotebag.service.BagJournal;
 import com.ultikits.plugins.remotebag.service.BagLockService;
+import com.ultikits.plugins.remotebag.service.BagOpener;
+import com.ultikits.plugins.remotebag.service.DepartedBagCache;
 import com.ultikits.plugins.remotebag.service.RemoteBagService;
 import com.ultikits.ultitools.abstracts.UltiToolsPlugin;
 
@@ -21,6 +25,7 @@ import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -56,6 +61,11 @@ class BagCommandTest {
 
         bagService = mock(RemoteBagService.class);
         lockService = mock(BagLockService.class);
+        // 背包已读取，直接执行打开操作
+        lenient().doAnswer(inv -> {
+            inv.getArgument(3, Runnable.class).run();
+            return null;
+        }).when(bagService).openWhenLoaded(any(), any(), anyInt(), any());
         config = UltiRemoteBagTestHelper.createDefaultConfig();
 
         UltiToolsPlugin mockPlugin = mock(UltiToolsPlugin.class);
@@ -173,14 +183,37 @@ class BagCommandTest {
         }
 
         @Test
-        @DisplayName("Should load bag if needed before checking existing pages")
+        @DisplayName("Should load bag and page before checking existing pages")
         void loadsBagBeforeCheck() {
             when(bagService.getPlayerMaxPages(player)).thenReturn(5);
             when(bagService.getPlayerBagPages(playerUuid)).thenReturn(Arrays.asList(1, 2));
 
             command.openPage(player, 3);
 
-            verify(bagService).loadBagIfNeeded(playerUuid);
+            verify(bagService).openWhenLoaded(eq(player), eq(playerUuid), eq(3), any());
+            verify(bagService, never()).loadBagIfNeeded(any());
+        }
+
+        @Test
+        @DisplayName("Should not check pages until the bag is loaded")
+        void waitsForLoad() {
+            doNothing().when(bagService).openWhenLoaded(any(), any(), anyInt(), any());
+            when(bagService.getPlayerMaxPages(player)).thenReturn(5);
+
+            command.openPage(player, 3);
+
+            verify(bagService, never()).getPlayerBagPages(any());
+            verify(lockService, never()).ownerOpen(any(), anyInt(), any());
+        }
+
+        @Test
+        @DisplayName("Should not load bag when page is out of range")
+        void doesNotLoadOutOfRange() {
+            when(bagService.getPlayerMaxPages(player)).thenReturn(3);
+
+            command.openPage(player, 4);
+
+            verify(bagService, never()).openWhenLoaded(any(), any(), anyInt(), any());
         }
 
         @Test
@@ -336,7 +369,7 @@ class BagCommandTest {
                 // Expected: GUI not initialized
             }
 
-            verify(bagService, atLeast(1)).loadBagIfNeeded(targetUuid);
+            verify(bagService).openWhenLoaded(eq(player), eq(targetUuid), eq(0), any());
         }
     }
 
@@ -368,6 +401,18 @@ class BagCommandTest {
             verify(player).sendMessage(contains("bag_not_exist"));
         }
 
+        @Test
+        @DisplayName("Should load the requested page of the target bag")
+        void loadsRequestedPage() {
+            UUID targetUuid = offlinePlayer.getUniqueId();
+            when(bagService.getPlayerBagPages(targetUuid)).thenReturn(Arrays.asList(1, 2));
+
+            command.seePlayerBagPage(player, "TargetPlayer", 5);
+
+            verify(bagService).openWhenLoaded(eq(player), eq(targetUuid), eq(5), any());
+            verify(bagService, never()).loadBagIfNeeded(any());
+        }
+
         @Test
         @DisplayName("Should open specific page in edit mode")
         void opensPageInEditMode() {
@@ -445,7 +490,7 @@ class BagCommandTest {
         @Test
         @DisplayName("createBag should create new bag page")
         void createBagCreatesPage() {
-            when(bagService.createBagPage(any())).thenReturn(2);
+            when(bagService.createBagPage(any())).thenReturn(CompletableFuture.completedFuture(2));
 
             command.createBag(player, "TargetPlayer");
 
@@ -456,13 +501,38 @@ class BagCommandTest {
         @Test
         @DisplayName("createBag should send error when creation fails")
         void createBagErrorWhenFails() {
-            when(bagService.createBagPage(any())).thenReturn(-1);
+            when(bagService.createBagPage(any())).thenReturn(CompletableFuture.completedFuture(-1));
 
             command.createBag(player, "TargetPlayer");
 
             verify(player).sendMessage(contains("admin_bag_create_failed"));
         }
 
+        @Test
+        @DisplayName("createBag should send error when the write fails")
+        void createBagErrorWhenWriteThrows() {
+            CompletableFuture<Integer> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("db down"));
+            when(bagService.createBagPage(any())).thenReturn(failed);
+
+            command.createBag(player, "TargetPlayer");
+
+            verify(player).sendMessage(contains("admin_bag_create_failed"));
+        }
+
+        @Test
+        @DisplayName("createBag should report once the page is written")
+        void createBagReportsAfterWrite() {
+            CompletableFuture<Integer> pending = new CompletableFuture<>();
+            when(bagService.createBagPage(any())).thenReturn(pending);
+
+            command.createBag(player, "TargetPlayer");
+            verify(player, never()).sendMessage(contains("admin_bag_created"));
+            pending.complete(2);
+
+            verify(player).sendMessage(contains("admin_bag_created"));
+        }
+
         @Test
         @DisplayName("createBag should send error when player not found")
         void createBagErrorWhenPlayerNotFound() {
@@ -477,7 +547,7 @@ class BagCommandTest {
         @Test
         @DisplayName("createBag should return 0 as failure")
         void createBagReturnsZeroAsFail() {
-            when(bagService.createBagPage(any())).thenReturn(0);
+            when(bagService.createBagPage(any())).thenReturn(CompletableFuture.completedFuture(0));
 
             command.createBag(player, "TargetPlayer");
 
@@ -500,7 +570,7 @@ class BagCommandTest {
         @DisplayName("deleteBag should delete when allowed")
         void deleteBagDeletesWhenAllowed() {
             when(lockService.canUpgradeToEdit(any(), anyInt())).thenReturn(true);
-            when(bagService.deleteBagPage(any(), anyInt())).thenReturn(true);
+            when(bagService.deleteBagPage(any(), anyInt())).thenReturn(CompletableFuture.completedFuture(true));
 
             command.deleteBag(player, "TargetPlayer", 1);
 
@@ -512,7 +582,7 @@ class BagCommandTest {
         @DisplayName("deleteBag should send error when delete fails")
         void deleteBagErrorWhenDeleteFails() {
             when(lockService.canUpgradeToEdit(any(), anyInt())).thenReturn(true);
-            when(bagService.deleteBagPage(any(), anyInt())).thenReturn(false);
+            when(bagService.deleteBagPage(any(), anyInt())).thenReturn(CompletableFuture.completedFuture(false));
 
             command.deleteBag(player, "TargetPlayer", 1);
 
@@ -545,7 +615,7 @@ class BagCommandTest {
         @DisplayName("clearBag should clear when allowed")
         void clearBagClearsWhenAllowed() {
             when(lockService.canUpgradeToEdit(any(), anyInt())).thenReturn(true);
-            when(bagService.clearBagPage(any(), anyInt())).thenReturn(true);
+            when(bagService.clearBagPage(any(), anyInt())).thenReturn(CompletableFuture.completedFuture(true));
 
             command.clearBag(player, "TargetPlayer", 1);
 
@@ -557,7 +627,7 @@ class BagCommandTest {
         @DisplayName("clearBag should send error when clear fails")
         void clearBagErrorWhenClearFails() {
             when(lockService.canUpgradeToEdit(any(), anyInt())).thenReturn(true);
-            when(bagService.clearBagPage(any(), anyInt())).thenReturn(false);
+            when(bagService.clearBagPage(any(), anyInt())).thenReturn(CompletableFuture.completedFuture(false));
 
             command.clearBag(player, "TargetPlayer", 1);
 
@@ -637,7 +707,7 @@ class BagCommandTest {
         }
 
         @Test
-        @DisplayName("listBags should load target bag if needed")
+        @DisplayName("listBags should read the target bag off the main thread")
         void listBagsLoadsTarget() {
             UUID targetUuid = offlinePlayer.getUniqueId();
             when(bagService.getPlayerBagPages(targetUuid)).thenReturn(Arrays.asList(1));
@@ -646,7 +716,24 @@ class BagCommandTest {
 
             command.listBags(player, "TargetPlayer");
 
-            verify(bagService).loadBagIfNeeded(targetUuid);
+            verify(bagService).openWhenLoaded(eq(player), eq(targetUuid), eq(0), any());
+            verify(bagService, never()).loadBagIfNeeded(any());
+        }
+
+        @Test
+        @DisplayName("Admin edits should wait until the target bag is read")
+        void adminEditsWaitForLoad() {
+            doNothing().when(bagService).openWhenLoaded(any(), any(), anyInt(), any());
+            when(lockService.canUpgradeToEdit(any(), anyInt())).thenReturn(true);
+
+            command.createBag(player, "TargetPlayer");
+            command.deleteBag(player, "TargetPlayer", 1);
+            command.clearBag(player, "TargetPlayer", 1);
+
+            verify(bagService, times(3)).openWhenLoaded(eq(player), any(), eq(0), any());
+            verify(bagService, never()).createBagPage(any());
+            verify(bagService, never()).deleteBagPage(any(), anyInt());
+            verify(bagService, never()).clearBagPage(any(), anyInt());
         }
 
         @Test
@@ -668,6 +755,190 @@ class BagCommandTest {
         }
     }
 
+    // ==================== showStats ====================
+
+    @Nested
+    @DisplayName("showStats")
+    class ShowStats {
+
+        @Test
+        @DisplayName("Should display dirty and saved page counters")
+        void displaysSaveCounters() {
+            when(bagService.getDirtyPageCount()).thenReturn(3);
+            when(bagService.getSavedPageCount()).thenReturn(12L);
+            when(bagService.getSkippedPageCount()).thenReturn(40L);
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_title"));
+            verify(player).sendMessage(contains("stats_dirty_pages"));
+            verify(player).sendMessage(contains("stats_saved_pages"));
+            verify(bagService).getDirtyPageCount();
+            verify(bagService).getSkippedPageCount();
+        }
+
+        @Test
+        @DisplayName("Should display cache counters")
+        void displaysCacheCounters() {
+            when(bagService.getCachedBagCount()).thenReturn(12);
+            when(bagService.getCacheEvictionCount()).thenReturn(3L);
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_cache"));
+            verify(bagService).getCacheHitCount();
+            verify(bagService).getCacheEvictionCount();
+        }
+
+        @Test
+        @DisplayName("Should display lazy page counters")
+        void displaysLazyPageCounters() {
+            when(bagService.getEncodedPageCount()).thenReturn(40);
+            when(bagService.getLazyDecodeCount()).thenReturn(5L);
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_lazy_pages"));
+            verify(bagService).getEncodedPageCount();
+            verify(bagService).getReusedEncodingCount();
+        }
+
+        @Test
+        @DisplayName("Should display summary backfill counters")
+        void displaysSummaryBackfillCounters() {
+            when(bagService.getSummaryBackfillCount()).thenReturn(7L);
+            when(bagService.getPendingSummaryBackfillCount()).thenReturn(2);
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_summary_backfill"));
+            verify(bagService).getSummaryBackfillCount();
+            verify(bagService).getPendingSummaryBackfillCount();
+        }
+
+        @Test
+        @DisplayName("Should display journal counters when enabled")
+        void displaysJournalCounters() {
+            BagJournal journal = mock(BagJournal.class);
+            when(journal.getPendingCount()).thenReturn(3);
+            when(bagService.getJournal()).thenReturn(journal);
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_journal"));
+            verify(journal).getPendingCount();
+            verify(journal).getSyncCount();
+        }
+
+        @Test
+        @DisplayName("Should skip journal counters when disabled")
+        void skipsJournalWhenDisabled() {
+            command.showStats(player);
+
+            verify(player, never()).sendMessage(contains("stats_journal"));
+        }
+
+        @Test
+        @DisplayName("Should display delta counters in delta mode")
+        void displaysDeltaCounters() {
+            when(bagService.isDeltaMode()).thenReturn(true);
+            when(bagService.getDeltaSaveCount()).thenReturn(12L);
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_delta"));
+            verify(bagService).getDeltaCompactCount();
+        }
+
+        @Test
+        @DisplayName("Should skip delta counters when delta mode is off")
+        void skipsDeltaWhenDisabled() {
+            command.showStats(player);
+
+            verify(player, never()).sendMessage(contains("stats_delta"));
+        }
+
+        @Test
+        @DisplayName("Should display autosave timings")
+        void displaysAutoSaveTimings() {
+            when(bagService.getAutoSaveScheduler()).thenReturn(new AutoSaveScheduler(300_000, 5));
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_autosave"));
+            verify(player, never()).sendMessage(contains("stats_autosave_disabled"));
+        }
+
+        @Test
+        @DisplayName("Should report disabled autosave")
+        void displaysDisabledAutoSave() {
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_autosave_disabled"));
+        }
+
+        @Test
+        @DisplayName("Should display preload counters")
+        void displaysPreloadCounters() {
+            when(bagService.getPreloadCount()).thenReturn(10L);
+            when(bagService.getWarmOpenCount()).thenReturn(8L);
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_preload"));
+            verify(bagService).getWarmOpenCount();
+            verify(bagService).getColdOpenCount();
+        }
+
+        @Test
+        @DisplayName("Should display lock counters")
+        void displaysLockCounters() {
+            when(lockService.getActiveLockCount()).thenReturn(2);
+            when(lockService.getExpiredLockCount()).thenReturn(5L);
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_locks"));
+            verify(lockService).getActiveLockCount();
+            verify(lockService).getExpiredLockCount();
+        }
+
+        @Test
+        @DisplayName("Should display open timings")
+        void displaysOpenTimings() {
+            BagOpener opener = new BagOpener((owner, page) -> CompletableFuture.completedFuture(null), () -> 250);
+            opener.open(playerUuid, 1, () -> { }, () -> { }, error -> { });
+            when(bagService.getOpener()).thenReturn(opener);
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_open"));
+        }
+
+        @Test
+        @DisplayName("Should display departed cache counters and hit rates")
+        void displaysDepartedCache() {
+            doReturn(new DepartedBagCache<Object>(1024, 1000)).when(bagService).getDepartedCache();
+            when(bagService.getCacheHitCount()).thenReturn(3L);
+            when(bagService.getCacheMissCount()).thenReturn(1L);
+
+            command.showStats(player);
+
+            verify(player).sendMessage(contains("stats_departed_cache"));
+            verify(player).sendMessage(contains("stats_hit_rates"));
+        }
+
+        @Test
+        @DisplayName("Should skip departed cache counters when disabled")
+        void skipsDepartedCacheWhenDisabled() {
+            doReturn(new DepartedBagCache<Object>(0, 1000)).when(bagService).getDepartedCache();
+
+            command.showStats(player);
+
+            verify(player, never()).sendMessage(contains("stats_departed_cache"));
+        }
+    }
+
     // ==================== handleHelp ====================
 
     @Nested
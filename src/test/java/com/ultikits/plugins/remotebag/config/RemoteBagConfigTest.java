@@ -61,6 +61,119 @@ class RemoteBagConfigTest {
             assertThat(config.isSaveOnClose()).isTrue();
         }
 
+        @Test
+        @DisplayName("Should have async save enabled by default")
+        void asyncSave() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.isAsyncSave()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should have save queue capacity = 1024")
+        void saveQueueCapacity() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getSaveQueueCapacity()).isEqualTo(1024);
+        }
+
+        @Test
+        @DisplayName("Should have save queue shutdown timeout = 30 seconds")
+        void saveQueueShutdownTimeout() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getSaveQueueShutdownTimeout()).isEqualTo(30);
+        }
+
+        @Test
+        @DisplayName("Should run bag I/O on 4 threads")
+        void ioThreads() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getIoThreads()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("Should flush on 4 threads within 20 seconds on shutdown")
+        void shutdownFlush() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getShutdownFlushThreads()).isEqualTo(4);
+            assertThat(config.getShutdownFlushDeadline()).isEqualTo(20);
+        }
+
+        @Test
+        @DisplayName("Should use binary storage codec by default")
+        void storageCodec() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getStorageCodec()).isEqualTo("binary");
+        }
+
+        @Test
+        @DisplayName("Should preload bags with 4 concurrent loads and 2000 ms timeout by default")
+        void preload() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.isPreloadEnabled()).isTrue();
+            assertThat(config.getPreloadConcurrency()).isEqualTo(4);
+            assertThat(config.getPreloadTimeoutMillis()).isEqualTo(2000);
+        }
+
+        @Test
+        @DisplayName("Should show the loading notice after 250 ms by default")
+        void openLoading() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getOpenLoadingMillis()).isEqualTo(250);
+        }
+
+        @Test
+        @DisplayName("Should limit the cache to 1000 bags and 10000 pages by default")
+        void cacheLimits() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getCacheMaxBags()).isEqualTo(1000);
+            assertThat(config.getCacheMaxPages()).isEqualTo(10000);
+        }
+
+        @Test
+        @DisplayName("Should not keep departed bags by default")
+        void departedCache() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getDepartedCacheMegabytes()).isZero();
+            assertThat(config.getDepartedCacheSeconds()).isEqualTo(300);
+        }
+
+        @Test
+        @DisplayName("Should backfill 20 page summaries per second by default")
+        void summaryBackfillBatch() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getSummaryBackfillBatch()).isEqualTo(20);
+        }
+
+        @Test
+        @DisplayName("Should budget 5 ms of autosave work per tick by default")
+        void autoSaveTickBudget() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getAutoSaveTickBudget()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("Should keep the journal off by default")
+        void journalDisabled() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.isJournalEnabled()).isFalse();
+            assertThat(config.getJournalCompactMegabytes()).isEqualTo(64);
+        }
+
+        @Test
+        @DisplayName("Should keep delta mode off by default")
+        void deltaModeDisabled() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.isDeltaMode()).isFalse();
+            assertThat(config.getDeltaCompactThreshold()).isEqualTo(16);
+        }
+
+        @Test
+        @DisplayName("Should store bags in the database by default")
+        void databaseBackend() {
+            RemoteBagConfig config = createRealConfig();
+            assertThat(config.getStorageBackend()).isEqualTo("database");
+            assertThat(config.getFileSegmentMegabytes()).isEqualTo(64);
+        }
+
         @Test
         @DisplayName("Should have economy enabled by default")
         void economyEnabled() {
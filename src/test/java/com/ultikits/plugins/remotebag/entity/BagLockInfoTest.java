@@ -109,6 +109,65 @@ class BagLockInfoTest {
         }
     }
 
+    @Nested
+    @DisplayName("Lease")
+    class Lease {
+
+        @Test
+        @DisplayName("Renew should restart the lease")
+        void renewRestartsLease() {
+            BagLockInfo info = BagLockInfo.builder()
+                    .holderUuid(UUID.randomUUID())
+                    .holderName("Player")
+                    .lockType(LockType.OWNER)
+                    .acquiredAt(System.currentTimeMillis() - 400_000)
+                    .build();
+            assertThat(info.isExpired(300_000)).isTrue();
+
+            info.renew();
+
+            assertThat(info.isExpired(300_000)).isFalse();
+            assertThat(info.getAcquiredAt()).isLessThan(System.currentTimeMillis() - 300_000);
+        }
+
+        @Test
+        @DisplayName("Should report remaining lease time")
+        void remainingMillis() {
+            BagLockInfo info = BagLockInfo.builder()
+                    .holderUuid(UUID.randomUUID())
+                    .holderName("Player")
+                    .lockType(LockType.OWNER)
+                    .acquiredAt(System.currentTimeMillis() - 100_000)
+                    .build();
+
+            assertThat(info.getRemainingMillis(300_000)).isBetween(190_000L, 200_000L);
+            assertThat(info.getRemainingMillis(50_000)).isZero();
+        }
+
+        @Test
+        @DisplayName("Renewal should not affect equality")
+        void renewKeepsEquality() {
+            UUID uuid = UUID.randomUUID();
+            BagLockInfo a = BagLockInfo.builder()
+                    .holderUuid(uuid)
+                    .holderName("Player")
+                    .lockType(LockType.OWNER)
+                    .acquiredAt(1000L)
+                    .build();
+            BagLockInfo b = BagLockInfo.builder()
+                    .holderUuid(uuid)
+                    .holderName("Player")
+                    .lockType(LockType.OWNER)
+                    .acquiredAt(1000L)
+                    .build();
+
+            a.renew();
+
+            assertThat(a).isEqualTo(b);
+            assertThat(a.hashCode()).isEqualTo(b.hashCode());
+        }
+    }
+
     @Nested
     @DisplayName("Getters")
     class Getters {
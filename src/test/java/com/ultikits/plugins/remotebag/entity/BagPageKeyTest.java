@@ -0,0 +1,70 @@
+package com.ultikits.plugins.remotebag.entity;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("BagPageKey Tests")
+class BagPageKeyTest {
+
+    private final UUID ownerUuid = UUID.randomUUID();
+
+    @Test
+    @DisplayName("Keys of same owner and page should be equal")
+    void equalKeys() {
+        BagPageKey a = BagPageKey.of(ownerUuid, 3);
+        BagPageKey b = BagPageKey.of(UUID.fromString(ownerUuid.toString()), 3);
+
+        assertThat(a).isEqualTo(b);
+        assertThat(a.hashCode()).isEqualTo(b.hashCode());
+    }
+
+    @Test
+    @DisplayName("Keys of different pages should differ")
+    void differentPages() {
+        assertThat(BagPageKey.of(ownerUuid, 1)).isNotEqualTo(BagPageKey.of(ownerUuid, 2));
+    }
+
+    @Test
+    @DisplayName("Keys of different owners should differ")
+    void differentOwners() {
+        assertThat(BagPageKey.of(ownerUuid, 1)).isNotEqualTo(BagPageKey.of(UUID.randomUUID(), 1));
+    }
+
+    @Test
+    @DisplayName("Should not equal other types")
+    void notEqualOtherTypes() {
+        assertThat(BagPageKey.of(ownerUuid, 1)).isNotEqualTo(ownerUuid + ":1");
+    }
+
+    @Test
+    @DisplayName("Should expose owner and page")
+    void accessors() {
+        BagPageKey key = BagPageKey.of(ownerUuid, 7);
+
+        assertThat(key.getOwnerUuid()).isEqualTo(ownerUuid);
+        assertThat(key.getPageNumber()).isEqualTo(7);
+        assertThat(key.isOwnedBy(ownerUuid)).isTrue();
+        assertThat(key.isOwnedBy(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    @DisplayName("toString should keep the legacy key format")
+    void toStringFormat() {
+        assertThat(BagPageKey.of(ownerUuid, 2)).hasToString(ownerUuid + ":2");
+    }
+
+    @Test
+    @DisplayName("Should work as a map key")
+    void mapKey() {
+        Map<BagPageKey, String> map = new HashMap<>();
+        map.put(BagPageKey.of(ownerUuid, 1), "page1");
+
+        assertThat(map.get(BagPageKey.of(ownerUuid, 1))).isEqualTo("page1");
+        assertThat(map.get(BagPageKey.of(ownerUuid, 2))).isNull();
+    }
+}
@@ -0,0 +1,130 @@
+package com.ultikits.plugins.remotebag.entity;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PageSummary Tests")
+class PageSummaryTest {
+
+    private static ItemStack item(Material type, int amount) {
+        ItemStack item = mock(ItemStack.class);
+        when(item.getType()).thenReturn(type);
+        when(item.getAmount()).thenReturn(amount);
+        return item;
+    }
+
+    @Nested
+    @DisplayName("From Contents")
+    class FromContents {
+
+        @Test
+        @DisplayName("Should count items and occupied slots")
+        void countsItems() {
+            ItemStack[] items = new ItemStack[54];
+            items[0] = item(Material.STONE, 64);
+            items[1] = item(Material.STONE, 10);
+            items[5] = item(Material.DIRT, 32);
+            items[6] = item(Material.AIR, 1);
+
+            PageSummary summary = PageSummary.of(items);
+
+            assertThat(summary.getItemCount()).isEqualTo(106);
+            assertThat(summary.getStackCount()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should keep the most plentiful materials first")
+        void buildsPreview() {
+            ItemStack[] items = new ItemStack[54];
+            items[0] = item(Material.DIRT, 5);
+            items[1] = item(Material.STONE, 64);
+            items[2] = item(Material.DIAMOND, 7);
+            items[3] = item(Material.GOLD_INGOT, 1);
+            items[4] = item(Material.DIRT, 5);
+
+            PageSummary summary = PageSummary.of(items);
+
+            assertThat(summary.getPreview()).hasSize(PageSummary.PREVIEW_SIZE);
+            assertThat(summary.getPreview()).extracting(PageSummary.PreviewEntry::getMaterial)
+                    .containsExactly("STONE", "DIRT", "DIAMOND");
+            assertThat(summary.getPreview().get(1).getAmount()).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("Should return the empty summary for empty pages")
+        void emptyPage() {
+            assertThat(PageSummary.of(new ItemStack[54])).isSameAs(PageSummary.EMPTY);
+            assertThat(PageSummary.of(null)).isSameAs(PageSummary.EMPTY);
+        }
+    }
+
+    @Nested
+    @DisplayName("Columns")
+    class Columns {
+
+        @Test
+        @DisplayName("Should round trip through row columns")
+        void roundTrip() {
+            ItemStack[] items = new ItemStack[54];
+            items[0] = item(Material.STONE, 64);
+            items[1] = item(Material.DIRT, 32);
+            RemoteBagData data = new RemoteBagData();
+
+            PageSummary.of(items).applyTo(data);
+            PageSummary restored = PageSummary.fromRow(data);
+
+            assertThat(data.getPreview()).isEqualTo("STONE:64,DIRT:32");
+            assertThat(restored.getItemCount()).isEqualTo(96);
+            assertThat(restored.getStackCount()).isEqualTo(2);
+            assertThat(restored.getPreview()).extracting(PageSummary.PreviewEntry::getMaterial)
+                    .containsExactly("STONE", "DIRT");
+        }
+
+        @Test
+        @DisplayName("Should round trip through delta columns")
+        void deltaRoundTrip() {
+            ItemStack[] items = new ItemStack[54];
+            items[3] = item(Material.DIRT, 5);
+            RemoteBagDeltaData delta = new RemoteBagDeltaData();
+
+            PageSummary.of(items).applyTo(delta);
+            PageSummary restored = PageSummary.fromRow(delta);
+
+            assertThat(delta.getPreview()).isEqualTo("DIRT:5");
+            assertThat(restored.getItemCount()).isEqualTo(5);
+            assertThat(restored.getStackCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should write an empty preview for empty pages")
+        void emptyPreview() {
+            RemoteBagData data = new RemoteBagData();
+
+            PageSummary.EMPTY.applyTo(data);
+
+            assertThat(data.getPreview()).isEmpty();
+            assertThat(PageSummary.fromRow(data).getPreview()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Rows without a preview have no summary")
+        void legacyRow() {
+            assertThat(PageSummary.fromRow(new RemoteBagData())).isNull();
+        }
+
+        @Test
+        @DisplayName("Should skip malformed preview entries")
+        void skipsMalformed() {
+            RemoteBagData data = new RemoteBagData();
+            data.setPreview("STONE:64,broken,DIRT:x,:3");
+
+            assertThat(PageSummary.fromRow(data).getPreview())
+                    .extracting(PageSummary.PreviewEntry::getMaterial)
+                    .containsExactly("STONE");
+        }
+    }
+}
@@ -124,6 +124,17 @@ class RemoteBagDataTest {
             assertThat(data.getPageNumber()).isEqualTo(3);
             assertThat(data.getContents()).isEqualTo("content-all");
             assertThat(data.getLastUpdated()).isEqualTo(77777L);
+            assertThat(data.getPreview()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should create with summary fields")
+        void withSummary() {
+            RemoteBagData data = new RemoteBagData("uuid-all", 3, "content-all", 77777L, 96, 2, "STONE:64,DIRT:32");
+
+            assertThat(data.getItemCount()).isEqualTo(96);
+            assertThat(data.getStackCount()).isEqualTo(2);
+            assertThat(data.getPreview()).isEqualTo("STONE:64,DIRT:32");
         }
     }
 
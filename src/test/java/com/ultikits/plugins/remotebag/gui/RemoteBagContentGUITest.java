@@ -13,6 +13,7 @@ import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
@@ -23,6 +24,7 @@ import org.mockito.MockedStatic;
 
 import java.lang.reflect.Method;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -49,6 +51,7 @@ class RemoteBagContentGUITest {
         UltiRemoteBagTestHelper.setUp();
 
         bagService = mock(RemoteBagService.class);
+        when(bagService.loadBagIfNeeded(any())).thenReturn(true);
         lockService = mock(BagLockService.class);
         config = UltiRemoteBagTestHelper.createDefaultConfig();
         mockPlugin = mock(UltiToolsPlugin.class);
@@ -258,6 +261,83 @@ class RemoteBagContentGUITest {
         }
     }
 
+    // ==================== Lease Renewal ====================
+
+    @Nested
+    @DisplayName("Lease Renewal")
+    class LeaseRenewal {
+
+        @Test
+        @DisplayName("Should renew the lock lease on click in edit mode")
+        void renewsOnClick() throws Exception {
+            RemoteBagContentGUI gui = createGui(AccessMode.EDIT);
+            setLastLeaseRenew(gui, System.nanoTime() - TimeUnit.SECONDS.toNanos(6));
+
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getRawSlot()).thenReturn(0);
+            gui.onClick(event);
+
+            verify(lockService).renewLease(ownerUuid, 1, playerUuid);
+        }
+
+        @Test
+        @DisplayName("Should renew the lock lease on drag in edit mode")
+        void renewsOnDrag() throws Exception {
+            RemoteBagContentGUI gui = createGui(AccessMode.EDIT);
+            setLastLeaseRenew(gui, System.nanoTime() - TimeUnit.SECONDS.toNanos(6));
+
+            gui.onDrag(mock(InventoryDragEvent.class));
+
+            verify(lockService).renewLease(ownerUuid, 1, playerUuid);
+        }
+
+        @Test
+        @DisplayName("Should renew at most once per interval")
+        void rateLimited() throws Exception {
+            RemoteBagContentGUI gui = createGui(AccessMode.EDIT);
+            setLastLeaseRenew(gui, System.nanoTime() - TimeUnit.SECONDS.toNanos(6));
+
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getRawSlot()).thenReturn(0);
+            gui.onClick(event);
+            gui.onClick(event);
+            gui.onClick(event);
+
+            verify(lockService, times(1)).renewLease(ownerUuid, 1, playerUuid);
+        }
+
+        @Test
+        @DisplayName("Should not renew right after opening")
+        void notRightAfterOpen() {
+            RemoteBagContentGUI gui = createGui(AccessMode.EDIT);
+
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getRawSlot()).thenReturn(0);
+            gui.onClick(event);
+
+            verify(lockService, never()).renewLease(any(), anyInt(), any());
+        }
+
+        @Test
+        @DisplayName("Should not renew in read-only mode")
+        void notInReadOnlyMode() throws Exception {
+            RemoteBagContentGUI gui = createGui(AccessMode.READ_ONLY);
+            setLastLeaseRenew(gui, 0L);
+
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getRawSlot()).thenReturn(0);
+            gui.onClick(event);
+
+            verify(lockService, never()).renewLease(any(), anyInt(), any());
+        }
+
+        private void setLastLeaseRenew(RemoteBagContentGUI gui, long nanos) throws Exception {
+            java.lang.reflect.Field field = RemoteBagContentGUI.class.getDeclaredField("lastLeaseRenewNanos");
+            field.setAccessible(true);
+            field.setLong(gui, nanos);
+        }
+    }
+
     // ==================== onClose ====================
 
     @Nested
@@ -283,6 +363,23 @@ class RemoteBagContentGUITest {
             verify(lockService).release(ownerUuid, 1, playerUuid);
         }
 
+        @Test
+        @DisplayName("Should only update the cache in edit mode when save_on_close is off")
+        void leavesWriteToAutoSaveWhenSaveOnCloseOff() {
+            when(config.isSaveOnClose()).thenReturn(false);
+            RemoteBagContentGUI gui = createGui(AccessMode.EDIT);
+
+            Inventory mockInventory = mock(Inventory.class);
+            setInventory(gui, mockInventory);
+
+            InventoryCloseEvent event = mock(InventoryCloseEvent.class);
+            gui.onClose(event);
+
+            verify(bagService).setBagPage(eq(ownerUuid), eq(1), any(ItemStack[].class));
+            verify(bagService, never()).saveBag(any());
+            verify(lockService).release(ownerUuid, 1, playerUuid);
+        }
+
         @Test
         @DisplayName("Should only release lock in read-only mode (no save)")
         void onlyReleasesInReadOnlyMode() {
@@ -296,6 +393,7 @@ class RemoteBagContentGUITest {
             verify(bagService, never()).saveBag(any());
             // Should still release lock
             verify(lockService).release(ownerUuid, 1, playerUuid);
+            verify(lockService).viewClosed(ownerUuid, 1, playerUuid);
         }
 
         @Test
@@ -331,14 +429,54 @@ class RemoteBagContentGUITest {
             setInventory(gui, mockInventory);
 
             // Call saveCurrentContents via reflection
-            Method saveMethod = RemoteBagContentGUI.class.getDeclaredMethod("saveCurrentContents");
+            Method saveMethod = RemoteBagContentGUI.class.getDeclaredMethod("saveCurrentContents", boolean.class);
             saveMethod.setAccessible(true);
-            saveMethod.invoke(gui);
+            saveMethod.invoke(gui, true);
 
             verify(bagService).setBagPage(eq(ownerUuid), eq(1), any(ItemStack[].class));
             verify(bagService).saveBag(ownerUuid);
         }
 
+        @Test
+        @DisplayName("Should not mark page dirty when contents unchanged")
+        void skipsSetBagPageWhenUnchanged() throws Exception {
+            RemoteBagContentGUI gui = createGui(AccessMode.EDIT);
+
+            ItemStack mockItem = mock(ItemStack.class);
+            Inventory mockInventory = mock(Inventory.class);
+            when(mockInventory.getItem(0)).thenReturn(mockItem);
+            setInventory(gui, mockInventory);
+
+            ItemStack[] cached = new ItemStack[54];
+            cached[0] = mockItem;
+            when(bagService.getBagPage(ownerUuid, 1)).thenReturn(cached);
+
+            Method saveMethod = RemoteBagContentGUI.class.getDeclaredMethod("saveCurrentContents", boolean.class);
+            saveMethod.setAccessible(true);
+            saveMethod.invoke(gui, true);
+
+            verify(bagService, never()).setBagPage(any(), anyInt(), any());
+            verify(bagService).saveBag(ownerUuid);
+        }
+
+        @Test
+        @DisplayName("Should mark page dirty when a slot changed")
+        void setsBagPageWhenChanged() throws Exception {
+            RemoteBagContentGUI gui = createGui(AccessMode.EDIT);
+
+            Inventory mockInventory = mock(Inventory.class);
+            when(mockInventory.getItem(3)).thenReturn(mock(ItemStack.class));
+            setInventory(gui, mockInventory);
+
+            when(bagService.getBagPage(ownerUuid, 1)).thenReturn(new ItemStack[54]);
+
+            Method saveMethod = RemoteBagContentGUI.class.getDeclaredMethod("saveCurrentContents", boolean.class);
+            saveMethod.setAccessible(true);
+            saveMethod.invoke(gui, true);
+
+            verify(bagService).setBagPage(eq(ownerUuid), eq(1), any(ItemStack[].class));
+        }
+
         @Test
         @DisplayName("Should save 45 item slots (CONTENT_SIZE)")
         void savesCorrectSlotCount() throws Exception {
@@ -347,9 +485,9 @@ class RemoteBagContentGUITest {
             Inventory mockInventory = mock(Inventory.class);
             setInventory(gui, mockInventory);
 
-            Method saveMethod = RemoteBagContentGUI.class.getDeclaredMethod("saveCurrentContents");
+            Method saveMethod = RemoteBagContentGUI.class.getDeclaredMethod("saveCurrentContents", boolean.class);
             saveMethod.setAccessible(true);
-            saveMethod.invoke(gui);
+            saveMethod.invoke(gui, true);
 
             // Verify getItem was called for slots 0-44
             for (int i = 0; i < 45; i++) {
@@ -482,6 +620,31 @@ class RemoteBagContentGUITest {
 
             verify(mockInventory).setItem(0, mockItem);
         }
+
+        @Test
+        @DisplayName("Should leave the page empty and never save it while the bag is still being saved")
+        void bagStillBeingSaved() throws Exception {
+            RemoteBagContentGUI gui = createGui(AccessMode.EDIT);
+
+            Inventory mockInventory = mock(Inventory.class);
+            setInventory(gui, mockInventory);
+            when(bagService.loadBagIfNeeded(ownerUuid)).thenReturn(false);
+
+            Method loadMethod = RemoteBagContentGUI.class.getDeclaredMethod("loadBagContents");
+            loadMethod.setAccessible(true);
+            loadMethod.invoke(gui);
+
+            verify(bagService, never()).getBagPage(any(), anyInt());
+            verify(mockInventory, never()).setItem(anyInt(), any(ItemStack.class));
+            verify(player).sendMessage(contains("bag_loading"));
+
+            Method saveMethod = RemoteBagContentGUI.class.getDeclaredMethod("saveCurrentContents", boolean.class);
+            saveMethod.setAccessible(true);
+            saveMethod.invoke(gui, true);
+
+            verify(bagService, never()).setBagPage(any(), anyInt(), any());
+            verify(bagService, never()).saveBag(any());
+        }
     }
 
     // ==================== setupToolbar ====================
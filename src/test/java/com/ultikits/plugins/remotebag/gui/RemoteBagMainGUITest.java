@@ -2,6 +2,8 @@ package com.ultikits.plugins.remotebag.gui;
 
 import com.ultikits.plugins.remotebag.UltiRemoteBagTestHelper;
 import com.ultikits.plugins.remotebag.config.RemoteBagConfig;
+import com.ultikits.plugins.remotebag.entity.PageSummary;
+import com.ultikits.plugins.remotebag.entity.RemoteBagData;
 import com.ultikits.plugins.remotebag.service.BagLockService;
 import com.ultikits.plugins.remotebag.service.RemoteBagService;
 import com.ultikits.ultitools.abstracts.UltiToolsPlugin;
@@ -140,8 +142,7 @@ class RemoteBagMainGUITest {
             when(bagService.getPlayerBagPages(playerUuid))
                     .thenReturn(Arrays.asList(1, 2));
             when(bagService.getPlayerMaxPages(player)).thenReturn(10);
-            when(bagService.getItemCount(eq(playerUuid), anyInt())).thenReturn(5);
-            when(bagService.getStackCount(eq(playerUuid), anyInt())).thenReturn(3);
+            when(bagService.getPageSummary(eq(playerUuid), anyInt())).thenReturn(PageSummary.EMPTY);
 
             ItemStack mockItem = mock(ItemStack.class);
             ItemMeta mockMeta = mock(ItemMeta.class);
@@ -176,8 +177,7 @@ class RemoteBagMainGUITest {
             when(bagService.getPlayerBagPages(playerUuid))
                     .thenReturn(Arrays.asList(1, 2, 3));
             when(bagService.getPlayerMaxPages(player)).thenReturn(3); // at max
-            when(bagService.getItemCount(eq(playerUuid), anyInt())).thenReturn(0);
-            when(bagService.getStackCount(eq(playerUuid), anyInt())).thenReturn(0);
+            when(bagService.getPageSummary(eq(playerUuid), anyInt())).thenReturn(PageSummary.EMPTY);
 
             ItemStack mockItem = mock(ItemStack.class);
             ItemMeta mockMeta = mock(ItemMeta.class);
@@ -210,8 +210,7 @@ class RemoteBagMainGUITest {
             when(bagService.getPlayerBagPages(playerUuid))
                     .thenReturn(Collections.singletonList(1));
             when(bagService.getPlayerMaxPages(player)).thenReturn(10);
-            when(bagService.getItemCount(eq(playerUuid), anyInt())).thenReturn(0);
-            when(bagService.getStackCount(eq(playerUuid), anyInt())).thenReturn(0);
+            when(bagService.getPageSummary(eq(playerUuid), anyInt())).thenReturn(PageSummary.EMPTY);
 
             ItemStack mockItem = mock(ItemStack.class);
             ItemMeta mockMeta = mock(ItemMeta.class);
@@ -241,8 +240,7 @@ class RemoteBagMainGUITest {
             when(bagService.getPlayerBagPages(playerUuid))
                     .thenReturn(Collections.singletonList(1));
             when(bagService.getPlayerMaxPages(player)).thenReturn(10);
-            when(bagService.getItemCount(eq(playerUuid), anyInt())).thenReturn(0);
-            when(bagService.getStackCount(eq(playerUuid), anyInt())).thenReturn(0);
+            when(bagService.getPageSummary(eq(playerUuid), anyInt())).thenReturn(PageSummary.EMPTY);
 
             ItemStack mockItem = mock(ItemStack.class);
             ItemMeta mockMeta = mock(ItemMeta.class);
@@ -301,8 +299,8 @@ class RemoteBagMainGUITest {
         void createsBagIconWithStats() throws Exception {
             when(bagService.getPlayerBagPages(playerUuid))
                     .thenReturn(Collections.singletonList(1));
-            when(bagService.getItemCount(playerUuid, 1)).thenReturn(10);
-            when(bagService.getStackCount(playerUuid, 1)).thenReturn(5);
+            RemoteBagData row = new RemoteBagData("uuid", 1, "", 0L, 10, 5, "STONE:10", 0L);
+            when(bagService.getPageSummary(playerUuid, 1)).thenReturn(PageSummary.fromRow(row));
 
             ItemMeta mockMeta = mock(ItemMeta.class);
 
@@ -320,7 +318,35 @@ class RemoteBagMainGUITest {
                 verify(mockPlugin).i18n("bag_name");
                 verify(mockPlugin).i18n("lore_item_count");
                 verify(mockPlugin).i18n("lore_slot_usage");
+                verify(mockPlugin).i18n("lore_preview_item");
                 verify(mockPlugin).i18n("lore_click_open");
+                verify(bagService, never()).getItemCount(any(), anyInt());
+                verify(mockMeta).setLore(anyList());
+            }
+        }
+
+        @Test
+        @DisplayName("Should show last saved time for pages without summary")
+        void createsBagIconFromIndex() throws Exception {
+            when(bagService.getPlayerBagPages(playerUuid))
+                    .thenReturn(Collections.singletonList(1));
+            when(bagService.getPageLastUpdated(playerUuid, 1)).thenReturn(1_700_000_000_000L);
+
+            ItemMeta mockMeta = mock(ItemMeta.class);
+
+            try (MockedConstruction<ItemStack> isMock = mockConstruction(ItemStack.class,
+                    (mock, context) -> when(mock.getItemMeta()).thenReturn(mockMeta))) {
+
+                RemoteBagMainGUI gui = new RemoteBagMainGUI(
+                        player, mockPlugin, bagService, lockService, config);
+
+                Method createBagIcon = RemoteBagMainGUI.class.getDeclaredMethod("createBagIcon", int.class);
+                createBagIcon.setAccessible(true);
+                createBagIcon.invoke(gui, 1);
+
+                verify(bagService, never()).getItemCount(any(), anyInt());
+                verify(bagService, never()).getStackCount(any(), anyInt());
+                verify(mockPlugin).i18n("lore_last_updated");
                 verify(mockMeta).setLore(anyList());
             }
         }
@@ -5,6 +5,9 @@ import com.ultikits.plugins.remotebag.service.BagLockService;
 import com.ultikits.plugins.remotebag.service.RemoteBagService;
 
 import org.bukkit.entity.Player;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.junit.jupiter.api.*;
 
@@ -39,6 +42,86 @@ class BagListenerTest {
         UltiRemoteBagTestHelper.tearDown();
     }
 
+    // ==================== onAsyncPreLogin ====================
+
+    @Nested
+    @DisplayName("onAsyncPreLogin")
+    class OnAsyncPreLogin {
+
+        @Test
+        @DisplayName("Should preload bag of allowed logins")
+        void preloadsAllowedLogin() {
+            AsyncPlayerPreLoginEvent event = mock(AsyncPlayerPreLoginEvent.class);
+            when(event.getLoginResult()).thenReturn(AsyncPlayerPreLoginEvent.Result.ALLOWED);
+            when(event.getUniqueId()).thenReturn(playerUuid);
+
+            listener.onAsyncPreLogin(event);
+
+            verify(bagService).preloadBag(playerUuid);
+        }
+
+        @Test
+        @DisplayName("Should skip denied logins")
+        void skipsDeniedLogin() {
+            AsyncPlayerPreLoginEvent event = mock(AsyncPlayerPreLoginEvent.class);
+            when(event.getLoginResult()).thenReturn(AsyncPlayerPreLoginEvent.Result.KICK_BANNED);
+            when(event.getUniqueId()).thenReturn(playerUuid);
+
+            listener.onAsyncPreLogin(event);
+
+            verify(bagService, never()).preloadBag(any());
+        }
+    }
+
+    // ==================== onPlayerLogin ====================
+
+    @Nested
+    @DisplayName("onPlayerLogin")
+    class OnPlayerLogin {
+
+        @Test
+        @DisplayName("Should discard preloaded bag when login is denied")
+        void discardsOnDenied() {
+            PlayerLoginEvent event = mock(PlayerLoginEvent.class);
+            when(event.getPlayer()).thenReturn(player);
+            when(event.getResult()).thenReturn(PlayerLoginEvent.Result.KICK_FULL);
+
+            listener.onPlayerLogin(event);
+
+            verify(bagService).discardPreloadedBag(playerUuid);
+        }
+
+        @Test
+        @DisplayName("Should keep preloaded bag when login is allowed")
+        void keepsOnAllowed() {
+            PlayerLoginEvent event = mock(PlayerLoginEvent.class);
+            when(event.getPlayer()).thenReturn(player);
+            when(event.getResult()).thenReturn(PlayerLoginEvent.Result.ALLOWED);
+
+            listener.onPlayerLogin(event);
+
+            verify(bagService, never()).discardPreloadedBag(any());
+        }
+    }
+
+    // ==================== onPlayerJoin ====================
+
+    @Nested
+    @DisplayName("onPlayerJoin")
+    class OnPlayerJoin {
+
+        @Test
+        @DisplayName("Should pin the bag of online players")
+        void pinsBag() {
+            PlayerJoinEvent event = mock(PlayerJoinEvent.class);
+            when(event.getPlayer()).thenReturn(player);
+
+            listener.onPlayerJoin(event);
+
+            verify(bagService).pinBag(playerUuid);
+        }
+    }
+
     // ==================== onPlayerQuit ====================
 
     @Nested
@@ -68,14 +151,14 @@ class BagListenerTest {
         }
 
         @Test
-        @DisplayName("Should clear cache")
+        @DisplayName("Should move the bag to the departed cache")
         void clearsCache() {
             PlayerQuitEvent event = mock(PlayerQuitEvent.class);
             when(event.getPlayer()).thenReturn(player);
 
             listener.onPlayerQuit(event);
 
-            verify(bagService).clearCache(playerUuid);
+            verify(bagService).retireBag(playerUuid);
         }
 
         @Test
@@ -89,7 +172,7 @@ class BagListenerTest {
             // Verify all three operations were called
             verify(lockService).releaseAll(playerUuid);
             verify(bagService).saveBag(playerUuid);
-            verify(bagService).clearCache(playerUuid);
+            verify(bagService).retireBag(playerUuid);
         }
     }
 }
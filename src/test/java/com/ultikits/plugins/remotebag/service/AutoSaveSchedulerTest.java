@@ -0,0 +1,168 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("AutoSaveScheduler Tests")
+class AutoSaveSchedulerTest {
+
+    private static final long INTERVAL_MILLIS = 60_000;
+    private static final long TICK_MILLIS = 50;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private final List<UUID> saved = new ArrayList<>();
+
+    private AutoSaveScheduler scheduler(long budgetMillis) {
+        return new AutoSaveScheduler(INTERVAL_MILLIS, budgetMillis, clock::get);
+    }
+
+    private static Set<UUID> players(int count) {
+        Set<UUID> players = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            players.add(UUID.randomUUID());
+        }
+        return players;
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Tick once per server tick for the given time.
+     */
+    private void run(AutoSaveScheduler scheduler, Set<UUID> players, long millis) {
+        for (long t = 0; t < millis; t += TICK_MILLIS) {
+            scheduler.tick(players, saved::add);
+            advance(TICK_MILLIS);
+        }
+    }
+
+    @Test
+    @DisplayName("Should save every bag once per interval")
+    void savesOncePerInterval() {
+        AutoSaveScheduler scheduler = scheduler(5);
+        Set<UUID> players = players(50);
+
+        // First saves are due within one interval of the first tick
+        run(scheduler, players, INTERVAL_MILLIS + TICK_MILLIS);
+
+        assertThat(saved).hasSize(50).containsOnlyElementsOf(players);
+        assertThat(new HashSet<>(saved)).hasSize(50);
+
+        run(scheduler, players, INTERVAL_MILLIS);
+
+        assertThat(saved).hasSize(100);
+    }
+
+    @Test
+    @DisplayName("Should spread saves across the interval")
+    void spreadsSaves() {
+        AutoSaveScheduler scheduler = scheduler(5);
+        Set<UUID> players = players(200);
+        int[] perTick = new int[(int) (INTERVAL_MILLIS / TICK_MILLIS) + 1];
+
+        for (int tick = 0; tick < perTick.length; tick++) {
+            int before = saved.size();
+            scheduler.tick(players, saved::add);
+            perTick[tick] = saved.size() - before;
+            advance(TICK_MILLIS);
+        }
+
+        assertThat(saved).hasSize(200);
+        assertThat(Arrays.stream(perTick).max().getAsInt()).isLessThan(20);
+    }
+
+    @Test
+    @DisplayName("Should defer saves beyond the tick budget")
+    void defersOverBudget() {
+        AutoSaveScheduler scheduler = scheduler(5);
+        Set<UUID> players = players(10);
+        advance(INTERVAL_MILLIS);
+        scheduler.tick(players, saved::add);
+        advance(INTERVAL_MILLIS);
+
+        // Every save takes 2 ms: two fit into the 5 ms budget, the third ends it
+        scheduler.tick(players, uuid -> {
+            saved.add(uuid);
+            advance(2);
+        });
+
+        assertThat(saved).hasSize(3);
+        assertThat(scheduler.getOverBudgetTickCount()).isEqualTo(1);
+        assertThat(scheduler.getMaxTickMillis()).isEqualTo(6.0);
+    }
+
+    @Test
+    @DisplayName("Should save at least one bag per tick")
+    void savesAtLeastOne() {
+        AutoSaveScheduler scheduler = scheduler(1);
+        Set<UUID> players = players(3);
+        scheduler.tick(players, saved::add);
+        advance(INTERVAL_MILLIS);
+
+        scheduler.tick(players, uuid -> {
+            saved.add(uuid);
+            advance(10);
+        });
+
+        assertThat(saved).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should stop saving bags that left the cache")
+    void dropsRemovedBags() {
+        AutoSaveScheduler scheduler = scheduler(5);
+        Set<UUID> players = players(5);
+        scheduler.tick(players, saved::add);
+        assertThat(scheduler.getScheduledCount()).isEqualTo(5);
+
+        players.clear();
+        run(scheduler, players, INTERVAL_MILLIS + TICK_MILLIS);
+
+        assertThat(saved).isEmpty();
+        assertThat(scheduler.getScheduledCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reschedule a bag whose save failed")
+    void reschedulesAfterFailure() {
+        AutoSaveScheduler scheduler = scheduler(5);
+        Set<UUID> players = players(1);
+        scheduler.tick(players, saved::add);
+        advance(INTERVAL_MILLIS);
+
+        assertThatThrownBy(() -> scheduler.tick(players, uuid -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        run(scheduler, players, INTERVAL_MILLIS + TICK_MILLIS);
+        assertThat(saved).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should report the saves of the last cycle")
+    void reportsCycle() {
+        AutoSaveScheduler scheduler = scheduler(5);
+        Set<UUID> players = players(20);
+
+        run(scheduler, players, INTERVAL_MILLIS);
+        int cycleSaves = saved.size();
+        scheduler.tick(players, saved::add);
+
+        assertThat(cycleSaves).isPositive();
+        assertThat(scheduler.getLastCycleSaves()).isEqualTo(cycleSaves);
+        assertThat(scheduler.getIntervalMillis()).isEqualTo(INTERVAL_MILLIS);
+        assertThat(scheduler.getTickBudgetMillis()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("BagCachePolicy Tests")
+class BagCachePolicyTest {
+
+    private final UUID a = UUID.randomUUID();
+    private final UUID b = UUID.randomUUID();
+    private final UUID c = UUID.randomUUID();
+
+    @Test
+    @DisplayName("Should track bag and page counts")
+    void tracksCounts() {
+        BagCachePolicy policy = new BagCachePolicy(10, 100);
+
+        policy.record(a, 3);
+        policy.record(b, 2);
+        policy.record(a, 5);
+
+        assertThat(policy.getBagCount()).isEqualTo(2);
+        assertThat(policy.getPageCount()).isEqualTo(7);
+
+        policy.remove(a);
+        policy.remove(a);
+
+        assertThat(policy.getBagCount()).isEqualTo(1);
+        assertThat(policy.getPageCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should select least recently used bags over the bag limit")
+    void selectsLeastRecentlyUsed() {
+        BagCachePolicy policy = new BagCachePolicy(2, 100);
+        policy.record(a, 1);
+        policy.record(b, 1);
+        policy.record(c, 1);
+        policy.touch(a);
+
+        assertThat(policy.isOverLimit()).isTrue();
+        assertThat(policy.selectVictims(uuid -> false)).containsExactly(b);
+    }
+
+    @Test
+    @DisplayName("Should select enough bags to get under the page limit")
+    void selectsForPageLimit() {
+        BagCachePolicy policy = new BagCachePolicy(10, 5);
+        policy.record(a, 2);
+        policy.record(b, 2);
+        policy.record(c, 3);
+
+        assertThat(policy.selectVictims(uuid -> false)).containsExactly(a, b);
+    }
+
+    @Test
+    @DisplayName("Should skip pinned bags")
+    void skipsPinned() {
+        BagCachePolicy policy = new BagCachePolicy(1, 100);
+        policy.record(a, 1);
+        policy.record(b, 1);
+        policy.record(c, 1);
+
+        assertThat(policy.selectVictims(a::equals)).containsExactly(b, c);
+    }
+
+    @Test
+    @DisplayName("Should select nothing within limits")
+    void withinLimits() {
+        BagCachePolicy policy = new BagCachePolicy(3, 3);
+        policy.record(a, 1);
+        policy.record(b, 2);
+
+        assertThat(policy.isOverLimit()).isFalse();
+        assertThat(policy.selectVictims(uuid -> false)).isEmpty();
+    }
+}
@@ -0,0 +1,225 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("BagJournal Tests")
+class BagJournalTest {
+
+    @TempDir
+    Path folder;
+
+    private Path file;
+    private BagJournal journal;
+    private final UUID playerUuid = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = folder.resolve("journal/bag.journal");
+        journal = open(Long.MAX_VALUE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    private BagJournal open(long compactBytes) throws Exception {
+        BagJournal created = new BagJournal(file, items -> "slots:" + items.length,
+                (message, error) -> fail(message, error), compactBytes);
+        created.open();
+        return created;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition not met in time").isNegative();
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the latest change of each page")
+    void keepsLatestChange() throws Exception {
+        journal.append(playerUuid, 1, new ItemStack[9]);
+        journal.append(playerUuid, 2, new ItemStack[18]);
+        journal.append(playerUuid, 1, new ItemStack[27]);
+        assertThat(journal.awaitSynced(5, TimeUnit.SECONDS)).isTrue();
+
+        List<BagJournal.Entry> entries = BagJournal.readPending(file);
+
+        assertThat(entries).extracting(BagJournal.Entry::getPage).containsExactly(2, 1);
+        assertThat(entries.get(1).getContents()).isEqualTo("slots:27");
+        assertThat(entries.get(1).getPlayerUuid()).isEqualTo(playerUuid);
+        assertThat(journal.getPendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should record deleted pages without contents")
+    void recordsDelete() throws Exception {
+        journal.append(playerUuid, 3, new ItemStack[9]);
+        journal.appendDelete(playerUuid, 3);
+        journal.awaitSynced(5, TimeUnit.SECONDS);
+
+        List<BagJournal.Entry> entries = BagJournal.readPending(file);
+
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).getContents()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should drop cancelled changes")
+    void dropsCancelled() throws Exception {
+        journal.append(playerUuid, 2, new ItemStack[9]);
+        journal.appendCancel(playerUuid, 2);
+        journal.awaitSynced(5, TimeUnit.SECONDS);
+
+        assertThat(BagJournal.readPending(file)).isEmpty();
+        assertThat(journal.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should ignore a torn record at the end")
+    void ignoresTornTail() throws Exception {
+        journal.append(playerUuid, 1, new ItemStack[9]);
+        journal.awaitSynced(5, TimeUnit.SECONDS);
+        journal.shutdown(5, TimeUnit.SECONDS);
+
+        Files.write(file, new byte[]{0, 0, 0, 64, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        assertThat(BagJournal.readPending(file)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should return nothing when there is no journal")
+    void missingFile() throws Exception {
+        assertThat(BagJournal.readPending(folder.resolve("missing.journal"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should release only records written to database")
+    void releasesBySequence() {
+        long first = journal.append(playerUuid, 1, new ItemStack[9]);
+        long second = journal.append(playerUuid, 1, new ItemStack[9]);
+
+        journal.release(playerUuid, 1, first);
+        assertThat(journal.getPendingSeq(playerUuid, 1)).isEqualTo(second);
+
+        journal.release(playerUuid, 1, second);
+        assertThat(journal.getPendingSeq(playerUuid, 1)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should truncate once every change is in database")
+    void truncatesWhenReleased() throws Exception {
+        long seq = journal.append(playerUuid, 1, new ItemStack[9]);
+        journal.awaitSynced(5, TimeUnit.SECONDS);
+        assertThat(Files.size(file)).isPositive();
+
+        journal.release(playerUuid, 1, seq);
+
+        await(() -> journal.getTruncateCount() > 0);
+        assertThat(Files.size(file)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep unreleased changes on shutdown")
+    void keepsUnreleasedOnShutdown() throws Exception {
+        journal.append(playerUuid, 1, new ItemStack[9]);
+
+        assertThat(journal.shutdown(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(BagJournal.readPending(file)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should fsync a group of records once")
+    void groupCommit() throws Exception {
+        journal.shutdown(5, TimeUnit.SECONDS);
+        CountDownLatch encoding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        journal = new BagJournal(file, items -> {
+            encoding.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "";
+        }, (message, error) -> fail(message, error), Long.MAX_VALUE);
+        journal.open();
+
+        journal.append(playerUuid, 0, new ItemStack[9]);
+        assertThat(encoding.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int page = 1; page <= 20; page++) {
+            journal.append(playerUuid, page, new ItemStack[9]);
+        }
+        release.countDown();
+
+        assertThat(journal.awaitSynced(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(journal.getAppendedCount()).isEqualTo(21);
+        assertThat(journal.getSyncCount()).isEqualTo(2);
+        assertThat(BagJournal.readPending(file)).hasSize(21);
+    }
+
+    @Test
+    @DisplayName("Should rewrite an oversized journal with pending changes only")
+    void compacts() throws Exception {
+        journal.shutdown(5, TimeUnit.SECONDS);
+        journal = open(1);
+        long released = journal.append(playerUuid, 1, new ItemStack[9]);
+        journal.release(playerUuid, 1, released);
+        for (int i = 0; i < 10; i++) {
+            journal.append(playerUuid, 2, new ItemStack[i]);
+        }
+        journal.awaitSynced(5, TimeUnit.SECONDS);
+
+        await(() -> journal.getCompactCount() > 0);
+
+        List<BagJournal.Entry> entries = BagJournal.readPending(file);
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).getContents()).isEqualTo("slots:9");
+    }
+
+    @Test
+    @DisplayName("Should write entries readable as pending changes")
+    void writesEntries() throws Exception {
+        Path written = folder.resolve("recovery/bag.recovery");
+        UUID otherUuid = UUID.randomUUID();
+
+        BagJournal.writeEntries(written, Arrays.asList(
+                new BagJournal.Entry(playerUuid, 1, "first"),
+                new BagJournal.Entry(otherUuid, 2, null),
+                new BagJournal.Entry(playerUuid, 1, "second")));
+
+        List<BagJournal.Entry> entries = BagJournal.readPending(written);
+        assertThat(entries).extracting(BagJournal.Entry::getPlayerUuid).containsExactly(otherUuid, playerUuid);
+        assertThat(entries).extracting(BagJournal.Entry::getContents).containsExactly(null, "second");
+        assertThat(folder.resolve("recovery/bag.recovery.tmp")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should start empty after open")
+    void opensEmpty() throws Exception {
+        journal.append(playerUuid, 1, new ItemStack[9]);
+        journal.shutdown(5, TimeUnit.SECONDS);
+
+        journal = open(Long.MAX_VALUE);
+
+        assertThat(Files.size(file)).isZero();
+    }
+}
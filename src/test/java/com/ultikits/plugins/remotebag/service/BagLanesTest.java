@@ -0,0 +1,202 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("BagLanes Tests")
+class BagLanesTest {
+
+    private BagLanes lanes;
+    private UUID ownerUuid;
+
+    @BeforeEach
+    void setUp() {
+        lanes = new BagLanes(4, "BagLanesTest");
+        ownerUuid = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        lanes.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Lanes are dropped right after their last task completes its future.
+     */
+    private void awaitDropped(UUID owner) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (lanes.isBusy(owner) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private CountDownLatch block(UUID owner) {
+        CountDownLatch latch = new CountDownLatch(1);
+        lanes.execute(owner, () -> {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return latch;
+    }
+
+    // ==================== ordering ====================
+
+    @Nested
+    @DisplayName("ordering")
+    class Ordering {
+
+        @Test
+        @DisplayName("Should run tasks of one player in submission order, one at a time")
+        void runsSerially() throws Exception {
+            List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger overlaps = new AtomicInteger();
+            List<CompletableFuture<Void>> results = new ArrayList<>();
+
+            for (int i = 0; i < 200; i++) {
+                int n = i;
+                results.add(lanes.execute(ownerUuid, () -> {
+                    if (running.incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    order.add(n);
+                    running.decrementAndGet();
+                }));
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+            assertThat(overlaps.get()).isZero();
+            for (int i = 0; i < 200; i++) {
+                assertThat(order.get(i)).isEqualTo(i);
+            }
+        }
+
+        @Test
+        @DisplayName("Should run different players in parallel")
+        void runsPlayersInParallel() throws Exception {
+            // 两个任务都等待对方开始，只有并行执行才能完成
+            CountDownLatch started = new CountDownLatch(2);
+            Runnable task = () -> {
+                started.countDown();
+                try {
+                    started.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+
+            CompletableFuture<Void> first = lanes.execute(ownerUuid, task);
+            CompletableFuture<Void> second = lanes.execute(UUID.randomUUID(), task);
+
+            CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+            assertThat(started.getCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should keep running the lane after a task fails")
+        void continuesAfterFailure() throws Exception {
+            CompletableFuture<Integer> failed = lanes.submit(ownerUuid, () -> {
+                throw new IllegalStateException("db down");
+            });
+            CompletableFuture<Integer> next = lanes.submit(ownerUuid, () -> 42);
+
+            assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            assertThatThrownBy(failed::join).hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    // ==================== state ====================
+
+    @Nested
+    @DisplayName("state")
+    class State {
+
+        @Test
+        @DisplayName("Should report busy lanes and drop them once empty")
+        void tracksBusyLanes() throws Exception {
+            CountDownLatch latch = block(ownerUuid);
+
+            assertThat(lanes.isBusy(ownerUuid)).isTrue();
+            assertThat(lanes.isBusy(UUID.randomUUID())).isFalse();
+
+            latch.countDown();
+            assertThat(lanes.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+            awaitDropped(ownerUuid);
+            assertThat(lanes.isBusy(ownerUuid)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should know the lane of the current thread")
+        void knowsCurrentLane() throws Exception {
+            CompletableFuture<Boolean> inLane = lanes.submit(ownerUuid, () -> lanes.isCurrent(ownerUuid));
+            CompletableFuture<Boolean> otherLane = lanes.submit(ownerUuid,
+                    () -> lanes.isCurrent(UUID.randomUUID()));
+
+            assertThat(inLane.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(otherLane.get(5, TimeUnit.SECONDS)).isFalse();
+            assertThat(lanes.isCurrent(ownerUuid)).isFalse();
+        }
+
+        @Test
+        @DisplayName("await should wait only for the given player")
+        void awaitsOnePlayer() {
+            CountDownLatch other = block(UUID.randomUUID());
+            lanes.execute(ownerUuid, () -> { });
+
+            assertThat(lanes.await(ownerUuid, 5, TimeUnit.SECONDS)).isTrue();
+            other.countDown();
+        }
+
+        @Test
+        @DisplayName("await should not wait for its own lane")
+        void awaitInOwnLane() throws Exception {
+            CompletableFuture<Boolean> result = lanes.submit(ownerUuid,
+                    () -> lanes.await(ownerUuid, 5, TimeUnit.SECONDS));
+
+            assertThat(result.get(5, TimeUnit.SECONDS)).isFalse();
+        }
+    }
+
+    // ==================== shutdown ====================
+
+    @Nested
+    @DisplayName("shutdown")
+    class Shutdown {
+
+        @Test
+        @DisplayName("Should run submitted tasks before shutting down")
+        void drainsOnShutdown() {
+            CountDownLatch latch = block(ownerUuid);
+            CompletableFuture<Void> queued = lanes.execute(ownerUuid, () -> { });
+            latch.countDown();
+
+            assertThat(lanes.shutdown(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(queued).isCompleted();
+        }
+
+        @Test
+        @DisplayName("Should reject tasks after shutdown")
+        void rejectsAfterShutdown() {
+            lanes.shutdown(5, TimeUnit.SECONDS);
+
+            CompletableFuture<Void> result = lanes.execute(ownerUuid, () -> { });
+
+            assertThatThrownBy(result::join).hasCauseInstanceOf(RejectedExecutionException.class);
+            assertThat(lanes.awaitIdle(1, TimeUnit.SECONDS)).isFalse();
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.bukkit.entity.Player;
 import org.junit.jupiter.api.*;
 
 import java.lang.reflect.Field;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -55,6 +56,12 @@ class BagLockServiceTest {
         UltiRemoteBagTestHelper.tearDown();
     }
 
+    private Map<?, ?> internalMap(String name) throws Exception {
+        Field field = BagLockService.class.getDeclaredField(name);
+        field.setAccessible(true); // NOPMD
+        return (Map<?, ?>) field.get(service);
+    }
+
     // ==================== ownerOpen ====================
 
     @Nested
@@ -444,6 +451,60 @@ class BagLockServiceTest {
             assertThat(service.isLocked(ownerUuid, 1)).isFalse();
             assertThat(service.isLocked(otherOwnerUuid, 1)).isFalse();
         }
+
+        @Test
+        @DisplayName("Should prune read-only session sets and indexes")
+        void prunesEmptySessionSets() throws Exception {
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.adminOpen(ownerUuid, 1, admin);
+            assertThat(internalMap("readOnlySessions")).hasSize(1);
+
+            service.releaseAll(adminUuid);
+
+            assertThat(internalMap("readOnlySessions")).isEmpty();
+            assertThat(internalMap("sessionsByViewer")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("release should prune read-only session sets")
+        void releasePrunesSessionSets() throws Exception {
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.adminOpen(ownerUuid, 1, admin);
+
+            service.release(ownerUuid, 1, adminUuid);
+
+            assertThat(internalMap("readOnlySessions")).isEmpty();
+            assertThat(internalMap("sessionsByViewer")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should drop holder index entries with released locks")
+        void dropsHolderIndex() throws Exception {
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.ownerOpen(ownerUuid, 2, owner);
+            assertThat(internalMap("locksByHolder")).containsOnlyKeys(ownerUuid);
+
+            service.release(ownerUuid, 1, ownerUuid);
+            service.releaseAll(ownerUuid);
+
+            assertThat(internalMap("locks")).isEmpty();
+            assertThat(internalMap("locksByHolder")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Replaced lock should move to the new holder's index")
+        void replacedLockMovesIndex() throws Exception {
+            service.setLockTimeout(0);
+            service.adminOpen(ownerUuid, 1, admin);
+            Thread.sleep(5);
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.setLockTimeout(300);
+
+            service.releaseAll(adminUuid);
+
+            assertThat(service.isLocked(ownerUuid, 1)).isTrue();
+            assertThat(internalMap("locksByHolder")).containsOnlyKeys(ownerUuid);
+        }
     }
 
     // ==================== getCurrentAccessMode ====================
@@ -683,6 +744,30 @@ class BagLockServiceTest {
             service.release(ownerUuid, 1, ownerUuid);
             assertThat(service.isLocked(ownerUuid, 1)).isFalse();
         }
+
+        @Test
+        @DisplayName("isBagInUse should cover locks, read-only sessions and open GUIs")
+        void bagInUse() {
+            assertThat(service.isBagInUse(ownerUuid)).isFalse();
+
+            service.adminOpen(ownerUuid, 3, admin);
+            assertThat(service.isBagInUse(ownerUuid)).isTrue();
+            assertThat(service.isBagInUse(UUID.randomUUID())).isFalse();
+            service.release(ownerUuid, 3, adminUuid);
+            assertThat(service.isBagInUse(ownerUuid)).isFalse();
+
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.adminOpen(ownerUuid, 1, admin);
+            service.release(ownerUuid, 1, ownerUuid);
+            assertThat(service.isBagInUse(ownerUuid)).isTrue();
+            service.release(ownerUuid, 1, adminUuid);
+            assertThat(service.isBagInUse(ownerUuid)).isFalse();
+
+            service.viewOpened(ownerUuid, 2, adminUuid);
+            assertThat(service.isBagInUse(ownerUuid)).isTrue();
+            service.viewClosed(ownerUuid, 2, adminUuid);
+            assertThat(service.isBagInUse(ownerUuid)).isFalse();
+        }
     }
 
     // ==================== setLockTimeout ====================
@@ -726,6 +811,269 @@ class BagLockServiceTest {
         }
     }
 
+    // ==================== renewLease ====================
+
+    @Nested
+    @DisplayName("renewLease")
+    class RenewLease {
+
+        @Test
+        @DisplayName("Holder should renew its lock")
+        void holderRenews() {
+            service.ownerOpen(ownerUuid, 1, owner);
+
+            assertThat(service.renewLease(ownerUuid, 1, ownerUuid)).isTrue();
+        }
+
+        @Test
+        @DisplayName("Other players cannot renew")
+        void otherCannotRenew() {
+            service.ownerOpen(ownerUuid, 1, owner);
+
+            assertThat(service.renewLease(ownerUuid, 1, adminUuid)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Cannot renew without a lock")
+        void noLock() {
+            assertThat(service.renewLease(ownerUuid, 1, ownerUuid)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Cannot renew an expired lock")
+        void expiredLock() throws Exception {
+            service.setLockTimeout(0);
+            service.ownerOpen(ownerUuid, 1, owner);
+            Thread.sleep(5);
+
+            assertThat(service.renewLease(ownerUuid, 1, ownerUuid)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Renewed lock should outlive the original timeout")
+        void renewedLockOutlivesTimeout() throws Exception {
+            service.setLockTimeout(1);
+            service.ownerOpen(ownerUuid, 1, owner);
+            BagLockInfo original = service.getLockInfo(ownerUuid, 1).get();
+
+            Thread.sleep(600);
+            assertThat(service.renewLease(ownerUuid, 1, ownerUuid)).isTrue();
+            Thread.sleep(600);
+
+            assertThat(service.getLockInfo(ownerUuid, 1)).containsSame(original);
+        }
+
+        @Test
+        @DisplayName("Sweep should reschedule a renewed lock")
+        void sweepReschedulesRenewedLock() throws Exception {
+            service.setLockTimeout(1);
+            service.ownerOpen(ownerUuid, 1, owner);
+            Thread.sleep(600);
+            service.renewLease(ownerUuid, 1, ownerUuid);
+
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 1500);
+
+            assertThat(service.isLocked(ownerUuid, 1)).isTrue();
+            assertThat(service.getExpiredLockCount()).isZero();
+            assertThat(service.getPendingExpiryCount()).isEqualTo(1);
+        }
+    }
+
+    // ==================== sweepExpiredLocks ====================
+
+    @Nested
+    @DisplayName("sweepExpiredLocks")
+    class SweepExpiredLocks {
+
+        private Server mockServer;
+        private Field serverField;
+
+        @BeforeEach
+        void setUpServer() throws Exception {
+            mockServer = mock(Server.class);
+            serverField = Bukkit.class.getDeclaredField("server");
+            serverField.setAccessible(true); // NOPMD
+            serverField.set(null, mockServer);
+            when(owner.isOnline()).thenReturn(true);
+            when(admin.isOnline()).thenReturn(true);
+            when(mockServer.getPlayer(ownerUuid)).thenReturn(owner);
+            when(mockServer.getPlayer(adminUuid)).thenReturn(admin);
+        }
+
+        @AfterEach
+        void tearDownServer() throws Exception {
+            serverField.set(null, null);
+        }
+
+        @Test
+        @DisplayName("Should reclaim expired locks without any access")
+        void reclaimsExpiredLock() throws Exception {
+            service.setLockTimeout(0);
+            service.adminOpen(ownerUuid, 1, admin);
+            Thread.sleep(5);
+
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 2000);
+
+            assertThat(service.getActiveLockCount()).isZero();
+            assertThat(service.getExpiredLockCount()).isEqualTo(1);
+            assertThat(service.getPendingExpiryCount()).isZero();
+            assertThat(internalMap("locks")).isEmpty();
+            assertThat(internalMap("locksByHolder")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should renew the lock of a holder who still has the GUI open")
+        void renewsOpenHolder() throws Exception {
+            service.setLockTimeout(0);
+            service.adminOpen(ownerUuid, 1, admin);
+            service.viewOpened(ownerUuid, 1, adminUuid);
+            Thread.sleep(5);
+
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 2000);
+
+            assertThat(service.getActiveLockCount()).isEqualTo(1);
+            assertThat(service.getExpiredLockCount()).isZero();
+            assertThat(service.ownerOpen(ownerUuid, 1, owner).isSuccess()).isFalse();
+
+            service.viewClosed(ownerUuid, 1, adminUuid);
+            Thread.sleep(5);
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 4000);
+
+            assertThat(service.getActiveLockCount()).isZero();
+            verify(owner).sendMessage(contains("msg_bag_lock_freed"));
+        }
+
+        @Test
+        @DisplayName("Should keep locks that are not due")
+        void keepsLiveLock() {
+            service.ownerOpen(ownerUuid, 1, owner);
+
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 2000);
+
+            assertThat(service.isLocked(ownerUuid, 1)).isTrue();
+            assertThat(service.getActiveLockCount()).isEqualTo(1);
+            assertThat(service.getExpiredLockCount()).isZero();
+            assertThat(service.getPendingExpiryCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should reschedule when the timeout was raised")
+        void reschedulesAfterTimeoutRaised() throws Exception {
+            service.setLockTimeout(0);
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.setLockTimeout(300);
+
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 2000);
+
+            assertThat(service.isLocked(ownerUuid, 1)).isTrue();
+            assertThat(service.getPendingExpiryCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should notify a blocked owner when the admin lock expires")
+        void notifiesWaiterOnExpiry() throws Exception {
+            service.adminOpen(ownerUuid, 1, admin);
+            assertThat(service.ownerOpen(ownerUuid, 1, owner).isSuccess()).isFalse();
+
+            service.setLockTimeout(0);
+            Thread.sleep(5);
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 301_000);
+
+            assertThat(service.isLocked(ownerUuid, 1)).isFalse();
+            verify(owner).sendMessage(contains("msg_bag_lock_freed"));
+            assertThat(internalMap("waiters")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should notify a blocked owner when the admin releases")
+        void notifiesWaiterOnRelease() throws Exception {
+            service.adminOpen(ownerUuid, 1, admin);
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.release(ownerUuid, 1, adminUuid);
+
+            verify(owner, never()).sendMessage(contains("msg_bag_lock_freed"));
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 2000);
+
+            verify(owner).sendMessage(contains("msg_bag_lock_freed"));
+            assertThat(internalMap("waiters")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should keep the session of a viewer who still has the GUI open")
+        void keepsLiveSession() throws Exception {
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.adminOpen(ownerUuid, 1, admin);
+            service.viewOpened(ownerUuid, 1, adminUuid);
+            service.release(ownerUuid, 1, ownerUuid);
+
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 2000);
+
+            verify(admin).sendMessage(contains("msg_bag_lock_freed"));
+            assertThat(internalMap("readOnlySessions")).hasSize(1);
+            assertThat(service.isViewing(ownerUuid, 1, adminUuid)).isTrue();
+
+            // 所有者再次使用时仍会通知该管理员
+            service.ownerOpen(ownerUuid, 1, owner);
+            verify(admin).sendMessage(contains("msg_owner_started_using"));
+        }
+
+        @Test
+        @DisplayName("Should drop the session of an offline viewer")
+        void dropsOfflineSession() throws Exception {
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.adminOpen(ownerUuid, 1, admin);
+            service.viewOpened(ownerUuid, 1, adminUuid);
+            service.release(ownerUuid, 1, ownerUuid);
+            when(admin.isOnline()).thenReturn(false);
+
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 2000);
+
+            verify(admin, never()).sendMessage(contains("msg_bag_lock_freed"));
+            assertThat(internalMap("readOnlySessions")).isEmpty();
+            assertThat(internalMap("sessionsByViewer")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should drop the session of a viewer whose GUI is closed")
+        void dropsClosedSession() throws Exception {
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.adminOpen(ownerUuid, 1, admin);
+            service.viewOpened(ownerUuid, 1, adminUuid);
+            service.viewClosed(ownerUuid, 1, adminUuid);
+            service.release(ownerUuid, 1, ownerUuid);
+
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 2000);
+
+            assertThat(internalMap("readOnlySessions")).isEmpty();
+            assertThat(internalMap("sessionsByViewer")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should keep sessions when the page is locked again before the sweep")
+        void keepsSessionsWhenRelocked() throws Exception {
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.adminOpen(ownerUuid, 1, admin);
+            service.release(ownerUuid, 1, ownerUuid);
+            service.ownerOpen(ownerUuid, 1, owner);
+
+            service.sweepExpiredLocks(BagLockService.clockMillis() + 2000);
+
+            verify(admin, never()).sendMessage(contains("msg_bag_lock_freed"));
+            assertThat(internalMap("readOnlySessions")).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Should forget the waiter once it acquires the lock")
+        void acquiringClearsWaiter() throws Exception {
+            service.adminOpen(ownerUuid, 1, admin);
+            service.ownerOpen(ownerUuid, 1, owner);
+            service.release(ownerUuid, 1, adminUuid);
+            service.ownerOpen(ownerUuid, 1, owner);
+
+            assertThat(internalMap("waiters")).isEmpty();
+        }
+    }
+
     // ==================== Complex Scenarios ====================
 
     @Nested
@@ -0,0 +1,239 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("BagOpener Tests")
+class BagOpenerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger notices = new AtomicInteger();
+    private final List<Throwable> failures = new ArrayList<>();
+    private UUID ownerUuid;
+
+    @BeforeEach
+    void setUp() {
+        ownerUuid = UUID.randomUUID();
+    }
+
+    private BagOpener opener(CompletableFuture<Void> load) {
+        return new BagOpener((owner, page) -> load, () -> 250, now::get);
+    }
+
+    private void open(BagOpener opener) {
+        opener.open(ownerUuid, 1, notices::incrementAndGet, opened::incrementAndGet, failures::add);
+    }
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    // ==================== inline ====================
+
+    @Nested
+    @DisplayName("inline")
+    class Inline {
+
+        @Test
+        @DisplayName("Should open at once when the bag is already loaded")
+        void opensAtOnce() {
+            BagOpener opener = opener(CompletableFuture.completedFuture(null));
+
+            open(opener);
+
+            assertThat(opened.get()).isEqualTo(1);
+            assertThat(opener.getInlineOpenCount()).isEqualTo(1);
+            assertThat(opener.getAsyncOpenCount()).isZero();
+            assertThat(opener.getWaitingCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should report the cause when the load failed")
+        void reportsFailure() {
+            CompletableFuture<Void> load = new CompletableFuture<>();
+            load.completeExceptionally(new IllegalStateException("db down"));
+            BagOpener opener = opener(load);
+
+            open(opener);
+
+            assertThat(opened.get()).isZero();
+            assertThat(failures).hasSize(1);
+            assertThat(failures.get(0)).isInstanceOf(IllegalStateException.class);
+            assertThat(opener.getFailedCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should report loaders that throw")
+        void reportsThrowingLoader() {
+            BagOpener opener = new BagOpener((owner, page) -> {
+                throw new IllegalStateException("db down");
+            }, () -> 250, now::get);
+
+            open(opener);
+
+            assertThat(failures).hasSize(1);
+            assertThat(opened.get()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should record the main thread time of the open")
+        void recordsTime() {
+            BagOpener opener = new BagOpener((owner, page) -> {
+                advanceMillis(40);
+                return CompletableFuture.completedFuture(null);
+            }, () -> 250, now::get);
+
+            open(opener);
+
+            assertThat(opener.getAverageInlineOpenMillis()).isEqualTo(40.0);
+            assertThat(opener.getMaxInlineOpenMillis()).isEqualTo(40.0);
+        }
+    }
+
+    // ==================== async ====================
+
+    @Nested
+    @DisplayName("async")
+    class Async {
+
+        @Test
+        @DisplayName("Should open on the next tick after the load completes")
+        void opensOnTick() {
+            CompletableFuture<Void> load = new CompletableFuture<>();
+            BagOpener opener = opener(load);
+
+            open(opener);
+            opener.tick();
+            assertThat(opened.get()).isZero();
+            assertThat(opener.getWaitingCount()).isEqualTo(1);
+
+            load.complete(null);
+            assertThat(opened.get()).isZero();
+            opener.tick();
+
+            assertThat(opened.get()).isEqualTo(1);
+            assertThat(opener.getAsyncOpenCount()).isEqualTo(1);
+            assertThat(opener.getWaitingCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should run completions posted from another thread")
+        void completesFromOtherThread() throws Exception {
+            CompletableFuture<Void> load = new CompletableFuture<>();
+            BagOpener opener = opener(load);
+
+            open(opener);
+            Thread io = new Thread(() -> load.complete(null));
+            io.start();
+            io.join(5000);
+            opener.tick();
+
+            assertThat(opened.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should show the loading notice once after the threshold")
+        void showsNoticeOnce() {
+            CompletableFuture<Void> load = new CompletableFuture<>();
+            BagOpener opener = opener(load);
+
+            open(opener);
+            advanceMillis(200);
+            opener.tick();
+            assertThat(notices.get()).isZero();
+
+            advanceMillis(100);
+            opener.tick();
+            opener.tick();
+            assertThat(notices.get()).isEqualTo(1);
+
+            load.complete(null);
+            opener.tick();
+            assertThat(opened.get()).isEqualTo(1);
+            assertThat(opener.getNoticeCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not show the notice when the load is fast")
+        void skipsNoticeWhenFast() {
+            CompletableFuture<Void> load = new CompletableFuture<>();
+            BagOpener opener = opener(load);
+
+            open(opener);
+            load.complete(null);
+            advanceMillis(1000);
+            opener.tick();
+
+            assertThat(opened.get()).isEqualTo(1);
+            assertThat(notices.get()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should report failed loads on the next tick")
+        void reportsFailure() {
+            CompletableFuture<Void> load = new CompletableFuture<>();
+            BagOpener opener = opener(load);
+
+            open(opener);
+            load.completeExceptionally(new IllegalStateException("db down"));
+            opener.tick();
+
+            assertThat(opened.get()).isZero();
+            assertThat(failures).hasSize(1);
+            assertThat(failures.get(0)).isInstanceOf(IllegalStateException.class);
+            assertThat(opener.getWaitingCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should count only main thread time, not the load")
+        void recordsMainThreadTime() {
+            CompletableFuture<Void> load = new CompletableFuture<>();
+            BagOpener opener = new BagOpener((owner, page) -> {
+                advanceMillis(1);
+                return load;
+            }, () -> 250, now::get);
+
+            opener.open(ownerUuid, 1, () -> { }, () -> advanceMillis(2), failures::add);
+            advanceMillis(500);
+            load.complete(null);
+            opener.tick();
+
+            assertThat(opener.getAverageAsyncOpenMillis()).isEqualTo(3.0);
+            assertThat(opener.getMaxAsyncOpenMillis()).isEqualTo(3.0);
+        }
+
+        @Test
+        @DisplayName("Should keep later completions when one callback throws")
+        void keepsLaterCompletions() {
+            CompletableFuture<Void> first = new CompletableFuture<>();
+            CompletableFuture<Void> second = new CompletableFuture<>();
+            List<CompletableFuture<Void>> loads = new ArrayList<>();
+            loads.add(first);
+            loads.add(second);
+            BagOpener opener = new BagOpener((owner, page) -> loads.remove(0), () -> 250, now::get);
+
+            opener.open(ownerUuid, 1, () -> { }, () -> {
+                throw new IllegalStateException("gui");
+            }, failures::add);
+            open(opener);
+            first.complete(null);
+            second.complete(null);
+
+            assertThatThrownBy(opener::tick).isInstanceOf(IllegalStateException.class);
+            opener.tick();
+
+            assertThat(opened.get()).isEqualTo(1);
+            assertThat(opener.getAsyncOpenCount()).isEqualTo(2);
+        }
+    }
+}
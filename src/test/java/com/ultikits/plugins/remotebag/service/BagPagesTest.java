@@ -0,0 +1,259 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("BagPages Tests")
+class BagPagesTest {
+
+    private static PageSnapshot page(long version) {
+        return PageSnapshot.wrap(new ItemStack[54], version);
+    }
+
+    @Nested
+    @DisplayName("Basic Operations")
+    class BasicOperations {
+
+        @Test
+        @DisplayName("Should store and replace pages by number")
+        void putsPages() {
+            BagPages pages = new BagPages();
+            PageSnapshot first = page(1);
+            PageSnapshot second = page(2);
+
+            assertThat(pages.put(3, first)).isNull();
+            assertThat(pages.put(3, second)).isSameAs(first);
+
+            assertThat(pages.get(3)).isSameAs(second);
+            assertThat(pages.contains(3)).isTrue();
+            assertThat(pages.contains(2)).isFalse();
+            assertThat(pages.size()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should grow for large page numbers")
+        void growsArray() {
+            BagPages pages = new BagPages();
+
+            pages.put(1, page(1));
+            pages.put(100, page(2));
+
+            assertThat(pages.get(100)).isNotNull();
+            assertThat(pages.size()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should keep the existing page on putIfAbsent")
+        void putIfAbsentKeepsExisting() {
+            BagPages pages = new BagPages();
+            PageSnapshot first = page(1);
+
+            assertThat(pages.putIfAbsent(1, first)).isNull();
+            assertThat(pages.putIfAbsent(1, page(2))).isSameAs(first);
+            assertThat(pages.get(1)).isSameAs(first);
+        }
+
+        @Test
+        @DisplayName("Should replace only the expected snapshot")
+        void replacesExpected() {
+            BagPages pages = new BagPages();
+            PageSnapshot first = page(1);
+            PageSnapshot second = page(2);
+            pages.put(1, first);
+
+            assertThat(pages.replace(1, second, page(3))).isFalse();
+            assertThat(pages.replace(1, first, second)).isTrue();
+            assertThat(pages.replace(2, null, page(4))).isFalse();
+            assertThat(pages.get(1)).isSameAs(second);
+        }
+
+        @Test
+        @DisplayName("Should remove pages")
+        void removesPages() {
+            BagPages pages = new BagPages();
+            PageSnapshot first = page(1);
+            pages.put(1, first);
+
+            assertThat(pages.remove(1)).isSameAs(first);
+            assertThat(pages.remove(1)).isNull();
+            assertThat(pages.remove(9999)).isNull();
+            assertThat(pages.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should return null for pages out of range")
+        void getsOutOfRange() {
+            BagPages pages = new BagPages();
+
+            assertThat(pages.get(-1)).isNull();
+            assertThat(pages.get(BagPages.MAX_PAGE + 1)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should reject pages out of range")
+        void rejectsOutOfRange() {
+            BagPages pages = new BagPages();
+
+            assertThatThrownBy(() -> pages.put(-1, page(1)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> pages.put(BagPages.MAX_PAGE + 1, page(1)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(pages.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should visit pages in order")
+        void visitsInOrder() {
+            BagPages pages = new BagPages();
+            pages.put(5, page(1));
+            pages.put(1, page(2));
+            pages.put(3, page(3));
+
+            List<Integer> visited = new ArrayList<>();
+            pages.forEach((page, snapshot) -> visited.add(page));
+
+            assertThat(visited).containsExactly(1, 3, 5);
+        }
+
+        @Test
+        @DisplayName("Snapshot should not see later changes")
+        void snapshotIsStable() {
+            BagPages pages = new BagPages();
+            PageSnapshot first = page(1);
+            pages.put(1, first);
+
+            BagPages.View view = pages.snapshot();
+            pages.put(1, page(2));
+            pages.put(2, page(3));
+            pages.remove(1);
+
+            assertThat(view.size()).isEqualTo(1);
+            assertThat(view.get(1)).isSameAs(first);
+            assertThat(view.get(2)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Stress")
+    class Stress {
+
+        private static final int PAGES = 32;
+        private static final int WRITERS = 4;
+        private static final int READERS = 4;
+
+        @Test
+        @DisplayName("Concurrent writers and readers should see consistent snapshots")
+        void hammersFromManyThreads() throws Exception {
+            BagPages pages = new BagPages();
+            AtomicLong version = new AtomicLong();
+            AtomicBoolean running = new AtomicBoolean(true);
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+            List<Future<?>> tasks = new ArrayList<>();
+
+            try {
+                for (int i = 0; i < WRITERS; i++) {
+                    tasks.add(executor.submit(() -> {
+                        start.await();
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int n = 0; n < 20_000; n++) {
+                            int page = 1 + random.nextInt(PAGES);
+                            int op = random.nextInt(10);
+                            if (op == 0) {
+                                pages.remove(page);
+                            } else if (op == 1) {
+                                pages.putIfAbsent(page, page(version.incrementAndGet()));
+                            } else if (op == 2) {
+                                PageSnapshot current = pages.get(page);
+                                pages.replace(page, current, page(version.incrementAndGet()));
+                            } else {
+                                pages.put(page, page(version.incrementAndGet()));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (int i = 0; i < READERS; i++) {
+                    tasks.add(executor.submit(() -> {
+                        start.await();
+                        while (running.get()) {
+                            BagPages.View view = pages.snapshot();
+                            int[] counted = new int[1];
+                            int[] last = {0};
+                            view.forEach((page, snapshot) -> {
+                                assertThat(page).isGreaterThan(last[0]).isLessThanOrEqualTo(PAGES);
+                                assertThat(view.get(page)).isSameAs(snapshot);
+                                last[0] = page;
+                                counted[0]++;
+                            });
+                            assertThat(counted[0]).isEqualTo(view.size());
+                        }
+                        return null;
+                    }));
+                }
+
+                start.countDown();
+                for (int i = 0; i < WRITERS; i++) {
+                    tasks.get(i).get(30, TimeUnit.SECONDS);
+                }
+                running.set(false);
+                for (Future<?> task : tasks) {
+                    task.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                running.set(false);
+                executor.shutdownNow();
+            }
+
+            int[] remaining = new int[1];
+            pages.forEach((page, snapshot) -> remaining[0]++);
+            assertThat(pages.size()).isEqualTo(remaining[0]);
+        }
+
+        @Test
+        @DisplayName("Concurrent puts to distinct pages should not be lost")
+        void keepsAllPuts() throws Exception {
+            BagPages pages = new BagPages();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+            List<Future<?>> tasks = new ArrayList<>();
+
+            try {
+                for (int i = 0; i < WRITERS; i++) {
+                    int offset = i;
+                    tasks.add(executor.submit(() -> {
+                        start.await();
+                        for (int page = 1 + offset; page <= 400; page += WRITERS) {
+                            pages.put(page, page(page));
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> task : tasks) {
+                    task.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertThat(pages.size()).isEqualTo(400);
+            for (int page = 1; page <= 400; page++) {
+                assertThat(pages.get(page).getVersion()).isEqualTo(page);
+            }
+        }
+    }
+}
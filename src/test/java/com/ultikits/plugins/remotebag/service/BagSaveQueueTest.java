@@ -0,0 +1,305 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("BagSaveQueue Tests")
+class BagSaveQueueTest {
+
+    private List<Map<Integer, ItemStack[]>> written;
+    private BagSaveQueue queue;
+    private UUID ownerUuid;
+
+    @BeforeEach
+    void setUp() {
+        written = Collections.synchronizedList(new ArrayList<>());
+        queue = new BagSaveQueue((owner, pages) -> written.add(pages), 16);
+        ownerUuid = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Block the lane of the owner until the returned latch is released.
+     */
+    private CountDownLatch blockIoThread() {
+        CountDownLatch latch = new CountDownLatch(1);
+        queue.submit(ownerUuid, () -> {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return latch;
+    }
+
+    // ==================== enqueue ====================
+
+    @Nested
+    @DisplayName("enqueue")
+    class Enqueue {
+
+        @Test
+        @DisplayName("Should write enqueued snapshot on I/O thread")
+        void writesSnapshot() throws Exception {
+            ItemStack[] snapshot = new ItemStack[54];
+
+            CompletableFuture<Boolean> result = queue.enqueue(ownerUuid, 1, snapshot);
+
+            assertThat(result.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(written).hasSize(1);
+            assertThat(written.get(0)).containsOnlyKeys(1).containsEntry(1, snapshot);
+            assertThat(queue.getWrittenCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should coalesce repeated saves of the same page")
+        void coalescesSamePage() throws Exception {
+            CountDownLatch latch = blockIoThread();
+            ItemStack[] first = new ItemStack[54];
+            ItemStack[] second = new ItemStack[54];
+
+            CompletableFuture<Boolean> r1 = queue.enqueue(ownerUuid, 1, first);
+            CompletableFuture<Boolean> r2 = queue.enqueue(ownerUuid, 1, second);
+            latch.countDown();
+
+            assertThat(r1).isSameAs(r2);
+            assertThat(r2.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(written).hasSize(1);
+            assertThat(written.get(0)).containsEntry(1, second);
+            assertThat(queue.getCoalescedCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should batch pending pages of the same player")
+        void batchesSamePlayer() throws Exception {
+            CountDownLatch latch = blockIoThread();
+
+            CompletableFuture<Boolean> r1 = queue.enqueue(ownerUuid, 1, new ItemStack[54]);
+            CompletableFuture<Boolean> r2 = queue.enqueue(ownerUuid, 2, new ItemStack[54]);
+            latch.countDown();
+
+            assertThat(r1).isSameAs(r2);
+            assertThat(r1.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(written).hasSize(1);
+            assertThat(written.get(0)).containsOnlyKeys(1, 2);
+            assertThat(queue.getWrittenCount()).isEqualTo(2);
+            assertThat(queue.getBatchCount()).isEqualTo(1);
+            assertThat(queue.getCoalescedCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should write different players in separate batches")
+        void separatesPlayers() {
+            queue.enqueue(ownerUuid, 1, new ItemStack[54]);
+            queue.enqueue(UUID.randomUUID(), 1, new ItemStack[54]);
+
+            assertThat(queue.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(written).hasSize(2);
+            assertThat(queue.getBatchCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should write other players while one lane is blocked")
+        void writesPlayersInParallel() throws Exception {
+            BagSaveQueue shared = new BagSaveQueue((owner, pages) -> written.add(pages), 16,
+                    new BagLanes(2, "BagSaveQueueTest"));
+            try {
+                CountDownLatch latch = new CountDownLatch(1);
+                shared.submit(ownerUuid, () -> {
+                    try {
+                        latch.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                CompletableFuture<Boolean> blocked = shared.enqueue(ownerUuid, 1, new ItemStack[54]);
+
+                CompletableFuture<Boolean> other = shared.enqueue(UUID.randomUUID(), 1, new ItemStack[54]);
+
+                assertThat(other.get(5, TimeUnit.SECONDS)).isTrue();
+                assertThat(blocked).isNotDone();
+                latch.countDown();
+                assertThat(blocked.get(5, TimeUnit.SECONDS)).isTrue();
+            } finally {
+                shared.shutdown(5, TimeUnit.SECONDS);
+            }
+        }
+
+        @Test
+        @DisplayName("Should start a new batch once the previous one is taken")
+        void newBatchAfterDrain() throws Exception {
+            CompletableFuture<Boolean> r1 = queue.enqueue(ownerUuid, 1, new ItemStack[54]);
+            r1.get(5, TimeUnit.SECONDS);
+
+            CompletableFuture<Boolean> r2 = queue.enqueue(ownerUuid, 1, new ItemStack[54]);
+
+            assertThat(r2).isNotSameAs(r1);
+            assertThat(r2.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(written).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("Should track depth and peak depth")
+        void tracksDepth() {
+            CountDownLatch latch = blockIoThread();
+
+            queue.enqueue(ownerUuid, 1, new ItemStack[54]);
+            queue.enqueue(ownerUuid, 2, new ItemStack[54]);
+
+            assertThat(queue.getDepth()).isEqualTo(2);
+            latch.countDown();
+            queue.awaitIdle(5, TimeUnit.SECONDS);
+
+            assertThat(queue.getDepth()).isZero();
+            assertThat(queue.getPeakDepth()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should reject new pages without blocking when queue is full")
+        void rejectsWhenFull() throws Exception {
+            BagSaveQueue small = new BagSaveQueue((owner, pages) -> true, 1);
+            try {
+                CountDownLatch latch = new CountDownLatch(1);
+                small.submit(ownerUuid, () -> {
+                    try {
+                        latch.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                CompletableFuture<Boolean> accepted = small.enqueue(ownerUuid, 1, new ItemStack[54]);
+
+                CompletableFuture<Boolean> rejected = small.enqueue(ownerUuid, 2, new ItemStack[54]);
+
+                assertThat(rejected).isCompletedExceptionally();
+                assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+                assertThat(small.getRejectedCount()).isEqualTo(1);
+                // 已排队的页面仍可合并，无需额外许可
+                assertThat(small.enqueue(ownerUuid, 1, new ItemStack[54])).isSameAs(accepted);
+
+                latch.countDown();
+                assertThat(accepted.get(5, TimeUnit.SECONDS)).isTrue();
+            } finally {
+                small.shutdown(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    // ==================== failures ====================
+
+    @Nested
+    @DisplayName("failures")
+    class Failures {
+
+        @Test
+        @DisplayName("Should complete with false when writer reports failure")
+        void completesFalse() throws Exception {
+            BagSaveQueue failing = new BagSaveQueue((owner, pages) -> false, 16);
+            try {
+                CompletableFuture<Boolean> result = failing.enqueue(ownerUuid, 1, new ItemStack[54]);
+
+                assertThat(result.get(5, TimeUnit.SECONDS)).isFalse();
+                assertThat(failing.getFailedCount()).isEqualTo(1);
+            } finally {
+                failing.shutdown(5, TimeUnit.SECONDS);
+            }
+        }
+
+        @Test
+        @DisplayName("Should complete exceptionally when writer throws")
+        void completesExceptionally() {
+            BagSaveQueue failing = new BagSaveQueue((owner, pages) -> {
+                throw new IllegalStateException("db down");
+            }, 16);
+            try {
+                CompletableFuture<Boolean> result = failing.enqueue(ownerUuid, 1, new ItemStack[54]);
+
+                assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                        .hasCauseInstanceOf(IllegalStateException.class);
+                assertThat(failing.hasPending(ownerUuid)).isFalse();
+            } finally {
+                failing.shutdown(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    // ==================== hasPending / shutdown ====================
+
+    @Nested
+    @DisplayName("hasPending and shutdown")
+    class PendingAndShutdown {
+
+        @Test
+        @DisplayName("Should report pending writes until written")
+        void reportsPending() {
+            CountDownLatch latch = blockIoThread();
+
+            queue.enqueue(ownerUuid, 1, new ItemStack[54]);
+
+            assertThat(queue.hasPending(ownerUuid)).isTrue();
+            assertThat(queue.hasPending(UUID.randomUUID())).isFalse();
+            latch.countDown();
+            queue.awaitIdle(5, TimeUnit.SECONDS);
+            assertThat(queue.hasPending(ownerUuid)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should flush pending writes on shutdown")
+        void flushesOnShutdown() {
+            CountDownLatch latch = blockIoThread();
+            queue.enqueue(ownerUuid, 1, new ItemStack[54]);
+            queue.enqueue(ownerUuid, 2, new ItemStack[54]);
+            latch.countDown();
+
+            boolean finished = queue.shutdown(5, TimeUnit.SECONDS);
+
+            assertThat(finished).isTrue();
+            assertThat(written).hasSize(1);
+            assertThat(written.get(0)).containsOnlyKeys(1, 2);
+        }
+
+        @Test
+        @DisplayName("Should hand over batches that were not started")
+        void abandonsWaitingBatches() {
+            CountDownLatch latch = blockIoThread();
+            CompletableFuture<Boolean> result = queue.enqueue(ownerUuid, 1, new ItemStack[54]);
+            queue.enqueue(ownerUuid, 2, new ItemStack[54]);
+
+            Map<UUID, Map<Integer, ItemStack[]>> abandoned = queue.abandon();
+            latch.countDown();
+            queue.shutdown(5, TimeUnit.SECONDS);
+
+            assertThat(abandoned).containsOnlyKeys(ownerUuid);
+            assertThat(abandoned.get(ownerUuid)).containsOnlyKeys(1, 2);
+            assertThat(result.join()).isFalse();
+            assertThat(written).isEmpty();
+            assertThat(queue.getDepth()).isZero();
+            assertThat(queue.hasPending(ownerUuid)).isFalse();
+        }
+
+        @Test
+        @DisplayName("awaitIdle should return false after shutdown")
+        void awaitIdleAfterShutdown() {
+            queue.shutdown(5, TimeUnit.SECONDS);
+
+            assertThat(queue.awaitIdle(1, TimeUnit.SECONDS)).isFalse();
+        }
+    }
+}
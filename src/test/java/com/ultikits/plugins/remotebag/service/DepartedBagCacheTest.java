@@ -0,0 +1,212 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("DepartedBagCache Tests")
+class DepartedBagCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private DepartedBagCache<List<Integer>> cache;
+    private UUID ownerUuid;
+
+    @BeforeEach
+    void setUp() {
+        cache = new DepartedBagCache<>(100, 1000, now::get);
+        ownerUuid = UUID.randomUUID();
+    }
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    // ==================== put / get ====================
+
+    @Nested
+    @DisplayName("put / get")
+    class PutGet {
+
+        @Test
+        @DisplayName("Should return cached bags and count hits and misses")
+        void countsHitsAndMisses() {
+            List<Integer> bag = new ArrayList<>();
+            cache.put(ownerUuid, bag, 10);
+
+            assertThat(cache.get(ownerUuid)).isSameAs(bag);
+            assertThat(cache.get(UUID.randomUUID())).isNull();
+            assertThat(cache.getHitCount()).isEqualTo(1);
+            assertThat(cache.getMissCount()).isEqualTo(1);
+            assertThat(cache.getSize()).isEqualTo(1);
+            assertThat(cache.getBytes()).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("Should replace the previous bag of the same player")
+        void replacesPrevious() {
+            List<Integer> first = new ArrayList<>();
+            List<Integer> second = new ArrayList<>();
+            cache.put(ownerUuid, first, 30);
+            cache.put(ownerUuid, second, 20);
+
+            assertThat(cache.get(ownerUuid)).isSameAs(second);
+            assertThat(cache.getSize()).isEqualTo(1);
+            assertThat(cache.getBytes()).isEqualTo(20);
+        }
+
+        @Test
+        @DisplayName("Should reject bags larger than the cache")
+        void rejectsOversized() {
+            cache.put(ownerUuid, new ArrayList<>(), 10);
+
+            assertThat(cache.put(ownerUuid, new ArrayList<>(), 101)).isFalse();
+            assertThat(cache.get(ownerUuid)).isNull();
+            assertThat(cache.getBytes()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should be disabled with a size of zero")
+        void disabledWhenZero() {
+            DepartedBagCache<List<Integer>> disabled = new DepartedBagCache<>(0, 1000, now::get);
+
+            assertThat(disabled.isEnabled()).isFalse();
+            assertThat(disabled.put(ownerUuid, new ArrayList<>(), 1)).isFalse();
+            assertThat(cache.isEnabled()).isTrue();
+        }
+    }
+
+    // ==================== limits ====================
+
+    @Nested
+    @DisplayName("limits")
+    class Limits {
+
+        @Test
+        @DisplayName("Should evict the earliest departed bags when over the size")
+        void evictsOldest() {
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+            cache.put(first, new ArrayList<>(), 40);
+            cache.put(second, new ArrayList<>(), 40);
+            cache.put(ownerUuid, new ArrayList<>(), 40);
+
+            assertThat(cache.get(first)).isNull();
+            assertThat(cache.get(second)).isNotNull();
+            assertThat(cache.get(ownerUuid)).isNotNull();
+            assertThat(cache.getBytes()).isEqualTo(80);
+            assertThat(cache.getEvictedCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not return expired bags")
+        void expiresOnGet() {
+            cache.put(ownerUuid, new ArrayList<>(), 10);
+            advanceMillis(999);
+            assertThat(cache.get(ownerUuid)).isNotNull();
+
+            advanceMillis(1);
+            assertThat(cache.get(ownerUuid)).isNull();
+            assertThat(cache.getExpiredCount()).isEqualTo(1);
+            assertThat(cache.getMissCount()).isEqualTo(1);
+            assertThat(cache.getBytes()).isZero();
+        }
+
+        @Test
+        @DisplayName("expire should remove only expired bags")
+        void expiresInOrder() {
+            UUID early = UUID.randomUUID();
+            cache.put(early, new ArrayList<>(), 10);
+            advanceMillis(500);
+            cache.put(ownerUuid, new ArrayList<>(), 10);
+            advanceMillis(600);
+
+            assertThat(cache.expire()).isEqualTo(1);
+            assertThat(cache.getSize()).isEqualTo(1);
+            assertThat(cache.get(ownerUuid)).isNotNull();
+            assertThat(cache.getExpiredCount()).isEqualTo(1);
+        }
+    }
+
+    // ==================== update / remove ====================
+
+    @Nested
+    @DisplayName("update / remove")
+    class UpdateRemove {
+
+        @Test
+        @DisplayName("update should change cached bags only")
+        void updatesCachedBag() {
+            List<Integer> bag = new ArrayList<>();
+            cache.put(ownerUuid, bag, 10);
+
+            assertThat(cache.update(ownerUuid, b -> b.add(3))).isTrue();
+            assertThat(cache.update(UUID.randomUUID(), b -> b.add(4))).isFalse();
+            assertThat(bag).containsExactly(3);
+        }
+
+        @Test
+        @DisplayName("remove should not remove a bag that was replaced")
+        void removesOnlySameBag() {
+            List<Integer> first = new ArrayList<>();
+            List<Integer> second = new ArrayList<>();
+            cache.put(ownerUuid, first, 10);
+            cache.put(ownerUuid, second, 10);
+
+            assertThat(cache.remove(ownerUuid, first)).isFalse();
+            assertThat(cache.remove(ownerUuid, second)).isTrue();
+            assertThat(cache.getSize()).isZero();
+            assertThat(cache.getBytes()).isZero();
+        }
+
+        @Test
+        @DisplayName("clear should remove all bags")
+        void clears() {
+            cache.put(ownerUuid, new ArrayList<>(), 10);
+            cache.clear();
+
+            assertThat(cache.getSize()).isZero();
+            assertThat(cache.getBytes()).isZero();
+        }
+    }
+
+    // ==================== compression ====================
+
+    @Nested
+    @DisplayName("compression")
+    class Compression {
+
+        @Test
+        @DisplayName("Should restore compressed contents")
+        void roundTrips() {
+            StringBuilder contents = new StringBuilder();
+            for (int i = 0; i < 500; i++) {
+                contents.append("{\"type\":\"DIAMOND_SWORD\",\"amount\":1,\"slot\":").append(i).append("},");
+            }
+
+            byte[] compressed = DepartedBagCache.compress(contents.toString());
+
+            assertThat(compressed.length).isLessThan(contents.length() / 4);
+            assertThat(DepartedBagCache.decompress(compressed)).isEqualTo(contents.toString());
+            assertThat(DepartedBagCache.decompress(DepartedBagCache.compress(""))).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should reject corrupt contents")
+        void rejectsCorrupt() {
+            byte[] compressed = DepartedBagCache.compress("some bag contents");
+            byte[] truncated = new byte[compressed.length / 2];
+            System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+
+            assertThatThrownBy(() -> DepartedBagCache.decompress(truncated))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> DepartedBagCache.decompress(new byte[]{1, 2, 3}))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+}
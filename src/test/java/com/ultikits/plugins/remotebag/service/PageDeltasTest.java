@@ -0,0 +1,153 @@
+package com.ultikits.plugins.remotebag.service;
+
+import com.ultikits.plugins.remotebag.entity.RemoteBagDeltaData;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PageDeltas Tests")
+class PageDeltasTest {
+
+    private final UUID playerUuid = UUID.randomUUID();
+
+    // Stands in for the codec: contents are a key into this map
+    private final Map<String, ItemStack[]> encoded = new HashMap<>();
+    private final List<String> decoded = new ArrayList<>();
+    private final Function<String, ItemStack[]> decoder = contents -> {
+        decoded.add(contents);
+        return encoded.get(contents);
+    };
+
+    private RemoteBagDeltaData delta(long seq, ItemStack[] current, int... slots) {
+        String contents = "delta-" + seq;
+        encoded.put(contents, PageDeltas.pick(current, slots));
+        return RemoteBagDeltaData.create(playerUuid, 1, seq, PageDeltas.formatSlots(slots), contents);
+    }
+
+    @Nested
+    @DisplayName("Diff")
+    class Diff {
+
+        @Test
+        @DisplayName("Should list changed and cleared slots")
+        void listsChangedSlots() {
+            ItemStack stone = mock(ItemStack.class);
+            ItemStack dirt = mock(ItemStack.class);
+            ItemStack[] base = new ItemStack[54];
+            base[0] = stone;
+            base[5] = dirt;
+            ItemStack[] current = base.clone();
+            current[5] = null;
+            current[53] = mock(ItemStack.class);
+
+            assertThat(PageDeltas.changedSlots(base, current)).containsExactly(5, 53);
+            assertThat(PageDeltas.changedSlots(base, base.clone())).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should not diff pages of different sizes")
+        void differentSizes() {
+            assertThat(PageDeltas.changedSlots(new ItemStack[27], new ItemStack[54])).isNull();
+        }
+
+        @Test
+        @DisplayName("Should pick only the given slots")
+        void picksSlots() {
+            ItemStack[] items = new ItemStack[9];
+            Arrays.fill(items, mock(ItemStack.class));
+
+            ItemStack[] picked = PageDeltas.pick(items, new int[]{2, 7});
+
+            assertThat(picked).hasSize(9);
+            assertThat(Arrays.stream(picked).filter(item -> item != null).count()).isEqualTo(2);
+            assertThat(picked[2]).isSameAs(items[2]);
+        }
+    }
+
+    @Nested
+    @DisplayName("Slot Lists")
+    class SlotLists {
+
+        @Test
+        @DisplayName("Should round trip slot lists")
+        void roundTrip() {
+            int[] slots = {0, 17, 53};
+
+            assertThat(PageDeltas.formatSlots(slots)).isEqualTo("0,17,53");
+            assertThat(PageDeltas.parseSlots("0,17,53")).containsExactly(slots);
+        }
+
+        @Test
+        @DisplayName("Should skip malformed slots")
+        void skipsMalformed() {
+            assertThat(PageDeltas.parseSlots("1,x,3")).containsExactly(1, 3);
+            assertThat(PageDeltas.parseSlots("")).isEmpty();
+            assertThat(PageDeltas.parseSlots(null)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Merge")
+    class Merge {
+
+        @Test
+        @DisplayName("Should apply deltas in sequence order")
+        void appliesInOrder() {
+            ItemStack first = mock(ItemStack.class);
+            ItemStack second = mock(ItemStack.class);
+            ItemStack kept = mock(ItemStack.class);
+            ItemStack[] snapshot = new ItemStack[54];
+            snapshot[0] = kept;
+            snapshot[9] = mock(ItemStack.class);
+
+            ItemStack[] v1 = new ItemStack[54];
+            v1[1] = first;
+            ItemStack[] v2 = new ItemStack[54];
+            v2[1] = second;
+            List<RemoteBagDeltaData> deltas = Arrays.asList(delta(1, v1, 1), delta(2, v2, 1, 9));
+
+            PageDeltas.merge(snapshot, deltas, decoder);
+
+            assertThat(snapshot[0]).isSameAs(kept);
+            assertThat(snapshot[1]).isSameAs(second);
+            assertThat(snapshot[9]).isNull();
+        }
+
+        @Test
+        @DisplayName("Should not decode deltas that were overwritten")
+        void skipsOverwritten() {
+            ItemStack[] page = new ItemStack[54];
+            page[4] = mock(ItemStack.class);
+            List<RemoteBagDeltaData> deltas = Arrays.asList(delta(1, page, 4), delta(2, page, 4), delta(3, page, 4));
+
+            int count = PageDeltas.merge(new ItemStack[54], deltas, decoder);
+
+            assertThat(count).isEqualTo(1);
+            assertThat(decoded).containsExactly("delta-3");
+        }
+
+        @Test
+        @DisplayName("Should ignore slots outside the page")
+        void ignoresOutOfRange() {
+            ItemStack[] page = new ItemStack[54];
+            page[40] = mock(ItemStack.class);
+            ItemStack[] small = new ItemStack[27];
+
+            PageDeltas.merge(small, Arrays.asList(delta(1, page, 40)), decoder);
+
+            assertThat(small).containsOnlyNulls();
+            assertThat(decoded).isEmpty();
+        }
+    }
+}
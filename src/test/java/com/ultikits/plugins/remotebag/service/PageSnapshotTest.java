@@ -0,0 +1,134 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PageSnapshot Tests")
+class PageSnapshotTest {
+
+    @Test
+    @DisplayName("Should copy the array and items on commit")
+    void copiesContents() {
+        ItemStack[] contents = new ItemStack[54];
+        contents[0] = new ItemStack(Material.STONE, 64);
+
+        PageSnapshot snapshot = PageSnapshot.copyOf(contents, 1L);
+        contents[0].setAmount(1);
+        contents[1] = new ItemStack(Material.DIRT, 1);
+
+        assertThat(snapshot.size()).isEqualTo(54);
+        assertThat(snapshot.getItem(0)).isNotSameAs(contents[0]);
+        assertThat(snapshot.getItem(0).getAmount()).isEqualTo(64);
+        assertThat(snapshot.getItem(1)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should treat null contents as an empty page")
+    void copiesNull() {
+        PageSnapshot snapshot = PageSnapshot.copyOf(null, 3L);
+
+        assertThat(snapshot.size()).isZero();
+        assertThat(snapshot.toArray()).isEmpty();
+        assertThat(snapshot.getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Should wrap decoded contents without copying")
+    void wrapsContents() {
+        ItemStack[] items = new ItemStack[27];
+
+        PageSnapshot snapshot = PageSnapshot.wrap(items, 7L);
+
+        assertThat(snapshot.items()).isSameAs(items);
+        assertThat(snapshot.getVersion()).isEqualTo(7L);
+    }
+
+    @Test
+    @DisplayName("toArray should return a new array each call")
+    void toArrayCopiesArray() {
+        ItemStack[] items = new ItemStack[9];
+        items[0] = new ItemStack(Material.STONE, 1);
+        PageSnapshot snapshot = PageSnapshot.wrap(items, 1L);
+
+        ItemStack[] copy = snapshot.toArray();
+        copy[0] = null;
+
+        assertThat(copy).isNotSameAs(items);
+        assertThat(snapshot.getItem(0)).isSameAs(items[0]);
+    }
+
+    @Test
+    @DisplayName("Should not decode encoded contents until first access")
+    void decodesOnFirstAccess() {
+        AtomicInteger decodes = new AtomicInteger();
+        ItemStack[] items = new ItemStack[54];
+
+        PageSnapshot snapshot = PageSnapshot.encoded("raw", data -> {
+            decodes.incrementAndGet();
+            assertThat(data).isEqualTo("raw");
+            return items;
+        }, 5L);
+
+        assertThat(snapshot.isDecoded()).isFalse();
+        assertThat(snapshot.encodedContents()).isEqualTo("raw");
+        assertThat(snapshot.getVersion()).isEqualTo(5L);
+        assertThat(decodes.get()).isZero();
+
+        assertThat(snapshot.size()).isEqualTo(54);
+        assertThat(snapshot.items()).isSameAs(items);
+        snapshot.getItem(0);
+        snapshot.toArray();
+
+        assertThat(decodes.get()).isEqualTo(1);
+        assertThat(snapshot.isDecoded()).isTrue();
+        assertThat(snapshot.encodedContents()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should decode once when read from several threads")
+    void decodesOnceConcurrently() throws Exception {
+        AtomicInteger decodes = new AtomicInteger();
+        PageSnapshot snapshot = PageSnapshot.encoded("raw", data -> {
+            decodes.incrementAndGet();
+            return new ItemStack[54];
+        }, 1L);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                snapshot.items();
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        start.countDown();
+        for (Thread reader : readers) {
+            reader.join(5000);
+        }
+
+        assertThat(decodes.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Decoded snapshots should have no encoded contents")
+    void decodedHasNoEncoding() {
+        PageSnapshot snapshot = PageSnapshot.wrap(new ItemStack[9], 1L);
+
+        assertThat(snapshot.isDecoded()).isTrue();
+        assertThat(snapshot.encodedContents()).isNull();
+    }
+}
@@ -0,0 +1,129 @@
+package com.ultikits.plugins.remotebag.service;
+
+import com.ultikits.plugins.remotebag.entity.PageSummary;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PageStats Tests")
+class PageStatsTest {
+
+    private static ItemStack item(Material type, int amount) {
+        ItemStack item = mock(ItemStack.class);
+        when(item.getType()).thenReturn(type);
+        when(item.getAmount()).thenReturn(amount);
+        return item;
+    }
+
+    @Test
+    @DisplayName("Should count items, occupied and free slots")
+    void countsContents() {
+        ItemStack[] items = new ItemStack[54];
+        items[0] = item(Material.STONE, 64);
+        items[3] = item(Material.DIRT, 32);
+        items[4] = item(Material.AIR, 1);
+
+        PageStats stats = PageStats.of(items);
+
+        assertThat(stats.getItemCount()).isEqualTo(96);
+        assertThat(stats.getOccupiedSlots()).isEqualTo(2);
+        assertThat(stats.getFreeSlotCount()).isEqualTo(52);
+        assertThat(stats.isFree(0)).isFalse();
+        assertThat(stats.isFree(4)).isTrue();
+        assertThat(stats.firstFreeSlot()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should update only the changed slots")
+    void updatesChangedSlots() {
+        ItemStack[] previous = new ItemStack[54];
+        previous[0] = item(Material.STONE, 64);
+        previous[1] = item(Material.DIRT, 32);
+        PageStats stats = PageStats.of(previous);
+
+        ItemStack[] current = previous.clone();
+        current[1] = null;
+        current[53] = item(Material.DIAMOND, 3);
+
+        assertThat(stats.update(previous, current)).isTrue();
+        assertThat(stats.getItemCount()).isEqualTo(67);
+        assertThat(stats.getOccupiedSlots()).isEqualTo(2);
+        assertThat(stats.isFree(1)).isTrue();
+        assertThat(stats.isFree(53)).isFalse();
+        verify(current[0], times(1)).getAmount();
+    }
+
+    @Test
+    @DisplayName("Should subtract recorded amounts when items changed afterwards")
+    void usesRecordedAmounts() {
+        ItemStack stone = item(Material.STONE, 64);
+        ItemStack[] previous = new ItemStack[9];
+        previous[0] = stone;
+        PageStats stats = PageStats.of(previous);
+
+        when(stone.getAmount()).thenReturn(1);
+        stats.setSlot(0, null);
+
+        assertThat(stats.getItemCount()).isZero();
+        assertThat(stats.toSummary()).isSameAs(PageSummary.EMPTY);
+    }
+
+    @Test
+    @DisplayName("Should refuse contents of another size")
+    void rejectsResizedContents() {
+        PageStats stats = PageStats.of(new ItemStack[27]);
+
+        assertThat(stats.update(new ItemStack[27], new ItemStack[54])).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should find free slots beyond the first word")
+    void findsFreeSlotAcrossWords() {
+        ItemStack[] items = new ItemStack[90];
+        for (int slot = 0; slot < 70; slot++) {
+            items[slot] = item(Material.STONE, 1);
+        }
+
+        PageStats stats = PageStats.of(items);
+
+        assertThat(stats.firstFreeSlot()).isEqualTo(70);
+        stats.setSlot(65, null);
+        assertThat(stats.firstFreeSlot()).isEqualTo(65);
+    }
+
+    @Test
+    @DisplayName("Should report no free slot on a full page")
+    void reportsFullPage() {
+        ItemStack[] items = new ItemStack[9];
+        for (int slot = 0; slot < items.length; slot++) {
+            items[slot] = item(Material.STONE, 1);
+        }
+
+        assertThat(PageStats.of(items).firstFreeSlot()).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should build the same summary as a full scan")
+    void matchesFullScan() {
+        ItemStack[] previous = new ItemStack[54];
+        previous[0] = item(Material.STONE, 64);
+        previous[1] = item(Material.DIRT, 32);
+        PageStats stats = PageStats.of(previous);
+        ItemStack[] current = previous.clone();
+        current[0] = item(Material.DIRT, 10);
+        current[2] = item(Material.DIAMOND, 5);
+
+        stats.update(previous, current);
+
+        PageSummary expected = PageSummary.of(current);
+        PageSummary actual = stats.toSummary();
+        assertThat(actual.getItemCount()).isEqualTo(expected.getItemCount());
+        assertThat(actual.getStackCount()).isEqualTo(expected.getStackCount());
+        assertThat(actual.getPreview()).extracting(PageSummary.PreviewEntry::getMaterial)
+                .containsExactly("DIRT", "DIAMOND");
+    }
+}
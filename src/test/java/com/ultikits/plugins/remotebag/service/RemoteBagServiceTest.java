@@ -1,8 +1,13 @@
 package com.ultikits.plugins.remotebag.service;
 
 import com.ultikits.plugins.remotebag.UltiRemoteBagTestHelper;
+import com.ultikits.plugins.remotebag.codec.BagCodecs;
 import com.ultikits.plugins.remotebag.config.RemoteBagConfig;
+import com.ultikits.plugins.remotebag.entity.PageSummary;
 import com.ultikits.plugins.remotebag.entity.RemoteBagData;
+import com.ultikits.plugins.remotebag.entity.RemoteBagDeltaData;
+import com.ultikits.plugins.remotebag.store.DatabaseBagStore;
+import com.ultikits.plugins.remotebag.store.LogBagStore;
 import com.ultikits.ultitools.abstracts.UltiToolsPlugin;
 import com.ultikits.ultitools.interfaces.DataOperator;
 import com.ultikits.ultitools.interfaces.Query;
@@ -15,10 +20,23 @@ import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -56,8 +74,8 @@ class RemoteBagServiceTest {
 
         service = new RemoteBagService(mockPlugin, config);
 
-        // Inject dataOperator via reflection (set by init())
-        UltiRemoteBagTestHelper.setField(service, "dataOperator", dataOperator);
+        // Inject the store via reflection (set by init())
+        UltiRemoteBagTestHelper.setField(service, "store", new DatabaseBagStore(dataOperator, (message, error) -> { }));
 
         playerUuid = UUID.randomUUID();
         player = UltiRemoteBagTestHelper.createMockPlayer("TestPlayer", playerUuid);
@@ -68,6 +86,18 @@ class RemoteBagServiceTest {
         UltiRemoteBagTestHelper.tearDown();
     }
 
+    /**
+     * Run main thread ticks until a result handed to the main thread is complete.
+     */
+    private <T> T awaitOnMainThread(CompletableFuture<T> result) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!result.isDone() && System.nanoTime() < deadline) {
+            service.openTask();
+            Thread.yield();
+        }
+        return result.join();
+    }
+
     // ==================== getPlayerMaxPages ====================
 
     @Nested
@@ -179,23 +209,24 @@ class RemoteBagServiceTest {
         @DisplayName("setBagPage should store in cache")
         void setBagPageStoresInCache() {
             ItemStack[] contents = new ItemStack[54];
+            contents[0] = new ItemStack(Material.STONE, 64);
             service.setBagPage(playerUuid, 1, contents);
 
             ItemStack[] result = service.getBagPage(playerUuid, 1);
-            assertThat(result).isSameAs(contents);
+            assertThat(result).isEqualTo(contents);
         }
 
         @Test
         @DisplayName("setBagPage should handle multiple pages")
         void setBagPageMultiplePages() {
             ItemStack[] page1 = new ItemStack[54];
-            ItemStack[] page2 = new ItemStack[54];
+            ItemStack[] page2 = new ItemStack[27];
 
             service.setBagPage(playerUuid, 1, page1);
             service.setBagPage(playerUuid, 2, page2);
 
-            assertThat(service.getBagPage(playerUuid, 1)).isSameAs(page1);
-            assertThat(service.getBagPage(playerUuid, 2)).isSameAs(page2);
+            assertThat(service.getBagPage(playerUuid, 1)).hasSize(54);
+            assertThat(service.getBagPage(playerUuid, 2)).hasSize(27);
         }
 
         @Test
@@ -214,11 +245,12 @@ class RemoteBagServiceTest {
         void setBagPageOverwrites() {
             ItemStack[] original = new ItemStack[54];
             ItemStack[] replacement = new ItemStack[54];
+            replacement[0] = new ItemStack(Material.DIRT, 1);
 
             service.setBagPage(playerUuid, 1, original);
             service.setBagPage(playerUuid, 1, replacement);
 
-            assertThat(service.getBagPage(playerUuid, 1)).isSameAs(replacement);
+            assertThat(service.getBagPage(playerUuid, 1)).isEqualTo(replacement);
         }
 
         @Test
@@ -251,6 +283,72 @@ class RemoteBagServiceTest {
         }
     }
 
+    // ==================== Page Snapshots ====================
+
+    @Nested
+    @DisplayName("Page Snapshots")
+    class PageSnapshots {
+
+        @Test
+        @DisplayName("Should not see changes made to the array after setBagPage")
+        void copiesOnCommit() {
+            ItemStack[] contents = new ItemStack[54];
+            contents[0] = new ItemStack(Material.STONE, 10);
+            service.setBagPage(playerUuid, 1, contents);
+
+            contents[0].setAmount(1);
+            contents[1] = new ItemStack(Material.DIRT, 1);
+
+            PageSnapshot snapshot = service.getPageSnapshot(playerUuid, 1);
+            assertThat(snapshot.getItem(0).getAmount()).isEqualTo(10);
+            assertThat(snapshot.getItem(1)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should publish a newer version on every commit")
+        void increasesVersion() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            PageSnapshot first = service.getPageSnapshot(playerUuid, 1);
+
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            PageSnapshot second = service.getPageSnapshot(playerUuid, 1);
+
+            assertThat(second).isNotSameAs(first);
+            assertThat(second.getVersion()).isGreaterThan(first.getVersion());
+        }
+
+        @Test
+        @DisplayName("getBagPage should return a new array each call")
+        void getBagPageReturnsCopy() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            ItemStack[] page = service.getBagPage(playerUuid, 1);
+            page[0] = new ItemStack(Material.STONE, 1);
+
+            assertThat(service.getBagPage(playerUuid, 1)).isNotSameAs(page);
+            assertThat(service.getPageSnapshot(playerUuid, 1).getItem(0)).isNull();
+        }
+
+        @Test
+        @DisplayName("Rollback should republish the previous snapshot")
+        void republishesOnRollback() throws Exception {
+            ItemStack[] contents = new ItemStack[54];
+            contents[0] = new ItemStack(Material.STONE, 10);
+            service.setBagPage(playerUuid, 1, contents);
+            PageSnapshot before = service.getPageSnapshot(playerUuid, 1);
+            RemoteBagData existing = RemoteBagData.create(playerUuid, 1, "");
+            existing.setId(1);
+            when(mockQuery.list()).thenReturn(Collections.singletonList(existing));
+            doThrow(new IllegalAccessException("denied")).when(dataOperator).update(any(RemoteBagData.class));
+
+            assertThat(service.clearBagPage(playerUuid, 1).join()).isFalse();
+
+            PageSnapshot after = service.getPageSnapshot(playerUuid, 1);
+            assertThat(after.getVersion()).isGreaterThan(before.getVersion());
+            assertThat(after.getItem(0)).isSameAs(before.getItem(0));
+        }
+    }
+
     // ==================== getItemCount ====================
 
     @Nested
@@ -608,6 +706,284 @@ class RemoteBagServiceTest {
         }
     }
 
+    // ==================== Lazy Page Loading ====================
+
+    @Nested
+    @DisplayName("Lazy Page Loading")
+    class LazyPageLoading {
+
+        private RemoteBagData row(int page, int id, long lastUpdated) {
+            RemoteBagData data = RemoteBagData.create(playerUuid, page, "");
+            data.setId(id);
+            data.setLastUpdated(lastUpdated);
+            return data;
+        }
+
+        @BeforeEach
+        void threePages() {
+            when(mockQuery.list()).thenReturn(Arrays.asList(row(1, 11, 1000L), row(2, 12, 2000L), row(3, 13, 3000L)));
+        }
+
+        @Test
+        @DisplayName("Loading a bag should cache every page without decoding it")
+        void loadsPagesEncoded() {
+            List<Integer> pages = service.getPlayerBagPages(playerUuid);
+
+            assertThat(pages).containsExactly(1, 2, 3);
+            assertThat(service.isPageLoaded(playerUuid, 1)).isTrue();
+            assertThat(service.isPageLoaded(playerUuid, 3)).isTrue();
+            assertThat(service.hasPage(playerUuid, 4)).isFalse();
+            assertThat(service.getCachedPageCount()).isEqualTo(3);
+            assertThat(service.getEncodedPageCount()).isEqualTo(3);
+            assertThat(service.getLazyDecodeCount()).isZero();
+            verify(mockQuery, times(1)).list();
+        }
+
+        @Test
+        @DisplayName("Should decode a page once on first access without querying it again")
+        void decodesPageOnFirstAccess() {
+            service.loadBagIfNeeded(playerUuid);
+
+            PageSnapshot page = service.getPageSnapshot(playerUuid, 2);
+
+            assertThat(page.toArray()).hasSize(54);
+            assertThat(service.getPageSnapshot(playerUuid, 2)).isSameAs(page);
+            assertThat(service.getPageSnapshot(playerUuid, 1).isDecoded()).isFalse();
+            assertThat(service.getLazyDecodeCount()).isEqualTo(1);
+            verify(mockQuery, times(1)).list();
+            verify(mockQuery, never()).eq(2);
+        }
+
+        @Test
+        @DisplayName("Should not fetch pages the bag does not have")
+        void doesNotFetchMissingPage() {
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.getBagPage(playerUuid, 4)).isNull();
+            verify(mockQuery, times(1)).list();
+        }
+
+        @Test
+        @DisplayName("Should expose last updated time from the index")
+        void exposesLastUpdated() {
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.getPageLastUpdated(playerUuid, 2)).isEqualTo(2000L);
+            assertThat(service.getPageLastUpdated(playerUuid, 4)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should refresh last updated time after saving")
+        void refreshesLastUpdatedOnSave() {
+            service.loadBagIfNeeded(playerUuid);
+
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            assertThat(service.getPageLastUpdated(playerUuid, 1)).isGreaterThan(1000L);
+        }
+
+        @Test
+        @DisplayName("Should delete a page without reading it")
+        void deletesUnreadPage() {
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.deleteBagPage(playerUuid, 3).join()).isTrue();
+
+            verify(dataOperator).delById(13);
+            verify(mockQuery, times(1)).list();
+            assertThat(service.getPlayerBagPages(playerUuid)).containsExactly(1, 2);
+        }
+
+        @Test
+        @DisplayName("Failed clear of an unopened page should restore it without rewriting it")
+        void failedClearRestoresUnopenedPage() throws Exception {
+            doThrow(new IllegalAccessException("denied")).when(dataOperator).update(any(RemoteBagData.class));
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.clearBagPage(playerUuid, 2).join()).isFalse();
+
+            assertThat(service.getPageSnapshot(playerUuid, 2).isDecoded()).isFalse();
+            assertThat(service.isDirty(playerUuid, 2)).isFalse();
+            assertThat(service.hasPage(playerUuid, 2)).isTrue();
+        }
+    }
+
+    // ==================== Page Summary ====================
+
+    @Nested
+    @DisplayName("Page Summary")
+    class PageSummaries {
+
+        private RemoteBagData row(int page, int id, String preview) {
+            RemoteBagData data = RemoteBagData.create(playerUuid, page, BagCodecs.BINARY.encode(new ItemStack[54]));
+            data.setId(id);
+            data.setItemCount(96);
+            data.setStackCount(2);
+            data.setPreview(preview);
+            return data;
+        }
+
+        @Test
+        @DisplayName("Should write summary columns when saving")
+        void writesSummary() {
+            ItemStack[] contents = new ItemStack[54];
+            contents[0] = new ItemStack(Material.STONE, 64);
+            contents[1] = new ItemStack(Material.DIRT, 32);
+            service.setBagPage(playerUuid, 1, contents);
+
+            service.saveBag(playerUuid);
+
+            ArgumentCaptor<RemoteBagData> captor = ArgumentCaptor.forClass(RemoteBagData.class);
+            verify(dataOperator).insert(captor.capture());
+            assertThat(captor.getValue().getItemCount()).isEqualTo(96);
+            assertThat(captor.getValue().getStackCount()).isEqualTo(2);
+            assertThat(captor.getValue().getPreview()).isEqualTo("STONE:64,DIRT:32");
+        }
+
+        @Test
+        @DisplayName("Should answer counts from stored summary without reading contents")
+        void readsStoredSummary() {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(1, 7, "STONE:64,DIRT:32")));
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.getItemCount(playerUuid, 1)).isEqualTo(96);
+            assertThat(service.getStackCount(playerUuid, 1)).isEqualTo(2);
+            assertThat(service.getPageSummary(playerUuid, 1).getPreview()).hasSize(2);
+            assertThat(service.getPageSnapshot(playerUuid, 1).isDecoded()).isFalse();
+            verify(mockQuery, times(1)).list();
+            assertThat(service.getPendingSummaryBackfillCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should summarize pages in memory from their contents")
+        void summarizesLoadedPage() {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(1, 7, "STONE:64,DIRT:32")));
+            service.loadBagIfNeeded(playerUuid);
+
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            assertThat(service.getItemCount(playerUuid, 1)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should backfill rows without summary")
+        void backfillsSummary() throws Exception {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(1, 7, null)));
+            service.loadBagIfNeeded(playerUuid);
+            assertThat(service.getPageSummary(playerUuid, 1)).isNull();
+            assertThat(service.getPendingSummaryBackfillCount()).isEqualTo(1);
+
+            service.backfillSummaries(10);
+
+            ArgumentCaptor<RemoteBagData> captor = ArgumentCaptor.forClass(RemoteBagData.class);
+            verify(dataOperator).update(captor.capture());
+            assertThat(captor.getValue().getId()).isEqualTo(7);
+            assertThat(captor.getValue().getItemCount()).isZero();
+            assertThat(captor.getValue().getPreview()).isEmpty();
+            assertThat(service.getPageSummary(playerUuid, 1)).isNotNull();
+            assertThat(service.getSummaryBackfillCount()).isEqualTo(1);
+            assertThat(service.getPendingSummaryBackfillCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should skip backfill of pages saved since they were read")
+        void skipsSavedPage() throws Exception {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(1, 7, null)));
+            service.loadBagIfNeeded(playerUuid);
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            service.backfillSummaries(10);
+
+            verify(dataOperator, times(1)).update(any(RemoteBagData.class));
+            assertThat(service.getSummaryBackfillCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should skip backfill of modified pages")
+        void skipsDirtyPage() throws Exception {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(1, 7, null)));
+            service.loadBagIfNeeded(playerUuid);
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            service.backfillSummaries(10);
+
+            verify(dataOperator, never()).update(any(RemoteBagData.class));
+        }
+
+        @Test
+        @DisplayName("Should not backfill when disabled")
+        void disabledBackfill() throws Exception {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(1, 7, null)));
+            service.loadBagIfNeeded(playerUuid);
+
+            service.backfillSummaries(0);
+
+            verify(dataOperator, never()).update(any(RemoteBagData.class));
+            assertThat(service.getPendingSummaryBackfillCount()).isEqualTo(1);
+        }
+    }
+
+    // ==================== Page Stats ====================
+
+    @Nested
+    @DisplayName("Page Stats")
+    class PageStatistics {
+
+        @Test
+        @DisplayName("Should not build stats for pages not in memory")
+        void noStatsForMissingPage() {
+            assertThat(service.getPageStats(playerUuid, 1)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should update stats from the changed slots")
+        void updatesChangedSlots() {
+            ItemStack[] contents = new ItemStack[54];
+            contents[0] = new ItemStack(Material.STONE, 64);
+            service.setBagPage(playerUuid, 1, contents);
+            PageStats stats = service.getPageStats(playerUuid, 1);
+
+            ItemStack[] edited = contents.clone();
+            edited[1] = new ItemStack(Material.DIRT, 32);
+            service.setBagPage(playerUuid, 1, edited);
+
+            assertThat(service.getPageStats(playerUuid, 1)).isSameAs(stats);
+            assertThat(service.getItemCount(playerUuid, 1)).isEqualTo(96);
+            assertThat(service.getStackCount(playerUuid, 1)).isEqualTo(2);
+            assertThat(stats.firstFreeSlot()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should update stats when the same array is set again")
+        void updatesReusedArray() {
+            ItemStack[] contents = new ItemStack[54];
+            service.setBagPage(playerUuid, 1, contents);
+            assertThat(service.getItemCount(playerUuid, 1)).isZero();
+
+            contents[0] = new ItemStack(Material.STONE, 10);
+            service.setBagPage(playerUuid, 1, contents);
+
+            assertThat(service.getItemCount(playerUuid, 1)).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("Should drop stats of deleted pages")
+        void dropsDeletedPage() {
+            ItemStack[] contents = new ItemStack[54];
+            contents[0] = new ItemStack(Material.STONE, 10);
+            service.setBagPage(playerUuid, 2, contents);
+            assertThat(service.getPageStats(playerUuid, 2)).isNotNull();
+
+            service.deleteBagPage(playerUuid, 2);
+
+            assertThat(service.getPageStats(playerUuid, 2)).isNull();
+            service.setBagPage(playerUuid, 2, new ItemStack[54]);
+            assertThat(service.getItemCount(playerUuid, 2)).isZero();
+        }
+    }
+
     // ==================== saveBag ====================
 
     @Nested
@@ -672,90 +1048,1672 @@ class RemoteBagServiceTest {
         }
     }
 
-    // ==================== saveAllBags ====================
+    // ==================== Dirty Tracking ====================
 
     @Nested
-    @DisplayName("saveAllBags")
-    class SaveAllBags {
+    @DisplayName("Dirty Tracking")
+    class DirtyTracking {
 
         @Test
-        @DisplayName("Should save all cached bags")
-        void savesAllCached() {
-            UUID uuid1 = UUID.randomUUID();
-            UUID uuid2 = UUID.randomUUID();
-
-            when(mockQuery.list()).thenReturn(Collections.emptyList());
-
-            service.setBagPage(uuid1, 1, new ItemStack[54]);
-            service.setBagPage(uuid2, 1, new ItemStack[54]);
-
-            service.saveAllBags();
+        @DisplayName("setBagPage should mark page dirty")
+        void setBagPageMarksDirty() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
 
-            verify(dataOperator, atLeast(2)).insert(any(RemoteBagData.class));
+            assertThat(service.isDirty(playerUuid, 1)).isTrue();
+            assertThat(service.getDirtyPageCount()).isEqualTo(1);
         }
 
         @Test
-        @DisplayName("Should do nothing when cache is empty")
-        void doesNothingWhenCacheEmpty() throws Exception {
-            service.saveAllBags();
-
-            verify(dataOperator, never()).insert(any());
-            verify(dataOperator, never()).update(any(RemoteBagData.class));
-        }
-    }
+        @DisplayName("Loaded pages should be clean")
+        void loadedPagesAreClean() {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(
+                    RemoteBagData.create(playerUuid, 1, "")
+            ));
 
-    // ==================== createBagPage ====================
+            service.loadBagIfNeeded(playerUuid);
 
-    @Nested
-    @DisplayName("createBagPage")
-    class CreateBagPage {
+            assertThat(service.isDirty(playerUuid, 1)).isFalse();
+            assertThat(service.getDirtyPageCount()).isZero();
+        }
 
         @Test
-        @DisplayName("Should create page for player with no existing bags")
-        void createsFirstPage() {
-            // When no data exists in DB, getPlayerBagPages returns [1] as default
-            // So createBagPage creates the next page (2)
-            when(mockQuery.list()).thenReturn(Collections.emptyList());
+        @DisplayName("saveBag should skip clean pages")
+        void saveBagSkipsCleanPages() throws Exception {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(
+                    RemoteBagData.create(playerUuid, 1, "")
+            ));
+            service.loadBagIfNeeded(playerUuid);
 
-            int pageNum = service.createBagPage(playerUuid);
+            service.saveBag(playerUuid);
 
-            assertThat(pageNum).isEqualTo(2);
-            verify(dataOperator).insert(any(RemoteBagData.class));
+            verify(dataOperator, never()).insert(any());
+            verify(dataOperator, never()).update(any(RemoteBagData.class));
+            assertThat(service.getSkippedPageCount()).isEqualTo(1);
         }
 
         @Test
-        @DisplayName("Should create next sequential page")
-        void createsNextPage() {
-            // First call to loadBagIfNeeded returns pages 1 and 2
+        @DisplayName("saveBag should only write dirty pages")
+        void saveBagWritesOnlyDirty() {
             when(mockQuery.list())
                     .thenReturn(Arrays.asList(
                             RemoteBagData.create(playerUuid, 1, ""),
                             RemoteBagData.create(playerUuid, 2, "")
                     ))
-                    // Subsequent calls for saveBag (checking existing) return empty
                     .thenReturn(Collections.emptyList());
+            service.loadBagIfNeeded(playerUuid);
 
-            int pageNum = service.createBagPage(playerUuid);
+            service.setBagPage(playerUuid, 2, new ItemStack[54]);
+            service.saveBag(playerUuid);
 
-            assertThat(pageNum).isEqualTo(3);
+            verify(dataOperator, times(1)).insert(any(RemoteBagData.class));
+            assertThat(service.getSavedPageCount()).isEqualTo(1);
+            assertThat(service.getSkippedPageCount()).isEqualTo(1);
         }
 
         @Test
-        @DisplayName("Should save bag after creating page")
-        void savesBagAfterCreation() {
-            when(mockQuery.list()).thenReturn(Collections.emptyList());
+        @DisplayName("Saved page should be clean until modified again")
+        void savedPageBecomesClean() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
 
-            service.createBagPage(playerUuid);
+            service.saveBag(playerUuid);
+            service.saveBag(playerUuid);
 
-            verify(dataOperator).insert(any(RemoteBagData.class));
+            verify(dataOperator, times(1)).insert(any(RemoteBagData.class));
+            assertThat(service.isDirty(playerUuid, 1)).isFalse();
         }
-    }
-
-    // ==================== deleteBagPage ====================
-
-    @Nested
-    @DisplayName("deleteBagPage")
-    class DeleteBagPage {
+
+        @Test
+        @DisplayName("Failed update should keep page dirty")
+        void failedUpdateKeepsDirty() throws Exception {
+            RemoteBagData existing = RemoteBagData.create(playerUuid, 1, "old-content");
+            when(mockQuery.list()).thenReturn(Collections.singletonList(existing));
+            doThrow(new IllegalAccessException("Test error")).when(dataOperator).update(any(RemoteBagData.class));
+
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            assertThat(service.isDirty(playerUuid, 1)).isTrue();
+            assertThat(service.getSavedPageCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Failed insert should keep page dirty and rethrow")
+        void failedInsertKeepsDirty() {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            assertThatThrownBy(() -> service.saveBag(playerUuid)).isInstanceOf(RuntimeException.class);
+            assertThat(service.isDirty(playerUuid, 1)).isTrue();
+        }
+
+        @Test
+        @DisplayName("clearBagPage should mark page dirty and save it")
+        void clearBagPageMarksDirty() {
+            when(mockQuery.list())
+                    .thenReturn(Collections.singletonList(RemoteBagData.create(playerUuid, 1, "")))
+                    .thenReturn(Collections.emptyList());
+            service.loadBagIfNeeded(playerUuid);
+
+            service.clearBagPage(playerUuid, 1);
+
+            verify(dataOperator).insert(any(RemoteBagData.class));
+            assertThat(service.isDirty(playerUuid, 1)).isFalse();
+        }
+
+        @Test
+        @DisplayName("clearCache should drop dirty flags")
+        void clearCacheDropsDirty() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            service.clearCache(playerUuid);
+
+            assertThat(service.getDirtyPageCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("deleteBagPage should drop dirty flag of deleted page")
+        void deleteBagPageDropsDirty() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            service.deleteBagPage(playerUuid, 1);
+
+            assertThat(service.isDirty(playerUuid, 1)).isFalse();
+        }
+    }
+
+    // ==================== Storage Codec ====================
+
+    @Nested
+    @DisplayName("Storage Codec")
+    class StorageCodec {
+
+        @Test
+        @DisplayName("Should write pages in binary format")
+        void writesBinary() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            ArgumentCaptor<RemoteBagData> captor = ArgumentCaptor.forClass(RemoteBagData.class);
+            verify(dataOperator).insert(captor.capture());
+            assertThat(BagCodecs.BINARY.canDecode(captor.getValue().getContents())).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should write legacy YAML when configured")
+        void writesYamlWhenConfigured() throws Exception {
+            when(config.getStorageCodec()).thenReturn("yaml");
+            RemoteBagService yamlService = new RemoteBagService(mock(UltiToolsPlugin.class), config);
+            UltiRemoteBagTestHelper.setField(yamlService, "store", new DatabaseBagStore(dataOperator, (message, error) -> { }));
+
+            yamlService.setBagPage(playerUuid, 1, new ItemStack[54]);
+            yamlService.saveBag(playerUuid);
+
+            ArgumentCaptor<RemoteBagData> captor = ArgumentCaptor.forClass(RemoteBagData.class);
+            verify(dataOperator).insert(captor.capture());
+            assertThat(BagCodecs.BINARY.canDecode(captor.getValue().getContents())).isFalse();
+        }
+
+        @Test
+        @DisplayName("Legacy YAML pages should be marked dirty for upgrade when read")
+        void legacyPagesMarkedDirty() {
+            when(mockQuery.list()).thenReturn(Arrays.asList(
+                    RemoteBagData.create(playerUuid, 1, "items: {}\n"),
+                    RemoteBagData.create(playerUuid, 2, BagCodecs.BINARY.encode(new ItemStack[54])),
+                    RemoteBagData.create(playerUuid, 3, "")
+            ));
+
+            service.loadBagIfNeeded(playerUuid);
+            assertThat(service.getDirtyPageCount()).isZero();
+            service.getBagPage(playerUuid, 1);
+            service.getBagPage(playerUuid, 2);
+            service.getBagPage(playerUuid, 3);
+
+            assertThat(service.isDirty(playerUuid, 1)).isTrue();
+            assertThat(service.isDirty(playerUuid, 2)).isFalse();
+            assertThat(service.isDirty(playerUuid, 3)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should read binary pages")
+        void readsBinary() {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(
+                    RemoteBagData.create(playerUuid, 1, BagCodecs.BINARY.encode(new ItemStack[54]))
+            ));
+
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.getBagPage(playerUuid, 1)).hasSize(54).containsOnlyNulls();
+        }
+    }
+
+    // ==================== Row Id Writes ====================
+
+    @Nested
+    @DisplayName("Row Id Writes")
+    class RowIdWrites {
+
+        private RemoteBagData loadedRow(int page, int id) {
+            RemoteBagData data = RemoteBagData.create(playerUuid, page, "");
+            data.setId(id);
+            return data;
+        }
+
+        @Test
+        @DisplayName("Should update loaded page by row id without querying")
+        void updatesByRowId() throws Exception {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(loadedRow(1, 7)));
+            service.loadBagIfNeeded(playerUuid);
+
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            ArgumentCaptor<RemoteBagData> captor = ArgumentCaptor.forClass(RemoteBagData.class);
+            verify(dataOperator).update(captor.capture());
+            assertThat(captor.getValue().getId()).isEqualTo(7);
+            verify(dataOperator, times(1)).query();
+        }
+
+        @Test
+        @DisplayName("Should insert new page of loaded bag without querying")
+        void insertsNewPageWithoutQuery() {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(loadedRow(1, 7)));
+            service.loadBagIfNeeded(playerUuid);
+
+            service.setBagPage(playerUuid, 2, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            verify(dataOperator).insert(any(RemoteBagData.class));
+            verify(dataOperator, times(1)).query();
+        }
+
+        @Test
+        @DisplayName("Should update inserted page by row id on next save")
+        void remembersInsertedRowId() throws Exception {
+            service.loadBagIfNeeded(playerUuid);
+            doAnswer(inv -> {
+                inv.<RemoteBagData>getArgument(0).setId(42);
+                return null;
+            }).when(dataOperator).insert(any(RemoteBagData.class));
+
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            ArgumentCaptor<RemoteBagData> captor = ArgumentCaptor.forClass(RemoteBagData.class);
+            verify(dataOperator).update(captor.capture());
+            assertThat(captor.getValue().getId()).isEqualTo(42);
+            verify(dataOperator, times(1)).query();
+        }
+
+        @Test
+        @DisplayName("Should query existing row when bag was not loaded")
+        void queriesWhenNotLoaded() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            verify(dataOperator).query();
+            verify(dataOperator).insert(any(RemoteBagData.class));
+        }
+
+        @Test
+        @DisplayName("Should delete loaded page by row id without querying")
+        void deletesByRowId() {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(loadedRow(1, 7)));
+            service.loadBagIfNeeded(playerUuid);
+
+            service.deleteBagPage(playerUuid, 1);
+
+            verify(dataOperator).delById(7);
+            verify(dataOperator, times(1)).query();
+        }
+
+        @Test
+        @DisplayName("clearCache should forget row ids")
+        void clearCacheForgetsRowIds() throws Exception {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(loadedRow(1, 7)));
+            service.loadBagIfNeeded(playerUuid);
+
+            service.clearCache(playerUuid);
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            verify(dataOperator, times(2)).query();
+        }
+    }
+
+    // ==================== Async Save Queue ====================
+
+    @Nested
+    @DisplayName("Async Save Queue")
+    class AsyncSaveQueue {
+
+        @BeforeEach
+        void enableAsync() {
+            when(config.isAsyncSave()).thenReturn(true);
+            service.init();
+        }
+
+        @AfterEach
+        void stopQueue() {
+            service.shutdown();
+        }
+
+        @Test
+        @DisplayName("init should start save queue when async save enabled")
+        void initStartsQueue() {
+            assertThat(service.getSaveQueue()).isNotNull();
+        }
+
+        @Test
+        @DisplayName("saveBag should write on I/O thread")
+        void saveBagWritesAsync() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            service.saveBag(playerUuid);
+            service.getSaveQueue().awaitIdle(5, java.util.concurrent.TimeUnit.SECONDS);
+
+            verify(dataOperator).insert(any(RemoteBagData.class));
+            assertThat(service.isDirty(playerUuid, 1)).isFalse();
+        }
+
+        @Test
+        @DisplayName("saveBagAsync should complete once pages are written")
+        void saveBagAsyncCompletes() throws Exception {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            boolean saved = service.saveBagAsync(playerUuid).get(5, TimeUnit.SECONDS);
+
+            assertThat(saved).isTrue();
+            verify(dataOperator).insert(any(RemoteBagData.class));
+        }
+
+        @Test
+        @DisplayName("Failed async write should mark page dirty again")
+        void failedAsyncWriteMarksDirty() {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            service.saveBag(playerUuid);
+            service.getSaveQueue().awaitIdle(5, java.util.concurrent.TimeUnit.SECONDS);
+
+            assertThat(service.isDirty(playerUuid, 1)).isTrue();
+        }
+
+        @Test
+        @DisplayName("Page whose write fails after quit should be kept and retried")
+        void retriesWriteFailedAfterQuit() {
+            doThrow(new RuntimeException("db down")).doNothing().when(dataOperator).insert(any(RemoteBagData.class));
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            CountDownLatch latch = blockLane(playerUuid);
+            service.saveBag(playerUuid);
+            service.retireBag(playerUuid);
+            latch.countDown();
+            service.getSaveQueue().awaitIdle(5, TimeUnit.SECONDS);
+
+            assertThat(service.getCachedBagCount()).isZero();
+            assertThat(service.getUnwrittenPageCount()).isEqualTo(1);
+
+            service.cacheEvictionTask();
+            service.getSaveQueue().awaitIdle(5, TimeUnit.SECONDS);
+
+            verify(dataOperator, times(2)).insert(any(RemoteBagData.class));
+            assertThat(service.getUnwrittenPageCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Page whose write fails after quit should be dirty again on rejoin")
+        void restoresWriteFailedAfterQuit() {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+            ItemStack[] contents = new ItemStack[54];
+            contents[0] = new ItemStack(Material.DIAMOND, 3);
+            service.setBagPage(playerUuid, 1, contents);
+            CountDownLatch latch = blockLane(playerUuid);
+            service.saveBag(playerUuid);
+            service.retireBag(playerUuid);
+            latch.countDown();
+            service.getSaveQueue().awaitIdle(5, TimeUnit.SECONDS);
+
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.isDirty(playerUuid, 1)).isTrue();
+            assertThat(service.getBagPage(playerUuid, 1)[0].getAmount()).isEqualTo(3);
+            assertThat(service.getUnwrittenPageCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Page whose write fails after quit should survive the departed tier dropping the bag")
+        void keepsWriteFailedAfterDepartedEviction() {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            CountDownLatch latch = blockLane(playerUuid);
+            service.saveBag(playerUuid);
+            service.retireBag(playerUuid);
+            latch.countDown();
+            service.getSaveQueue().awaitIdle(5, TimeUnit.SECONDS);
+            service.getDepartedCache().clear();
+
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.getPlayerBagPages(playerUuid)).containsExactly(1);
+            assertThat(service.isDirty(playerUuid, 1)).isTrue();
+        }
+
+        @Test
+        @DisplayName("flushOnShutdown should write pages kept after a failed write")
+        void flushesWriteFailedAfterQuit(@TempDir Path folder) {
+            doThrow(new RuntimeException("db down")).doNothing().when(dataOperator).insert(any(RemoteBagData.class));
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            CountDownLatch latch = blockLane(playerUuid);
+            service.saveBag(playerUuid);
+            service.retireBag(playerUuid);
+            latch.countDown();
+            service.getSaveQueue().awaitIdle(5, TimeUnit.SECONDS);
+
+            ShutdownFlusher.Result result = service.flushOnShutdown(folder.resolve("bag.recovery"));
+
+            assertThat(result.getWrittenPages()).isEqualTo(1);
+            verify(dataOperator, times(2)).insert(any(RemoteBagData.class));
+            assertThat(service.getUnwrittenPageCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("createBagPage should roll back cache when async write fails")
+        void createBagPageRollsBack() {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+
+            CompletableFuture<Integer> created = service.createBagPage(playerUuid);
+
+            assertThat(created).isNotDone();
+            assertThatThrownBy(() -> awaitOnMainThread(created)).hasRootCauseMessage("db down");
+            assertThat(service.getBagPage(playerUuid, 2)).isNull();
+        }
+
+        @Test
+        @DisplayName("clearBagPage should run on the owner's lane without waiting for it")
+        void clearBagPageDoesNotWait() {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(RemoteBagData.create(playerUuid, 1, "")));
+            service.loadBagIfNeeded(playerUuid);
+            CountDownLatch latch = blockLane(playerUuid);
+
+            CompletableFuture<Boolean> cleared;
+            try {
+                cleared = service.clearBagPage(playerUuid, 1);
+                service.openTask();
+                assertThat(cleared).isNotDone();
+                assertThat(service.isDirty(playerUuid, 1)).isFalse();
+            } finally {
+                latch.countDown();
+            }
+
+            assertThat(awaitOnMainThread(cleared)).isTrue();
+        }
+
+        @Test
+        @DisplayName("shutdown should flush pending writes and switch to synchronous writes")
+        void shutdownFlushes() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            service.shutdown();
+
+            verify(dataOperator).insert(any(RemoteBagData.class));
+            assertThat(service.getSaveQueue()).isNull();
+
+            service.setBagPage(playerUuid, 2, new ItemStack[54]);
+            service.saveBag(playerUuid);
+            verify(dataOperator, times(2)).insert(any(RemoteBagData.class));
+        }
+
+        @Test
+        @DisplayName("deleteBagPage should delete rows on I/O thread")
+        void deleteBagPageAsync() {
+            RemoteBagData data = RemoteBagData.create(playerUuid, 1, "");
+            when(mockQuery.list()).thenReturn(Collections.singletonList(data));
+            service.loadBagIfNeeded(playerUuid);
+
+            boolean result = awaitOnMainThread(service.deleteBagPage(playerUuid, 1));
+
+            assertThat(result).isTrue();
+            verify(dataOperator).delById(data.getId());
+        }
+
+        @Test
+        @DisplayName("loadBagAsync should read the bag after the quit save of the same player")
+        void loadBagAsyncAfterQuitSave() throws Exception {
+            CountDownLatch latch = blockLane(playerUuid);
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+            service.clearCache(playerUuid);
+
+            CompletableFuture<Void> loaded = service.loadBagAsync(playerUuid);
+            assertThat(loaded).isNotDone();
+            latch.countDown();
+            loaded.get(5, TimeUnit.SECONDS);
+
+            InOrder order = inOrder(dataOperator, mockQuery);
+            order.verify(dataOperator).insert(any(RemoteBagData.class));
+            order.verify(mockQuery).list();
+            verify(mockQuery, times(2)).list();
+        }
+
+        @Test
+        @DisplayName("loadBagAsync should not wait for other players")
+        void loadBagAsyncIgnoresOtherLanes() throws Exception {
+            CountDownLatch latch = blockLane(UUID.randomUUID());
+
+            try {
+                service.loadBagAsync(playerUuid).get(2, TimeUnit.SECONDS);
+            } finally {
+                latch.countDown();
+            }
+        }
+
+        @Test
+        @DisplayName("deleteBagPage should delete after the writes queued before it")
+        void deleteBagPageAfterQueuedWrites() {
+            when(mockQuery.list())
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(RemoteBagData.create(playerUuid, 1, "")));
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            CountDownLatch latch = blockLane(playerUuid);
+            service.saveBag(playerUuid);
+
+            CompletableFuture<Boolean> deleted;
+            try {
+                deleted = service.deleteBagPage(playerUuid, 1);
+                assertThat(service.hasPage(playerUuid, 1)).isTrue();
+            } finally {
+                latch.countDown();
+            }
+
+            assertThat(awaitOnMainThread(deleted)).isTrue();
+            InOrder order = inOrder(dataOperator);
+            order.verify(dataOperator).insert(any(RemoteBagData.class));
+            order.verify(dataOperator).delById(any());
+        }
+
+        @Test
+        @DisplayName("Main thread should not wait for queued writes and read the bag on the lane")
+        void mainThreadDoesNotWaitForLane() throws Exception {
+            UltiRemoteBagTestHelper.setField(service, "primaryThread", (BooleanSupplier) () -> true);
+            CountDownLatch latch = blockLane(playerUuid);
+
+            try {
+                assertThat(service.loadBagIfNeeded(playerUuid)).isFalse();
+                assertThat(service.getPlayerBagPages(playerUuid)).isEmpty();
+                assertThat(service.getCachedBagCount()).isZero();
+            } finally {
+                latch.countDown();
+            }
+            service.getSaveQueue().getLanes().await(playerUuid, 5, TimeUnit.SECONDS);
+
+            assertThat(service.getCachedBagCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Main thread edits of an uncached bag should be published on the lane")
+        void mainThreadPublishesOnLane() throws Exception {
+            UltiRemoteBagTestHelper.setField(service, "primaryThread", (BooleanSupplier) () -> true);
+            CountDownLatch latch = blockLane(playerUuid);
+
+            try {
+                service.setBagPage(playerUuid, 1, new ItemStack[54]);
+                assertThat(service.isDirty(playerUuid, 1)).isFalse();
+            } finally {
+                latch.countDown();
+            }
+            service.getSaveQueue().getLanes().await(playerUuid, 5, TimeUnit.SECONDS);
+
+            assertThat(service.isDirty(playerUuid, 1)).isTrue();
+            assertThat(service.getPlayerBagPages(playerUuid)).containsExactly(1);
+        }
+
+        private CountDownLatch blockLane(UUID owner) {
+            CountDownLatch latch = new CountDownLatch(1);
+            service.getSaveQueue().submit(owner, () -> {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            return latch;
+        }
+
+        @Test
+        @DisplayName("openWhenLoaded should open on the main thread after the bag is read")
+        void openWhenLoadedOpensOnTick() {
+            when(player.isOnline()).thenReturn(true);
+            CountDownLatch latch = blockLane(playerUuid);
+            AtomicInteger opened = new AtomicInteger();
+
+            service.openWhenLoaded(player, playerUuid, 1, opened::incrementAndGet);
+            service.openTask();
+            assertThat(opened.get()).isZero();
+
+            latch.countDown();
+            service.getSaveQueue().getLanes().await(playerUuid, 5, TimeUnit.SECONDS);
+            assertThat(opened.get()).isZero();
+            service.openTask();
+
+            assertThat(opened.get()).isEqualTo(1);
+            assertThat(service.getOpener().getAsyncOpenCount()).isEqualTo(1);
+            assertThat(service.getOpener().getWaitingCount()).isZero();
+            assertThat(service.getCacheMissCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("openWhenLoaded should read the requested page off the main thread")
+        void openWhenLoadedReadsPage() {
+            when(player.isOnline()).thenReturn(true);
+            when(mockQuery.list()).thenReturn(Collections.singletonList(RemoteBagData.create(playerUuid, 2, "")));
+            boolean[] loaded = new boolean[1];
+
+            service.openWhenLoaded(player, playerUuid, 2, () -> loaded[0] = service.isPageLoaded(playerUuid, 2));
+            service.getSaveQueue().getLanes().await(playerUuid, 5, TimeUnit.SECONDS);
+            service.openTask();
+
+            assertThat(loaded[0]).isTrue();
+        }
+
+        @Test
+        @DisplayName("openWhenLoaded should tell the viewer when loading is slow")
+        void openWhenLoadedShowsNotice() {
+            when(config.getOpenLoadingMillis()).thenReturn(0);
+            CountDownLatch latch = blockLane(playerUuid);
+
+            try {
+                service.openWhenLoaded(player, playerUuid, 1, () -> { });
+                service.openTask();
+                service.openTask();
+            } finally {
+                latch.countDown();
+            }
+
+            verify(player).sendMessage(anyString());
+            assertThat(service.getOpener().getNoticeCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("openWhenLoaded should not open for viewers who left")
+        void openWhenLoadedSkipsOffline() {
+            when(player.isOnline()).thenReturn(false);
+            AtomicInteger opened = new AtomicInteger();
+
+            service.openWhenLoaded(player, playerUuid, 1, opened::incrementAndGet);
+            service.getSaveQueue().getLanes().await(playerUuid, 5, TimeUnit.SECONDS);
+            service.openTask();
+
+            assertThat(opened.get()).isZero();
+        }
+    }
+
+    // ==================== Open Flow ====================
+
+    @Nested
+    @DisplayName("Open Flow")
+    class OpenFlow {
+
+        @Test
+        @DisplayName("Should load and open at once before the I/O lanes are started")
+        void opensInline() {
+            when(player.isOnline()).thenReturn(true);
+            when(mockQuery.list()).thenReturn(Collections.singletonList(RemoteBagData.create(playerUuid, 1, "")));
+            AtomicInteger opened = new AtomicInteger();
+
+            service.openWhenLoaded(player, playerUuid, 1, opened::incrementAndGet);
+
+            assertThat(opened.get()).isEqualTo(1);
+            assertThat(service.isPageLoaded(playerUuid, 1)).isTrue();
+            assertThat(service.getOpener().getInlineOpenCount()).isEqualTo(1);
+            assertThat(service.getCacheMissCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should count cached bags as hits")
+        void countsCachedHits() {
+            when(player.isOnline()).thenReturn(true);
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            service.openWhenLoaded(player, playerUuid, 1, () -> { });
+
+            assertThat(service.getCacheHitCount()).isEqualTo(1);
+            assertThat(service.getCacheMissCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("loadPageAsync should complete at once for pages in memory")
+        void loadPageAsyncCached() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            assertThat(service.loadPageAsync(playerUuid, 1)).isCompleted();
+            assertThat(service.loadPageAsync(playerUuid, 9)).isCompleted();
+        }
+
+        @Test
+        @DisplayName("loadPageAsync should read on an I/O lane with async save off")
+        void loadPageAsyncWithoutQueue() throws Exception {
+            service.init();
+            try {
+                assertThat(service.getSaveQueue()).isNull();
+                AtomicReference<String> readOn = new AtomicReference<>();
+                when(mockQuery.list()).thenAnswer(inv -> {
+                    readOn.set(Thread.currentThread().getName());
+                    return Collections.singletonList(RemoteBagData.create(playerUuid, 1, ""));
+                });
+
+                service.loadPageAsync(playerUuid, 1).get(5, TimeUnit.SECONDS);
+
+                assertThat(readOn.get()).startsWith("UltiRemoteBag-IO");
+                assertThat(service.isPageLoaded(playerUuid, 1)).isTrue();
+            } finally {
+                service.shutdown();
+            }
+        }
+    }
+
+    // ==================== Departed Cache ====================
+
+    @Nested
+    @DisplayName("Departed Cache")
+    class DepartedCache {
+
+        @BeforeEach
+        void setUpBag() {
+            when(mockQuery.list()).thenReturn(Arrays.asList(
+                    RemoteBagData.create(playerUuid, 1, ""),
+                    RemoteBagData.create(playerUuid, 2, "")));
+            service.loadBagIfNeeded(playerUuid);
+            service.getBagPage(playerUuid, 2);
+            clearInvocations(mockQuery);
+        }
+
+        @Test
+        @DisplayName("Should restore a retired bag without reading the database")
+        void restoresWithoutDatabase() {
+            service.retireBag(playerUuid);
+            assertThat(service.getCachedBagCount()).isZero();
+            assertThat(service.getDepartedCache().getSize()).isEqualTo(1);
+
+            service.loadBagIfNeeded(playerUuid);
+
+            verify(mockQuery, never()).list();
+            assertThat(service.getPlayerBagPages(playerUuid)).containsExactly(1, 2);
+            assertThat(service.getBagPage(playerUuid, 1)).hasSize(54);
+            assertThat(service.getBagPage(playerUuid, 2)).hasSize(54);
+            assertThat(service.getDepartedCache().getHitCount()).isEqualTo(1);
+            assertThat(service.getDepartedCache().getSize()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should keep a bag whose save failed in cache instead of retiring it")
+        void keepsFailedPagesDirty() {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+            doThrow(new RuntimeException("db down")).when(dataOperator).update(any(RemoteBagData.class));
+            service.setBagPage(playerUuid, 2, new ItemStack[54]);
+            catchThrowable(() -> service.saveBag(playerUuid));
+            assertThat(service.isDirty(playerUuid, 2)).isTrue();
+
+            service.retireBag(playerUuid);
+            assertThat(service.getCachedBagCount()).isEqualTo(1);
+            assertThat(service.getDepartedCache().getSize()).isZero();
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.isDirty(playerUuid, 2)).isTrue();
+            assertThat(service.isDirty(playerUuid, 1)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should read the database once the bag expired")
+        void readsDatabaseAfterExpiry() {
+            service.retireBag(playerUuid);
+            service.getDepartedCache().clear();
+
+            service.loadBagIfNeeded(playerUuid);
+
+            verify(mockQuery, times(1)).list();
+            assertThat(service.getDepartedCache().getMissCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not keep bags when disabled")
+        void disabled() throws Exception {
+            when(config.getDepartedCacheMegabytes()).thenReturn(0);
+            UltiToolsPlugin plugin = mock(UltiToolsPlugin.class);
+            when(plugin.getDataOperator(RemoteBagData.class)).thenReturn(dataOperator);
+            lenient().when(plugin.getLogger()).thenReturn(mock(PluginLogger.class));
+            RemoteBagService disabled = new RemoteBagService(plugin, config);
+            UltiRemoteBagTestHelper.setField(disabled, "store",
+                    new DatabaseBagStore(dataOperator, (message, error) -> { }));
+            disabled.loadBagIfNeeded(playerUuid);
+
+            disabled.retireBag(playerUuid);
+            disabled.loadBagIfNeeded(playerUuid);
+
+            verify(mockQuery, times(2)).list();
+            assertThat(disabled.getDepartedCache().isEnabled()).isFalse();
+            assertThat(disabled.getDepartedCache().getSize()).isZero();
+            assertThat(disabled.getDepartedCache().getMissCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("clearCache should not keep the bag")
+        void clearCacheDoesNotRetire() {
+            service.clearCache(playerUuid);
+
+            assertThat(service.getDepartedCache().getSize()).isZero();
+        }
+    }
+
+    // ==================== Lazy Decoding ====================
+
+    @Nested
+    @DisplayName("Lazy Decoding")
+    class LazyDecoding {
+
+        @BeforeEach
+        void setUpBag() {
+            when(mockQuery.list()).thenReturn(Arrays.asList(
+                    RemoteBagData.create(playerUuid, 1, ""),
+                    RemoteBagData.create(playerUuid, 2, "")));
+            service.loadBagIfNeeded(playerUuid);
+        }
+
+        @Test
+        @DisplayName("Should keep loaded pages encoded until first access")
+        void decodesOnFirstAccess() {
+            assertThat(service.isPageLoaded(playerUuid, 1)).isTrue();
+            assertThat(service.getEncodedPageCount()).isEqualTo(2);
+            assertThat(service.getLazyDecodeCount()).isZero();
+
+            service.getBagPage(playerUuid, 1);
+            service.getBagPage(playerUuid, 1);
+
+            assertThat(service.getEncodedPageCount()).isEqualTo(1);
+            assertThat(service.getLazyDecodeCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not decode or write unmodified pages on save")
+        void skipsUnmodifiedPages() throws Exception {
+            service.saveBag(playerUuid);
+
+            verify(dataOperator, never()).insert(any());
+            verify(dataOperator, never()).update(any(RemoteBagData.class));
+            assertThat(service.getLazyDecodeCount()).isZero();
+            assertThat(service.getEncodedPageCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should reuse the read encoding of unopened pages on quit")
+        void reusesEncodingOnRetire() {
+            service.getBagPage(playerUuid, 2);
+
+            service.retireBag(playerUuid);
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.getReusedEncodingCount()).isEqualTo(1);
+            assertThat(service.getEncodedPageCount()).isEqualTo(2);
+            assertThat(service.getBagPage(playerUuid, 1)).hasSize(54);
+        }
+
+        @Test
+        @DisplayName("Modified pages should be written as usual")
+        void writesModifiedPages() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            assertThat(service.getEncodedPageCount()).isEqualTo(1);
+            assertThat(service.isDirty(playerUuid, 1)).isTrue();
+        }
+    }
+
+    // ==================== Write-Ahead Journal ====================
+
+    @Nested
+    @DisplayName("Write-Ahead Journal")
+    class WriteAheadJournal {
+
+        @TempDir
+        Path folder;
+
+        private Path file;
+
+        @BeforeEach
+        void setUpJournal() {
+            file = folder.resolve("journal/bag.journal");
+        }
+
+        @AfterEach
+        void stopJournal() {
+            service.shutdown();
+        }
+
+        private void writeJournal(java.util.function.Consumer<BagJournal> records) throws Exception {
+            BagJournal previous = new BagJournal(file, BagCodecs.BINARY::encode, (message, error) -> { }, Long.MAX_VALUE);
+            previous.open();
+            records.accept(previous);
+            previous.shutdown(5, TimeUnit.SECONDS);
+        }
+
+        @Test
+        @DisplayName("Should journal page changes until they are saved")
+        void journalsUntilSaved() {
+            service.openJournal(file);
+            BagJournal journal = service.getJournal();
+
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            assertThat(journal.getPendingCount()).isEqualTo(1);
+
+            service.saveBag(playerUuid);
+
+            assertThat(journal.getPendingCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should keep changes whose save failed")
+        void keepsFailedSave() {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+            service.openJournal(file);
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            assertThatThrownBy(() -> service.saveBag(playerUuid)).isInstanceOf(RuntimeException.class);
+
+            assertThat(service.getJournal().getPendingCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should replay journaled pages into database")
+        void replaysPages() throws Exception {
+            String contents = BagCodecs.BINARY.encode(new ItemStack[54]);
+            writeJournal(journal -> journal.append(playerUuid, 2, new ItemStack[54]));
+
+            service.openJournal(file);
+
+            ArgumentCaptor<RemoteBagData> captor = ArgumentCaptor.forClass(RemoteBagData.class);
+            verify(dataOperator).insert(captor.capture());
+            assertThat(captor.getValue().getPageNumber()).isEqualTo(2);
+            assertThat(captor.getValue().getContents()).isEqualTo(contents);
+            assertThat(BagJournal.readPending(file)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should replay deleted pages")
+        void replaysDelete() throws Exception {
+            RemoteBagData row = RemoteBagData.create(playerUuid, 3, "");
+            row.setId(13);
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row));
+            writeJournal(journal -> journal.appendDelete(playerUuid, 3));
+
+            service.openJournal(file);
+
+            verify(dataOperator).delById(13);
+        }
+
+        @Test
+        @DisplayName("Should keep a journal that could not be replayed")
+        void keepsFailedReplay() throws Exception {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+            writeJournal(journal -> journal.append(playerUuid, 1, new ItemStack[54]));
+
+            service.openJournal(file);
+
+            try (java.util.stream.Stream<Path> files = Files.list(file.getParent())) {
+                assertThat(files.map(path -> path.getFileName().toString()))
+                        .anyMatch(name -> name.startsWith("bag.journal.") && name.endsWith(".failed"));
+            }
+        }
+
+        @Test
+        @DisplayName("Should cancel a created page that was rolled back")
+        void cancelsRolledBackPage() {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+            service.openJournal(file);
+
+            assertThatThrownBy(() -> service.createBagPage(playerUuid).join()).hasRootCauseMessage("db down");
+
+            assertThat(service.getJournal().getPendingCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should release deleted pages once removed from database")
+        void releasesDelete() {
+            service.openJournal(file);
+            service.setBagPage(playerUuid, 2, new ItemStack[54]);
+
+            service.deleteBagPage(playerUuid, 2);
+
+            assertThat(service.getJournal().getPendingCount()).isZero();
+        }
+    }
+
+    // ==================== Delta Storage ====================
+
+    @Nested
+    @DisplayName("Delta Storage")
+    class DeltaStorage {
+
+        @SuppressWarnings("unchecked")
+        private final DataOperator<RemoteBagDeltaData> deltaOperator = mock(DataOperator.class);
+        @SuppressWarnings("unchecked")
+        private final Query<RemoteBagDeltaData> deltaQuery = mock(Query.class);
+        private final List<RemoteBagDeltaData> storedDeltas = new ArrayList<>();
+        private final AtomicInteger deltaIds = new AtomicInteger(100);
+
+        @BeforeEach
+        void enableDeltaMode() throws Exception {
+            lenient().when(deltaOperator.query()).thenReturn(deltaQuery);
+            lenient().when(deltaQuery.where(anyString())).thenReturn(deltaQuery);
+            lenient().when(deltaQuery.eq(any())).thenReturn(deltaQuery);
+            lenient().when(deltaQuery.list()).thenAnswer(inv -> new ArrayList<>(storedDeltas));
+            lenient().doAnswer(inv -> {
+                inv.<RemoteBagDeltaData>getArgument(0).setId(deltaIds.incrementAndGet());
+                return null;
+            }).when(deltaOperator).insert(any(RemoteBagDeltaData.class));
+            UltiRemoteBagTestHelper.setField(service, "deltaOperator", deltaOperator);
+        }
+
+        private RemoteBagData row(ItemStack[] contents, long deltaSeq) {
+            RemoteBagData data = RemoteBagData.create(playerUuid, 1, BagCodecs.BINARY.encode(contents));
+            data.setId(7);
+            data.setDeltaSeq(deltaSeq);
+            return data;
+        }
+
+        private RemoteBagDeltaData storedDelta(int id, long seq, ItemStack[] page, int... slots) {
+            ItemStack[] picked = new ItemStack[page.length];
+            StringBuilder slotList = new StringBuilder();
+            for (int slot : slots) {
+                picked[slot] = page[slot];
+                slotList.append(slotList.length() > 0 ? "," : "").append(slot);
+            }
+            RemoteBagDeltaData delta = RemoteBagDeltaData.create(playerUuid, 1, seq, slotList.toString(),
+                    BagCodecs.BINARY.encode(picked));
+            delta.setId(id);
+            PageSummary.of(page).applyTo(delta);
+            return delta;
+        }
+
+        /**
+         * Load the bag with one empty page and read it.
+         */
+        private ItemStack[] loadEmptyPage() {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(new ItemStack[54], 0L)));
+            service.loadBagIfNeeded(playerUuid);
+            return service.getBagPage(playerUuid, 1);
+        }
+
+        private ItemStack[] saveWith(ItemStack[] page, int slot, ItemStack item) {
+            ItemStack[] edited = page.clone();
+            edited[slot] = item;
+            service.setBagPage(playerUuid, 1, edited);
+            service.saveBag(playerUuid);
+            return edited;
+        }
+
+        @Test
+        @DisplayName("Should write only the changed slots of a read page")
+        void writesChangedSlots() throws Exception {
+            ItemStack[] page = loadEmptyPage();
+
+            saveWith(page, 3, new ItemStack(Material.STONE, 10));
+
+            ArgumentCaptor<RemoteBagDeltaData> captor = ArgumentCaptor.forClass(RemoteBagDeltaData.class);
+            verify(deltaOperator).insert(captor.capture());
+            assertThat(captor.getValue().getSlots()).isEqualTo("3");
+            assertThat(captor.getValue().getItemCount()).isEqualTo(10);
+            verify(dataOperator, never()).update(any(RemoteBagData.class));
+            assertThat(service.getDeltaSaveCount()).isEqualTo(1);
+            assertThat(service.getItemCount(playerUuid, 1)).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("Should skip pages that did not change")
+        void skipsUnchanged() throws Exception {
+            ItemStack[] page = loadEmptyPage();
+
+            service.setBagPage(playerUuid, 1, page.clone());
+            service.saveBag(playerUuid);
+
+            verify(deltaOperator, never()).insert(any(RemoteBagDeltaData.class));
+            verify(dataOperator, never()).update(any(RemoteBagData.class));
+        }
+
+        @Test
+        @DisplayName("Should decode pages with their deltas when the bag is read")
+        void mergesWhenBagIsRead() {
+            ItemStack[] latest = new ItemStack[54];
+            latest[1] = new ItemStack(Material.DIRT, 3);
+            storedDeltas.add(storedDelta(22, 5L, latest, 1));
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(new ItemStack[54], 0L)));
+
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.getPageSnapshot(playerUuid, 1).isDecoded()).isTrue();
+            assertThat(service.getPageSnapshot(playerUuid, 1).getItem(1)).isEqualTo(new ItemStack(Material.DIRT, 3));
+            assertThat(service.getLazyDecodeCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should write a snapshot when most slots changed")
+        void snapshotsLargeChange() throws Exception {
+            ItemStack[] page = loadEmptyPage();
+            ItemStack[] edited = page.clone();
+            for (int slot = 0; slot < 30; slot++) {
+                edited[slot] = new ItemStack(Material.DIRT, 1);
+            }
+
+            service.setBagPage(playerUuid, 1, edited);
+            service.saveBag(playerUuid);
+
+            verify(dataOperator).update(any(RemoteBagData.class));
+            verify(deltaOperator, never()).insert(any(RemoteBagDeltaData.class));
+        }
+
+        @Test
+        @DisplayName("Should compact deltas into a snapshot past the threshold")
+        void compactsPastThreshold() throws Exception {
+            when(config.getDeltaCompactThreshold()).thenReturn(2);
+            ItemStack[] page = loadEmptyPage();
+
+            page = saveWith(page, 0, new ItemStack(Material.STONE, 1));
+            page = saveWith(page, 1, new ItemStack(Material.STONE, 2));
+            page = saveWith(page, 2, new ItemStack(Material.STONE, 3));
+
+            ArgumentCaptor<RemoteBagDeltaData> deltas = ArgumentCaptor.forClass(RemoteBagDeltaData.class);
+            verify(deltaOperator, times(2)).insert(deltas.capture());
+            ArgumentCaptor<RemoteBagData> snapshot = ArgumentCaptor.forClass(RemoteBagData.class);
+            verify(dataOperator).update(snapshot.capture());
+            assertThat(snapshot.getValue().getDeltaSeq()).isEqualTo(deltas.getAllValues().get(1).getSeq());
+            verify(deltaOperator).delById(101);
+            verify(deltaOperator).delById(102);
+            assertThat(service.getDeltaCompactCount()).isEqualTo(1);
+
+            // Deltas start over on top of the new snapshot
+            saveWith(page, 3, new ItemStack(Material.STONE, 4));
+            verify(deltaOperator, times(3)).insert(any(RemoteBagDeltaData.class));
+        }
+
+        @Test
+        @DisplayName("Should merge deltas above the snapshot when the page is read")
+        void mergesOnRead() {
+            ItemStack[] snapshot = new ItemStack[54];
+            snapshot[0] = new ItemStack(Material.STONE, 64);
+            ItemStack[] obsolete = new ItemStack[54];
+            obsolete[2] = new ItemStack(Material.GOLD_INGOT, 1);
+            ItemStack[] latest = new ItemStack[54];
+            latest[1] = new ItemStack(Material.DIRT, 3);
+            storedDeltas.add(storedDelta(22, 5L, latest, 0, 1));
+            storedDeltas.add(storedDelta(21, 1L, obsolete, 2));
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(snapshot, 2L)));
+
+            service.loadBagIfNeeded(playerUuid);
+            ItemStack[] page = service.getBagPage(playerUuid, 1);
+
+            assertThat(page[0]).isNull();
+            assertThat(page[1]).isEqualTo(new ItemStack(Material.DIRT, 3));
+            assertThat(page[2]).isNull();
+        }
+
+        @Test
+        @DisplayName("Should show the summary of the latest delta")
+        void summaryFromLatestDelta() {
+            ItemStack[] latest = new ItemStack[54];
+            latest[1] = new ItemStack(Material.DIRT, 3);
+            storedDeltas.add(storedDelta(22, 5L, latest, 1));
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(new ItemStack[54], 0L)));
+
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.getPageSummary(playerUuid, 1).getItemCount()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should delete the deltas of a deleted page")
+        void deletesDeltasWithPage() {
+            ItemStack[] latest = new ItemStack[54];
+            latest[1] = new ItemStack(Material.DIRT, 3);
+            storedDeltas.add(storedDelta(22, 5L, latest, 1));
+            when(mockQuery.list()).thenReturn(Collections.singletonList(row(new ItemStack[54], 0L)));
+            service.loadBagIfNeeded(playerUuid);
+
+            service.deleteBagPage(playerUuid, 1);
+
+            verify(dataOperator).delById(7);
+            verify(deltaOperator).delById(22);
+        }
+
+        @Test
+        @DisplayName("Should supersede unknown deltas when the bag is not loaded")
+        void supersedesUnknownDeltas() {
+            long before = System.currentTimeMillis();
+
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            ArgumentCaptor<RemoteBagData> captor = ArgumentCaptor.forClass(RemoteBagData.class);
+            verify(dataOperator).insert(captor.capture());
+            assertThat(captor.getValue().getDeltaSeq()).isGreaterThanOrEqualTo(before);
+        }
+    }
+
+    // ==================== Login Preload ====================
+
+    @Nested
+    @DisplayName("Login Preload")
+    class LoginPreload {
+
+        @BeforeEach
+        void enablePreload() {
+            when(config.isPreloadEnabled()).thenReturn(true);
+            service.init();
+        }
+
+        @AfterEach
+        void stopPreload() {
+            service.shutdown();
+        }
+
+        @Test
+        @DisplayName("Preloaded bag should be warm on first open")
+        void preloadedBagIsWarm() {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(
+                    RemoteBagData.create(playerUuid, 1, "")));
+
+            assertThat(service.preloadBag(playerUuid)).isTrue();
+            assertThat(service.getBagPage(playerUuid, 1)).isNotNull();
+
+            service.loadBagIfNeeded(playerUuid);
+
+            verify(mockQuery, times(1)).list();
+            assertThat(service.getPreloadCount()).isEqualTo(1);
+            assertThat(service.getWarmOpenCount()).isEqualTo(1);
+            assertThat(service.getColdOpenCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should only count the first open after login")
+        void countsFirstOpenOnly() {
+            service.preloadBag(playerUuid);
+
+            service.loadBagIfNeeded(playerUuid);
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.getWarmOpenCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not query when the bag is already cached")
+        void skipsCachedBag() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            assertThat(service.preloadBag(playerUuid)).isTrue();
+
+            verify(mockQuery, never()).list();
+            assertThat(service.getPreloadCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should do nothing when preloading is disabled")
+        void disabled() {
+            service.shutdown();
+
+            assertThat(service.preloadBag(playerUuid)).isFalse();
+
+            verify(mockQuery, never()).list();
+        }
+
+        @Test
+        @DisplayName("Slow preload should time out and fall back to loading on first open")
+        void slowPreloadFallsBack() throws Exception {
+            when(config.getPreloadTimeoutMillis()).thenReturn(100);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger calls = new AtomicInteger();
+            when(mockQuery.list()).thenAnswer(inv -> {
+                if (calls.incrementAndGet() == 1) {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                return Collections.singletonList(RemoteBagData.create(playerUuid, 1, ""));
+            });
+
+            assertThat(service.preloadBag(playerUuid)).isFalse();
+            assertThat(service.getPreloadTimeoutCount()).isEqualTo(1);
+
+            service.loadBagIfNeeded(playerUuid);
+            PageSnapshot loaded = service.getPageSnapshot(playerUuid, 1);
+            assertThat(service.getColdOpenCount()).isEqualTo(1);
+
+            // The late preload must not replace the bag loaded on first open
+            release.countDown();
+            Field field = RemoteBagService.class.getDeclaredField("preloadExecutor");
+            field.setAccessible(true); // NOPMD
+            ExecutorService executor = (ExecutorService) field.get(service);
+            executor.shutdown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(service.getPageSnapshot(playerUuid, 1)).isSameAs(loaded);
+        }
+
+        @Test
+        @DisplayName("Failed preload should be counted")
+        void failedPreload() {
+            when(mockQuery.list()).thenThrow(new RuntimeException("db down"));
+
+            assertThat(service.preloadBag(playerUuid)).isFalse();
+
+            assertThat(service.getPreloadFailedCount()).isEqualTo(1);
+            assertThat(service.getBagPage(playerUuid, 1)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should discard an unopened preloaded bag")
+        void discardsUnopenedBag() {
+            when(mockQuery.list()).thenReturn(Collections.singletonList(
+                    RemoteBagData.create(playerUuid, 1, "")));
+            service.preloadBag(playerUuid);
+
+            service.discardPreloadedBag(playerUuid);
+
+            assertThat(service.getBagPage(playerUuid, 1)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should keep a bag that was cached before the login")
+        void keepsPreviouslyCachedBag() {
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.preloadBag(playerUuid);
+
+            service.discardPreloadedBag(playerUuid);
+
+            assertThat(service.getBagPage(playerUuid, 1)).isNotNull();
+        }
+    }
+
+    // ==================== Cache Eviction ====================
+
+    @Nested
+    @DisplayName("Cache Eviction")
+    class CacheEviction {
+
+        private final UUID first = UUID.randomUUID();
+        private final UUID second = UUID.randomUUID();
+        private final UUID third = UUID.randomUUID();
+
+        @BeforeEach
+        void limitCache() throws Exception {
+            UltiRemoteBagTestHelper.setField(service, "cachePolicy", new BagCachePolicy(2, 100));
+        }
+
+        private Map<?, ?> bagCache() throws Exception {
+            Field field = RemoteBagService.class.getDeclaredField("bagCache");
+            field.setAccessible(true); // NOPMD
+            return (Map<?, ?>) field.get(service);
+        }
+
+        @Test
+        @DisplayName("Should evict the least recently used bag over the limit")
+        void evictsLeastRecentlyUsed() throws Exception {
+            service.loadBagIfNeeded(first);
+            service.loadBagIfNeeded(second);
+            service.setBagPage(first, 1, new ItemStack[54]);
+            service.saveBagAsync(first).join();
+
+            service.loadBagIfNeeded(third);
+
+            assertThat(bagCache()).containsOnlyKeys(first, third);
+            assertThat(service.getCacheEvictionCount()).isEqualTo(1);
+            assertThat(service.getCachedBagCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should never evict pinned bags")
+        void keepsPinnedBags() throws Exception {
+            service.pinBag(first);
+            service.loadBagIfNeeded(first);
+            service.loadBagIfNeeded(second);
+
+            service.loadBagIfNeeded(third);
+
+            assertThat(bagCache()).containsOnlyKeys(first, third);
+        }
+
+        @Test
+        @DisplayName("Should not evict the bag being loaded")
+        void keepsBagInUse() throws Exception {
+            service.pinBag(first);
+            service.pinBag(second);
+            service.loadBagIfNeeded(first);
+            service.loadBagIfNeeded(second);
+
+            service.loadBagIfNeeded(third);
+
+            assertThat(bagCache()).containsOnlyKeys(first, second, third);
+            assertThat(service.getCacheEvictionCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should not evict bags that are locked or open in a GUI")
+        void keepsLockedBags() throws Exception {
+            BagLockService lockService = mock(BagLockService.class);
+            when(lockService.isBagInUse(first)).thenReturn(true);
+            service.setLockService(lockService);
+            service.loadBagIfNeeded(first);
+            service.loadBagIfNeeded(second);
+
+            service.loadBagIfNeeded(third);
+
+            assertThat(bagCache()).containsOnlyKeys(first, third);
+        }
+
+        @Test
+        @DisplayName("Should reload an evicted bag before caching a changed page")
+        void reloadsEvictedBagOnPublish() throws Exception {
+            when(mockQuery.list()).thenReturn(Arrays.asList(
+                    RemoteBagData.create(first, 1, ""),
+                    RemoteBagData.create(first, 2, "")));
+            service.loadBagIfNeeded(first);
+            service.loadBagIfNeeded(second);
+            service.loadBagIfNeeded(third);
+            assertThat(bagCache()).doesNotContainKey(first);
+
+            service.setBagPage(first, 1, new ItemStack[54]);
+
+            assertThat(service.getPlayerBagPages(first)).containsExactly(1, 2);
+            assertThat(service.isDirty(first, 1)).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should save dirty bags before evicting them")
+        void flushesDirtyBeforeEviction() throws Exception {
+            service.setBagPage(first, 1, new ItemStack[54]);
+            service.loadBagIfNeeded(second);
+
+            service.loadBagIfNeeded(third);
+
+            verify(dataOperator).insert(any(RemoteBagData.class));
+            assertThat(bagCache()).containsOnlyKeys(second, third);
+        }
+
+        @Test
+        @DisplayName("Should keep dirty bags whose save failed")
+        void keepsBagWhenSaveFails() throws Exception {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+            service.setBagPage(first, 1, new ItemStack[54]);
+            service.loadBagIfNeeded(second);
+
+            service.loadBagIfNeeded(third);
+
+            assertThat(bagCache()).containsKey(first);
+            assertThat(service.isDirty(first, 1)).isTrue();
+            assertThat(service.getCacheEvictionCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should count cache hits and misses")
+        void countsHitsAndMisses() {
+            service.loadBagIfNeeded(first);
+            service.loadBagIfNeeded(first);
+            service.loadBagIfNeeded(second);
+
+            assertThat(service.getCacheMissCount()).isEqualTo(2);
+            assertThat(service.getCacheHitCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("clearCache should drop the pin")
+        void clearCacheUnpins() throws Exception {
+            service.pinBag(first);
+            service.loadBagIfNeeded(first);
+            service.clearCache(first);
+            service.loadBagIfNeeded(first);
+            service.loadBagIfNeeded(second);
+
+            service.loadBagIfNeeded(third);
+
+            assertThat(bagCache()).containsOnlyKeys(second, third);
+        }
+    }
+
+    // ==================== saveAllBags ====================
+
+    @Nested
+    @DisplayName("saveAllBags")
+    class SaveAllBags {
+
+        @Test
+        @DisplayName("Should save all cached bags")
+        void savesAllCached() {
+            UUID uuid1 = UUID.randomUUID();
+            UUID uuid2 = UUID.randomUUID();
+
+            when(mockQuery.list()).thenReturn(Collections.emptyList());
+
+            service.setBagPage(uuid1, 1, new ItemStack[54]);
+            service.setBagPage(uuid2, 1, new ItemStack[54]);
+
+            assertThat(service.saveAllBags().join()).isTrue();
+
+            verify(dataOperator, atLeast(2)).insert(any(RemoteBagData.class));
+        }
+
+        @Test
+        @DisplayName("Should do nothing when cache is empty")
+        void doesNothingWhenCacheEmpty() throws Exception {
+            assertThat(service.saveAllBags().join()).isTrue();
+
+            verify(dataOperator, never()).insert(any());
+            verify(dataOperator, never()).update(any(RemoteBagData.class));
+        }
+    }
+
+    // ==================== flushOnShutdown ====================
+
+    @Nested
+    @DisplayName("Shutdown Flush")
+    class ShutdownFlush {
+
+        @TempDir
+        Path folder;
+
+        private Path recovery;
+
+        @BeforeEach
+        void setUpRecovery() {
+            recovery = folder.resolve("journal/bag.recovery");
+        }
+
+        @Test
+        @DisplayName("Should write dirty pages of every cached bag")
+        void writesDirtyPages() {
+            UUID otherUuid = UUID.randomUUID();
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.setBagPage(playerUuid, 2, new ItemStack[54]);
+            service.setBagPage(otherUuid, 1, new ItemStack[54]);
+
+            ShutdownFlusher.Result result = service.flushOnShutdown(recovery);
+
+            assertThat(result.getWrittenPages()).isEqualTo(3);
+            assertThat(result.getUnwritten()).isEmpty();
+            verify(dataOperator, times(3)).insert(any(RemoteBagData.class));
+            assertThat(service.getDirtyPageCount()).isZero();
+            assertThat(recovery).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("Should take over batches waiting in the save queue")
+        void takesOverQueuedBatches() throws Exception {
+            BagSaveQueue queue = new BagSaveQueue((owner, pages) -> true, 16);
+            CountDownLatch latch = new CountDownLatch(1);
+            queue.submit(playerUuid, () -> {
+                try {
+                    latch.await(200, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            UltiRemoteBagTestHelper.setField(service, "saveQueue", queue);
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+            service.saveBag(playerUuid);
+
+            ShutdownFlusher.Result result = service.flushOnShutdown(recovery);
+
+            assertThat(result.getWrittenPages()).isEqualTo(1);
+            verify(dataOperator).insert(any(RemoteBagData.class));
+            assertThat(service.getSaveQueue()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should spill unwritten pages and import them on the next start")
+        void spillsAndImports() throws Exception {
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+            service.setBagPage(playerUuid, 3, new ItemStack[54]);
+
+            ShutdownFlusher.Result result = service.flushOnShutdown(recovery);
+
+            assertThat(result.getUnwrittenPages()).isEqualTo(1);
+            assertThat(BagJournal.readPending(recovery))
+                    .extracting(BagJournal.Entry::getPage).containsExactly(3);
+
+            doNothing().when(dataOperator).insert(any(RemoteBagData.class));
+            service.clearCache(playerUuid);
+            service.importRecovery(recovery);
+
+            ArgumentCaptor<RemoteBagData> captor = ArgumentCaptor.forClass(RemoteBagData.class);
+            verify(dataOperator, times(2)).insert(captor.capture());
+            assertThat(captor.getValue().getPageNumber()).isEqualTo(3);
+            assertThat(captor.getValue().getContents()).isEqualTo(BagCodecs.BINARY.encode(new ItemStack[54]));
+            assertThat(recovery).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("Should keep a recovery file that could not be imported")
+        void keepsFailedImport() throws Exception {
+            BagJournal.writeEntries(recovery, Collections.singletonList(
+                    new BagJournal.Entry(playerUuid, 1, BagCodecs.BINARY.encode(new ItemStack[54]))));
+            doThrow(new RuntimeException("db down")).when(dataOperator).insert(any(RemoteBagData.class));
+
+            service.importRecovery(recovery);
+
+            assertThat(recovery).doesNotExist();
+            try (java.util.stream.Stream<Path> files = Files.list(recovery.getParent())) {
+                assertThat(files.map(path -> path.getFileName().toString()))
+                        .anyMatch(name -> name.startsWith("bag.recovery.") && name.endsWith(".failed"));
+            }
+        }
+    }
+
+    // ==================== createBagPage ====================
+
+    @Nested
+    @DisplayName("createBagPage")
+    class CreateBagPage {
+
+        @Test
+        @DisplayName("Should create page for player with no existing bags")
+        void createsFirstPage() {
+            // When no data exists in DB, getPlayerBagPages returns [1] as default
+            // So createBagPage creates the next page (2)
+            when(mockQuery.list()).thenReturn(Collections.emptyList());
+
+            int pageNum = service.createBagPage(playerUuid).join();
+
+            assertThat(pageNum).isEqualTo(2);
+            verify(dataOperator).insert(any(RemoteBagData.class));
+        }
+
+        @Test
+        @DisplayName("Should create next sequential page")
+        void createsNextPage() {
+            // First call to loadBagIfNeeded returns pages 1 and 2
+            when(mockQuery.list())
+                    .thenReturn(Arrays.asList(
+                            RemoteBagData.create(playerUuid, 1, ""),
+                            RemoteBagData.create(playerUuid, 2, "")
+                    ))
+                    // Subsequent calls for saveBag (checking existing) return empty
+                    .thenReturn(Collections.emptyList());
+
+            int pageNum = service.createBagPage(playerUuid).join();
+
+            assertThat(pageNum).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should save bag after creating page")
+        void savesBagAfterCreation() {
+            when(mockQuery.list()).thenReturn(Collections.emptyList());
+
+            service.createBagPage(playerUuid);
+
+            verify(dataOperator).insert(any(RemoteBagData.class));
+        }
+    }
+
+    // ==================== deleteBagPage ====================
+
+    @Nested
+    @DisplayName("deleteBagPage")
+    class DeleteBagPage {
 
         @Test
         @DisplayName("Should return false when page not found")
@@ -764,7 +2722,7 @@ class RemoteBagServiceTest {
 
             service.loadBagIfNeeded(playerUuid);
 
-            boolean result = service.deleteBagPage(playerUuid, 5);
+            boolean result = service.deleteBagPage(playerUuid, 5).join();
 
             assertThat(result).isFalse();
         }
@@ -779,7 +2737,7 @@ class RemoteBagServiceTest {
                     .thenReturn(Collections.singletonList(data));
 
             service.loadBagIfNeeded(playerUuid);
-            boolean result = service.deleteBagPage(playerUuid, 1);
+            boolean result = service.deleteBagPage(playerUuid, 1).join();
 
             assertThat(result).isTrue();
             verify(dataOperator).delById(data.getId());
@@ -790,7 +2748,7 @@ class RemoteBagServiceTest {
         void returnsFalseWhenPlayerNotCached() {
             when(mockQuery.list()).thenReturn(Collections.emptyList());
 
-            boolean result = service.deleteBagPage(playerUuid, 1);
+            boolean result = service.deleteBagPage(playerUuid, 1).join();
 
             assertThat(result).isFalse();
         }
@@ -842,7 +2800,7 @@ class RemoteBagServiceTest {
 
             service.loadBagIfNeeded(playerUuid);
 
-            boolean result = service.clearBagPage(playerUuid, 5);
+            boolean result = service.clearBagPage(playerUuid, 5).join();
 
             assertThat(result).isFalse();
         }
@@ -858,7 +2816,7 @@ class RemoteBagServiceTest {
                     .thenReturn(Collections.emptyList());
 
             service.loadBagIfNeeded(playerUuid);
-            boolean result = service.clearBagPage(playerUuid, 1);
+            boolean result = service.clearBagPage(playerUuid, 1).join();
 
             assertThat(result).isTrue();
             verify(dataOperator).insert(any(RemoteBagData.class));
@@ -869,7 +2827,7 @@ class RemoteBagServiceTest {
         void returnsFalseWhenNotCached() {
             when(mockQuery.list()).thenReturn(Collections.emptyList());
 
-            boolean result = service.clearBagPage(playerUuid, 1);
+            boolean result = service.clearBagPage(playerUuid, 1).join();
 
             assertThat(result).isFalse();
         }
@@ -916,17 +2874,43 @@ class RemoteBagServiceTest {
     class AutoSaveTask {
 
         @Test
-        @DisplayName("Should call saveAllBags")
-        void callsSaveAllBags() {
-            when(mockQuery.list()).thenReturn(Collections.emptyList());
-
-            // Add some data to cache first
+        @DisplayName("Should save cached bags once they are due")
+        void savesDueBags() throws Exception {
+            AtomicLong clock = new AtomicLong();
+            UltiRemoteBagTestHelper.setField(service, "autoSaveScheduler",
+                    new AutoSaveScheduler(300_000, 5, clock::get));
             service.setBagPage(playerUuid, 1, new ItemStack[54]);
 
+            service.autoSaveTask();
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(300));
             service.autoSaveTask();
 
-            // saveAllBags iterates over cache and calls saveBag for each
             verify(dataOperator).insert(any(RemoteBagData.class));
+            assertThat(service.getAutoSaveScheduler().getScheduledCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not save when auto save is disabled")
+        void disabled() {
+            when(config.getAutoSaveInterval()).thenReturn(0);
+            service.setBagPage(playerUuid, 1, new ItemStack[54]);
+
+            service.autoSaveTask();
+
+            assertThat(service.getAutoSaveScheduler()).isNull();
+            verify(dataOperator, never()).insert(any());
+        }
+
+        @Test
+        @DisplayName("Should follow the configured interval")
+        void followsConfiguredInterval() {
+            AutoSaveScheduler scheduler = service.getAutoSaveScheduler();
+            assertThat(scheduler.getIntervalMillis()).isEqualTo(300_000);
+            assertThat(service.getAutoSaveScheduler()).isSameAs(scheduler);
+
+            when(config.getAutoSaveInterval()).thenReturn(60);
+
+            assertThat(service.getAutoSaveScheduler().getIntervalMillis()).isEqualTo(60_000);
         }
 
         @Test
@@ -958,6 +2942,30 @@ class RemoteBagServiceTest {
 
             // Verify getDataOperator was called
             verify(initPlugin).getDataOperator(RemoteBagData.class);
+            assertThat(initService.getStore()).isInstanceOf(DatabaseBagStore.class);
+        }
+
+        @Test
+        @DisplayName("Should open the file store when configured")
+        void opensFileStore(@TempDir Path folder) {
+            UltiToolsPlugin initPlugin = mock(UltiToolsPlugin.class);
+            when(initPlugin.getResourceFolderPath()).thenReturn(folder.toString());
+            when(config.getStorageBackend()).thenReturn("file");
+            when(config.getFileSegmentMegabytes()).thenReturn(1);
+
+            RemoteBagService initService = new RemoteBagService(initPlugin, config);
+            initService.init();
+            try {
+                initService.setBagPage(playerUuid, 1, new ItemStack[54]);
+                initService.saveBag(playerUuid);
+
+                assertThat(initService.getStore()).isInstanceOf(LogBagStore.class);
+                assertThat(initService.getStore().findPage(playerUuid, 1)).hasSize(1);
+                assertThat(folder.resolve("store")).isDirectory();
+                verify(initPlugin, never()).getDataOperator(RemoteBagData.class);
+            } finally {
+                initService.shutdown();
+            }
         }
     }
 
@@ -975,7 +2983,7 @@ class RemoteBagServiceTest {
             when(config.getMaxPages()).thenReturn(10);
             when(mockQuery.list()).thenReturn(Collections.emptyList());
 
-            boolean result = service.purchaseBag(player);
+            boolean result = service.purchaseBag(player).join();
 
             assertThat(result).isTrue();
         }
@@ -991,7 +2999,7 @@ class RemoteBagServiceTest {
             service.setBagPage(playerUuid, 1, new ItemStack[54]);
             service.setBagPage(playerUuid, 2, new ItemStack[54]);
 
-            boolean result = service.purchaseBag(player);
+            boolean result = service.purchaseBag(player).join();
 
             assertThat(result).isFalse();
         }
@@ -1021,7 +3029,7 @@ class RemoteBagServiceTest {
                 when(config.isPriceIncreaseEnabled()).thenReturn(false);
                 when(mockQuery.list()).thenReturn(Collections.emptyList());
 
-                boolean result = service.purchaseBag(player);
+                boolean result = service.purchaseBag(player).join();
 
                 assertThat(result).isTrue();
                 verify(mockEconomy).withdrawPlayer(eq(player), eq(10000.0));
@@ -1051,7 +3059,7 @@ class RemoteBagServiceTest {
                 when(config.isPriceIncreaseEnabled()).thenReturn(false);
                 when(mockQuery.list()).thenReturn(Collections.emptyList());
 
-                boolean result = service.purchaseBag(player);
+                boolean result = service.purchaseBag(player).join();
 
                 assertThat(result).isFalse();
             } finally {
@@ -1080,7 +3088,7 @@ class RemoteBagServiceTest {
                 service.setBagPage(playerUuid, 1, new ItemStack[54]);
                 service.setBagPage(playerUuid, 2, new ItemStack[54]);
 
-                boolean result = service.purchaseBag(player);
+                boolean result = service.purchaseBag(player).join();
 
                 assertThat(result).isFalse();
                 // Should not even try to withdraw
@@ -1217,12 +3225,26 @@ class RemoteBagServiceTest {
             // When no data in DB, getPlayerBagPages returns [1] as default
             when(mockQuery.list()).thenReturn(Collections.emptyList());
 
-            int pageNum = service.createBagPage(playerUuid);
+            int pageNum = service.createBagPage(playerUuid).join();
 
             // Should create page 2 (next after default page 1)
             assertThat(pageNum).isEqualTo(2);
         }
 
+        @Test
+        @DisplayName("Should skip stored pages with an out of range page number")
+        void skipsOutOfRangePages() {
+            when(mockQuery.list()).thenReturn(Arrays.asList(
+                    RemoteBagData.create(playerUuid, 1, ""),
+                    RemoteBagData.create(playerUuid, BagPages.MAX_PAGE + 1, ""),
+                    RemoteBagData.create(playerUuid, -1, "")));
+
+            service.loadBagIfNeeded(playerUuid);
+
+            assertThat(service.getPlayerBagPages(playerUuid)).containsExactly(1);
+            assertThat(service.getBagPage(playerUuid, 1)).hasSize(54);
+        }
+
         @Test
         @DisplayName("Multiple loadBagIfNeeded calls for same player should only query once")
         void multipleLoadsQueryOnce() {
@@ -0,0 +1,111 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("ShutdownFlusher Tests")
+class ShutdownFlusherTest {
+
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+    private static Map<UUID, Map<Integer, ItemStack[]>> batches(UUID... players) {
+        Map<UUID, Map<Integer, ItemStack[]>> batches = new HashMap<>();
+        for (UUID playerUuid : players) {
+            Map<Integer, ItemStack[]> pages = new HashMap<>();
+            pages.put(1, new ItemStack[54]);
+            pages.put(2, new ItemStack[54]);
+            batches.put(playerUuid, pages);
+        }
+        return batches;
+    }
+
+    @Test
+    @DisplayName("Should write players in parallel")
+    void writesInParallel() {
+        // 两个批次都等待对方开始，只有并行写入才能完成
+        CountDownLatch started = new CountDownLatch(2);
+        ShutdownFlusher flusher = new ShutdownFlusher((owner, pages) -> {
+            started.countDown();
+            try {
+                return started.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }, 2, (message, error) -> errors.add(message));
+
+        ShutdownFlusher.Result result = flusher.flush(batches(UUID.randomUUID(), UUID.randomUUID()), 5, TimeUnit.SECONDS);
+
+        assertThat(result.getWrittenPages()).isEqualTo(4);
+        assertThat(result.getUnwritten()).isEmpty();
+        assertThat(result.isTimedOut()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should return batches not written by the deadline")
+    void stopsAtDeadline() {
+        UUID fast = UUID.randomUUID();
+        UUID slow = UUID.randomUUID();
+        CountDownLatch never = new CountDownLatch(1);
+        ShutdownFlusher flusher = new ShutdownFlusher((owner, pages) -> {
+            if (owner.equals(slow)) {
+                try {
+                    never.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }, 2, (message, error) -> errors.add(message));
+
+        ShutdownFlusher.Result result = flusher.flush(batches(fast, slow), 200, TimeUnit.MILLISECONDS);
+
+        assertThat(result.isTimedOut()).isTrue();
+        assertThat(result.getWrittenPages()).isEqualTo(2);
+        assertThat(result.getUnwritten()).containsOnlyKeys(slow);
+        assertThat(result.getUnwrittenPages()).isEqualTo(2);
+        assertThat(result.getElapsedMillis()).isLessThan(5000);
+    }
+
+    @Test
+    @DisplayName("Should return failed batches")
+    void returnsFailedBatches() {
+        UUID failed = UUID.randomUUID();
+        UUID thrown = UUID.randomUUID();
+        ShutdownFlusher flusher = new ShutdownFlusher((owner, pages) -> {
+            if (owner.equals(thrown)) {
+                throw new IllegalStateException("db down");
+            }
+            return !owner.equals(failed);
+        }, 4, (message, error) -> errors.add(message));
+
+        ShutdownFlusher.Result result = flusher.flush(batches(failed, thrown, UUID.randomUUID()), 5, TimeUnit.SECONDS);
+
+        assertThat(result.getUnwritten()).containsOnlyKeys(failed, thrown);
+        assertThat(result.getWrittenPages()).isEqualTo(2);
+        assertThat(errors).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should do nothing without batches")
+    void emptyFlush() {
+        ShutdownFlusher flusher = new ShutdownFlusher((owner, pages) -> true, 4, (message, error) -> errors.add(message));
+
+        ShutdownFlusher.Result result = flusher.flush(Collections.emptyMap(), 1, TimeUnit.SECONDS);
+
+        assertThat(result.getWrittenPages()).isZero();
+        assertThat(result.getUnwritten()).isEmpty();
+    }
+}
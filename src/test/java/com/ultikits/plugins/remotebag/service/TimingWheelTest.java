@@ -0,0 +1,89 @@
+package com.ultikits.plugins.remotebag.service;
+
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TimingWheel Tests")
+class TimingWheelTest {
+
+    private TimingWheel<String> wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel<>(1000, 8, 0);
+    }
+
+    @Test
+    @DisplayName("Should not fire before the deadline")
+    void notBeforeDeadline() {
+        wheel.schedule("a", 2500);
+
+        assertThat(wheel.advance(2000)).isEmpty();
+        assertThat(wheel.advance(2999)).isEmpty();
+        assertThat(wheel.advance(3000)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should fire past deadlines on the next tick")
+    void pastDeadline() {
+        wheel.advance(5000);
+        wheel.schedule("late", 1000);
+
+        assertThat(wheel.advance(5999)).isEmpty();
+        assertThat(wheel.advance(6000)).containsExactly("late");
+    }
+
+    @Test
+    @DisplayName("Should keep entries due after more than one revolution")
+    void multipleRevolutions() {
+        wheel.schedule("far", 20_000);
+
+        assertThat(wheel.advance(8000)).isEmpty();
+        assertThat(wheel.advance(16_000)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(20_000)).containsExactly("far");
+    }
+
+    @Test
+    @DisplayName("Should fire everything due after a long pause")
+    void longPause() {
+        wheel.schedule("a", 1000);
+        wheel.schedule("b", 7000);
+        wheel.schedule("c", 30_000);
+
+        assertThat(wheel.advance(100_000)).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should only fire entries of the elapsed ticks")
+    void partialAdvance() {
+        wheel.schedule("a", 1000);
+        wheel.schedule("b", 2000);
+        wheel.schedule("c", 3000);
+
+        assertThat(wheel.advance(2000)).containsExactly("a", "b");
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore time going backwards")
+    void timeGoingBackwards() {
+        wheel.schedule("a", 3000);
+        wheel.advance(2000);
+
+        assertThat(wheel.advance(1000)).isEmpty();
+        assertThat(wheel.advance(3000)).containsExactly("a");
+    }
+
+    @Test
+    @DisplayName("Should reject invalid sizes")
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> new TimingWheel<String>(1000, 6, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimingWheel<String>(0, 8, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
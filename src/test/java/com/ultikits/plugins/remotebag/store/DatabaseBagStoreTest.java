@@ -0,0 +1,84 @@
+package com.ultikits.plugins.remotebag.store;
+
+import com.ultikits.plugins.remotebag.entity.RemoteBagData;
+import com.ultikits.ultitools.interfaces.DataOperator;
+import com.ultikits.ultitools.interfaces.Query;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("DatabaseBagStore Tests")
+class DatabaseBagStoreTest {
+
+    @SuppressWarnings("unchecked")
+    private final DataOperator<RemoteBagData> operator = mock(DataOperator.class);
+    @SuppressWarnings("unchecked")
+    private final Query<RemoteBagData> query = mock(Query.class);
+    private final List<String> errors = new ArrayList<>();
+    private final UUID playerUuid = UUID.randomUUID();
+
+    private DatabaseBagStore store;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(operator.query()).thenReturn(query);
+        lenient().when(query.where(anyString())).thenReturn(query);
+        lenient().when(query.eq(any())).thenReturn(query);
+        store = new DatabaseBagStore(operator, (message, error) -> errors.add(message));
+    }
+
+    @Test
+    @DisplayName("Should query a bag by player")
+    void findsBag() {
+        RemoteBagData row = RemoteBagData.create(playerUuid, 1, "a");
+        when(query.list()).thenReturn(Collections.singletonList(row));
+
+        assertThat(store.findBag(playerUuid)).containsExactly(row);
+        verify(query).where("player_uuid");
+        verify(query).eq(playerUuid.toString());
+        verify(query, never()).where("page_number");
+    }
+
+    @Test
+    @DisplayName("Should query a page by player and page number")
+    void findsPage() {
+        when(query.list()).thenReturn(Collections.emptyList());
+
+        assertThat(store.findPage(playerUuid, 4)).isEmpty();
+        verify(query).where("page_number");
+        verify(query).eq(4);
+    }
+
+    @Test
+    @DisplayName("Should pass writes to the data operator")
+    void writes() throws Exception {
+        RemoteBagData row = RemoteBagData.create(playerUuid, 1, "a");
+        row.setId(7);
+
+        store.insert(row);
+        assertThat(store.update(row)).isTrue();
+        store.delete(7);
+
+        verify(operator).insert(row);
+        verify(operator).update(row);
+        verify(operator).delById(7);
+        assertThat(errors).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should report failed updates")
+    void reportsFailedUpdate() throws Exception {
+        doThrow(new IllegalAccessException("denied")).when(operator).update(any(RemoteBagData.class));
+
+        assertThat(store.update(RemoteBagData.create(playerUuid, 1, "a"))).isFalse();
+        assertThat(errors).containsExactly("Failed to update bag data");
+    }
+}
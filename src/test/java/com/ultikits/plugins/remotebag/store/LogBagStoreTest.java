@@ -0,0 +1,257 @@
+package com.ultikits.plugins.remotebag.store;
+
+import com.ultikits.plugins.remotebag.entity.RemoteBagData;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("LogBagStore Tests")
+class LogBagStoreTest {
+
+    @TempDir
+    Path folder;
+
+    private LogBagStore store;
+    private final UUID playerUuid = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private LogBagStore open() throws Exception {
+        LogBagStore created = new LogBagStore(folder, 4096, (message, error) -> fail(message, error));
+        created.open();
+        return created;
+    }
+
+    private LogBagStore reopen() throws Exception {
+        store.close();
+        store = open();
+        return store;
+    }
+
+    private RemoteBagData insert(int page, String contents) {
+        RemoteBagData data = RemoteBagData.create(playerUuid, page, contents);
+        store.insert(data);
+        return data;
+    }
+
+    private static String filler(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append('x');
+        }
+        return builder.toString();
+    }
+
+    @Nested
+    @DisplayName("Reads and Writes")
+    class ReadsAndWrites {
+
+        @Test
+        @DisplayName("Should round trip every column")
+        void roundTrip() {
+            RemoteBagData data = RemoteBagData.create(playerUuid, 3, "contents-é");
+            data.setItemCount(12);
+            data.setStackCount(2);
+            data.setPreview("STONE:10");
+            data.setDeltaSeq(42L);
+            store.insert(data);
+
+            List<RemoteBagData> rows = store.findPage(playerUuid, 3);
+
+            assertThat(rows).hasSize(1);
+            RemoteBagData row = rows.get(0);
+            assertThat(row.getId()).isEqualTo(data.getId());
+            assertThat(row.getPlayerUuid()).isEqualTo(playerUuid.toString());
+            assertThat(row.getContents()).isEqualTo("contents-é");
+            assertThat(row.getLastUpdated()).isEqualTo(data.getLastUpdated());
+            assertThat(row.getItemCount()).isEqualTo(12);
+            assertThat(row.getStackCount()).isEqualTo(2);
+            assertThat(row.getPreview()).isEqualTo("STONE:10");
+            assertThat(row.getDeltaSeq()).isEqualTo(42L);
+        }
+
+        @Test
+        @DisplayName("Should assign increasing ids")
+        void assignsIds() {
+            RemoteBagData first = insert(1, "a");
+            RemoteBagData second = insert(2, "b");
+
+            assertThat(first.getId()).isNotNull();
+            assertThat(second.getId()).isGreaterThan(first.getId());
+        }
+
+        @Test
+        @DisplayName("Should return the latest version of each page")
+        void latestWins() {
+            RemoteBagData data = insert(1, "old");
+            insert(2, "other");
+            data.setContents("new");
+
+            assertThat(store.update(data)).isTrue();
+
+            assertThat(store.findPage(playerUuid, 1)).extracting(RemoteBagData::getContents).containsExactly("new");
+            assertThat(store.findBag(playerUuid)).hasSize(2);
+            assertThat(store.findBag(UUID.randomUUID())).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should delete rows by id")
+        void deletes() {
+            RemoteBagData data = insert(1, "a");
+            insert(2, "b");
+
+            store.delete(data.getId());
+            store.delete(999);
+
+            assertThat(store.findPage(playerUuid, 1)).isEmpty();
+            assertThat(store.findBag(playerUuid)).extracting(RemoteBagData::getPageNumber).containsExactly(2);
+        }
+
+        @Test
+        @DisplayName("Should reject updates without an id")
+        void rejectsUpdateWithoutId() throws Exception {
+            store.close();
+            store = new LogBagStore(folder, 4096, (message, error) -> { });
+            store.open();
+
+            assertThat(store.update(RemoteBagData.create(playerUuid, 1, "a"))).isFalse();
+            assertThat(store.getPageCount()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Recovery")
+    class Recovery {
+
+        @Test
+        @DisplayName("Should rebuild the index on reopen")
+        void rebuildsIndex() throws Exception {
+            RemoteBagData updated = insert(1, "old");
+            RemoteBagData deleted = insert(2, "gone");
+            insert(3, "kept");
+            updated.setContents("new");
+            store.update(updated);
+            store.delete(deleted.getId());
+
+            reopen();
+
+            assertThat(store.findBag(playerUuid).stream()
+                    .collect(Collectors.toMap(RemoteBagData::getPageNumber, RemoteBagData::getContents)))
+                    .containsOnlyKeys(1, 3)
+                    .containsEntry(1, "new")
+                    .containsEntry(3, "kept");
+            assertThat(insert(4, "next").getId()).isGreaterThan(deleted.getId());
+        }
+
+        @Test
+        @DisplayName("Should ignore a torn record at the end of the log")
+        void ignoresTornTail() throws Exception {
+            RemoteBagData data = insert(1, "first");
+            long end = store.getWrittenBytes();
+            data.setContents("second");
+            store.update(data);
+            store.close();
+
+            // 模拟写了一半的记录：长度和校验不匹配
+            try (FileChannel channel = FileChannel.open(folder.resolve("segment-1.log"), StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[]{9, 9, 9}), end + 10);
+            }
+            store = open();
+
+            assertThat(store.findPage(playerUuid, 1)).extracting(RemoteBagData::getContents).containsExactly("first");
+            assertThat(store.getWrittenBytes()).isEqualTo(end);
+
+            data.setContents("third");
+            store.update(data);
+            reopen();
+
+            assertThat(store.findPage(playerUuid, 1)).extracting(RemoteBagData::getContents).containsExactly("third");
+        }
+    }
+
+    @Nested
+    @DisplayName("Compaction")
+    class Compaction {
+
+        @Test
+        @DisplayName("Should roll over to new segments when full")
+        void rollsSegments() {
+            RemoteBagData data = insert(1, "a");
+            for (int i = 0; i < 100; i++) {
+                data.setContents(i + filler(200));
+                store.update(data);
+            }
+
+            assertThat(store.getSegmentCount()).isGreaterThan(1);
+            assertThat(store.findPage(playerUuid, 1)).extracting(RemoteBagData::getContents).containsExactly(99 + filler(200));
+        }
+
+        @Test
+        @DisplayName("Should delete old segments once most bytes are dead")
+        void compactsOldSegments() throws Exception {
+            RemoteBagData first = insert(1, "a");
+            RemoteBagData second = insert(2, "b");
+            RemoteBagData removed = insert(3, "c");
+            for (int i = 0; i < 100; i++) {
+                RemoteBagData data = i % 2 == 0 ? first : second;
+                data.setContents(i + filler(200));
+                store.update(data);
+            }
+            store.delete(removed.getId());
+            int segments = store.getSegmentCount();
+            long written = store.getWrittenBytes();
+
+            store.compact();
+
+            assertThat(store.getCompactCount()).isPositive();
+            assertThat(store.getSegmentCount()).isLessThan(segments);
+            assertThat(store.getWrittenBytes()).isLessThan(written);
+            try (Stream<Path> files = Files.list(folder)) {
+                assertThat(files.count()).isEqualTo(store.getSegmentCount());
+            }
+
+            reopen();
+
+            assertThat(store.findBag(playerUuid).stream()
+                    .collect(Collectors.toMap(RemoteBagData::getPageNumber, RemoteBagData::getContents)))
+                    .containsOnlyKeys(1, 2)
+                    .containsEntry(1, 98 + filler(200))
+                    .containsEntry(2, 99 + filler(200));
+        }
+
+        @Test
+        @DisplayName("Should not compact while most bytes are live")
+        void keepsLiveSegments() throws Exception {
+            for (int page = 1; page <= 40; page++) {
+                insert(page, filler(200));
+            }
+            int segments = store.getSegmentCount();
+
+            store.compact();
+
+            assertThat(store.getCompactCount()).isZero();
+            assertThat(store.getSegmentCount()).isEqualTo(segments);
+            assertThat(store.getPageCount()).isEqualTo(40);
+        }
+    }
+}